@@ -9,5 +9,21 @@ public enum AlgoritmoDispersor {
     /** Algoritmo de Bob Jenkins para cadenas. */
     BJ_STRING,
     /** Algoritmo de Daniel J. Bernstein para cadenas. */
-    DJB_STRING;
+    DJB_STRING,
+    /** Algoritmo xxHash64 para cadenas, de 64 bits. */
+    XXH64_STRING,
+    /** Algoritmo MurmurHash3 x64_128 para cadenas, truncado a 64 bits. */
+    MURMUR3_STRING,
+    /** Algoritmo wyhash para cadenas, de 64 bits. */
+    WYHASH_STRING;
+
+    /**
+     * Nos dice si el algoritmo es de 64 bits.
+     * @return <code>true</code> si el algoritmo es de 64 bits,
+     *         <code>false</code> si es de 32.
+     */
+    public boolean esLargo() {
+        return this == XXH64_STRING || this == MURMUR3_STRING ||
+            this == WYHASH_STRING;
+    }
 }
@@ -0,0 +1,1113 @@
+package mx.unam.ciencias.edd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Clase para almacenes persistentes de llaves y valores estructurados
+ * como bitácora con mezclas (<em>log-structured merge tree</em>). Las
+ * escrituras van a un registro de escritura anticipada y a una memoria
+ * ordenada, un {@link ArbolRojinegro}; cuando la memoria se llena, se vuelca
+ * a una corrida: un archivo inmutable con los registros ordenados por
+ * llave, un índice disperso con la primera llave de cada bloque de {@link
+ * #REGISTROS_POR_BLOQUE} registros, y un filtro de Bloom dispersado con
+ * {@link Dispersores#dispersaBJ(byte[])} y {@link
+ * Dispersores#dispersaDJB(byte[])}.</p>
+ *
+ * <p>Una búsqueda revisa la memoria y luego las corridas de la más nueva a
+ * la más vieja; de cada corrida cuyo filtro admite la llave lee un solo
+ * bloque. Eliminar escribe una lápida, que oculta a la llave en las
+ * corridas más viejas.</p>
+ *
+ * <p>Un hilo en el fondo compacta las corridas por niveles de tamaño:
+ * cuando hay {@link #CORRIDAS_POR_NIVEL} corridas consecutivas del mismo
+ * nivel, las mezcla en una sola. Cada corrida cubre un rango de números de
+ * secuencia, y la mezcla se publica renombrando el archivo; si el proceso
+ * muere antes de borrar las corridas mezcladas, al abrir el almacén se
+ * descartan porque la mezcla cubre sus rangos.</p>
+ *
+ * <p>Los métodos del almacén están sincronizados; la compactación sólo toma
+ * el candado para elegir qué corridas mezclar y para publicar la mezcla.
+ * Las escrituras llegan al sistema operativo antes de regresar, así que
+ * sobreviven a una caída del proceso; para sobrevivir también a una caída
+ * del sistema hay que llamar {@link #sincroniza}.</p>
+ */
+public class AlmacenLSM<K extends Comparable<K>, V> {
+
+    /* Registro de la memoria: una llave con su valor, o con una lápida. */
+    private class Registro implements Comparable<Registro> {
+
+        /* La llave. */
+        public K llave;
+        /* El valor, o null si es una lápida. */
+        public V valor;
+
+        /* Construye un nuevo registro. */
+        public Registro(K llave, V valor) {
+            this.llave = llave;
+            this.valor = valor;
+        }
+
+        /* Compara por llave. */
+        @Override public int compareTo(Registro registro) {
+            return this.llave.compareTo(registro.llave);
+        }
+    }
+
+    /* Clase interna privada para corridas. */
+    private class Corrida {
+
+        /* El archivo de la corrida. */
+        public Path archivo;
+        /* El canal para leer bloques. */
+        public FileChannel canal;
+        /* El rango de números de secuencia que cubre. */
+        public long primera;
+        public long ultima;
+        /* Número de registros. */
+        public int registros;
+        /* La primera llave de cada bloque. */
+        public Object[] indice;
+        /* La posición de cada bloque, y al final el fin de los bloques. */
+        public long[] posiciones;
+        /* El filtro de Bloom. */
+        public FiltroBloom filtro;
+
+        /* Abre la corrida del archivo. */
+        public Corrida(Path archivo, long primera, long ultima)
+            throws IOException {
+            this.archivo = archivo;
+            this.primera = primera;
+            this.ultima = ultima;
+            this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+            try {
+                leeIndice();
+            } catch (IOException | RuntimeException e) {
+                this.canal.close();
+                throw e;
+            }
+        }
+
+        /* Lee el pie, el índice y el filtro de la corrida. */
+        private void leeIndice() throws IOException {
+            long tamanio = this.canal.size();
+            if (tamanio < ENCABEZADO + PIE) {
+                throw new IOException("Corrida inválida: " + archivo);
+            }
+            ByteBuffer b = lee(this.canal, 0, ENCABEZADO);
+            if (b.getLong() != MAGIA_CORRIDA || b.getInt() != VERSION) {
+                throw new IOException("Corrida inválida: " + archivo);
+            }
+            b = lee(this.canal, tamanio - PIE, PIE);
+            long posIndice = b.getLong();
+            this.registros = b.getInt();
+            int crc = b.getInt();
+            if (posIndice < ENCABEZADO || posIndice > tamanio - PIE) {
+                throw new IOException("Corrida inválida: " + archivo);
+            }
+            b = lee(this.canal, posIndice, (int)(tamanio - PIE - posIndice));
+            CRC32 c = new CRC32();
+            c.update(b.array());
+            if ((int)c.getValue() != crc) {
+                throw new IOException("Corrida corrupta: " + archivo);
+            }
+            try {
+                int bloques = b.getInt();
+                this.indice = new Object[bloques];
+                this.posiciones = new long[bloques + 1];
+                for (int i = 0; i < bloques; i++) {
+                    this.indice[i] = decodificaLlave(b);
+                    this.posiciones[i] = b.getLong();
+                }
+                this.posiciones[bloques] = posIndice;
+                int funciones = b.getInt();
+                long[] bits = new long[b.getInt()];
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] = b.getLong();
+                }
+                this.filtro = new FiltroBloom(bits, funciones);
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                throw new IOException("Corrida corrupta: " + archivo);
+            }
+        }
+
+        /* Busca la llave en la corrida; regresa su valor, LAPIDA si está
+           eliminada, o null si la corrida no la tiene. */
+        public Object busca(K llave, byte[] bytes) throws IOException {
+            if (!this.filtro.puedeContener(bytes)) {
+                return null;
+            }
+            /* El último bloque cuya primera llave es menor o igual. */
+            int a = 0, b = this.indice.length;
+            while (a < b) {
+                int c = (a + b) >>> 1;
+                if (llave(this.indice[c]).compareTo(llave) <= 0) {
+                    a = c + 1;
+                } else {
+                    b = c;
+                }
+            }
+            if (a == 0) {
+                return null;
+            }
+            long inicio = this.posiciones[a - 1];
+            ByteBuffer bloque = lee(this.canal, inicio,
+                                    (int)(this.posiciones[a] - inicio));
+            bloquesLeidos++;
+            while (bloque.hasRemaining()) {
+                byte tipo = bloque.get();
+                int c = decodificaLlave(bloque).compareTo(llave);
+                int longitud = bloque.getInt();
+                if (c > 0) {
+                    return null;
+                }
+                if (c == 0) {
+                    return tipo == LAPIDA_TIPO ? LAPIDA :
+                        codificadorValores.decodifica(bloque.array(),
+                                                      bloque.position(),
+                                                      longitud);
+                }
+                bloque.position(bloque.position() + longitud);
+            }
+            return null;
+        }
+
+        /* Decodifica una llave precedida por su longitud. */
+        private K decodificaLlave(ByteBuffer b) {
+            int longitud = b.getInt();
+            if (longitud < 0 || longitud > b.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            K llave = codificadorLlaves.decodifica(b.array(), b.position(),
+                                                    longitud);
+            b.position(b.position() + longitud);
+            return llave;
+        }
+    }
+
+    /* Clase interna privada para leer una corrida de principio a fin. */
+    private class LectorCorrida {
+
+        /* La entrada. */
+        private DataInputStream entrada;
+        /* Registros que faltan por leer. */
+        private int restantes;
+        /* El registro actual. */
+        public K llave;
+        public byte[] bytesLlave;
+        public byte[] bytesValor;
+
+        /* Abre el lector y lee el primer registro. */
+        public LectorCorrida(Corrida corrida) throws IOException {
+            this.entrada = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(corrida.archivo), 1 << 16));
+            this.entrada.readLong();
+            this.entrada.readInt();
+            this.restantes = corrida.registros;
+            avanza();
+        }
+
+        /* Lee el siguiente registro; la llave queda en null al terminar. */
+        public void avanza() throws IOException {
+            if (this.restantes-- == 0) {
+                this.llave = null;
+                this.entrada.close();
+                return;
+            }
+            byte tipo = this.entrada.readByte();
+            this.bytesLlave = new byte[this.entrada.readInt()];
+            this.entrada.readFully(this.bytesLlave);
+            this.llave = codificadorLlaves.decodifica(this.bytesLlave, 0,
+                                                      this.bytesLlave.length);
+            byte[] valor = new byte[this.entrada.readInt()];
+            this.entrada.readFully(valor);
+            this.bytesValor = tipo == LAPIDA_TIPO ? null : valor;
+        }
+
+        /* Cierra el lector. */
+        public void cierra() throws IOException {
+            this.entrada.close();
+        }
+    }
+
+    /* Clase interna privada para escribir una corrida. */
+    private static class EscritorCorrida {
+
+        /* El archivo temporal. */
+        private Path temporal;
+        /* El flujo del archivo, para sincronizarlo. */
+        private FileOutputStream flujo;
+        /* La salida. */
+        private DataOutputStream salida;
+        /* La posición actual en el archivo. */
+        private long posicion;
+        /* Número de registros escritos. */
+        private int registros;
+        /* El índice, que se escribe al final. */
+        private ByteArrayOutputStream bytesIndice;
+        private DataOutputStream indice;
+        private int bloques;
+        /* El filtro de Bloom. */
+        private FiltroBloom filtro;
+
+        /* Crea el archivo temporal de una corrida de a lo más n
+           registros. */
+        public EscritorCorrida(Path temporal, int n) throws IOException {
+            this.temporal = temporal;
+            this.flujo = new FileOutputStream(temporal.toFile());
+            this.salida = new DataOutputStream(
+                new BufferedOutputStream(this.flujo, 1 << 16));
+            this.salida.writeLong(MAGIA_CORRIDA);
+            this.salida.writeInt(VERSION);
+            this.posicion = ENCABEZADO;
+            this.bytesIndice = new ByteArrayOutputStream();
+            this.indice = new DataOutputStream(this.bytesIndice);
+            this.filtro = new FiltroBloom(n);
+        }
+
+        /* Escribe un registro; los registros llegan ordenados por llave. Un
+           valor null es una lápida. */
+        public void escribe(byte[] llave, byte[] valor) throws IOException {
+            if (this.registros++ % REGISTROS_POR_BLOQUE == 0) {
+                this.indice.writeInt(llave.length);
+                this.indice.write(llave);
+                this.indice.writeLong(this.posicion);
+                this.bloques++;
+            }
+            this.filtro.agrega(llave);
+            this.salida.writeByte(valor == null ? LAPIDA_TIPO : VALOR_TIPO);
+            this.salida.writeInt(llave.length);
+            this.salida.write(llave);
+            int longitud = valor == null ? 0 : valor.length;
+            this.salida.writeInt(longitud);
+            if (valor != null) {
+                this.salida.write(valor);
+            }
+            this.posicion += 9 + llave.length + longitud;
+        }
+
+        /* Escribe el índice, el filtro y el pie, y sincroniza el archivo
+           temporal. */
+        public void termina() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream cola = new DataOutputStream(bytes);
+            cola.writeInt(this.bloques);
+            cola.write(this.bytesIndice.toByteArray());
+            cola.writeInt(this.filtro.funciones);
+            cola.writeInt(this.filtro.bits.length);
+            for (long palabra : this.filtro.bits) {
+                cola.writeLong(palabra);
+            }
+            byte[] b = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(b);
+            this.salida.write(b);
+            this.salida.writeLong(this.posicion);
+            this.salida.writeInt(this.registros);
+            this.salida.writeInt((int)crc.getValue());
+            this.salida.flush();
+            this.flujo.getFD().sync();
+            this.salida.close();
+        }
+
+        /* Cierra y borra el archivo temporal. */
+        public void descarta() {
+            try {
+                this.salida.close();
+                Files.deleteIfExists(this.temporal);
+            } catch (IOException ioe) {}
+        }
+    }
+
+    /* Clase interna privada para filtros de Bloom. */
+    private static class FiltroBloom {
+
+        /* Los bits del filtro. */
+        public long[] bits;
+        /* Número de funciones de dispersión. */
+        public int funciones;
+
+        /* Crea un filtro vacío para n llaves. */
+        public FiltroBloom(int n) {
+            long m = Math.max(64, (long)n * BITS_POR_LLAVE);
+            this.bits = new long[(int)((m + 63) / 64)];
+            this.funciones = FUNCIONES_BLOOM;
+        }
+
+        /* Crea un filtro con los bits dados. */
+        public FiltroBloom(long[] bits, int funciones) {
+            this.bits = bits;
+            this.funciones = funciones;
+        }
+
+        /* Agrega una llave al filtro. Las funciones se derivan de dos
+           dispersiones, como g(i) = h1 + i h2. */
+        public void agrega(byte[] llave) {
+            long m = 64L * this.bits.length;
+            int h1 = Dispersores.dispersaBJ(llave);
+            int h2 = Dispersores.dispersaDJB(llave) | 1;
+            for (int i = 0; i < this.funciones; i++) {
+                long p = Integer.toUnsignedLong(h1 + i * h2) % m;
+                this.bits[(int)(p >>> 6)] |= 1L << p;
+            }
+        }
+
+        /* Nos dice si el filtro puede contener a la llave. */
+        public boolean puedeContener(byte[] llave) {
+            long m = 64L * this.bits.length;
+            int h1 = Dispersores.dispersaBJ(llave);
+            int h2 = Dispersores.dispersaDJB(llave) | 1;
+            for (int i = 0; i < this.funciones; i++) {
+                long p = Integer.toUnsignedLong(h1 + i * h2) % m;
+                if ((this.bits[(int)(p >>> 6)] & (1L << p)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Capacidad predeterminada de la memoria, en registros. */
+    public static final int CAPACIDAD_MEMORIA = 1 << 16;
+
+    /** Número de registros por bloque del índice disperso. */
+    public static final int REGISTROS_POR_BLOQUE = 16;
+
+    /** Número de corridas de un nivel que disparan una compactación. */
+    public static final int CORRIDAS_POR_NIVEL = 4;
+
+    /* Bits por llave y funciones de los filtros de Bloom; con 10 bits y 7
+       funciones los falsos positivos son menos del 1%. */
+    private static final int BITS_POR_LLAVE = 10;
+    private static final int FUNCIONES_BLOOM = 7;
+
+    /* Identificadores de las corridas ("EDDCORRI") y los registros de
+       escritura anticipada ("EDDBITAC"). */
+    private static final long MAGIA_CORRIDA = 0x454444434f525249L;
+    private static final long MAGIA_BITACORA = 0x4544444249544143L;
+
+    /* Versión del formato de los archivos. */
+    private static final int VERSION = 1;
+
+    /* Tamaño del encabezado y del pie de las corridas. */
+    private static final int ENCABEZADO = 12;
+    private static final int PIE = 16;
+
+    /* Tipos de registro. */
+    private static final byte VALOR_TIPO = 0;
+    private static final byte LAPIDA_TIPO = 1;
+
+    /* Lo que regresa una búsqueda que encuentra una lápida. */
+    private static final Object LAPIDA = new Object();
+
+    /* El directorio del almacén. */
+    private Path directorio;
+    /* Los codificadores. */
+    private Codificador<K> codificadorLlaves;
+    private Codificador<V> codificadorValores;
+    /* La capacidad de la memoria. */
+    private int capacidadMemoria;
+    /* La memoria. */
+    private ArbolRojinegro<Registro> memoria;
+    /* El rango de números de secuencia de la memoria; el último es el del
+       registro de escritura anticipada actual. */
+    private long primeraMemoria;
+    private long secuencia;
+    /* El registro de escritura anticipada. */
+    private FileOutputStream flujoBitacora;
+    private DataOutputStream bitacora;
+    /* Las corridas, de la más vieja a la más nueva. */
+    private Corrida[] corridas;
+    /* El hilo de compactación. */
+    private ExecutorService compactador;
+    /* La falla de la última compactación, si falló: una IOException o una
+       RuntimeException, como la de un codificador. */
+    private Exception falla;
+    /* Si el almacén está cerrado. */
+    private boolean cerrado;
+    /* Estadísticas. */
+    private long busquedasEnCorridas;
+    private long bloquesLeidos;
+    private int compactaciones;
+
+    /**
+     * Abre el almacén del directorio, o lo crea si no existe, con la
+     * capacidad de memoria predeterminada.
+     * @param directorio el directorio del almacén.
+     * @param codificadorLlaves el codificador de las llaves.
+     * @param codificadorValores el codificador de los valores.
+     * @throws IOException si ocurre un error de entrada/salida, o alguna
+     *         corrida no es válida.
+     */
+    public AlmacenLSM(Path directorio, Codificador<K> codificadorLlaves,
+                      Codificador<V> codificadorValores) throws IOException {
+        this(directorio, codificadorLlaves, codificadorValores,
+             CAPACIDAD_MEMORIA);
+    }
+
+    /**
+     * Abre el almacén del directorio, o lo crea si no existe. Los registros
+     * de escritura anticipada que quedaron de una ejecución anterior se
+     * vuelcan a una corrida.
+     * @param directorio el directorio del almacén.
+     * @param codificadorLlaves el codificador de las llaves.
+     * @param codificadorValores el codificador de los valores.
+     * @param capacidadMemoria el número de registros de la memoria a partir
+     *        del cual se vuelca a una corrida.
+     * @throws IOException si ocurre un error de entrada/salida, o alguna
+     *         corrida no es válida.
+     * @throws IllegalArgumentException si la capacidad es menor que 1.
+     */
+    public AlmacenLSM(Path directorio, Codificador<K> codificadorLlaves,
+                      Codificador<V> codificadorValores,
+                      int capacidadMemoria) throws IOException {
+        if (capacidadMemoria < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.directorio = directorio;
+        this.codificadorLlaves = codificadorLlaves;
+        this.codificadorValores = codificadorValores;
+        this.capacidadMemoria = capacidadMemoria;
+        this.memoria = new ArbolRojinegro<Registro>();
+        this.compactador = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "compactador-lsm");
+                t.setDaemon(true);
+                return t;
+            });
+        Files.createDirectories(directorio);
+        abreCorridas();
+        long ultima = this.corridas.length == 0 ? 0 :
+            this.corridas[this.corridas.length - 1].ultima;
+        this.primeraMemoria = this.secuencia = ultima + 1;
+        long[] bitacoras = secuencias("bitacora-", ".wal");
+        for (long s : bitacoras) {
+            Path archivo = archivoBitacora(s);
+            if (s <= ultima) {
+                Files.delete(archivo);
+                continue;
+            }
+            if (this.memoria.esVacia()) {
+                this.primeraMemoria = s;
+            }
+            this.secuencia = s;
+            reproduce(archivo);
+        }
+        /* Lo reproducido ya está en una corrida; se borran todos los
+           registros de escritura anticipada, incluso los vacíos. */
+        if (!this.memoria.esVacia()) {
+            vuelcaMemoria();
+        }
+        for (long s : bitacoras) {
+            Files.deleteIfExists(archivoBitacora(s));
+        }
+        if (this.bitacora == null) {
+            this.primeraMemoria = this.secuencia;
+            abreBitacora();
+        }
+        this.compactador.submit(this::compacta);
+    }
+
+    /* Truco para crear un arreglo genérico de corridas. */
+    @SuppressWarnings("unchecked") private Corrida[] nuevasCorridas(int n) {
+        return (Corrida[])Array.newInstance(Corrida.class, n);
+    }
+
+    /* Regresa la llave de un objeto del índice. */
+    @SuppressWarnings("unchecked") private K llave(Object o) {
+        return (K)o;
+    }
+
+    /* Lee un bloque de un canal. */
+    private static ByteBuffer lee(FileChannel canal, long posicion,
+                                  int longitud) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(longitud);
+        while (b.hasRemaining()) {
+            if (canal.read(b, posicion + b.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        b.flip();
+        return b;
+    }
+
+    /* Regresa el archivo de la corrida del rango. */
+    private Path archivoCorrida(long primera, long ultima) {
+        return this.directorio.resolve(String.format("corrida-%016x-%016x.lsm",
+                                                     primera, ultima));
+    }
+
+    /* Regresa el archivo del registro de escritura anticipada. */
+    private Path archivoBitacora(long secuencia) {
+        return this.directorio.resolve(String.format("bitacora-%016x.wal",
+                                                     secuencia));
+    }
+
+    /* Regresa los números de secuencia de los archivos con el prefijo y el
+       sufijo, ordenados; borra los temporales. */
+    private long[] secuencias(String prefijo, String sufijo)
+        throws IOException {
+        long[] s = new long[16];
+        int n = 0;
+        try (DirectoryStream<Path> archivos =
+             Files.newDirectoryStream(this.directorio)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(".tmp")) {
+                    Files.delete(archivo);
+                    continue;
+                }
+                if (!nombre.startsWith(prefijo) || !nombre.endsWith(sufijo)) {
+                    continue;
+                }
+                if (n == s.length) {
+                    s = Arrays.copyOf(s, 2 * n);
+                }
+                s[n++] = Long.parseUnsignedLong(nombre.substring(
+                    nombre.length() - sufijo.length() - 16,
+                    nombre.length() - sufijo.length()), 16);
+            }
+        }
+        s = Arrays.copyOf(s, n);
+        Arrays.sort(s);
+        return s;
+    }
+
+    /* Abre las corridas del directorio, y borra las que cubre otra. */
+    private void abreCorridas() throws IOException {
+        long[] primeras = new long[16], ultimas = new long[16];
+        int n = 0;
+        try (DirectoryStream<Path> archivos =
+             Files.newDirectoryStream(this.directorio, "corrida-*.lsm")) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (n == primeras.length) {
+                    primeras = Arrays.copyOf(primeras, 2 * n);
+                    ultimas = Arrays.copyOf(ultimas, 2 * n);
+                }
+                primeras[n] = Long.parseUnsignedLong(nombre.substring(8, 24),
+                                                     16);
+                ultimas[n++] = Long.parseUnsignedLong(nombre.substring(25,
+                                                                       41),
+                                                      16);
+            }
+        }
+        /* Ordenadas por su primera secuencia, y las más amplias primero. */
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        final long[] p = primeras, u = ultimas;
+        Arrays.sort(orden, (a, b) -> p[a] != p[b] ? Long.compare(p[a], p[b]) :
+                    Long.compare(u[b], u[a]));
+        this.corridas = nuevasCorridas(0);
+        long cubierta = 0;
+        for (int i : orden) {
+            if (ultimas[i] <= cubierta) {
+                Files.delete(archivoCorrida(primeras[i], ultimas[i]));
+                continue;
+            }
+            cubierta = ultimas[i];
+            Corrida c = new Corrida(archivoCorrida(primeras[i], ultimas[i]),
+                                    primeras[i], ultimas[i]);
+            this.corridas = Arrays.copyOf(this.corridas,
+                                          this.corridas.length + 1);
+            this.corridas[this.corridas.length - 1] = c;
+        }
+    }
+
+    /* Abre un registro de escritura anticipada nuevo. */
+    private void abreBitacora() throws IOException {
+        this.flujoBitacora =
+            new FileOutputStream(archivoBitacora(this.secuencia).toFile());
+        this.bitacora = new DataOutputStream(
+            new BufferedOutputStream(this.flujoBitacora, 1 << 16));
+        this.bitacora.writeLong(MAGIA_BITACORA);
+        this.bitacora.writeInt(VERSION);
+        this.bitacora.flush();
+    }
+
+    /* Reproduce un registro de escritura anticipada en la memoria, hasta el
+       primer registro incompleto o corrupto. */
+    private void reproduce(Path archivo) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        if (b.remaining() < ENCABEZADO || b.getLong() != MAGIA_BITACORA ||
+            b.getInt() != VERSION) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        while (b.remaining() >= 13) {
+            int inicio = b.position();
+            byte tipo = b.get();
+            int l = b.getInt();
+            if (l < 0 || l > b.remaining() - 8) {
+                return;
+            }
+            int posLlave = b.position();
+            b.position(posLlave + l);
+            int v = b.getInt();
+            if (v < 0 || v > b.remaining() - 4) {
+                return;
+            }
+            int posValor = b.position();
+            b.position(posValor + v);
+            crc.reset();
+            crc.update(b.array(), inicio, b.position() - inicio);
+            if ((int)crc.getValue() != b.getInt()) {
+                return;
+            }
+            K llave = this.codificadorLlaves.decodifica(b.array(), posLlave,
+                                                        l);
+            V valor = tipo == LAPIDA_TIPO ? null :
+                this.codificadorValores.decodifica(b.array(), posValor, v);
+            escribeEnMemoria(llave, valor);
+        }
+    }
+
+    /* Escribe un registro en la memoria. */
+    private void escribeEnMemoria(K llave, V valor) {
+        Registro registro = new Registro(llave, valor);
+        VerticeArbolBinario<Registro> vertice = this.memoria.busca(registro);
+        if (vertice != null) {
+            vertice.get().valor = valor;
+        } else {
+            this.memoria.agrega(registro);
+        }
+    }
+
+    /* Verifica que el almacén no esté cerrado, y que la compactación no
+       haya fallado. */
+    private void verificaAbierto() throws IOException {
+        if (this.cerrado) {
+            throw new IllegalStateException("Almacén cerrado");
+        }
+        if (this.falla != null) {
+            throw new IOException("Falló la compactación", this.falla);
+        }
+    }
+
+    /* Escribe un registro; un valor null es una lápida. */
+    private synchronized void escribe(K llave, V valor) throws IOException {
+        verificaAbierto();
+        byte[] l = this.codificadorLlaves.codifica(llave);
+        byte[] v = valor == null ? new byte[0] :
+            this.codificadorValores.codifica(valor);
+        ByteBuffer b = ByteBuffer.allocate(13 + l.length + v.length);
+        b.put(valor == null ? LAPIDA_TIPO : VALOR_TIPO).putInt(l.length)
+            .put(l).putInt(v.length).put(v);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int)crc.getValue());
+        this.bitacora.write(b.array());
+        this.bitacora.flush();
+        escribeEnMemoria(llave, valor);
+        if (this.memoria.getElementos() >= this.capacidadMemoria) {
+            vuelcaMemoria();
+        }
+    }
+
+    /**
+     * Agrega un nuevo valor al almacén, usando la llave proporcionada. Si
+     * la llave ya estaba en el almacén, su valor se reemplaza.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws IOException si ocurre un error de entrada/salida, o falló la
+     *         compactación.
+     */
+    public void agrega(K llave, V valor) throws IOException {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        escribe(llave, valor);
+    }
+
+    /**
+     * Elimina la llave del almacén. No importa si la llave no está: se
+     * escribe una lápida sin buscarla.
+     * @param llave la llave a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws IOException si ocurre un error de entrada/salida, o falló la
+     *         compactación.
+     */
+    public void elimina(K llave) throws IOException {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        escribe(llave, null);
+    }
+
+    /* Busca la llave en la memoria y en las corridas; regresa su valor,
+       LAPIDA si está eliminada, o null si no está. */
+    private Object busca(K llave) throws IOException {
+        if (this.cerrado) {
+            throw new IllegalStateException("Almacén cerrado");
+        }
+        VerticeArbolBinario<Registro> vertice =
+            this.memoria.busca(new Registro(llave, null));
+        if (vertice != null) {
+            V valor = vertice.get().valor;
+            return valor == null ? LAPIDA : valor;
+        }
+        if (this.corridas.length == 0) {
+            return null;
+        }
+        this.busquedasEnCorridas++;
+        byte[] bytes = this.codificadorLlaves.codifica(llave);
+        for (int i = this.corridas.length - 1; i >= 0; i--) {
+            Object o = this.corridas[i].busca(llave, bytes);
+            if (o != null) {
+                return o;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Regresa el valor del almacén asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws NoSuchElementException si la llave no está en el almacén.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(K llave) throws IOException {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Object o = busca(llave);
+        if (o == null || o == LAPIDA) {
+            throw new NoSuchElementException();
+        }
+        return (V)o;
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el almacén.
+     * @param llave la llave que queremos ver si está en el almacén.
+     * @return <code>true</code> si la llave está en el almacén,
+     *         <code>false</code> en otro caso.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    public synchronized boolean contiene(K llave) throws IOException {
+        if (llave == null) {
+            return false;
+        }
+        Object o = busca(llave);
+        return o != null && o != LAPIDA;
+    }
+
+    /**
+     * Vuelca la memoria a una corrida, aunque no esté llena.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws IOException si ocurre un error de entrada/salida, o falló la
+     *         compactación.
+     */
+    public synchronized void vuelca() throws IOException {
+        verificaAbierto();
+        if (!this.memoria.esVacia()) {
+            vuelcaMemoria();
+        }
+    }
+
+    /* Vuelca la memoria a una corrida, borra sus registros de escritura
+       anticipada, abre uno nuevo y despierta a la compactación. */
+    private void vuelcaMemoria() throws IOException {
+        Path archivo = archivoCorrida(this.primeraMemoria, this.secuencia);
+        Path temporal = archivo.resolveSibling(archivo.getFileName() +
+                                               ".tmp");
+        EscritorCorrida escritor =
+            new EscritorCorrida(temporal, this.memoria.getElementos());
+        try {
+            for (Registro r : this.memoria) {
+                escritor.escribe(this.codificadorLlaves.codifica(r.llave),
+                                 r.valor == null ? null :
+                                 this.codificadorValores.codifica(r.valor));
+            }
+            escritor.termina();
+        } catch (IOException | RuntimeException e) {
+            escritor.descarta();
+            throw e;
+        }
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+        Corrida c = new Corrida(archivo, this.primeraMemoria, this.secuencia);
+        this.corridas = Arrays.copyOf(this.corridas, this.corridas.length + 1);
+        this.corridas[this.corridas.length - 1] = c;
+        if (this.bitacora != null) {
+            this.bitacora.close();
+        }
+        for (long s = this.primeraMemoria; s <= this.secuencia; s++) {
+            Files.deleteIfExists(archivoBitacora(s));
+        }
+        this.memoria = new ArbolRojinegro<Registro>();
+        this.primeraMemoria = ++this.secuencia;
+        abreBitacora();
+        this.compactador.submit(this::compacta);
+    }
+
+    /* Regresa el nivel de una corrida: cuántas veces cabe la capacidad de
+       la memoria multiplicada por CORRIDAS_POR_NIVEL en sus registros. */
+    private int nivel(Corrida c) {
+        int nivel = 0;
+        for (long r = c.registros / this.capacidadMemoria;
+             r >= CORRIDAS_POR_NIVEL; r /= CORRIDAS_POR_NIVEL) {
+            nivel++;
+        }
+        return nivel;
+    }
+
+    /* Regresa el índice de las primeras CORRIDAS_POR_NIVEL corridas
+       consecutivas del mismo nivel, o -1 si no hay. */
+    private int eligeCorridas() {
+        int inicio = 0;
+        for (int i = 1; i < this.corridas.length; i++) {
+            if (nivel(this.corridas[i]) != nivel(this.corridas[inicio])) {
+                inicio = i;
+            }
+            if (i - inicio + 1 == CORRIDAS_POR_NIVEL) {
+                return inicio;
+            }
+        }
+        return -1;
+    }
+
+    /* Compacta mientras haya corridas que mezclar. Corre en el hilo de
+       compactación. */
+    private void compacta() {
+        while (true) {
+            Corrida[] mezcladas;
+            boolean primeras;
+            synchronized (this) {
+                if (this.cerrado || this.falla != null) {
+                    return;
+                }
+                int i = eligeCorridas();
+                if (i == -1) {
+                    return;
+                }
+                mezcladas = Arrays.copyOfRange(this.corridas, i,
+                                               i + CORRIDAS_POR_NIVEL);
+                primeras = i == 0;
+            }
+            try {
+                Corrida c = mezcla(mezcladas, primeras);
+                publica(mezcladas, c);
+            } catch (IOException | RuntimeException e) {
+                /* Una excepción no atrapada se perdería en el Future que
+                   nadie consulta. */
+                synchronized (this) {
+                    this.falla = e;
+                }
+                return;
+            }
+        }
+    }
+
+    /* Mezcla las corridas consecutivas en una nueva; para llaves repetidas
+       gana la corrida más nueva. Si las corridas incluyen a la más vieja,
+       las lápidas ya no ocultan nada y se descartan. */
+    private Corrida mezcla(Corrida[] mezcladas, boolean primeras)
+        throws IOException {
+        long primera = mezcladas[0].primera;
+        long ultima = mezcladas[mezcladas.length - 1].ultima;
+        Path archivo = archivoCorrida(primera, ultima);
+        Path temporal = archivo.resolveSibling(archivo.getFileName() +
+                                               ".tmp");
+        int n = 0;
+        for (Corrida c : mezcladas) {
+            n += c.registros;
+        }
+        @SuppressWarnings("unchecked") LectorCorrida[] lectores =
+            (LectorCorrida[])Array.newInstance(LectorCorrida.class,
+                                               mezcladas.length);
+        EscritorCorrida escritor = new EscritorCorrida(temporal, n);
+        try {
+            for (int i = 0; i < lectores.length; i++) {
+                lectores[i] = new LectorCorrida(mezcladas[i]);
+            }
+            while (true) {
+                /* La menor llave; en empate, la de la corrida más nueva. */
+                int menor = -1;
+                for (int i = 0; i < lectores.length; i++) {
+                    if (lectores[i].llave != null &&
+                        (menor == -1 || lectores[i].llave.compareTo(
+                            lectores[menor].llave) <= 0)) {
+                        menor = i;
+                    }
+                }
+                if (menor == -1) {
+                    break;
+                }
+                LectorCorrida l = lectores[menor];
+                if (l.bytesValor != null || !primeras) {
+                    escritor.escribe(l.bytesLlave, l.bytesValor);
+                }
+                K llave = l.llave;
+                for (LectorCorrida otro : lectores) {
+                    if (otro.llave != null &&
+                        otro.llave.compareTo(llave) == 0) {
+                        otro.avanza();
+                    }
+                }
+            }
+            escritor.termina();
+        } catch (IOException | RuntimeException e) {
+            escritor.descarta();
+            throw e;
+        } finally {
+            for (LectorCorrida l : lectores) {
+                if (l != null) {
+                    l.cierra();
+                }
+            }
+        }
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE);
+        return new Corrida(archivo, primera, ultima);
+    }
+
+    /* Reemplaza las corridas mezcladas por la mezcla, y las cierra y
+       borra. */
+    private synchronized void publica(Corrida[] mezcladas, Corrida mezcla)
+        throws IOException {
+        int i = 0;
+        while (this.corridas[i] != mezcladas[0]) {
+            i++;
+        }
+        Corrida[] nuevas = nuevasCorridas(this.corridas.length -
+                                          mezcladas.length + 1);
+        System.arraycopy(this.corridas, 0, nuevas, 0, i);
+        nuevas[i] = mezcla;
+        System.arraycopy(this.corridas, i + mezcladas.length, nuevas, i + 1,
+                         this.corridas.length - i - mezcladas.length);
+        this.corridas = nuevas;
+        this.compactaciones++;
+        for (Corrida c : mezcladas) {
+            c.canal.close();
+            Files.delete(c.archivo);
+        }
+    }
+
+    /**
+     * Espera a que la compactación en el fondo termine lo que tenga
+     * pendiente.
+     * @throws IOException si falló la compactación.
+     */
+    public void esperaCompactacion() throws IOException {
+        try {
+            this.compactador.submit(() -> {}).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException(ee);
+        }
+        synchronized (this) {
+            if (this.falla != null) {
+                throw new IOException("Falló la compactación", this.falla);
+            }
+        }
+    }
+
+    /**
+     * Escribe al disco el registro de escritura anticipada, para que las
+     * escrituras sobrevivan a una caída del sistema.
+     * @throws IllegalStateException si el almacén está cerrado.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    public synchronized void sincroniza() throws IOException {
+        if (this.cerrado) {
+            throw new IllegalStateException("Almacén cerrado");
+        }
+        this.bitacora.flush();
+        this.flujoBitacora.getFD().sync();
+    }
+
+    /**
+     * Cierra el almacén: espera a que termine la compactación en curso y
+     * cierra los archivos. La memoria no se vuelca; queda en el registro de
+     * escritura anticipada, y se vuelca al abrir de nuevo el almacén.
+     * @throws IOException si ocurre un error al cerrar los archivos.
+     */
+    public void cierra() throws IOException {
+        synchronized (this) {
+            if (this.cerrado) {
+                return;
+            }
+            this.cerrado = true;
+        }
+        this.compactador.shutdown();
+        try {
+            this.compactador.awaitTermination(Long.MAX_VALUE,
+                                              TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            this.bitacora.close();
+            for (Corrida c : this.corridas) {
+                c.canal.close();
+            }
+        }
+    }
+
+    /**
+     * Nos dice si el almacén está cerrado.
+     * @return <code>true</code> si el almacén está cerrado,
+     *         <code>false</code> en otro caso.
+     */
+    public synchronized boolean estaCerrado() {
+        return this.cerrado;
+    }
+
+    /**
+     * Regresa el número de corridas del almacén.
+     * @return el número de corridas del almacén.
+     */
+    public synchronized int getCorridas() {
+        return this.corridas.length;
+    }
+
+    /**
+     * Regresa el número de compactaciones desde que se abrió el almacén.
+     * @return el número de compactaciones.
+     */
+    public synchronized int getCompactaciones() {
+        return this.compactaciones;
+    }
+
+    /**
+     * Regresa la amplificación de lectura: el promedio de bloques leídos del
+     * disco por cada búsqueda que no se resolvió en la memoria. Sin falsos
+     * positivos de los filtros, es a lo más 1.
+     * @return la amplificación de lectura.
+     */
+    public synchronized double amplificacionLectura() {
+        return this.busquedasEnCorridas == 0 ? 0.0 :
+            (double)this.bloquesLeidos / this.busquedasEnCorridas;
+    }
+}
@@ -0,0 +1,43 @@
+package mx.unam.ciencias.edd;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interfaz genérica para codificadores, que convierten objetos en bytes y de
+ * regreso. Se usan para guardar la imagen de un {@link DiccionarioEstatico}.
+ */
+public interface Codificador<T> {
+
+    /**
+     * Codifica el objeto recibido.
+     * @param objeto el objeto que queremos codificar.
+     * @return los bytes del objeto.
+     */
+    public byte[] codifica(T objeto);
+
+    /**
+     * Decodifica un objeto de un rango de un arreglo de bytes.
+     * @param bytes el arreglo con el objeto codificado.
+     * @param inicio el índice del primer byte del objeto.
+     * @param longitud el número de bytes del objeto.
+     * @return el objeto decodificado.
+     */
+    public T decodifica(byte[] bytes, int inicio, int longitud);
+
+    /**
+     * Regresa un codificador de cadenas en UTF-8.
+     * @return un codificador de cadenas en UTF-8.
+     */
+    public static Codificador<String> cadenas() {
+        return new Codificador<String>() {
+            @Override public byte[] codifica(String cadena) {
+                return cadena.getBytes(StandardCharsets.UTF_8);
+            }
+            @Override public String decodifica(byte[] bytes, int inicio,
+                                               int longitud) {
+                return new String(bytes, inicio, longitud,
+                                  StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package mx.unam.ciencias.edd;
+
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Comparativa de la tasa de aciertos de {@link DiccionarioCache} con las
+ * políticas LRU y W-TinyLFU. Se pide una traza de llaves con distribución de
+ * Zipf sobre 100 veces la capacidad del caché, interrumpida cada 10,000
+ * peticiones por un recorrido de llaves que nunca se repiten.
+ */
+public class ComparativaCache {
+
+    /* Número de peticiones de la traza. */
+    private static final int PETICIONES = 2000000;
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaCache N");
+        System.exit(1);
+    }
+
+    /* Genera la traza de peticiones. */
+    private static int[] traza(int N) {
+        int universo = 100 * N;
+        double[] acumulada = new double[universo];
+        double suma = 0.0;
+        for (int i = 0; i < universo; i++) {
+            suma += 1.0 / (i + 1);
+            acumulada[i] = suma;
+        }
+        Random random = new Random(0);
+        int[] traza = new int[PETICIONES];
+        int recorrido = universo;
+        for (int i = 0; i < PETICIONES; i++) {
+            if (i % 10000 < 2 * N && i % 10000 < 5000) {
+                traza[i] = recorrido++;
+                continue;
+            }
+            int j = Arrays.binarySearch(acumulada, random.nextDouble() * suma);
+            traza[i] = j < 0 ? -j - 1 : j;
+        }
+        return traza;
+    }
+
+    /* Pide la traza al caché con la política, e imprime los resultados. */
+    private static void mide(int[] traza, int N,
+                             DiccionarioCache.Politica politica) {
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        DiccionarioCache<Integer, Integer> cache =
+            new DiccionarioCache<Integer, Integer>(N, politica);
+        long tiempoInicial = System.nanoTime();
+        for (int llave : traza)
+            cache.get(llave, l -> l);
+        long tiempoTotal = System.nanoTime() - tiempoInicial;
+        System.out.printf("%s: %2.9f segundos en %s peticiones; " +
+                          "tasa de aciertos %2.4f, %s desalojos.\n", politica,
+                          (tiempoTotal/1000000000.0), nf.format(traza.length),
+                          cache.tasaAciertos(),
+                          nf.format(cache.getDesalojos()));
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        int[] traza = traza(N);
+        /* Una primera vuelta para calentar la máquina virtual. */
+        mide(traza, N, DiccionarioCache.Politica.LRU);
+        mide(traza, N, DiccionarioCache.Politica.LRU);
+        mide(traza, N, DiccionarioCache.Politica.W_TINY_LFU);
+    }
+}
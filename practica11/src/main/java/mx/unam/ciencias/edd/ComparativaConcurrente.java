@@ -0,0 +1,100 @@
+package mx.unam.ciencias.edd;
+
+import java.text.NumberFormat;
+import java.util.Random;
+
+/**
+ * Comparativa del rendimiento de {@link DiccionarioConcurrente} contra un
+ * {@link Diccionario} protegido con un candado global, con 1, 4, 16 y 64
+ * hilos. Cada hilo hace N operaciones: 90% búsquedas y 10% inserciones, con
+ * llaves aleatorias.
+ */
+public class ComparativaConcurrente {
+
+    /* Los números de hilos a comparar. */
+    private static final int[] HILOS = { 1, 4, 16, 64 };
+
+    /* Interfaz para las operaciones que hace cada hilo. */
+    @FunctionalInterface
+    private interface Operacion {
+        public void opera(Integer llave, boolean escribe);
+    }
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaConcurrente N");
+        System.exit(1);
+    }
+
+    /* Ejecuta N operaciones en cada uno de los hilos, y regresa cuántas
+       operaciones por segundo se hicieron en total. */
+    private static double mide(int hilos, int N, Operacion operacion)
+        throws InterruptedException {
+        Thread[] ts = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            final long semilla = h;
+            ts[h] = new Thread(() -> {
+                    Random random = new Random(semilla);
+                    for (int i = 0; i < N; i++)
+                        operacion.opera(random.nextInt(2 * N),
+                                        random.nextInt(10) == 0);
+            });
+        }
+        long tiempoInicial = System.nanoTime();
+        for (Thread t : ts)
+            t.start();
+        for (Thread t : ts)
+            t.join();
+        long tiempoTotal = System.nanoTime() - tiempoInicial;
+        return (double)hilos * N / (tiempoTotal / 1000000000.0);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+
+        for (int hilos : HILOS) {
+            Diccionario<Integer, Integer> diccionario =
+                new Diccionario<Integer, Integer>(N);
+            for (int i = 0; i < N; i++)
+                diccionario.agrega(2 * i, i);
+            double global = mide(hilos, N, (llave, escribe) -> {
+                    synchronized (diccionario) {
+                        if (escribe)
+                            diccionario.agrega(llave, llave);
+                        else
+                            diccionario.contiene(llave);
+                    }
+            });
+
+            DiccionarioConcurrente<Integer, Integer> concurrente =
+                new DiccionarioConcurrente<Integer, Integer>(N);
+            for (int i = 0; i < N; i++)
+                concurrente.agrega(2 * i, i);
+            double rayado = mide(hilos, N, (llave, escribe) -> {
+                    if (escribe)
+                        concurrente.agrega(llave, llave);
+                    else
+                        concurrente.contiene(llave);
+            });
+
+            System.out.printf("%2d hilos: %s ops/s con candado global, " +
+                              "%s ops/s concurrente.\n", hilos,
+                              nf.format((long)global),
+                              nf.format((long)rayado));
+        }
+    }
+}
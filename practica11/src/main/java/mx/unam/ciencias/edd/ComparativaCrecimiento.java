@@ -0,0 +1,71 @@
+package mx.unam.ciencias.edd;
+
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Comparativa de la latencia por operación de {@link Diccionario} al crecer
+ * de golpe contra crecer de manera incremental. Se llena un diccionario con N
+ * elementos midiendo cada inserción, y se reporta la latencia máxima, el
+ * percentil 99.99 y el tiempo total.
+ */
+public class ComparativaCrecimiento {
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaCrecimiento N");
+        System.exit(1);
+    }
+
+    /* Llena un diccionario midiendo cada inserción, e imprime los
+       resultados. */
+    private static void mide(Integer[] arreglo, boolean incremental,
+                             String nombre) {
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        Diccionario<Integer, Integer> diccionario =
+            new Diccionario<Integer, Integer>();
+        diccionario.setIncremental(incremental);
+        long[] latencias = new long[arreglo.length];
+        long tiempoInicial = System.nanoTime();
+        for (int i = 0; i < arreglo.length; i++) {
+            long t = System.nanoTime();
+            diccionario.agrega(arreglo[i], arreglo[i]);
+            latencias[i] = System.nanoTime() - t;
+        }
+        long tiempoTotal = System.nanoTime() - tiempoInicial;
+        Arrays.sort(latencias);
+        long maxima = latencias[latencias.length - 1];
+        long p9999 = latencias[(int)(latencias.length * 0.9999)];
+        System.out.printf("%s: %2.9f segundos en llenar con %s elementos; " +
+                          "latencia máxima %s ns, p99.99 %s ns.\n", nombre,
+                          (tiempoTotal/1000000000.0), nf.format(arreglo.length),
+                          nf.format(maxima), nf.format(p9999));
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        Random random = new Random();
+        Integer[] arreglo = new Integer[N];
+        for (int i = 0; i < N; i++)
+            arreglo[i] = random.nextInt();
+
+        /* Una primera vuelta para calentar la máquina virtual. */
+        mide(arreglo, false, "Calentamiento");
+        mide(arreglo, false, "Crecimiento de golpe");
+        mide(arreglo, true, "Crecimiento incremental");
+    }
+}
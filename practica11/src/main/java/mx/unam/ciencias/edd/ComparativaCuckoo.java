@@ -0,0 +1,131 @@
+package mx.unam.ciencias.edd;
+
+import java.text.NumberFormat;
+import java.util.Random;
+
+/**
+ * Comparativa de {@link DiccionarioCuckoo} contra {@link Diccionario} a
+ * cargas de 0.5 a 0.95. Para cada carga se llena un diccionario cuckoo de
+ * capacidad fija hasta esa carga, y un diccionario con las mismas llaves;
+ * luego se buscan todas las llaves y el mismo número de llaves que no
+ * están. Ambos usan el dispersor de Bob Jenkins, y el cuckoo además el de
+ * Daniel J. Bernstein.
+ */
+public class ComparativaCuckoo {
+
+    /* Las cargas a comparar. */
+    private static final double[] CARGAS = {
+        0.5, 0.6, 0.7, 0.8, 0.9, 0.95
+    };
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaCuckoo N");
+        System.exit(1);
+    }
+
+    /* Imprime un tiempo. */
+    private static void imprime(String operacion, long tiempoTotal, int n) {
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        System.out.printf("    %2.9f segundos en %s %s llaves " +
+                          "(%2.1f ns por llave).\n",
+                          (tiempoTotal/1000000000.0), operacion,
+                          nf.format(n), (double)tiempoTotal / n);
+    }
+
+    /* Mide el diccionario cuckoo. */
+    private static void mideCuckoo(String[] llaves, String[] ausentes,
+                                   int capacidad,
+                                   Dispersor<String> bj,
+                                   Dispersor<String> djb) {
+        DiccionarioCuckoo<String, String> d =
+            new DiccionarioCuckoo<String, String>(capacidad, bj, djb);
+        long tiempoInicial = System.nanoTime();
+        for (String llave : llaves)
+            d.agrega(llave, llave);
+        imprime("agregar", System.nanoTime() - tiempoInicial, llaves.length);
+        tiempoInicial = System.nanoTime();
+        for (String llave : llaves)
+            d.get(llave);
+        imprime("buscar", System.nanoTime() - tiempoInicial, llaves.length);
+        int n = 0;
+        tiempoInicial = System.nanoTime();
+        for (String llave : ausentes)
+            if (d.contiene(llave))
+                n++;
+        imprime("no encontrar", System.nanoTime() - tiempoInicial,
+                ausentes.length - n);
+        System.out.printf("    carga %1.3f, %d cubetas, %d desplazamientos, " +
+                          "%d en la reserva.\n", d.carga(), d.getCubetas(),
+                          d.getDesplazamientos(), d.getReservados());
+    }
+
+    /* Mide el diccionario. */
+    private static void mideDiccionario(String[] llaves, String[] ausentes,
+                                        Dispersor<String> bj) {
+        Diccionario<String, String> d =
+            new Diccionario<String, String>(llaves.length, bj);
+        long tiempoInicial = System.nanoTime();
+        for (String llave : llaves)
+            d.agrega(llave, llave);
+        imprime("agregar", System.nanoTime() - tiempoInicial, llaves.length);
+        tiempoInicial = System.nanoTime();
+        for (String llave : llaves)
+            d.get(llave);
+        imprime("buscar", System.nanoTime() - tiempoInicial, llaves.length);
+        int n = 0;
+        tiempoInicial = System.nanoTime();
+        for (String llave : ausentes)
+            if (d.contiene(llave))
+                n++;
+        imprime("no encontrar", System.nanoTime() - tiempoInicial,
+                ausentes.length - n);
+        System.out.printf("    carga %1.3f, %d colisiones, colisión " +
+                          "máxima %d.\n", d.carga(), d.colisiones(),
+                          d.colisionMaxima());
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        Dispersor<String> bj =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.BJ_STRING);
+        Dispersor<String> djb =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.DJB_STRING);
+        int lugares = new DiccionarioCuckoo<String, String>(N, bj, djb)
+            .getCubetas() * DiccionarioCuckoo.ANCHO_CUBETA;
+        Random random = new Random(0);
+        for (int r = 0; r < 2; r++) {
+            /* La primera vuelta es para calentar la máquina virtual. */
+            if (r == 0)
+                System.out.println("Calentando...");
+            for (double carga : CARGAS) {
+                int n = (int)(carga * lugares);
+                String[] llaves = new String[n];
+                String[] ausentes = new String[n];
+                for (int i = 0; i < n; i++) {
+                    llaves[i] = Long.toHexString(random.nextLong());
+                    ausentes[i] = Long.toHexString(random.nextLong());
+                }
+                System.out.printf("Carga %1.2f, %d lugares:\n", carga,
+                                  lugares);
+                System.out.println("  DiccionarioCuckoo:");
+                mideCuckoo(llaves, ausentes, N, bj, djb);
+                System.out.println("  Diccionario:");
+                mideDiccionario(llaves, ausentes, bj);
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package mx.unam.ciencias.edd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * <p>Comparativa de los dispersores de {@link Dispersores}, para escoger
+ * el de cada tabla con evidencia. Para cada {@link AlgoritmoDispersor}
+ * mide:</p>
+ *
+ * <ul>
+ *   <li><b>rendimiento</b>: bytes por segundo con llaves de 4 B a 64 KiB,
+ *       dispersando rangos consecutivos de un arreglo de bytes aleatorios
+ *       hasta completar el total pedido, después de un calentamiento con el
+ *       mismo trabajo.</li>
+ *   <li><b>avalancha</b>: al cambiar un bit de la llave, cada bit de la
+ *       dispersión debe cambiar con probabilidad 1/2. El sesgo de un par de
+ *       bits es |2p − 1|; se reportan el máximo y el promedio. Con M
+ *       muestras el ruido es de alrededor de 1/√M.</li>
+ *   <li><b>bic</b> (<em>bit independence criterion</em>): al cambiar un
+ *       bit de la llave, los cambios de dos bits de la dispersión deben ser
+ *       independientes; se reporta la máxima correlación absoluta. Un bit
+ *       que nunca o siempre cambia cuenta como correlación 1.</li>
+ *   <li><b>jiCuadrada</b>: las estadísticas de las cubetas de un {@link
+ *       Diccionario} de varias capacidades con carga 1/2, con llaves
+ *       realistas (ver {@link EstadisticasDiccionario}).</li>
+ *   <li><b>colisiones</b>: las dispersiones repetidas de 32 bits (las de
+ *       64 combinadas como en {@link DispersorLargo#dispersor}) y de 64
+ *       bits, junto con las esperadas de 32 bits para un dispersor
+ *       ideal.</li>
+ * </ul>
+ *
+ * <p>Las llaves realistas son identificadores secuenciales en decimal,
+ * URLs y UUIDs, generadas siempre igual y dispersadas en UTF-8. La salida
+ * es una línea por medición, en CSV (con encabezado) o en líneas de JSON,
+ * con las columnas <code>prueba</code>, <code>algoritmo</code>,
+ * <code>llaves</code>, <code>parametro</code> (la longitud de las llaves o
+ * la capacidad del diccionario), <code>metrica</code> y
+ * <code>valor</code>.</p>
+ */
+public class ComparativaDispersores {
+
+    /* Las longitudes de las llaves para el rendimiento. */
+    private static final int[] LONGITUDES = {
+        4, 8, 16, 32, 64, 256, 1024, 4096, 65536
+    };
+
+    /* Las longitudes de las llaves para la avalancha y el BIC. */
+    private static final int[] LONGITUDES_CALIDAD = { 4, 16, 64 };
+
+    /* Las capacidades de los diccionarios para la ji cuadrada. */
+    private static final int[] CAPACIDADES = { 1 << 10, 1 << 14, 1 << 18 };
+
+    /* Los conjuntos de llaves realistas. */
+    private static final String[] CONJUNTOS = {
+        "secuenciales", "urls", "uuids"
+    };
+
+    /* Secciones para las URLs. */
+    private static final String[] SECCIONES = {
+        "productos", "usuarios", "articulos", "busqueda", "carrito",
+        "categorias/hogar", "categorias/libros", "api/v2/pedidos"
+    };
+
+    /* Tamaño del arreglo de bytes aleatorios: 1 MiB. */
+    private static final int TAMANIO_DATOS = 1 << 20;
+
+    /* Si la salida es en líneas de JSON. */
+    private static boolean json;
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaDispersores " +
+                           "[csv|json] [MiB] [LLAVES] [MUESTRAS]");
+        System.exit(1);
+    }
+
+    /* Dispersa un rango con el algoritmo. */
+    private static long dispersa(AlgoritmoDispersor algoritmo, byte[] datos,
+                                 int inicio, int longitud) {
+        switch (algoritmo) {
+        case XOR_STRING:
+            return Dispersores.dispersaXOR(datos, inicio, longitud);
+        case BJ_STRING:
+            return Dispersores.dispersaBJ(datos, inicio, longitud);
+        case DJB_STRING:
+            return Dispersores.dispersaDJB(datos, inicio, longitud);
+        case XXH64_STRING:
+            return Dispersores.dispersaXXH64(datos, inicio, longitud, 0);
+        case MURMUR3_STRING:
+            return Dispersores.dispersaMurmur3(datos, inicio, longitud, 0);
+        case WYHASH_STRING:
+            return Dispersores.dispersaWyhash(datos, inicio, longitud, 0);
+        default: throw new IllegalArgumentException("Algoritmo inválido");
+        }
+    }
+
+    /* Imprime una medición. */
+    private static void imprime(String prueba, AlgoritmoDispersor algoritmo,
+                                String llaves, long parametro,
+                                String metrica, double valor) {
+        String v = (valor == Math.rint(valor) && Math.abs(valor) < 1e15) ?
+            Long.toString((long)valor) :
+            String.format(Locale.ROOT, "%.6g", valor);
+        if (json)
+            System.out.printf("{\"prueba\":\"%s\",\"algoritmo\":\"%s\"," +
+                              "\"llaves\":\"%s\",\"parametro\":%d," +
+                              "\"metrica\":\"%s\",\"valor\":%s}%n",
+                              prueba, algoritmo, llaves, parametro,
+                              metrica, v);
+        else
+            System.out.printf("%s,%s,%s,%d,%s,%s%n", prueba, algoritmo,
+                              llaves, parametro, metrica, v);
+    }
+
+    /* Dispersa el total de bytes en llaves de la longitud dada, y regresa
+       la combinación de las dispersiones para que no se descarten. */
+    private static long mide(AlgoritmoDispersor algoritmo, byte[] datos,
+                             int longitud, long total) {
+        long r = 0;
+        long llaves = total / longitud;
+        int inicio = 0;
+        for (long i = 0; i < llaves; i++) {
+            r += dispersa(algoritmo, datos, inicio, longitud);
+            inicio += longitud;
+            if (inicio + longitud > datos.length)
+                inicio = 0;
+        }
+        return r;
+    }
+
+    /* Mide el rendimiento del algoritmo con todas las longitudes. */
+    private static long rendimiento(AlgoritmoDispersor algoritmo,
+                                   byte[] datos, long total) {
+        long r = 0;
+        for (int longitud : LONGITUDES) {
+            r += mide(algoritmo, datos, longitud, total);
+            long tiempoInicial = System.nanoTime();
+            r += mide(algoritmo, datos, longitud, total);
+            long tiempoTotal = System.nanoTime() - tiempoInicial;
+            imprime("rendimiento", algoritmo, "aleatorias", longitud,
+                    "bytesPorSegundo", total * 1e9 / tiempoTotal);
+        }
+        return r;
+    }
+
+    /* Mide la avalancha y el BIC del algoritmo con llaves aleatorias de la
+       longitud dada. Para cada bit de la llave se cuentan, sobre todas las
+       muestras, los cambios de cada bit de la dispersión y de cada par. */
+    private static void calidad(AlgoritmoDispersor algoritmo, int longitud,
+                                int muestras) {
+        Random random = new Random(longitud);
+        byte[][] llaves = new byte[muestras][longitud];
+        long[] dispersiones = new long[muestras];
+        for (int s = 0; s < muestras; s++) {
+            random.nextBytes(llaves[s]);
+            dispersiones[s] = dispersa(algoritmo, llaves[s], 0, longitud);
+        }
+        int bits = algoritmo.esLargo() ? 64 : 32;
+        long mascara = algoritmo.esLargo() ? -1L : 0xFFFFFFFFL;
+        int[] cambios = new int[bits];
+        int[][] pares = new int[bits][bits];
+        double sesgoMaximo = 0.0;
+        double sumaSesgos = 0.0;
+        double correlacionMaxima = 0.0;
+        for (int i = 0; i < 8 * longitud; i++) {
+            Arrays.fill(cambios, 0);
+            for (int[] par : pares)
+                Arrays.fill(par, 0);
+            byte bit = (byte)(1 << (i & 7));
+            for (int s = 0; s < muestras; s++) {
+                byte[] llave = llaves[s];
+                llave[i >>> 3] ^= bit;
+                long d = (dispersa(algoritmo, llave, 0, longitud) ^
+                          dispersiones[s]) & mascara;
+                llave[i >>> 3] ^= bit;
+                while (d != 0) {
+                    int j = Long.numberOfTrailingZeros(d);
+                    d &= d - 1;
+                    cambios[j]++;
+                    for (long e = d; e != 0; e &= e - 1)
+                        pares[j][Long.numberOfTrailingZeros(e)]++;
+                }
+            }
+            for (int j = 0; j < bits; j++) {
+                double pj = (double)cambios[j] / muestras;
+                double sesgo = Math.abs(2 * pj - 1);
+                sesgoMaximo = Math.max(sesgoMaximo, sesgo);
+                sumaSesgos += sesgo;
+                for (int k = j + 1; k < bits; k++) {
+                    double pk = (double)cambios[k] / muestras;
+                    double varianza = pj * (1 - pj) * pk * (1 - pk);
+                    double correlacion = varianza == 0.0 ? 1.0 :
+                        Math.abs((double)pares[j][k] / muestras - pj * pk) /
+                        Math.sqrt(varianza);
+                    correlacionMaxima = Math.max(correlacionMaxima,
+                                                 correlacion);
+                }
+            }
+        }
+        imprime("avalancha", algoritmo, "aleatorias", longitud,
+                "sesgoMaximo", sesgoMaximo);
+        imprime("avalancha", algoritmo, "aleatorias", longitud,
+                "sesgoMedio", sumaSesgos / (8 * longitud * bits));
+        imprime("bic", algoritmo, "aleatorias", longitud,
+                "correlacionMaxima", correlacionMaxima);
+    }
+
+    /* Genera un conjunto de llaves realistas. */
+    private static String[] llaves(String conjunto, int n) {
+        Random random = new Random(n);
+        String[] llaves = new String[n];
+        for (int i = 0; i < n; i++) {
+            switch (conjunto) {
+            case "secuenciales":
+                llaves[i] = Integer.toString(i);
+                break;
+            case "urls":
+                llaves[i] = "https://www.ejemplo.com.mx/" +
+                    SECCIONES[random.nextInt(SECCIONES.length)] + "/" + i +
+                    "?ref=" + random.nextInt(1000);
+                break;
+            default:
+                /* Versión 4 y variante IETF, como UUID.randomUUID. */
+                long alto = (random.nextLong() & ~0xF000L) | 0x4000L;
+                long bajo = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) |
+                    0x8000000000000000L;
+                llaves[i] = new UUID(alto, bajo).toString();
+            }
+        }
+        return llaves;
+    }
+
+    /* Mide las cubetas de diccionarios de varias capacidades con las
+       llaves. */
+    private static void jiCuadrada(AlgoritmoDispersor algoritmo,
+                                   String conjunto, String[] llaves) {
+        Dispersor<String> dispersor =
+            FabricaDispersores.dispersorCadenaUTF8(algoritmo);
+        for (int capacidad : CAPACIDADES) {
+            if (capacidad > llaves.length)
+                break;
+            Diccionario<String, Integer> diccionario =
+                new Diccionario<String, Integer>(capacidad, dispersor);
+            for (int i = 0; i < capacidad; i++)
+                diccionario.agrega(llaves[i], i);
+            EstadisticasDiccionario e = diccionario.estadisticas();
+            imprime("jiCuadrada", algoritmo, conjunto, capacidad,
+                    "cubetas", e.getCubetas());
+            imprime("jiCuadrada", algoritmo, conjunto, capacidad,
+                    "jiCuadrada", e.getJiCuadrada());
+            imprime("jiCuadrada", algoritmo, conjunto, capacidad,
+                    "calidad", e.getCalidad());
+            imprime("jiCuadrada", algoritmo, conjunto, capacidad,
+                    "colisionMaxima", e.getColisionMaxima());
+        }
+    }
+
+    /* Cuenta los valores repetidos de un arreglo, ordenándolo. */
+    private static long repetidos(long[] a) {
+        Arrays.sort(a);
+        long r = 0;
+        for (int i = 1; i < a.length; i++)
+            if (a[i] == a[i - 1])
+                r++;
+        return r;
+    }
+
+    /* Cuenta las colisiones de 32 y 64 bits con las llaves. */
+    private static void colisiones(AlgoritmoDispersor algoritmo,
+                                   String conjunto, byte[][] llaves) {
+        int n = llaves.length;
+        long[] cortas = new long[n];
+        long[] largas = new long[n];
+        for (int i = 0; i < n; i++) {
+            long h = dispersa(algoritmo, llaves[i], 0, llaves[i].length);
+            largas[i] = h;
+            cortas[i] = algoritmo.esLargo() ? (int)(h ^ (h >>> 32)) : h;
+        }
+        imprime("colisiones", algoritmo, conjunto, n, "colisiones32",
+                repetidos(cortas));
+        imprime("colisiones", algoritmo, conjunto, n, "esperadas32",
+                (double)n * (n - 1) / 2 / (1L << 32));
+        if (algoritmo.esLargo())
+            imprime("colisiones", algoritmo, conjunto, n, "colisiones64",
+                    repetidos(largas));
+    }
+
+    public static void main(String[] args) {
+        int a = 0;
+        if (args.length > 0 &&
+            (args[0].equals("csv") || args[0].equals("json"))) {
+            json = args[0].equals("json");
+            a = 1;
+        }
+        if (args.length - a > 3)
+            uso();
+
+        int MiB = 64;
+        int N = 1 << 18;
+        int M = 1000;
+        try {
+            if (args.length > a)
+                MiB = Integer.parseInt(args[a]);
+            if (args.length > a + 1)
+                N = Integer.parseInt(args[a + 1]);
+            if (args.length > a + 2)
+                M = Integer.parseInt(args[a + 2]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (MiB < 1 || N < 2 || M < 2)
+            uso();
+
+        if (!json)
+            System.out.println("prueba,algoritmo,llaves,parametro," +
+                               "metrica,valor");
+
+        byte[] datos = new byte[TAMANIO_DATOS];
+        new Random(0).nextBytes(datos);
+        long total = (long)MiB << 20;
+        long r = 0;
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values())
+            r += rendimiento(algoritmo, datos, total);
+
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values())
+            for (int longitud : LONGITUDES_CALIDAD)
+                calidad(algoritmo, longitud, M);
+
+        for (String conjunto : CONJUNTOS) {
+            String[] llaves = llaves(conjunto, N);
+            byte[][] bytes = new byte[N][];
+            for (int i = 0; i < N; i++)
+                bytes[i] = llaves[i].getBytes(StandardCharsets.UTF_8);
+            for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+                jiCuadrada(algoritmo, conjunto, llaves);
+                colisiones(algoritmo, conjunto, bytes);
+            }
+        }
+
+        /* Para que el compilador no descarte las dispersiones. */
+        if (r == 42)
+            System.out.println();
+    }
+}
@@ -0,0 +1,115 @@
+package mx.unam.ciencias.edd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Comparativa de {@link AlmacenLSM} en un directorio temporal del disco
+ * local. Se escriben N llaves al azar con valores de 100 bytes y se mide
+ * el rendimiento sostenido de escritura, incluyendo los volcados y la
+ * compactación en el fondo; luego se buscan N llaves presentes y N
+ * ausentes, y se reporta la amplificación de lectura: los bloques leídos
+ * del disco por búsqueda.
+ */
+public class ComparativaLSM {
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaLSM N");
+        System.exit(1);
+    }
+
+    /* Imprime un tiempo. */
+    private static void imprime(String operacion, long tiempoTotal, int n) {
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        System.out.printf("%2.9f segundos en %s %s llaves " +
+                          "(%s llaves por segundo).\n",
+                          (tiempoTotal/1000000000.0), operacion,
+                          nf.format(n),
+                          nf.format((long)(n * 1000000000.0 / tiempoTotal)));
+    }
+
+    /* Borra el directorio temporal. */
+    private static void borra(Path directorio) throws IOException {
+        try (DirectoryStream<Path> archivos =
+             Files.newDirectoryStream(directorio)) {
+            for (Path archivo : archivos)
+                Files.delete(archivo);
+        }
+        Files.delete(directorio);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        Codificador<Integer> enteros = new Codificador<Integer>() {
+            @Override public byte[] codifica(Integer n) {
+                return ByteBuffer.allocate(4).putInt(n).array();
+            }
+            @Override public Integer decodifica(byte[] bytes, int inicio,
+                                                int longitud) {
+                return ByteBuffer.wrap(bytes, inicio, longitud).getInt();
+            }
+        };
+        Codificador<String> cadenas = Codificador.cadenas();
+        char[] relleno = new char[100];
+        Arrays.fill(relleno, 'v');
+        String valor = new String(relleno);
+
+        Path directorio = Files.createTempDirectory("lsm");
+        Random random = new Random(0);
+        int[] llaves = new int[N];
+        for (int i = 0; i < N; i++)
+            llaves[i] = random.nextInt() & ~1;
+        try {
+            AlmacenLSM<Integer, String> almacen =
+                new AlmacenLSM<Integer, String>(directorio, enteros, cadenas);
+            long tiempoInicial = System.nanoTime();
+            for (int llave : llaves)
+                almacen.agrega(llave, valor);
+            almacen.vuelca();
+            almacen.esperaCompactacion();
+            imprime("escribir", System.nanoTime() - tiempoInicial, N);
+            System.out.printf("%d corridas, %d compactaciones.\n",
+                              almacen.getCorridas(),
+                              almacen.getCompactaciones());
+
+            tiempoInicial = System.nanoTime();
+            for (int llave : llaves)
+                almacen.get(llave);
+            imprime("buscar", System.nanoTime() - tiempoInicial, N);
+            System.out.printf("Amplificación de lectura: %1.3f bloques " +
+                              "por búsqueda.\n",
+                              almacen.amplificacionLectura());
+
+            tiempoInicial = System.nanoTime();
+            for (int llave : llaves)
+                almacen.contiene(llave | 1);
+            imprime("no encontrar", System.nanoTime() - tiempoInicial, N);
+            System.out.printf("Amplificación de lectura acumulada: %1.3f " +
+                              "bloques por búsqueda.\n",
+                              almacen.amplificacionLectura());
+            almacen.cierra();
+        } finally {
+            borra(directorio);
+        }
+    }
+}
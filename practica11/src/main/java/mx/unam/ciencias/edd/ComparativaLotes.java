@@ -0,0 +1,110 @@
+package mx.unam.ciencias.edd;
+
+import java.text.NumberFormat;
+import java.util.Random;
+
+/**
+ * Comparativa de las búsquedas por lotes de {@link Diccionario} ({@link
+ * Diccionario#getTodos}) contra llamar {@link Diccionario#get} con cada
+ * llave. Se llena un diccionario con N enteros, y se buscan en lotes de 64 y
+ * de 512 llaves al azar; para que se note la diferencia, N debe ser lo
+ * bastante grande para que la tabla no quepa en el caché (unos cuantos
+ * millones).
+ */
+public class ComparativaLotes {
+
+    /* Número de búsquedas por medición. */
+    private static final int BUSQUEDAS = 4000000;
+
+    /* Los tamaños de los lotes. */
+    private static final int[] LOTES = { 64, 512 };
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.ComparativaLotes N");
+        System.exit(1);
+    }
+
+    /* Imprime un tiempo. */
+    private static void imprime(String operacion, long tiempoTotal, int n) {
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        System.out.printf("    %2.9f segundos en %s %s llaves " +
+                          "(%2.1f ns por llave).\n",
+                          (tiempoTotal/1000000000.0), operacion,
+                          nf.format(n), (double)tiempoTotal / n);
+    }
+
+    /* Busca las llaves una por una, en lotes del tamaño dado; regresa una
+       suma de los valores para que la máquina virtual no se salte nada. */
+    private static long unaPorUna(Diccionario<Integer, Integer> d,
+                                  Integer[] llaves, int lote) {
+        long suma = 0;
+        for (int i = 0; i + lote <= llaves.length; i += lote)
+            for (int j = i; j < i + lote; j++)
+                suma += d.get(llaves[j]);
+        return suma;
+    }
+
+    /* Busca las llaves con getTodos, en lotes del tamaño dado. */
+    private static long porLotes(Diccionario<Integer, Integer> d,
+                                 Integer[] llaves, int lote) {
+        Integer[] grupo = new Integer[lote];
+        Integer[] valores = new Integer[lote];
+        long suma = 0;
+        for (int i = 0; i + lote <= llaves.length; i += lote) {
+            System.arraycopy(llaves, i, grupo, 0, lote);
+            d.getTodos(grupo, valores);
+            for (Integer v : valores)
+                suma += v;
+        }
+        return suma;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1)
+            uso();
+
+        int N = -1;
+        try {
+            N = Integer.parseInt(args[0]);
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (N < 1)
+            uso();
+
+        Random random = new Random(0);
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(N);
+        for (int i = 0; i < N; i++)
+            d.agrega(i, i);
+        /* Llaves nuevas, para que comparar también toque memoria; fuera
+           del caché de Integer.valueOf (de -128 a 127) cada una es un
+           objeto distinto de la llave guardada. */
+        Integer[] llaves = new Integer[BUSQUEDAS];
+        for (int i = 0; i < BUSQUEDAS; i++)
+            llaves[i] = Integer.valueOf(random.nextInt(N));
+
+        for (int r = 0; r < 2; r++) {
+            /* La primera vuelta es para calentar la máquina virtual. */
+            if (r == 0)
+                System.out.println("Calentando...");
+            for (int lote : LOTES) {
+                System.out.printf("Lotes de %d llaves, %d cubetas:\n", lote,
+                                  (int)(N / d.carga()));
+                long tiempoInicial = System.nanoTime();
+                long s1 = unaPorUna(d, llaves, lote);
+                imprime("buscar una por una",
+                        System.nanoTime() - tiempoInicial, BUSQUEDAS);
+                tiempoInicial = System.nanoTime();
+                long s2 = porLotes(d, llaves, lote);
+                imprime("buscar por lotes",
+                        System.nanoTime() - tiempoInicial, BUSQUEDAS);
+                if (s1 != s2)
+                    throw new IllegalStateException();
+            }
+        }
+    }
+}
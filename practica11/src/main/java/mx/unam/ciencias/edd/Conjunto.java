@@ -27,6 +27,24 @@ public class Conjunto<T> implements Coleccion<T> {
         // Aquí va su código.
     }
 
+    /* Crea un conjunto con el diccionario recibido. */
+    private Conjunto(Diccionario<T, T> conjunto) {
+        this.conjunto = conjunto;
+    }
+
+    /**
+     * Crea un conjunto con los elementos del arreglo, en paralelo. Ver
+     * {@link Diccionario#desde(Object[], Object[])}.
+     * @param <T> el tipo de los elementos.
+     * @param elementos los elementos del conjunto; pueden repetirse.
+     * @return un conjunto con los elementos del arreglo.
+     * @throws IllegalArgumentException si el arreglo o alguno de sus
+     *         elementos es <code>null</code>.
+     */
+    public static <T> Conjunto<T> desde(T[] elementos) {
+        return new Conjunto<T>(Diccionario.desde(elementos, elementos));
+    }
+
     /**
      * Agrega un elemento al conjunto.
      * @param elemento el elemento que queremos agregar al conjunto.
@@ -96,13 +114,11 @@ public class Conjunto<T> implements Coleccion<T> {
      */
     public Conjunto<T> interseccion(Conjunto<T> conjunto) {
         Conjunto<T> set = new Conjunto<T>();
-        Iterator<T> iterador = this.iterator();
-        while (iterador.hasNext()) {
-            T elemento = iterador.next();
-            if (this.contiene(elemento) && conjunto.contiene(elemento)) {
-                set.agrega(elemento);
-            }
-        }
+        this.conjunto.paraCada((elemento, e) -> {
+                if (conjunto.contiene(elemento)) {
+                    set.agrega(elemento);
+                }
+            });
         return set;                
         // Aquí va su código.
     }
@@ -114,14 +130,8 @@ public class Conjunto<T> implements Coleccion<T> {
      */
     public Conjunto<T> union(Conjunto<T> conjunto) {
         Conjunto<T> set = new Conjunto<T>();
-        Iterator<T> iterador = this.iterator();
-        while (iterador.hasNext()) {
-            set.agrega(iterador.next());
-        }
-        Iterator<T> it = conjunto.iterator();
-        while (it.hasNext()) {
-            set.agrega(it.next());
-        }
+        this.conjunto.paraCada((elemento, e) -> set.agrega(elemento));
+        conjunto.conjunto.paraCada((elemento, e) -> set.agrega(elemento));
         return set;
         // Aquí va su código.
     }
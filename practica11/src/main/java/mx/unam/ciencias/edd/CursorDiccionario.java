@@ -0,0 +1,61 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Interfaz para cursores de diccionario. Un cursor recorre las entradas
+ * de un diccionario directamente sobre su almacenamiento interno, sin crear
+ * ningún objeto en cada paso; a diferencia de un iterador, el mismo cursor
+ * se puede reiniciar y volver a usar para recorrer el diccionario otra
+ * vez.</p>
+ *
+ * <p>Un cursor empieza antes de la primera entrada. Después de que {@link
+ * #avanza} regresa <code>true</code>, el cursor está sobre una entrada y se
+ * pueden usar {@link #llave}, {@link #valor}, {@link #setValor} y {@link
+ * #elimina}. Si el diccionario se modifica por otro medio que no sea el
+ * cursor, el cursor debe reiniciarse antes de volver a usarse.</p>
+ */
+public interface CursorDiccionario<K, V> {
+
+    /**
+     * Mueve el cursor a la siguiente entrada del diccionario.
+     * @return <code>true</code> si el cursor quedó sobre una entrada,
+     *         <code>false</code> si ya no hay más entradas.
+     */
+    public boolean avanza();
+
+    /**
+     * Regresa la llave de la entrada actual.
+     * @return la llave de la entrada actual.
+     * @throws NoSuchElementException si el cursor no está sobre una entrada.
+     */
+    public K llave();
+
+    /**
+     * Regresa el valor de la entrada actual.
+     * @return el valor de la entrada actual.
+     * @throws NoSuchElementException si el cursor no está sobre una entrada.
+     */
+    public V valor();
+
+    /**
+     * Reemplaza el valor de la entrada actual.
+     * @param valor el nuevo valor.
+     * @throws NoSuchElementException si el cursor no está sobre una entrada.
+     * @throws IllegalArgumentException si el valor es nulo.
+     */
+    public void setValor(V valor);
+
+    /**
+     * Elimina la entrada actual del diccionario. Después de eliminarla el
+     * cursor no está sobre ninguna entrada, y {@link #avanza} lo mueve a la
+     * entrada que seguía a la eliminada.
+     * @throws NoSuchElementException si el cursor no está sobre una entrada.
+     */
+    public void elimina();
+
+    /**
+     * Regresa el cursor a antes de la primera entrada del diccionario.
+     */
+    public void reinicia();
+}
@@ -3,21 +3,38 @@ package mx.unam.ciencias.edd;
 import java.lang.reflect.Array;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
- * Clase para diccionarios (<em>hash tables</em>). Un diccionario generaliza el
- * concepto de arreglo, mapeando un conjunto de <em>llaves</em> a una colección
- * de <em>valores</em>.
+ * <p>Clase para diccionarios (<em>hash tables</em>). Un diccionario generaliza
+ * el concepto de arreglo, mapeando un conjunto de <em>llaves</em> a una
+ * colección de <em>valores</em>.</p>
+ *
+ * <p>Cada cubeta es una lista, salvo cuando su longitud rebasa el umbral de
+ * árbol ({@link #setUmbralArbol}); entonces se convierte en un {@link
+ * ArbolRojinegro}, y buscar en ella toma tiempo logarítmico aunque el
+ * dispersor sea malo. Los árboles se ordenan por dispersión; luego con
+ * <code>compareTo</code> si las llaves son {@link Comparable} de la misma
+ * clase, luego por el nombre de su clase, luego por {@link
+ * System#identityHashCode}, y por último por orden de llegada.</p>
  */
 public class Diccionario<K, V> implements Iterable<V> {
 
     /* Clase interna privada para entradas. */
-    private class Entrada {
+    private class Entrada implements Comparable<Entrada> {
 
         /* La llave. */
         public K llave;
         /* El valor. */
         public V valor;
+        /* La dispersión de la llave. */
+        public int dispersion;
+        /* Desempate para el orden en los árboles. */
+        public int desempate;
 
         /* Construye una nueva entrada. */
         public Entrada(K llave, V valor) {
@@ -25,31 +42,77 @@ public class Diccionario<K, V> implements Iterable<V> {
             this.valor = valor;
             // Aquí va su código.
         }
+
+        /* Compara por dispersión, luego por llave (ver ordenaLlaves), luego
+           por desempate. */
+        @Override public int compareTo(Entrada entrada) {
+            if (this.dispersion != entrada.dispersion) {
+                return Integer.compare(this.dispersion, entrada.dispersion);
+            }
+            int c = ordenaLlaves(this.llave, entrada.llave);
+            if (c != 0) {
+                return c;
+            }
+            return Integer.compare(this.desempate, entrada.desempate);
+        }
+    }
+
+    /* Clase interna privada para el orden de los recorridos. Si el
+       recorrido empieza durante una migración, los pasos 2j y 2j + 1
+       visitan las cubetas j y j + n del arreglo actual en que se divide la
+       cubeta j del anterior, o sólo ésta si aún no se migra. Una migración
+       a la mitad del recorrido sólo mueve entradas dentro de un mismo par
+       de pasos, así que ninguna se visita dos veces ni se pierde, y el
+       recorrido no migra nada. */
+    private class Recorrido {
+
+        /* Número de pasos. */
+        private int pasos;
+        /* Número de cubetas del arreglo anterior, o 0 si no hay
+           migración. */
+        private int mitad;
+        /* Si el último paso par visitó una cubeta del arreglo anterior. */
+        private boolean anterior;
+
+        /* Construye un nuevo recorrido. */
+        public Recorrido() {
+            this.pasos = entradas.length;
+            this.mitad = anteriores == null ? 0 : anteriores.length;
+        }
+
+        /* Regresa la cubeta del paso k, o null si no tiene; los pasos se
+           piden en orden. */
+        public Coleccion<Entrada> paso(int k) {
+            if (this.mitad == 0) {
+                return cubeta(k);
+            }
+            int j = k >> 1;
+            if ((k & 1) == 1) {
+                return this.anterior ? null : cubeta(j + this.mitad);
+            }
+            Coleccion<Entrada> c = anteriores == null ? null :
+                cubetaAnterior(j);
+            this.anterior = c != null;
+            return c != null ? c : cubeta(j);
+        }
     }
 
     /* Clase interna privada para iteradores. */
     private class Iterador {
 
-        /* En qué lista estamos. */
+        /* En qué paso del recorrido estamos. */
         private int indice;
         /* Iterador auxiliar. */
         private Iterator<Entrada> iterador;
+        /* El orden del recorrido. */
+        private Recorrido recorrido;
 
         /* Construye un nuevo iterador, auxiliándose de las listas del
          * diccionario. */
         public Iterador() {
-            boolean hayLista = false;
-            for (int i = 0; i < entradas.length; i++) {
-                if (entradas[i] != null && entradas[i].getLongitud() > 0) {
-                    this.indice = i;
-                    this.iterador = entradas[i].iteradorLista();
-                    hayLista = true;
-                    break;
-                }
-            }
-            if (!(hayLista)) {
-                this.iterador = null;
-            }
+            this.recorrido = new Recorrido();
+            this.indice = -1;
+            mueveIterador();
             // Aquí va su código.
         }
 
@@ -66,18 +129,7 @@ public class Diccionario<K, V> implements Iterable<V> {
             }
             Entrada entrada = this.iterador.next();
             if (!(this.iterador.hasNext())) {
-                boolean hayLista = false;
-                for (int i = this.indice + 1; i < entradas.length; i++) {
-                    if (entradas[i] != null && entradas[i].getLongitud() > 0) {
-                        this.iterador = entradas[i].iteradorLista();
-                        this.indice = i;
-                        hayLista = true;
-                        break;
-                    }
-                }
-                if (!hayLista) {
-                    this.iterador = null;
-                }
+                mueveIterador();
             }
             return entrada;
             // Aquí va su código.
@@ -86,9 +138,10 @@ public class Diccionario<K, V> implements Iterable<V> {
         /* Mueve el iterador a la siguiente entrada válida. */
         private void mueveIterador() {
             boolean hayLista = false;
-            for (int i = this.indice + 1; i < entradas.length; i++) {
-                if (entradas[i] != null && entradas[i].getLongitud() > 0) {
-                    this.iterador = entradas[i].iteradorLista();
+            for (int i = this.indice + 1; i < this.recorrido.pasos; i++) {
+                Coleccion<Entrada> cubeta = this.recorrido.paso(i);
+                if (cubeta != null && cubeta.getElementos() > 0) {
+                    this.iterador = cubeta.iterator();
                     this.indice = i;
                     hayLista = true;
                     break;
@@ -123,18 +176,309 @@ public class Diccionario<K, V> implements Iterable<V> {
         }
     }
 
+    /* Clase interna privada para cursores. Recorre las cubetas con los nodos
+       de las listas y los vértices de los árboles, sin crear objetos. Como
+       puede eliminar, durante una migración recorre las cubetas en el orden
+       de Recorrido, pero migra cada cubeta anterior al llegar a ella; así
+       sólo visita cubetas del arreglo actual. */
+    private class Cursor implements CursorDiccionario<K, V> {
+
+        /* En qué paso del recorrido estamos. */
+        private int indice;
+        /* Número de pasos. */
+        private int pasos;
+        /* Número de cubetas del arreglo anterior al reiniciar, o 0. */
+        private int mitad;
+        /* La cubeta del arreglo actual del paso. */
+        private int cubeta;
+        /* La entrada actual, o null si no estamos sobre una. */
+        private Entrada actual;
+        /* El siguiente nodo de la lista de la cubeta, si es lista. */
+        private Lista<Entrada>.Nodo nodo;
+        /* El vértice actual del árbol de la cubeta, si es árbol. */
+        private ArbolBinario<Entrada>.Vertice vertice;
+        /* La última entrada eliminada de un árbol, o null. */
+        private Entrada eliminada;
+
+        /* Construye un nuevo cursor antes de la primera entrada. */
+        public Cursor() {
+            reinicia();
+        }
+
+        /* Mueve el cursor a la siguiente entrada. */
+        @Override public boolean avanza() {
+            Entrada entrada = siguienteEnCubeta();
+            while (entrada == null && ++this.indice < this.pasos) {
+                entrada = primeraDeCubeta(cubetaDePaso(this.indice));
+            }
+            this.actual = entrada;
+            this.eliminada = null;
+            return entrada != null;
+        }
+
+        /* Regresa la llave de la entrada actual. */
+        @Override public K llave() {
+            return entradaActual().llave;
+        }
+
+        /* Regresa el valor de la entrada actual. */
+        @Override public V valor() {
+            return entradaActual().valor;
+        }
+
+        /* Reemplaza el valor de la entrada actual. */
+        @Override public void setValor(V valor) {
+            Entrada entrada = entradaActual();
+            if (valor == null) {
+                throw new IllegalArgumentException();
+            }
+            entrada.valor = valor;
+        }
+
+        /* Elimina la entrada actual. Si la cubeta es árbol, eliminar puede
+           reacomodar sus vértices, o convertirlo en lista; la siguiente
+           entrada se vuelve a buscar a partir de la eliminada. */
+        @Override public void elimina() {
+            Entrada entrada = entradaActual();
+            if (this.vertice != null) {
+                this.eliminada = entrada;
+            }
+            quita(entrada);
+            this.actual = null;
+        }
+
+        /* Regresa el cursor a antes de la primera entrada. */
+        @Override public void reinicia() {
+            this.pasos = entradas.length;
+            this.mitad = anteriores == null ? 0 : anteriores.length;
+            this.indice = -1;
+            this.actual = null;
+            this.nodo = null;
+            this.vertice = null;
+            this.eliminada = null;
+        }
+
+        /* Regresa la entrada actual. */
+        private Entrada entradaActual() {
+            if (this.actual == null) {
+                throw new NoSuchElementException();
+            }
+            return this.actual;
+        }
+
+        /* Regresa la cubeta del arreglo actual del paso k, migrando antes
+           la cubeta anterior que le corresponde si hace falta. */
+        private int cubetaDePaso(int k) {
+            if (this.mitad == 0) {
+                return k;
+            }
+            int j = k >> 1;
+            if ((k & 1) == 0 && anteriores != null) {
+                migraCubeta(j);
+            }
+            return j + (k & 1) * this.mitad;
+        }
+
+        /* Regresa la primera entrada de la cubeta i, o null si es vacía. */
+        private Entrada primeraDeCubeta(int i) {
+            this.cubeta = i;
+            if (arboles != null && arboles[i] != null) {
+                this.nodo = null;
+                this.vertice = minimo(arboles[i].raiz);
+                return this.vertice == null ? null : this.vertice.elemento;
+            }
+            this.vertice = null;
+            this.nodo = entradas[i] == null ? null : entradas[i].primerNodo();
+            return siguienteEnLista();
+        }
+
+        /* Regresa la siguiente entrada de la cubeta actual, o null si ya no
+           hay. */
+        private Entrada siguienteEnCubeta() {
+            if (this.indice < 0 || this.indice >= this.pasos) {
+                return null;
+            }
+            if (this.eliminada != null) {
+                return siguienteDeEliminada();
+            }
+            if (this.vertice != null) {
+                this.vertice = sucesor(this.vertice);
+                return this.vertice == null ? null : this.vertice.elemento;
+            }
+            return siguienteEnLista();
+        }
+
+        /* Regresa la entrada del nodo y avanza al siguiente. */
+        private Entrada siguienteEnLista() {
+            if (this.nodo == null) {
+                return null;
+            }
+            Entrada entrada = this.nodo.elemento;
+            this.nodo = this.nodo.siguiente;
+            return entrada;
+        }
+
+        /* Regresa la menor entrada de la cubeta actual mayor que la
+           eliminada. La cubeta está ordenada aunque ya sea lista, porque
+           una lista que viene de un árbol conserva su orden. */
+        private Entrada siguienteDeEliminada() {
+            Entrada eliminada = this.eliminada;
+            this.eliminada = null;
+            if (arboles != null && arboles[this.cubeta] != null) {
+                ArbolBinario<Entrada>.Vertice v = arboles[this.cubeta].raiz;
+                ArbolBinario<Entrada>.Vertice s = null;
+                while (v != null) {
+                    if (v.elemento.compareTo(eliminada) > 0) {
+                        s = v;
+                        v = v.izquierdo;
+                    } else {
+                        v = v.derecho;
+                    }
+                }
+                this.vertice = s;
+                return s == null ? null : s.elemento;
+            }
+            this.vertice = null;
+            this.nodo = entradas[this.cubeta].primerNodo();
+            while (this.nodo != null &&
+                   this.nodo.elemento.compareTo(eliminada) <= 0) {
+                this.nodo = this.nodo.siguiente;
+            }
+            return siguienteEnLista();
+        }
+    }
+
+    /* Regresa el vértice mínimo del subárbol, o null si es vacío. */
+    private static <T> ArbolBinario<T>.Vertice
+    minimo(ArbolBinario<T>.Vertice v) {
+        while (v != null && v.izquierdo != null) {
+            v = v.izquierdo;
+        }
+        return v;
+    }
+
+    /* Regresa el sucesor en in-order del vértice, o null si es el último. */
+    private static <T> ArbolBinario<T>.Vertice
+    sucesor(ArbolBinario<T>.Vertice v) {
+        if (v.derecho != null) {
+            return minimo(v.derecho);
+        }
+        while (v.padre != null && v.padre.derecho == v) {
+            v = v.padre;
+        }
+        return v.padre;
+    }
+
+    /* Interfaz para el trabajo sobre un rango de índices. */
+    @FunctionalInterface
+    private interface TrabajoRango {
+        public void trabaja(int inicio, int fin);
+    }
+
+    /* Tarea de fork/join que divide un rango de índices a la mitad hasta que
+       no rebasa el umbral, y hace el trabajo sobre cada pedazo. */
+    private static class TareaRango extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /* El rango de índices, el umbral y el trabajo. */
+        private int inicio;
+        private int fin;
+        private int umbral;
+        private TrabajoRango trabajo;
+
+        /* Construye una tarea para el rango [inicio, fin). */
+        public TareaRango(int inicio, int fin, int umbral,
+                          TrabajoRango trabajo) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.umbral = umbral;
+            this.trabajo = trabajo;
+        }
+
+        /* Hace el trabajo o lo divide. */
+        @Override protected void compute() {
+            if (this.fin - this.inicio <= this.umbral) {
+                this.trabajo.trabaja(this.inicio, this.fin);
+                return;
+            }
+            int mitad = (this.inicio + this.fin) >>> 1;
+            invokeAll(new TareaRango(this.inicio, mitad, this.umbral,
+                                     this.trabajo),
+                      new TareaRango(mitad, this.fin, this.umbral,
+                                     this.trabajo));
+        }
+    }
+
+    /* Estadísticas de una partición de la construcción en paralelo. */
+    private static class Particion {
+        /* Entradas distintas, cubetas no vacías, suma de los cuadrados de
+           las longitudes, longitud máxima e histograma de longitudes. */
+        public int elementos;
+        public int ocupadas;
+        public long sumaCuadrados;
+        public int longitudMaxima;
+        public int[] histograma = new int[16];
+    }
+
     /** Máxima carga permitida por el diccionario. */
     public static final double MAXIMA_CARGA = 0.72;
 
     /* Capacidad mínima; decidida arbitrariamente a 2^6. */
     private static final int MINIMA_CAPACIDAD = 64;
 
+    /* Cubetas que se migran en cada operación durante un crecimiento
+       incremental. Al crecer, la tabla nueva admite al menos 0.72n
+       inserciones antes de volver a crecer, y la anterior tiene n cubetas,
+       así que basta con 2 por operación (n / 0.72 < 2n); usamos 4 para que
+       la migración termine antes y las búsquedas dejen pronto de revisar
+       las dos tablas. */
+    private static final int CUBETAS_POR_OPERACION = 4;
+
+    /* Umbral de árbol predeterminado. */
+    private static final int UMBRAL_ARBOL = 8;
+
+    /* Número de índices a partir del cual una tarea de la construcción en
+       paralelo se divide en dos. */
+    private static final int UMBRAL_PARALELO = 1 << 13;
+
+    /* Número de llaves que se buscan intercaladas en las búsquedas por
+       lotes; suficientes para tener varias lecturas de memoria en vuelo a la
+       vez, y pocas para que el grupo quepa en registros y en L1. */
+    private static final int GRUPO_LOTE = 16;
+
     /* Dispersor. */
     private Dispersor<K> dispersor;
     /* Nuestro diccionario. */
     private Lista<Entrada>[] entradas;
     /* Número de valores. */
     private int elementos;
+    /* Si el diccionario crece de manera incremental. */
+    private boolean incremental;
+    /* El arreglo anterior durante una migración incremental, o null. */
+    private Lista<Entrada>[] anteriores;
+    /* La siguiente cubeta del arreglo anterior por migrar. */
+    private int migradas;
+    /* Los árboles de las cubetas que lo son, o null si no hay ninguno. En
+       esas cubetas la lista es null. */
+    private ArbolRojinegro<Entrada>[] arboles;
+    /* Los árboles del arreglo anterior durante una migración. */
+    private ArbolRojinegro<Entrada>[] arbolesAnteriores;
+    /* Longitud a partir de la cual una cubeta se vuelve árbol. */
+    private int umbralArbol = UMBRAL_ARBOL;
+    /* El siguiente desempate para las entradas. */
+    private int desempates;
+    /* Estadísticas del arreglo actual, que se mantienen al agregar, eliminar
+       y crecer: cubetas no vacías, suma de los cuadrados de las longitudes
+       de las cubetas, cuántas cubetas hay de cada longitud mayor que 0, y la
+       longitud máxima. */
+    private int ocupadas;
+    private long sumaCuadrados;
+    private int[] histograma = new int[16];
+    private int longitudMaxima;
+    /* Número de crecimientos, y nanosegundos gastados en ellos. */
+    private int crecimientos;
+    private long tiempoCrecimiento;
 
     /* Truco para crear un arreglo genérico. Es necesario hacerlo así por cómo
        Java implementa sus genéricos; de otra forma obtenemos advertencias del
@@ -144,6 +488,49 @@ public class Diccionario<K, V> implements Iterable<V> {
         return (Lista<Entrada>[])Array.newInstance(Lista.class, n);
     }
 
+    /* Lo mismo para los arreglos de árboles. */
+    @SuppressWarnings("unchecked")
+    private ArbolRojinegro<Entrada>[] nuevoArregloArboles(int n) {
+        return (ArbolRojinegro<Entrada>[])
+            Array.newInstance(ArbolRojinegro.class, n);
+    }
+
+    /* Lo mismo para los arreglos de entradas. */
+    @SuppressWarnings("unchecked")
+    private Entrada[] nuevoArregloEntradas(int n) {
+        return (Entrada[])Array.newInstance(Entrada.class, n);
+    }
+
+    /* Compara dos llaves si son de la misma clase y comparables; si no,
+       regresa 0. */
+    @SuppressWarnings("unchecked")
+    private static int comparaLlaves(Object a, Object b) {
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable<Object>)a).compareTo(b);
+        }
+        return 0;
+    }
+
+    /* Orden total de dos llaves para los árboles, como tieBreakOrder de
+       java.util.HashMap: compareTo si son de la misma clase comparable,
+       luego el nombre de la clase, luego System.identityHashCode. Así las
+       llaves de una clase quedan juntas y en orden, y buscaEnArbol puede
+       seguir una sola rama cuando compareTo decide. */
+    private static int ordenaLlaves(Object a, Object b) {
+        int c = comparaLlaves(a, b);
+        if (c != 0) {
+            return c;
+        }
+        if (a.getClass() != b.getClass()) {
+            c = a.getClass().getName().compareTo(b.getClass().getName());
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(System.identityHashCode(a),
+                               System.identityHashCode(b));
+    }
+
     /**
      * Construye un diccionario con una capacidad inicial y dispersor
      * predeterminados.
@@ -192,6 +579,211 @@ public class Diccionario<K, V> implements Iterable<V> {
         return contador;
     }
 
+    /**
+     * Construye un diccionario con las llaves y valores de los arreglos, con
+     * el dispersor predeterminado. Ver {@link #desde(Object[], Object[],
+     * Dispersor)}.
+     * @param <K> el tipo de las llaves.
+     * @param <V> el tipo de los valores.
+     * @param llaves las llaves.
+     * @param valores los valores; el i-ésimo es el de la i-ésima llave.
+     * @return un diccionario con las llaves y valores de los arreglos.
+     * @throws IllegalArgumentException si los arreglos son nulos o de
+     *         distinta longitud, o si alguna llave o valor es nulo.
+     */
+    public static <K, V> Diccionario<K, V> desde(K[] llaves, V[] valores) {
+        return desde(llaves, valores, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con las llaves y valores de los arreglos, en
+     * paralelo. El diccionario se crea con su capacidad definitiva, así que
+     * nunca crece; las llaves se dispersan en paralelo, se reparten por los
+     * bits altos de su cubeta en particiones de cubetas contiguas, y cada
+     * partición se llena en paralelo sin compartir cubetas con las demás. El
+     * resultado es el mismo que agregar las llaves en orden: si una llave se
+     * repite, se queda con su último valor.
+     * @param <K> el tipo de las llaves.
+     * @param <V> el tipo de los valores.
+     * @param llaves las llaves.
+     * @param valores los valores; el i-ésimo es el de la i-ésima llave.
+     * @param dispersor el dispersor a utilizar.
+     * @return un diccionario con las llaves y valores de los arreglos.
+     * @throws IllegalArgumentException si los arreglos son nulos o de
+     *         distinta longitud, o si alguna llave o valor es nulo.
+     */
+    public static <K, V> Diccionario<K, V> desde(K[] llaves, V[] valores,
+                                                 Dispersor<K> dispersor) {
+        if (llaves == null || valores == null ||
+            llaves.length != valores.length) {
+            throw new IllegalArgumentException();
+        }
+        Diccionario<K, V> diccionario =
+            new Diccionario<K, V>(llaves.length, dispersor);
+        if (llaves.length > 0) {
+            diccionario.llena(llaves, valores);
+        }
+        return diccionario;
+    }
+
+    /* Llena en paralelo el diccionario vacío con las llaves y valores. Cada
+       fase termina con ForkJoinPool.invoke, que garantiza que la siguiente
+       fase, y quien recibe el diccionario, ve todo lo escrito por las
+       tareas. */
+    private void llena(K[] llaves, V[] valores) {
+        int n = llaves.length;
+        ForkJoinPool alberca = ForkJoinPool.commonPool();
+        int[] dispersiones = new int[n];
+        alberca.invoke(new TareaRango(0, n, UMBRAL_PARALELO, (a, b) -> {
+            for (int i = a; i < b; i++) {
+                if (llaves[i] == null || valores[i] == null) {
+                    throw new IllegalArgumentException();
+                }
+                dispersiones[i] = this.dispersor.dispersa(llaves[i]);
+            }
+        }));
+
+        /* El número de particiones es potencia de 2, y la partición de una
+           llave son los bits altos de su cubeta. */
+        int mascara = this.entradas.length - 1;
+        int particiones = 1;
+        while (particiones < 4 * alberca.getParallelism() &&
+               particiones < this.entradas.length) {
+            particiones *= 2;
+        }
+        int corrimiento = Integer.numberOfTrailingZeros(this.entradas.length) -
+            Integer.numberOfTrailingZeros(particiones);
+
+        /* Contamos por pedazos de la entrada cuántas llaves caen en cada
+           partición, y convertimos las cuentas en posiciones de manera que
+           cada partición quede contigua y en el orden de la entrada. */
+        int pedazos = Math.max(1, Math.min(particiones, n / UMBRAL_PARALELO));
+        int[][] posiciones = new int[pedazos][particiones];
+        alberca.invoke(new TareaRango(0, pedazos, 1, (a, b) -> {
+            for (int c = a; c < b; c++) {
+                int fin = inicioPedazo(c + 1, pedazos, n);
+                for (int i = inicioPedazo(c, pedazos, n); i < fin; i++) {
+                    int p = (dispersiones[i] & mascara) >>> corrimiento;
+                    posiciones[c][p]++;
+                }
+            }
+        }));
+        int[] limites = new int[particiones + 1];
+        int posicion = 0;
+        for (int p = 0; p < particiones; p++) {
+            limites[p] = posicion;
+            for (int c = 0; c < pedazos; c++) {
+                int cuenta = posiciones[c][p];
+                posiciones[c][p] = posicion;
+                posicion += cuenta;
+            }
+        }
+        limites[particiones] = n;
+        int[] orden = new int[n];
+        alberca.invoke(new TareaRango(0, pedazos, 1, (a, b) -> {
+            for (int c = a; c < b; c++) {
+                int fin = inicioPedazo(c + 1, pedazos, n);
+                for (int i = inicioPedazo(c, pedazos, n); i < fin; i++) {
+                    int p = (dispersiones[i] & mascara) >>> corrimiento;
+                    orden[posiciones[c][p]++] = i;
+                }
+            }
+        }));
+
+        /* Cada partición llena sus cubetas. */
+        Particion[] estadisticas = new Particion[particiones];
+        alberca.invoke(new TareaRango(0, particiones, 1, (a, b) -> {
+            for (int p = a; p < b; p++) {
+                estadisticas[p] = llenaParticion(
+                    llaves, valores, dispersiones, orden,
+                    limites[p], limites[p + 1],
+                    p << corrimiento, (p + 1) << corrimiento);
+            }
+        }));
+
+        /* Juntamos las estadísticas, y convertimos en árboles las cubetas
+           que rebasan el umbral. */
+        for (Particion particion : estadisticas) {
+            this.elementos += particion.elementos;
+            this.ocupadas += particion.ocupadas;
+            this.sumaCuadrados += particion.sumaCuadrados;
+            if (particion.longitudMaxima > this.longitudMaxima) {
+                this.longitudMaxima = particion.longitudMaxima;
+            }
+        }
+        while (this.histograma.length <= this.longitudMaxima) {
+            this.histograma = new int[2 * this.histograma.length];
+        }
+        for (int p = 0; p < particiones; p++) {
+            Particion particion = estadisticas[p];
+            for (int l = 1; l <= particion.longitudMaxima; l++) {
+                this.histograma[l] += particion.histograma[l];
+            }
+            if (particion.longitudMaxima <= this.umbralArbol) {
+                continue;
+            }
+            for (int i = p << corrimiento; i < (p + 1) << corrimiento; i++) {
+                if (this.entradas[i] != null &&
+                    this.entradas[i].getLongitud() > this.umbralArbol) {
+                    arboliza(i);
+                }
+            }
+        }
+    }
+
+    /* Regresa el primer índice del pedazo c de n índices repartidos en
+       pedazos. */
+    private static int inicioPedazo(int c, int pedazos, int n) {
+        return (int)((long)c * n / pedazos);
+    }
+
+    /* Llena las cubetas [inicio, fin) con las llaves orden[primera..ultima), y
+       regresa sus estadísticas. Ninguna otra tarea toca esas cubetas. */
+    private Particion llenaParticion(K[] llaves, V[] valores,
+                                     int[] dispersiones, int[] orden,
+                                     int primera, int ultima,
+                                     int inicio, int fin) {
+        Particion particion = new Particion();
+        int mascara = this.entradas.length - 1;
+        for (int k = primera; k < ultima; k++) {
+            int j = orden[k];
+            int i = dispersiones[j] & mascara;
+            Entrada entrada = buscaEnCubeta(this.entradas[i], null,
+                                            llaves[j], dispersiones[j]);
+            if (entrada != null) {
+                entrada.valor = valores[j];
+                continue;
+            }
+            entrada = new Entrada(llaves[j], valores[j]);
+            entrada.dispersion = dispersiones[j];
+            if (this.entradas[i] == null) {
+                this.entradas[i] = new Lista<Entrada>();
+            }
+            this.entradas[i].agregaFinal(entrada);
+            particion.elementos++;
+        }
+        for (int i = inicio; i < fin; i++) {
+            if (this.entradas[i] == null) {
+                continue;
+            }
+            int l = this.entradas[i].getLongitud();
+            particion.ocupadas++;
+            particion.sumaCuadrados += (long)l * l;
+            if (l > particion.longitudMaxima) {
+                particion.longitudMaxima = l;
+            }
+            while (particion.histograma.length <= l) {
+                int[] nuevo = new int[2 * particion.histograma.length];
+                for (int h = 0; h < particion.histograma.length; h++) {
+                    nuevo[h] = particion.histograma[h];
+                }
+                particion.histograma = nuevo;
+            }
+            particion.histograma[l]++;
+        }
+        return particion;
+    }
+
     /**
      * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
      * la llave ya había sido utilizada antes para agregar un valor, el
@@ -204,49 +796,555 @@ public class Diccionario<K, V> implements Iterable<V> {
         if (llave == null || valor == null) {
             throw new IllegalArgumentException();
         }
-        int mascara = this.entradas.length - 1;
-        int i = this.dispersor.dispersa(llave) & mascara;
-        if (this.entradas[i] == null) {
-            Lista<Entrada> nueva = new Lista<Entrada>();
-            this.entradas[i] = nueva;
-            Entrada nuevaEntrada = new Entrada(llave, valor);
-            this.entradas[i].agregaFinal(nuevaEntrada);
-            this.elementos += 1;
+        int h = this.dispersor.dispersa(llave);
+        Entrada entrada = ubica(llave, h);
+        if (entrada != null) {
+            entrada.valor = valor;
+            return;
+        }
+        agregaNueva(llave, valor, h);
+        // Aquí va su código.
+    }
+
+    /* Prepara la cubeta de la dispersión h del arreglo actual para
+       modificarla: durante una migración, primero migra la cubeta anterior
+       que le corresponde y avanza la migración. Regresa la entrada de la
+       llave, o null si la llave no está. */
+    private Entrada ubica(K llave, int h) {
+        if (this.anteriores != null) {
+            migraCubeta(h & (this.anteriores.length - 1));
+            avanzaMigracion();
+        }
+        int i = h & (this.entradas.length - 1);
+        return buscaEnCubeta(this.entradas[i], this.arboles == null ? null :
+                             this.arboles[i], llave, h);
+    }
+
+    /* Agrega una llave que no está en el diccionario, con su dispersión ya
+       calculada, y crece si es necesario. */
+    private void agregaNueva(K llave, V valor, int h) {
+        Entrada entrada = new Entrada(llave, valor);
+        entrada.dispersion = h;
+        inserta(entrada);
+        this.elementos += 1;
+        if (this.carga() >= MAXIMA_CARGA) {
+            crece();
+        }
+    }
+
+    /* Quita una entrada de su cubeta del arreglo actual; la entrada debe
+       haber sido ubicada con ubica. */
+    private void quita(Entrada entrada) {
+        int i = entrada.dispersion & (this.entradas.length - 1);
+        if (this.arboles != null && this.arboles[i] != null) {
+            ArbolRojinegro<Entrada> arbol = this.arboles[i];
+            acortaCubeta(arbol.getElementos());
+            arbol.elimina(entrada);
+            this.elementos -= 1;
+            if (arbol.getElementos() <= this.umbralArbol * 3 / 4) {
+                desarboliza(i);
+            }
+            return;
+        }
+        Lista<Entrada> lista = this.entradas[i];
+        acortaCubeta(lista.getLongitud());
+        lista.elimina(entrada);
+        this.elementos -= 1;
+    }
+
+    /**
+     * Regresa el valor asociado a la llave; si la llave no está, lo calcula
+     * con la función y lo agrega al diccionario. La llave se dispersa y su
+     * cubeta se recorre una sola vez. Si la función regresa
+     * <code>null</code>, no se agrega nada. La función no debe modificar el
+     * diccionario.
+     * @param llave la llave.
+     * @param funcion la función para calcular el valor de una llave que no
+     *        está.
+     * @return el valor asociado a la llave, o <code>null</code> si no estaba
+     *         y la función regresó <code>null</code>.
+     * @throws IllegalArgumentException si la llave es nula.
+     */
+    public V calculaSiAusente(K llave,
+                              Function<? super K, ? extends V> funcion) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = this.dispersor.dispersa(llave);
+        Entrada entrada = ubica(llave, h);
+        if (entrada != null) {
+            return entrada.valor;
+        }
+        V valor = funcion.apply(llave);
+        if (valor != null) {
+            agregaNueva(llave, valor, h);
+        }
+        return valor;
+    }
+
+    /**
+     * Si la llave está en el diccionario, reemplaza su valor por el que
+     * calcule la función a partir de la llave y el valor anterior; si la
+     * función regresa <code>null</code>, elimina la llave. La llave se
+     * dispersa y su cubeta se recorre una sola vez. La función no debe
+     * modificar el diccionario.
+     * @param llave la llave.
+     * @param funcion la función para calcular el nuevo valor.
+     * @return el nuevo valor asociado a la llave, o <code>null</code> si la
+     *         llave no está o se eliminó.
+     * @throws IllegalArgumentException si la llave es nula.
+     */
+    public V calculaSiPresente(K llave,
+                               BiFunction<? super K, ? super V,
+                                          ? extends V> funcion) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Entrada entrada = ubica(llave, this.dispersor.dispersa(llave));
+        if (entrada == null) {
+            return null;
+        }
+        V valor = funcion.apply(llave, entrada.valor);
+        if (valor == null) {
+            quita(entrada);
         } else {
-            boolean hayLlave = false;
-            for (int j = 0; j < this.entradas[i].getLongitud(); j++) {
-                Entrada entrada = this.entradas[i].get(j);
-                if (entrada.llave.equals(llave)) {
-                    this.entradas[i].get(j).valor = valor;
-                    hayLlave =  true;
+            entrada.valor = valor;
+        }
+        return valor;
+    }
+
+    /**
+     * Fusiona un valor con el de la llave. Si la llave no está, la agrega
+     * con el valor; si está, reemplaza su valor por el que calcule la
+     * función a partir del valor anterior y el dado, y si la función
+     * regresa <code>null</code> elimina la llave. La llave se dispersa y su
+     * cubeta se recorre una sola vez. La función no debe modificar el
+     * diccionario.
+     * @param llave la llave.
+     * @param valor el valor a fusionar.
+     * @param funcion la función para fusionar el valor anterior con el dado.
+     * @return el nuevo valor asociado a la llave, o <code>null</code> si se
+     *         eliminó.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     */
+    public V fusiona(K llave, V valor,
+                     BiFunction<? super V, ? super V, ? extends V> funcion) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = this.dispersor.dispersa(llave);
+        Entrada entrada = ubica(llave, h);
+        if (entrada == null) {
+            agregaNueva(llave, valor, h);
+            return valor;
+        }
+        V nuevo = funcion.apply(entrada.valor, valor);
+        if (nuevo == null) {
+            quita(entrada);
+        } else {
+            entrada.valor = nuevo;
+        }
+        return nuevo;
+    }
+
+    /**
+     * Incrementa el contador de una llave en un diccionario cuyos valores
+     * son {@link Long}: si la llave no está, se agrega con el incremento
+     * como valor; si está, su valor se reemplaza por la suma. La llave se
+     * dispersa y su cubeta se recorre una sola vez, y no se crean objetos
+     * intermedios más allá del {@link Long} resultante. Es estático para
+     * que el compilador sólo lo acepte con diccionarios de {@link Long}.
+     * @param <K> el tipo de las llaves.
+     * @param diccionario el diccionario de contadores.
+     * @param llave la llave.
+     * @param incremento el incremento, que puede ser negativo.
+     * @return el nuevo valor del contador.
+     * @throws IllegalArgumentException si la llave es nula.
+     */
+    public static <K> long incrementa(Diccionario<K, Long> diccionario,
+                                      K llave, long incremento) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = diccionario.dispersor.dispersa(llave);
+        Diccionario<K, Long>.Entrada entrada = diccionario.ubica(llave, h);
+        if (entrada == null) {
+            diccionario.agregaNueva(llave, incremento, h);
+            return incremento;
+        }
+        long cuenta = entrada.valor + incremento;
+        entrada.valor = cuenta;
+        return cuenta;
+    }
+
+    /* Duplica el arreglo de entradas. En modo incremental sólo se guarda el
+       arreglo anterior, y sus cubetas se migran poco a poco. */
+    private void crece() {
+        terminaMigracion();
+        long tiempo = System.nanoTime();
+        Lista<Entrada>[] listas = this.entradas;
+        ArbolRojinegro<Entrada>[] arboles = this.arboles;
+        this.entradas = nuevoArreglo(2 * listas.length);
+        this.arboles = null;
+        reiniciaEstadisticas();
+        this.crecimientos++;
+        if (this.incremental) {
+            this.anteriores = listas;
+            this.arbolesAnteriores = arboles;
+            this.migradas = 0;
+        } else {
+            for (int j = 0; j < listas.length; j++) {
+                if (listas[j] != null) {
+                    divide(j, listas[j]);
+                } else if (arboles != null && arboles[j] != null) {
+                    divide(j, arboles[j]);
                 }
             }
-            if (!(hayLlave)) {
-                Entrada nuevaEntrada = new Entrada(llave, valor);
-                this.entradas[i].agregaFinal(nuevaEntrada);
-                this.elementos += 1;
+        }
+        this.tiempoCrecimiento += System.nanoTime() - tiempo;
+    }
+
+    /* Deja las estadísticas como las de un arreglo vacío. */
+    private void reiniciaEstadisticas() {
+        for (int l = 1; l <= this.longitudMaxima; l++) {
+            this.histograma[l] = 0;
+        }
+        this.ocupadas = 0;
+        this.sumaCuadrados = 0;
+        this.longitudMaxima = 0;
+    }
+
+    /* Registra que una cubeta del arreglo actual pasó de longitud l a
+       l + 1. */
+    private void alargaCubeta(int l) {
+        if (l == 0) {
+            this.ocupadas++;
+        } else {
+            this.histograma[l]--;
+        }
+        if (l + 1 == this.histograma.length) {
+            int[] nuevo = new int[2 * this.histograma.length];
+            for (int j = 0; j < this.histograma.length; j++) {
+                nuevo[j] = this.histograma[j];
             }
+            this.histograma = nuevo;
         }
-        if (this.carga() >= MAXIMA_CARGA) {
-            Lista<Entrada>[] nuevo = nuevoArreglo(2 * this.entradas.length);
-            int nuevaMascara = nuevo.length - 1;
-            for (int j = 0; j < this.entradas.length; j++) {
-                if (this.entradas[j] != null && this.entradas[j].getLongitud() > 0) {
-                    for (int k = 0; k < this.entradas[j].getLongitud(); k++) {
-                        int nuevoIndice = this.dispersor.dispersa(this.entradas[j].get(k).llave) & nuevaMascara;
-                        if (nuevo[nuevoIndice] == null) {
-                            Lista<Entrada> nuevaLista = new Lista<Entrada>();
-                            nuevo[nuevoIndice] = nuevaLista;
-                            nuevo[nuevoIndice].agregaFinal(this.entradas[j].get(k));
-                        } else {
-                            nuevo[nuevoIndice].agregaFinal(this.entradas[j].get(k));
-                        }
-                    }
+        this.histograma[l + 1]++;
+        this.sumaCuadrados += 2L * l + 1;
+        if (l + 1 > this.longitudMaxima) {
+            this.longitudMaxima = l + 1;
+        }
+    }
+
+    /* Registra que una cubeta del arreglo actual pasó de longitud l a
+       l - 1. */
+    private void acortaCubeta(int l) {
+        this.histograma[l]--;
+        if (l == 1) {
+            this.ocupadas--;
+        } else {
+            this.histograma[l - 1]++;
+        }
+        this.sumaCuadrados -= 2L * l - 1;
+        if (l == this.longitudMaxima && this.histograma[l] == 0) {
+            this.longitudMaxima--;
+        }
+    }
+
+    /* Mueve las entradas de la cubeta al arreglo actual. Las cubetas que al
+       dividirse quedan por debajo del umbral vuelven a ser listas. */
+    private void mueve(Coleccion<Entrada> cubeta) {
+        for (Entrada entrada : cubeta) {
+            inserta(entrada);
+        }
+    }
+
+    /* Divide la cubeta j del arreglo anterior, que tiene la mitad de
+       cubetas, entre las cubetas j y j + n del actual, según el bit n de la
+       dispersión guardada; no se vuelve a llamar al dispersor. Las entradas
+       conservan su orden, y si todas van al mismo lado la lista se reutiliza
+       completa. Si alguna de las dos cubetas ya tiene entradas, se insertan
+       una por una. */
+    private void divide(int j, Coleccion<Entrada> cubeta) {
+        int n = this.entradas.length / 2;
+        if (longitud(j) > 0 || longitud(j + n) > 0) {
+            mueve(cubeta);
+            return;
+        }
+        int altas = 0;
+        for (Entrada entrada : cubeta) {
+            if ((entrada.dispersion & n) != 0) {
+                altas++;
+            }
+        }
+        if (cubeta instanceof Lista && (altas == 0 ||
+                                        altas == cubeta.getElementos())) {
+            coloca(altas == 0 ? j : j + n, (Lista<Entrada>)cubeta);
+            return;
+        }
+        Lista<Entrada> bajas = new Lista<Entrada>();
+        Lista<Entrada> arriba = new Lista<Entrada>();
+        for (Entrada entrada : cubeta) {
+            if ((entrada.dispersion & n) == 0) {
+                bajas.agregaFinal(entrada);
+            } else {
+                arriba.agregaFinal(entrada);
+            }
+        }
+        coloca(j, bajas);
+        coloca(j + n, arriba);
+    }
+
+    /* Pone la lista en la cubeta vacía i del arreglo actual, actualiza las
+       estadísticas, y la convierte en árbol si rebasa el umbral. */
+    private void coloca(int i, Lista<Entrada> lista) {
+        int l = lista.getLongitud();
+        if (l == 0) {
+            return;
+        }
+        this.entradas[i] = lista;
+        this.ocupadas++;
+        while (l >= this.histograma.length) {
+            int[] nuevo = new int[2 * this.histograma.length];
+            for (int k = 0; k < this.histograma.length; k++) {
+                nuevo[k] = this.histograma[k];
+            }
+            this.histograma = nuevo;
+        }
+        this.histograma[l]++;
+        this.sumaCuadrados += (long)l * l;
+        if (l > this.longitudMaxima) {
+            this.longitudMaxima = l;
+        }
+        if (l > this.umbralArbol) {
+            arboliza(i);
+        }
+    }
+
+    /* Inserta una entrada que no está en el diccionario en su cubeta del
+       arreglo actual, y la convierte en árbol si rebasa el umbral. */
+    private void inserta(Entrada entrada) {
+        int i = entrada.dispersion & (this.entradas.length - 1);
+        alargaCubeta(longitud(i));
+        if (this.arboles != null && this.arboles[i] != null) {
+            entrada.desempate = this.desempates++;
+            this.arboles[i].agrega(entrada);
+            return;
+        }
+        if (this.entradas[i] == null) {
+            this.entradas[i] = new Lista<Entrada>();
+        }
+        this.entradas[i].agregaFinal(entrada);
+        if (this.entradas[i].getLongitud() > this.umbralArbol) {
+            arboliza(i);
+        }
+    }
+
+    /* Convierte la lista de la cubeta i en árbol. */
+    private void arboliza(int i) {
+        if (this.arboles == null) {
+            this.arboles = nuevoArregloArboles(this.entradas.length);
+        }
+        ArbolRojinegro<Entrada> arbol = new ArbolRojinegro<Entrada>();
+        for (Entrada entrada : this.entradas[i]) {
+            entrada.desempate = this.desempates++;
+            arbol.agrega(entrada);
+        }
+        this.arboles[i] = arbol;
+        this.entradas[i] = null;
+    }
+
+    /* Convierte el árbol de la cubeta i en lista. */
+    private void desarboliza(int i) {
+        Lista<Entrada> lista = new Lista<Entrada>();
+        for (Entrada entrada : this.arboles[i]) {
+            lista.agregaFinal(entrada);
+        }
+        this.entradas[i] = lista;
+        this.arboles[i] = null;
+    }
+
+    /* Migra la cubeta i del arreglo anterior, si no se ha migrado. */
+    private void migraCubeta(int i) {
+        if (this.anteriores[i] != null) {
+            divide(i, this.anteriores[i]);
+            this.anteriores[i] = null;
+        } else if (this.arbolesAnteriores != null &&
+                   this.arbolesAnteriores[i] != null) {
+            divide(i, this.arbolesAnteriores[i]);
+            this.arbolesAnteriores[i] = null;
+        }
+    }
+
+    /* Migra a lo más CUBETAS_POR_OPERACION cubetas del arreglo anterior. */
+    private void avanzaMigracion() {
+        long tiempo = System.nanoTime();
+        int fin = Math.min(this.migradas + CUBETAS_POR_OPERACION,
+                           this.anteriores.length);
+        for (; this.migradas < fin; this.migradas++) {
+            migraCubeta(this.migradas);
+        }
+        if (this.migradas == this.anteriores.length) {
+            this.anteriores = null;
+            this.arbolesAnteriores = null;
+        }
+        this.tiempoCrecimiento += System.nanoTime() - tiempo;
+    }
+
+    /* Termina de golpe la migración en curso, si la hay. */
+    private void terminaMigracion() {
+        if (this.anteriores == null) {
+            return;
+        }
+        long tiempo = System.nanoTime();
+        for (; this.migradas < this.anteriores.length; this.migradas++) {
+            migraCubeta(this.migradas);
+        }
+        this.anteriores = null;
+        this.arbolesAnteriores = null;
+        this.tiempoCrecimiento += System.nanoTime() - tiempo;
+    }
+
+    /* Busca la entrada de la llave con la dispersión dada; durante una
+       migración la busca también en la cubeta anterior si no se ha
+       migrado. Regresa null si la llave no está. */
+    private Entrada buscaEntrada(K llave, int h) {
+        if (this.anteriores != null) {
+            int i = h & (this.anteriores.length - 1);
+            Lista<Entrada> anterior = this.anteriores[i];
+            ArbolRojinegro<Entrada> arbol = this.arbolesAnteriores == null ?
+                null : this.arbolesAnteriores[i];
+            avanzaMigracion();
+            if (anterior != null || arbol != null) {
+                return buscaEnCubeta(anterior, arbol, llave, h);
+            }
+        }
+        int i = h & (this.entradas.length - 1);
+        return buscaEnCubeta(this.entradas[i], this.arboles == null ? null :
+                             this.arboles[i], llave, h);
+    }
+
+    /* Busca la entrada de la llave en una cubeta, que es una lista, un árbol
+       o ninguno. Regresa null si la llave no está. */
+    private Entrada buscaEnCubeta(Lista<Entrada> lista,
+                                  ArbolRojinegro<Entrada> arbol,
+                                  K llave, int h) {
+        if (arbol != null) {
+            return arbol.esVacia() ? null :
+                buscaEnArbol(arbol.raiz(), llave, h);
+        }
+        if (lista == null) {
+            return null;
+        }
+        for (Entrada entrada : lista) {
+            if (entrada.dispersion == h && entrada.llave.equals(llave)) {
+                return entrada;
+            }
+        }
+        return null;
+    }
+
+    /* Busca la entrada de la llave en el subárbol del vértice. Si la
+       dispersión empata y compareTo no decide (las clases son distintas,
+       no son comparables, o compareTo empata), hay que buscar en ambos
+       lados: el resto del orden usa identityHashCode, que no es el mismo
+       para llaves iguales. */
+    private Entrada buscaEnArbol(VerticeArbolBinario<Entrada> vertice,
+                                 K llave, int h) {
+        while (vertice != null) {
+            Entrada entrada = vertice.get();
+            int c = Integer.compare(h, entrada.dispersion);
+            if (c == 0) {
+                if (entrada.llave.equals(llave)) {
+                    return entrada;
                 }
+                c = comparaLlaves(llave, entrada.llave);
+            }
+            if (c == 0) {
+                Entrada e = vertice.hayIzquierdo() ?
+                    buscaEnArbol(vertice.izquierdo(), llave, h) : null;
+                if (e != null) {
+                    return e;
+                }
+                c = 1;
+            }
+            if (c < 0) {
+                vertice = vertice.hayIzquierdo() ? vertice.izquierdo() : null;
+            } else {
+                vertice = vertice.hayDerecho() ? vertice.derecho() : null;
             }
-            this.entradas = nuevo;
         }
-        // Aquí va su código.
+        return null;
+    }
+
+    /* Regresa la cubeta i del arreglo actual: su lista, su árbol o null. */
+    private Coleccion<Entrada> cubeta(int i) {
+        if (this.entradas[i] != null) {
+            return this.entradas[i];
+        }
+        return this.arboles == null ? null : this.arboles[i];
+    }
+
+    /* Regresa la longitud de la cubeta i del arreglo actual. */
+    private int longitud(int i) {
+        Coleccion<Entrada> cubeta = cubeta(i);
+        return cubeta == null ? 0 : cubeta.getElementos();
+    }
+
+    /**
+     * Define la longitud a partir de la cual una cubeta se convierte de lista
+     * en árbol. Un árbol vuelve a ser lista cuando se reduce a las tres
+     * cuartas partes del umbral, ya sea por eliminaciones o porque el
+     * diccionario creció. Cambiar el umbral no afecta a las cubetas hasta
+     * que se modifican.
+     * @param umbral la longitud a partir de la cual una cubeta se convierte
+     *        en árbol; {@link Integer#MAX_VALUE} lo evita.
+     * @throws IllegalArgumentException si el umbral es menor que 1.
+     */
+    public void setUmbralArbol(int umbral) {
+        if (umbral < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.umbralArbol = umbral;
+    }
+
+    /**
+     * Regresa la longitud a partir de la cual una cubeta se convierte en
+     * árbol.
+     * @return el umbral de árbol.
+     */
+    public int getUmbralArbol() {
+        return this.umbralArbol;
+    }
+
+    /**
+     * Hace que el diccionario crezca de manera incremental o no. Cuando crece
+     * de manera incremental, al rebasar la carga máxima el diccionario
+     * conserva el arreglo anterior, y cada llamada a {@link #agrega}, {@link
+     * #get}, {@link #contiene} y {@link #elimina} migra un número acotado de
+     * cubetas al arreglo nuevo; así ninguna operación individual paga el
+     * costo completo de crecer. Mientras dura la migración, las búsquedas
+     * consultan ambos arreglos; los iteradores, {@link #paraCada}, {@link
+     * #toString} y las estadísticas leen las cubetas de los dos arreglos
+     * sin terminarla, y un {@link #cursor} migra cada cubeta anterior al
+     * llegar a ella.
+     * @param incremental si el diccionario debe crecer de manera
+     *        incremental.
+     */
+    public void setIncremental(boolean incremental) {
+        if (!incremental) {
+            terminaMigracion();
+        }
+        this.incremental = incremental;
+    }
+
+    /**
+     * Nos dice si el diccionario crece de manera incremental.
+     * @return <code>true</code> si el diccionario crece de manera
+     *         incremental, <code>false</code> en otro caso.
+     */
+    public boolean esIncremental() {
+        return this.incremental;
     }
 
     /**
@@ -260,19 +1358,140 @@ public class Diccionario<K, V> implements Iterable<V> {
         if (llave == null) {
             throw new IllegalArgumentException();
         }
-        int mascara = this.entradas.length - 1;
-        int i = this.dispersor.dispersa(llave) & mascara;
-        if (this.entradas[i] == null) {
+        Entrada entrada = buscaEntrada(llave, this.dispersor.dispersa(llave));
+        if (entrada == null) {
             throw new NoSuchElementException();
         }
-        for (int j = 0; j < this.entradas[i].getLongitud(); j++) {
-            Entrada entrada = this.entradas[i].get(j);
-            if (entrada.llave.equals(llave)) {
-                return entrada.valor;
+        return entrada.valor;
+        // Aquí va su código.
+    }
+
+    /* Regresa el valor asociado a la llave, o null si la llave no está. Para
+       las clases del paquete que buscan llaves que muchas veces no están, y
+       no quieren pagar por lanzar una excepción. */
+    V busca(K llave) {
+        Entrada entrada = buscaEntrada(llave, this.dispersor.dispersa(llave));
+        return entrada == null ? null : entrada.valor;
+    }
+
+    /**
+     * Busca un lote de llaves y deja sus valores en el arreglo destino: el
+     * valor de <code>llaves[i]</code> queda en <code>destino[i]</code>, o
+     * <code>null</code> si la llave no está en el diccionario. Primero se
+     * dispersan todas las llaves, y luego se recorren las cubetas en grupos
+     * intercalados, de manera que las lecturas de memoria de las llaves de
+     * un grupo no dependen unas de otras y el procesador las puede tener en
+     * vuelo a la vez; con tablas mucho más grandes que el caché esto es
+     * bastante más rápido que llamar {@link #get} con cada llave.
+     * @param llaves las llaves a buscar.
+     * @param destino el arreglo donde se dejan los valores.
+     * @throws IllegalArgumentException si alguna llave es nula, o si el
+     *         destino es más corto que las llaves.
+     */
+    public void getTodos(K[] llaves, V[] destino) {
+        if (destino.length < llaves.length) {
+            throw new IllegalArgumentException();
+        }
+        for (K llave : llaves) {
+            if (llave == null) {
+                throw new IllegalArgumentException();
             }
         }
-        throw new NoSuchElementException();
-        // Aquí va su código.
+        buscaLote(llaves, destino, null);
+    }
+
+    /**
+     * Nos dice si cada llave de un lote se encuentra en el diccionario:
+     * <code>destino[i]</code> es <code>true</code> si y sólo si
+     * <code>llaves[i]</code> está en el diccionario. Las llaves se buscan
+     * como en {@link #getTodos}, y las llaves nulas no están.
+     * @param llaves las llaves a buscar.
+     * @param destino el arreglo donde se deja si cada llave está.
+     * @throws IllegalArgumentException si el destino es más corto que las
+     *         llaves.
+     */
+    public void contieneTodos(K[] llaves, boolean[] destino) {
+        if (destino.length < llaves.length) {
+            throw new IllegalArgumentException();
+        }
+        buscaLote(llaves, null, destino);
+    }
+
+    /* Busca un lote de llaves, dejando sus valores en valores y si están en
+       presentes, cuando no son null. Cada grupo se recorre por fases: en una
+       se leen sus cubetas, en otra la primera entrada de cada una, y en la
+       última se comparan; la mayoría de las llaves se resuelven con la
+       primera entrada, y el resto se busca en su cubeta completa. */
+    private void buscaLote(K[] llaves, V[] valores, boolean[] presentes) {
+        int n = llaves.length;
+        int[] dispersiones = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (llaves[i] != null) {
+                dispersiones[i] = this.dispersor.dispersa(llaves[i]);
+            }
+        }
+        Lista<Entrada>[] listas = nuevoArreglo(GRUPO_LOTE);
+        Entrada[] primeras = nuevoArregloEntradas(GRUPO_LOTE);
+        for (int g = 0; g < n; g += GRUPO_LOTE) {
+            int f = Math.min(g + GRUPO_LOTE, n);
+            if (this.anteriores != null) {
+                /* Durante una migración cada búsqueda la avanza, así que
+                   no se pueden intercalar. */
+                for (int i = g; i < f; i++) {
+                    Entrada e = llaves[i] == null ? null :
+                        buscaEntrada(llaves[i], dispersiones[i]);
+                    guardaLote(i, e, valores, presentes);
+                }
+                continue;
+            }
+            Lista<Entrada>[] entradas = this.entradas;
+            int mascara = entradas.length - 1;
+            for (int i = g; i < f; i++) {
+                listas[i - g] = llaves[i] == null ? null :
+                    entradas[dispersiones[i] & mascara];
+            }
+            for (int i = g; i < f; i++) {
+                Lista<Entrada> lista = listas[i - g];
+                primeras[i - g] = lista == null || lista.esVacia() ? null :
+                    lista.getPrimero();
+            }
+            for (int i = g; i < f; i++) {
+                Entrada primera = primeras[i - g];
+                if (primera != null && primera.dispersion != dispersiones[i]) {
+                    primeras[i - g] = null;
+                }
+            }
+            for (int i = g; i < f; i++) {
+                if (llaves[i] == null) {
+                    guardaLote(i, null, valores, presentes);
+                    continue;
+                }
+                Lista<Entrada> lista = listas[i - g];
+                Entrada primera = primeras[i - g];
+                Entrada e = null;
+                int h = dispersiones[i];
+                if (primera != null && primera.llave.equals(llaves[i])) {
+                    e = primera;
+                } else if (lista != null && lista.getLongitud() > 1) {
+                    e = buscaEnCubeta(lista, null, llaves[i], h);
+                } else if (lista == null && this.arboles != null) {
+                    e = buscaEnCubeta(null, this.arboles[h & mascara],
+                                      llaves[i], h);
+                }
+                guardaLote(i, e, valores, presentes);
+            }
+        }
+    }
+
+    /* Guarda el resultado de la búsqueda i de un lote. */
+    private void guardaLote(int i, Entrada entrada,
+                            V[] valores, boolean[] presentes) {
+        if (valores != null) {
+            valores[i] = entrada == null ? null : entrada.valor;
+        }
+        if (presentes != null) {
+            presentes[i] = entrada != null;
+        }
     }
 
     /**
@@ -285,16 +1504,7 @@ public class Diccionario<K, V> implements Iterable<V> {
         if (llave == null) {
             return false;
         }
-        int i = this.dispersor.dispersa(llave) & (this.entradas.length - 1);
-        if (this.entradas[i] == null) {
-            return false;
-        }
-        for (int j = 0; j < this.entradas[i].getLongitud(); j++) {
-            if (this.entradas[i].get(j).llave.equals(llave)) {
-                return true;
-            }
-        }
-        return false;
+        return buscaEntrada(llave, this.dispersor.dispersa(llave)) != null;
         // Aquí va su código.
     }
 
@@ -309,22 +1519,11 @@ public class Diccionario<K, V> implements Iterable<V> {
         if (llave == null) {
             throw new IllegalArgumentException();
         }
-        int i = this.dispersor.dispersa(llave) & (this.entradas.length - 1);
-        if (this.entradas[i] == null) {
-            throw new IllegalArgumentException();
-        }
-        boolean hayLlave = false;
-        for (int j = 0; j < this.entradas[i].getLongitud(); j++) {
-            if (this.entradas[i].get(j).llave.equals(llave)) {
-                hayLlave = true;
-                Entrada eliminar = this.entradas[i].get(j);
-                this.entradas[i].elimina(eliminar);
-                this.elementos -= 1;
-            }
-        }
-        if (!(hayLlave)) {
+        Entrada entrada = ubica(llave, this.dispersor.dispersa(llave));
+        if (entrada == null) {
             throw new NoSuchElementException();
-        }        
+        }
+        quita(entrada);
         // Aquí va su código.
     }
 
@@ -333,13 +1532,11 @@ public class Diccionario<K, V> implements Iterable<V> {
      * @return cuántas colisiones hay en el diccionario.
      */
     public int colisiones() {
-        int contadorCoalisiones = 0;
-        for (int i = 0; i < this.entradas.length; i++) {
-            if (this.entradas[i] != null && this.entradas[i].getLongitud() > 0) {
-                contadorCoalisiones += this.entradas[i].getLongitud() - 1;
-            }
+        if (this.anteriores != null) {
+            int[] histograma = histogramaCompleto();
+            return this.elementos - (this.entradas.length - histograma[0]);
         }
-        return contadorCoalisiones;
+        return this.elementos - this.ocupadas;
         // Aquí va su código.
     }
 
@@ -349,24 +1546,105 @@ public class Diccionario<K, V> implements Iterable<V> {
      * @return el máximo número de colisiones para una misma llave.
      */
     public int colisionMaxima() {
-        int maxima = 0;
-        int contador = 0;
-        for (int i = 0; i < this.entradas.length; i++) {
-            if (this.entradas[i] != null && this.entradas[i].getLongitud() > 0) {
-                maxima = this.entradas[i].getLongitud();
-                contador = i;
-                break;
-            }
-        }
-        for (int i = contador + 1; i < this.entradas.length; i++) {
-            if (this.entradas[i] != null && this.entradas[i].getLongitud() > 0) {
-                if (maxima < this.entradas[i].getLongitud()) {
-                    maxima = this.entradas[i].getLongitud();
+        if (this.anteriores != null) {
+            return histogramaCompleto().length - 2;
+        }
+        return this.longitudMaxima - 1;
+        // Aquí va su código.
+    }
+
+    /**
+     * Regresa una fotografía de las estadísticas del diccionario. Las
+     * estadísticas se mantienen al agregar, eliminar y crecer, así que
+     * calcularlas sólo copia el histograma de longitudes de las cubetas.
+     * Durante un crecimiento incremental son las que tendrá el arreglo
+     * nuevo al terminar la migración: las cubetas anteriores que faltan se
+     * cuentan como las dos en que se van a dividir, sin migrarlas.
+     * @return las estadísticas del diccionario.
+     */
+    public EstadisticasDiccionario estadisticas() {
+        int[] histograma = histogramaCompleto();
+        long sumaCuadrados = this.sumaCuadrados;
+        if (this.anteriores != null) {
+            sumaCuadrados = 0;
+            for (int l = 1; l < histograma.length; l++) {
+                sumaCuadrados += (long)l * l * histograma[l];
+            }
+        }
+        return new EstadisticasDiccionario(this.elementos, this.entradas.length,
+                                           sumaCuadrados, histograma,
+                                           this.crecimientos,
+                                           this.tiempoCrecimiento);
+    }
+
+    /* Regresa cuántas cubetas del arreglo actual hay de cada longitud,
+       incluyendo las vacías, hasta la longitud máxima. Durante una
+       migración, cada cubeta anterior que falta se reparte entre las cubetas
+       j y j + n del arreglo nuevo como lo haría divide, sin moverla. */
+    private int[] histogramaCompleto() {
+        int maxima = this.longitudMaxima;
+        int n = this.entradas.length / 2;
+        if (this.anteriores != null) {
+            for (int j = this.migradas; j < n; j++) {
+                int l = longitudAnterior(j);
+                if (l > 0) {
+                    maxima = Math.max(maxima, l + Math.max(longitud(j),
+                                                           longitud(j + n)));
                 }
             }
         }
-        return maxima - 1;
-        // Aquí va su código.
+        int[] histograma = new int[maxima + 1];
+        histograma[0] = this.entradas.length - this.ocupadas;
+        for (int l = 1; l <= this.longitudMaxima; l++) {
+            histograma[l] = this.histograma[l];
+        }
+        if (this.anteriores == null) {
+            return histograma;
+        }
+        for (int j = this.migradas; j < n; j++) {
+            if (longitudAnterior(j) == 0) {
+                continue;
+            }
+            Coleccion<Entrada> cubeta = cubetaAnterior(j);
+            int altas = 0;
+            for (Entrada entrada : cubeta) {
+                if ((entrada.dispersion & n) != 0) {
+                    altas++;
+                }
+            }
+            int bajas = cubeta.getElementos() - altas;
+            histograma[longitud(j)]--;
+            histograma[longitud(j) + bajas]++;
+            histograma[longitud(j + n)]--;
+            histograma[longitud(j + n) + altas]++;
+        }
+        while (maxima > 0 && histograma[maxima] == 0) {
+            maxima--;
+        }
+        if (maxima + 1 == histograma.length) {
+            return histograma;
+        }
+        int[] recortado = new int[maxima + 1];
+        for (int l = 0; l <= maxima; l++) {
+            recortado[l] = histograma[l];
+        }
+        return recortado;
+    }
+
+    /* Regresa la cubeta j del arreglo anterior, o null si ya se migró. */
+    private Coleccion<Entrada> cubetaAnterior(int j) {
+        if (this.anteriores[j] != null) {
+            return this.anteriores[j];
+        }
+        return this.arbolesAnteriores == null ? null :
+            this.arbolesAnteriores[j];
+    }
+
+    /* Regresa la longitud de la cubeta j del arreglo anterior, que es 0 si
+       ya se migró. */
+    private int longitudAnterior(int j) {
+        Coleccion<Entrada> cubeta = cubetaAnterior(j);
+        return cubeta == null ? 0 : cubeta.getElementos();
     }
 
     /**
@@ -402,11 +1680,39 @@ public class Diccionario<K, V> implements Iterable<V> {
      */
     public void limpia() {
         Lista<Entrada>[] limpiado = nuevoArreglo(this.entradas.length);
+        this.anteriores = null;
+        this.arbolesAnteriores = null;
+        this.arboles = null;
+        reiniciaEstadisticas();
         this.elementos = 0;
         this.entradas = limpiado;
         // Aquí va su código.
     }
 
+    /**
+     * Regresa un {@link DiccionarioEstatico} con las entradas del
+     * diccionario: de sólo lectura, con una función de dispersión perfecta
+     * mínima y sin lugares vacíos. Las dispersiones guardadas en las
+     * entradas se reutilizan, así que no se vuelve a dispersar ninguna
+     * llave; el diccionario estático usa el mismo dispersor. Modificar
+     * después el diccionario no afecta al diccionario estático.
+     * @return un diccionario estático con las entradas del diccionario.
+     */
+    public DiccionarioEstatico<K, V> congela() {
+        Object[] llaves = new Object[this.elementos];
+        Object[] valores = new Object[this.elementos];
+        int[] dispersiones = new int[this.elementos];
+        Iterador iterador = new Iterador();
+        for (int i = 0; iterador.hasNext(); i++) {
+            Entrada entrada = iterador.siguiente();
+            llaves[i] = entrada.llave;
+            valores[i] = entrada.valor;
+            dispersiones[i] = entrada.dispersion;
+        }
+        return new DiccionarioEstatico<K, V>(llaves, valores, dispersiones,
+                                             this.dispersor);
+    }
+
     /**
      * Regresa una representación en cadena del diccionario.
      * @return una representación en cadena del diccionario.
@@ -416,10 +1722,12 @@ public class Diccionario<K, V> implements Iterable<V> {
             return "{}";
         }
         String diccionario = "{ ";
-        for (int i = 0; i < this.entradas.length; i++) {
-            if (this.entradas[i] != null && this.entradas[i].getLongitud() > 0) {
-                for (int j = 0; j < this.entradas[i].getLongitud(); j++) {
-                    diccionario += "'" + this.entradas[i].get(j).llave + "': " + "'" + this.entradas[i].get(j).valor + "', "; 
+        Recorrido recorrido = new Recorrido();
+        for (int i = 0; i < recorrido.pasos; i++) {
+            Coleccion<Entrada> cubeta = recorrido.paso(i);
+            if (cubeta != null) {
+                for (Entrada entrada : cubeta) {
+                    diccionario += "'" + entrada.llave + "': " + "'" + entrada.valor + "', ";
                 }
             }
         }
@@ -442,15 +1750,16 @@ public class Diccionario<K, V> implements Iterable<V> {
         if (this.elementos != d.elementos) {
             return false;
         }
-        Iterator<K> iterador = this.iteradorLlaves();
+        /* Si ambos usan el mismo dispersor, las dispersiones guardadas
+           sirven para buscar en el otro. */
+        boolean mismo = this.dispersor == d.dispersor;
+        Iterador iterador = new Iterador();
         while (iterador.hasNext()) {
-            K llave = iterador.next();
-            if (!(d.contiene(llave))) {
-                return false;
-            }
-            V valorD = d.get(llave);
-            V valor = this.get(llave);
-            if (!(valor.equals(valorD))) {
+            Entrada entrada = iterador.siguiente();
+            int h = mismo ? entrada.dispersion :
+                d.dispersor.dispersa(entrada.llave);
+            Entrada otra = d.buscaEntrada(entrada.llave, h);
+            if (otra == null || !(entrada.valor.equals(otra.valor))) {
                 return false;
             }
         }
@@ -458,6 +1767,44 @@ public class Diccionario<K, V> implements Iterable<V> {
         // Aquí va su código.
     }
 
+    /**
+     * Regresa un cursor para recorrer las entradas del diccionario sin
+     * crear objetos en cada paso. El diccionario se recorre sin ningún
+     * orden específico; el cursor se puede reiniciar con {@link
+     * CursorDiccionario#reinicia} para recorrerlo otra vez.
+     * @return un cursor antes de la primera entrada del diccionario.
+     */
+    public CursorDiccionario<K, V> cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Realiza la acción recibida con la llave y el valor de cada entrada
+     * del diccionario, sin ningún orden específico. Las cubetas se recorren
+     * directamente, sin iteradores. La acción no debe modificar el
+     * diccionario.
+     * @param accion la acción a realizar.
+     */
+    public void paraCada(BiConsumer<? super K, ? super V> accion) {
+        Recorrido recorrido = new Recorrido();
+        for (int i = 0; i < recorrido.pasos; i++) {
+            Coleccion<Entrada> cubeta = recorrido.paso(i);
+            if (cubeta instanceof ArbolRojinegro) {
+                ArbolBinario<Entrada>.Vertice v =
+                    minimo(((ArbolRojinegro<Entrada>)cubeta).raiz);
+                for (; v != null; v = sucesor(v)) {
+                    accion.accept(v.elemento.llave, v.elemento.valor);
+                }
+            } else if (cubeta != null) {
+                Lista<Entrada>.Nodo nodo =
+                    ((Lista<Entrada>)cubeta).primerNodo();
+                for (; nodo != null; nodo = nodo.siguiente) {
+                    accion.accept(nodo.elemento.llave, nodo.elemento.valor);
+                }
+            }
+        }
+    }
+
     /**
      * Regresa un iterador para iterar las llaves del diccionario. El
      * diccionario se itera sin ningún orden específico.
@@ -0,0 +1,496 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios con direccionamiento abierto. A diferencia de
+ * {@link Diccionario}, las entradas no se guardan en listas: las llaves, los
+ * valores y las dispersiones viven en tres arreglos paralelos, y las colisiones
+ * se resuelven con sondeo lineal al estilo <em>Robin Hood</em>.</p>
+ *
+ * <p>Con Robin Hood, al insertar una entrada que está más lejos de su cubeta
+ * original que la entrada que ocupa el lugar, ambas se intercambian; así las
+ * distancias de sondeo se mantienen parejas y las entradas de una misma cubeta
+ * quedan contiguas. Al eliminar, las entradas siguientes se recorren un lugar
+ * hacia atrás (<em>backward-shift</em>), por lo que no se necesitan
+ * lápidas.</p>
+ */
+public class DiccionarioAbierto<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador {
+
+        /* El índice de la siguiente entrada. */
+        private int siguiente;
+
+        /* Construye un nuevo iterador. */
+        public Iterador() {
+            this.siguiente = busca(0);
+        }
+
+        /* Regresa el primer índice ocupado a partir de i. */
+        private int busca(int i) {
+            while (i < llaves.length && llaves[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        /* Nos dice si hay una siguiente entrada. */
+        public boolean hasNext() {
+            return this.siguiente < llaves.length;
+        }
+
+        /* Regresa el índice de la siguiente entrada. */
+        public int siguiente() {
+            if (this.siguiente >= llaves.length) {
+                throw new NoSuchElementException();
+            }
+            int i = this.siguiente;
+            this.siguiente = busca(i + 1);
+            return i;
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return llave(siguiente());
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return valor(siguiente());
+        }
+    }
+
+    /** Máxima carga permitida por el diccionario. */
+    public static final double MAXIMA_CARGA = 0.85;
+
+    /* Capacidad mínima; decidida arbitrariamente a 2^6. */
+    private static final int MINIMA_CAPACIDAD = 64;
+
+    /* Dispersor. */
+    private Dispersor<K> dispersor;
+    /* Las llaves; null indica un lugar vacío. */
+    private Object[] llaves;
+    /* Los valores. */
+    private Object[] valores;
+    /* Las dispersiones de las llaves. */
+    private int[] dispersiones;
+    /* Número de valores. */
+    private int elementos;
+
+    /**
+     * Construye un diccionario con una capacidad inicial y dispersor
+     * predeterminados.
+     */
+    public DiccionarioAbierto() {
+        this(MINIMA_CAPACIDAD, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial definida por el
+     * usuario, y un dispersor predeterminado.
+     * @param capacidad la capacidad a utilizar.
+     */
+    public DiccionarioAbierto(int capacidad) {
+        this(capacidad, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial predeterminada, y un
+     * dispersor definido por el usuario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioAbierto(Dispersor<K> dispersor) {
+        this(MINIMA_CAPACIDAD, dispersor);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial y un método de
+     * dispersor definidos por el usuario.
+     * @param capacidad la capacidad inicial del diccionario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioAbierto(int capacidad, Dispersor<K> dispersor) {
+        this.dispersor = dispersor;
+        inicializa(calculaCapacidad(capacidad));
+    }
+
+    /* Calcula la capacidad: la menor potencia de 2 mayor o igual al doble de
+       la capacidad pedida. */
+    private int calculaCapacidad(int capacidad) {
+        capacidad = (capacidad < MINIMA_CAPACIDAD) ?
+            MINIMA_CAPACIDAD : capacidad;
+        int contador = 1;
+        while (contador < capacidad * 2) {
+            contador *= 2;
+        }
+        return contador;
+    }
+
+    /* Crea los arreglos vacíos con la capacidad recibida. */
+    private void inicializa(int capacidad) {
+        this.llaves = new Object[capacidad];
+        this.valores = new Object[capacidad];
+        this.dispersiones = new int[capacidad];
+        this.elementos = 0;
+    }
+
+    /* Dispersa la llave, mezclando los bits altos con los bajos; el sondeo
+       lineal es muy sensible a dispersores que sólo varían en los bits
+       altos. */
+    private int dispersa(K llave) {
+        int h = this.dispersor.dispersa(llave);
+        return h ^ (h >>> 16);
+    }
+
+    /* Regresa la distancia de la entrada en el índice i a su cubeta. */
+    private int distancia(int i) {
+        int mascara = this.llaves.length - 1;
+        return (i - (this.dispersiones[i] & mascara)) & mascara;
+    }
+
+    /* Regresa el índice de la llave, o -1 si no está. */
+    private int indice(K llave) {
+        int h = dispersa(llave);
+        int mascara = this.llaves.length - 1;
+        int i = h & mascara;
+        for (int d = 0; ; d++) {
+            Object l = this.llaves[i];
+            if (l == null || distancia(i) < d) {
+                return -1;
+            }
+            if (this.dispersiones[i] == h && l.equals(llave)) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    @SuppressWarnings("unchecked") private K llave(int i) {
+        return (K)this.llaves[i];
+    }
+
+    @SuppressWarnings("unchecked") private V valor(int i) {
+        return (V)this.valores[i];
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya había sido utilizada antes para agregar un valor, el
+     * diccionario reemplaza ese valor con el recibido aquí.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     */
+    public void agrega(K llave, V valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i != -1) {
+            this.valores[i] = valor;
+            return;
+        }
+        if ((double)(this.elementos + 1) / this.llaves.length >= MAXIMA_CARGA) {
+            crece();
+        }
+        inserta(llave, valor, dispersa(llave));
+        this.elementos++;
+    }
+
+    /* Inserta una entrada que sabemos que no está en el diccionario. */
+    private void inserta(Object llave, Object valor, int h) {
+        int mascara = this.llaves.length - 1;
+        int i = h & mascara;
+        int d = 0;
+        while (this.llaves[i] != null) {
+            int di = distancia(i);
+            if (di < d) {
+                Object l = this.llaves[i];
+                Object v = this.valores[i];
+                int hi = this.dispersiones[i];
+                this.llaves[i] = llave;
+                this.valores[i] = valor;
+                this.dispersiones[i] = h;
+                llave = l;
+                valor = v;
+                h = hi;
+                d = di;
+            }
+            i = (i + 1) & mascara;
+            d++;
+        }
+        this.llaves[i] = llave;
+        this.valores[i] = valor;
+        this.dispersiones[i] = h;
+    }
+
+    /* Duplica la capacidad, reutilizando las dispersiones guardadas. */
+    private void crece() {
+        Object[] ls = this.llaves;
+        Object[] vs = this.valores;
+        int[] hs = this.dispersiones;
+        int elementos = this.elementos;
+        inicializa(ls.length * 2);
+        this.elementos = elementos;
+        for (int i = 0; i < ls.length; i++) {
+            if (ls[i] != null) {
+                inserta(ls[i], vs[i], hs[i]);
+            }
+        }
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        return valor(i);
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null && indice(llave) != -1;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        int mascara = this.llaves.length - 1;
+        int j = (i + 1) & mascara;
+        while (this.llaves[j] != null && distancia(j) > 0) {
+            this.llaves[i] = this.llaves[j];
+            this.valores[i] = this.valores[j];
+            this.dispersiones[i] = this.dispersiones[j];
+            i = j;
+            j = (j + 1) & mascara;
+        }
+        this.llaves[i] = null;
+        this.valores[i] = null;
+        this.dispersiones[i] = 0;
+        this.elementos--;
+    }
+
+    /**
+     * Nos dice cuántas colisiones hay en el diccionario. Dos llaves colisionan
+     * si les corresponde la misma cubeta, aunque terminen en lugares
+     * distintos de los arreglos.
+     * @return cuántas colisiones hay en el diccionario.
+     */
+    public int colisiones() {
+        return this.elementos - cubetasOcupadas();
+    }
+
+    /* Cuenta las cubetas distintas a las que corresponde alguna llave. Con
+       Robin Hood las entradas de una misma cubeta son contiguas, por lo que
+       basta contar los cambios de cubeta. */
+    private int cubetasOcupadas() {
+        int mascara = this.llaves.length - 1;
+        int cubetas = 0;
+        int anterior = -1;
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] == null) {
+                anterior = -1;
+                continue;
+            }
+            int c = this.dispersiones[i] & mascara;
+            if (c != anterior) {
+                cubetas++;
+            }
+            anterior = c;
+        }
+        /* Una corrida que da la vuelta al arreglo se contó dos veces. */
+        int ultimo = this.llaves.length - 1;
+        if (this.llaves[0] != null && this.llaves[ultimo] != null &&
+            (this.dispersiones[0] & mascara) ==
+            (this.dispersiones[ultimo] & mascara)) {
+            cubetas--;
+        }
+        return cubetas;
+    }
+
+    /**
+     * Nos dice el máximo número de colisiones para una misma llave que tenemos
+     * en el diccionario.
+     * @return el máximo número de colisiones para una misma llave.
+     */
+    public int colisionMaxima() {
+        if (this.elementos == 0) {
+            return 0;
+        }
+        int mascara = this.llaves.length - 1;
+        /* Empezamos después de un lugar vacío para no partir una corrida. */
+        int inicio = 0;
+        while (this.llaves[inicio] != null) {
+            inicio++;
+        }
+        int maxima = 0;
+        int corrida = 0;
+        int anterior = -1;
+        for (int k = 1; k <= this.llaves.length; k++) {
+            int i = (inicio + k) & mascara;
+            if (this.llaves[i] == null) {
+                anterior = -1;
+                corrida = 0;
+                continue;
+            }
+            int c = this.dispersiones[i] & mascara;
+            corrida = (c == anterior) ? corrida + 1 : 1;
+            anterior = c;
+            if (corrida > maxima) {
+                maxima = corrida;
+            }
+        }
+        return maxima - 1;
+    }
+
+    /**
+     * Nos dice la distancia de sondeo más larga en el diccionario; es decir,
+     * cuántos lugares tuvo que recorrerse la entrada más alejada de su cubeta.
+     * @return la distancia de sondeo más larga del diccionario.
+     */
+    public int sondeoMaximo() {
+        int maximo = 0;
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] != null && distancia(i) > maximo) {
+                maximo = distancia(i);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Nos dice la carga del diccionario.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos / this.llaves.length;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío.
+     */
+    public void limpia() {
+        inicializa(this.llaves.length);
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.elementos == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] != null) {
+                sb.append("'").append(this.llaves[i]).append("': '")
+                  .append(this.valores[i]).append("', ");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioAbierto, y tiene las mismas llaves asociadas a los
+     *         mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked") DiccionarioAbierto<K, V> d =
+            (DiccionarioAbierto<K, V>)o;
+        if (this.elementos != d.elementos) {
+            return false;
+        }
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] == null) {
+                continue;
+            }
+            int j = d.indice(llave(i));
+            if (j == -1 || !this.valores[i].equals(d.valores[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
@@ -0,0 +1,596 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Clase para diccionarios acotados, para usarse como caché. Cada entrada
+ * tiene un peso, dado por un {@link Pesador}, y cuando la suma de los pesos
+ * pasa del peso máximo el diccionario desaloja entradas.</p>
+ *
+ * <p>Las entradas se guardan en un {@link Diccionario} y están enlazadas
+ * entre sí en listas doblemente ligadas, así que actualizar el orden de uso
+ * o desalojar toma tiempo constante. Hay dos políticas de desalojo:</p>
+ *
+ * <ul>
+ *   <li>{@link Politica#LRU}: se desaloja la entrada usada hace más
+ *       tiempo.</li>
+ *   <li>{@link Politica#W_TINY_LFU}: las entradas nuevas llegan a una
+ *       ventana LRU con el 1% del peso; al salir de ella, sólo entran a la
+ *       región principal si se han pedido más veces que la entrada que
+ *       desalojarían. Las frecuencias se estiman con un bosquejo
+ *       <em>count-min</em> que envejece, dividiendo a la mitad sus
+ *       contadores periódicamente. La región principal se divide en una
+ *       región de prueba y una protegida, con el 80% del peso, para las
+ *       entradas que se han pedido más de una vez.</li>
+ * </ul>
+ *
+ * <p>Las entradas pueden tener un tiempo de vida; las que expiran se eliminan
+ * al tratar de usarlas, o se desalojan como cualquier otra. El reloj se
+ * puede definir al construir el diccionario, para las pruebas.</p>
+ *
+ * <p>Los diccionarios caché no son seguros para hilos.</p>
+ */
+public class DiccionarioCache<K, V> {
+
+    /**
+     * Enumeración para las políticas de desalojo.
+     */
+    public enum Politica {
+        /** Desalojar la entrada usada hace más tiempo. */
+        LRU,
+        /** Ventana LRU y admisión por frecuencia con TinyLFU. */
+        W_TINY_LFU;
+    }
+
+    /* Clase interna privada para nodos. Son a la vez los valores del
+       diccionario y los elementos de las listas de uso. */
+    private static class Nodo<K, V> {
+
+        /* La llave. */
+        private K llave;
+        /* El valor. */
+        private V valor;
+        /* La dispersión de la llave, para el bosquejo. */
+        private int dispersion;
+        /* El peso. */
+        private int peso;
+        /* Cuándo expira, según el reloj; 0 si no expira. */
+        private long expira;
+        /* La región en la que está el nodo. */
+        private int region;
+        /* El nodo anterior y el siguiente en su lista. */
+        private Nodo<K, V> anterior;
+        private Nodo<K, V> siguiente;
+
+        /* Construye un nodo centinela, que forma una lista vacía. */
+        private Nodo() {
+            this.anterior = this;
+            this.siguiente = this;
+        }
+    }
+
+    /* Clase interna privada para el bosquejo de frecuencias. Cada long
+       guarda 16 contadores de 4 bits, y cada llave usa 4 contadores; su
+       frecuencia estimada es el mínimo de los 4. */
+    private static class Bosquejo {
+
+        /* Semillas para elegir los 4 contadores de cada llave. */
+        private static final long[] SEMILLAS = {
+            0x97cb3127e4a4c4d5L, 0xbf58476d1ce4e5b9L,
+            0x94d049bb133111ebL, 0x9e3779b97f4a7c15L
+        };
+
+        /* Los contadores. */
+        private long[] tabla;
+        /* Incrementos desde el último envejecimiento. */
+        private int incrementos;
+        /* Incrementos entre envejecimientos. */
+        private int periodo;
+
+        /* Construye un bosquejo para el número de entradas recibido. */
+        private Bosquejo(long entradas) {
+            int n = 64;
+            while (n < entradas && n < (1 << 22)) {
+                n *= 2;
+            }
+            this.tabla = new long[n];
+            this.periodo = 10 * n;
+        }
+
+        /* Regresa el índice del i-ésimo contador de la dispersión; los 4
+           bits bajos eligen el contador dentro del long. */
+        private int contador(int h, int i) {
+            long x = (h + SEMILLAS[i]) * SEMILLAS[i];
+            x ^= x >>> 32;
+            return (int)x & ((this.tabla.length << 4) - 1);
+        }
+
+        /* Regresa la frecuencia estimada de la dispersión. */
+        private int frecuencia(int h) {
+            int f = 15;
+            for (int i = 0; i < 4; i++) {
+                int c = contador(h, i);
+                int v = (int)(this.tabla[c >>> 4] >>> ((c & 15) << 2)) & 15;
+                f = Math.min(f, v);
+            }
+            return f;
+        }
+
+        /* Incrementa la frecuencia de la dispersión. */
+        private void incrementa(int h) {
+            for (int i = 0; i < 4; i++) {
+                int c = contador(h, i);
+                int d = (c & 15) << 2;
+                if (((this.tabla[c >>> 4] >>> d) & 15) != 15) {
+                    this.tabla[c >>> 4] += 1L << d;
+                }
+            }
+            if (++this.incrementos == this.periodo) {
+                envejece();
+            }
+        }
+
+        /* Divide a la mitad todos los contadores. */
+        private void envejece() {
+            for (int i = 0; i < this.tabla.length; i++) {
+                this.tabla[i] = (this.tabla[i] >>> 1) & 0x7777777777777777L;
+            }
+            this.incrementos /= 2;
+        }
+    }
+
+    /* Las regiones. En la política LRU todo está en la ventana. */
+    private static final int VENTANA = 0;
+    private static final int PRUEBA = 1;
+    private static final int PROTEGIDA = 2;
+
+    /* El diccionario de las entradas. */
+    private Diccionario<K, Nodo<K, V>> entradas;
+    /* La política de desalojo. */
+    private Politica politica;
+    /* El pesador. */
+    private Pesador<K, V> pesador;
+    /* El reloj, en nanosegundos. */
+    private LongSupplier reloj;
+    /* El bosquejo de frecuencias; nulo en la política LRU. */
+    private Bosquejo bosquejo;
+    /* Los centinelas de las listas de cada región. */
+    @SuppressWarnings("unchecked")
+    private Nodo<K, V>[] listas = new Nodo[] { new Nodo<K, V>(),
+                                               new Nodo<K, V>(),
+                                               new Nodo<K, V>() };
+    /* El peso de cada región. */
+    private long[] pesos = new long[3];
+    /* El peso máximo, y los pesos máximos de la ventana y la región
+       protegida. */
+    private long pesoMaximo;
+    private long pesoVentana;
+    private long pesoProtegida;
+    /* Los contadores. */
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long expiraciones;
+
+    /**
+     * Construye un diccionario caché con la política LRU, donde cada entrada
+     * pesa 1.
+     * @param pesoMaximo el número máximo de entradas.
+     */
+    public DiccionarioCache(long pesoMaximo) {
+        this(pesoMaximo, Politica.LRU);
+    }
+
+    /**
+     * Construye un diccionario caché con la política recibida, donde cada
+     * entrada pesa 1.
+     * @param pesoMaximo el número máximo de entradas.
+     * @param politica la política de desalojo.
+     */
+    public DiccionarioCache(long pesoMaximo, Politica politica) {
+        this(pesoMaximo, politica, (llave, valor) -> 1);
+    }
+
+    /**
+     * Construye un diccionario caché con la política y el pesador recibidos.
+     * @param pesoMaximo el peso máximo del diccionario.
+     * @param politica la política de desalojo.
+     * @param pesador el pesador de las entradas.
+     */
+    public DiccionarioCache(long pesoMaximo, Politica politica,
+                            Pesador<K, V> pesador) {
+        this(pesoMaximo, politica, pesador, System::nanoTime);
+    }
+
+    /**
+     * Construye un diccionario caché con la política, el pesador y el reloj
+     * recibidos.
+     * @param pesoMaximo el peso máximo del diccionario.
+     * @param politica la política de desalojo.
+     * @param pesador el pesador de las entradas.
+     * @param reloj el reloj para los tiempos de vida, en nanosegundos.
+     * @throws IllegalArgumentException si el peso máximo no es positivo, o
+     *         la política, el pesador o el reloj son nulos.
+     */
+    public DiccionarioCache(long pesoMaximo, Politica politica,
+                            Pesador<K, V> pesador, LongSupplier reloj) {
+        if (pesoMaximo <= 0 || politica == null || pesador == null ||
+            reloj == null) {
+            throw new IllegalArgumentException();
+        }
+        this.pesoMaximo = pesoMaximo;
+        this.politica = politica;
+        this.pesador = pesador;
+        this.reloj = reloj;
+        this.entradas = new Diccionario<K, Nodo<K, V>>();
+        if (politica == Politica.W_TINY_LFU) {
+            this.pesoVentana = Math.max(1, pesoMaximo / 100);
+            this.pesoProtegida = (long)((pesoMaximo - this.pesoVentana) * 0.8);
+            this.bosquejo = new Bosquejo(pesoMaximo);
+        }
+    }
+
+    /* Mezcla los bits de la dispersión de una llave. */
+    private static int dispersa(Object llave) {
+        int h = llave.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Saca un nodo de su lista. */
+    private void desengancha(Nodo<K, V> n) {
+        n.anterior.siguiente = n.siguiente;
+        n.siguiente.anterior = n.anterior;
+        this.pesos[n.region] -= n.peso;
+    }
+
+    /* Pone un nodo al final de la lista de una región. */
+    private void engancha(Nodo<K, V> n, int region) {
+        Nodo<K, V> centinela = this.listas[region];
+        n.region = region;
+        n.anterior = centinela.anterior;
+        n.siguiente = centinela;
+        centinela.anterior.siguiente = n;
+        centinela.anterior = n;
+        this.pesos[region] += n.peso;
+    }
+
+    /* Regresa el primer nodo de la lista de una región, o null. */
+    private Nodo<K, V> primero(int region) {
+        Nodo<K, V> n = this.listas[region].siguiente;
+        return n == this.listas[region] ? null : n;
+    }
+
+    /* Regresa el último nodo de la lista de una región, o null. */
+    private Nodo<K, V> ultimo(int region) {
+        Nodo<K, V> n = this.listas[region].anterior;
+        return n == this.listas[region] ? null : n;
+    }
+
+    /* Quita un nodo del diccionario y de su lista. */
+    private void quita(Nodo<K, V> n) {
+        desengancha(n);
+        this.entradas.elimina(n.llave);
+    }
+
+    /* Nos dice si el nodo ya expiró. */
+    private boolean expiro(Nodo<K, V> n) {
+        return n.expira != 0 && this.reloj.getAsLong() - n.expira >= 0;
+    }
+
+    /* Registra un uso del nodo, moviéndolo al final de su lista o
+       promoviéndolo a la región protegida. */
+    private void usa(Nodo<K, V> n) {
+        if (this.bosquejo != null) {
+            this.bosquejo.incrementa(n.dispersion);
+        }
+        int region = n.region == PRUEBA ? PROTEGIDA : n.region;
+        desengancha(n);
+        engancha(n, region);
+        while (this.pesos[PROTEGIDA] > this.pesoProtegida &&
+               this.politica == Politica.W_TINY_LFU) {
+            Nodo<K, V> m = primero(PROTEGIDA);
+            desengancha(m);
+            engancha(m, PRUEBA);
+        }
+    }
+
+    /* Desaloja entradas hasta que el peso no pase del máximo. */
+    private void desaloja() {
+        if (this.politica == Politica.LRU) {
+            while (getPeso() > this.pesoMaximo) {
+                quita(primero(VENTANA));
+                this.desalojos++;
+            }
+            return;
+        }
+        /* Lo que sale de la ventana es candidato a la región principal. */
+        while (this.pesos[VENTANA] > this.pesoVentana) {
+            Nodo<K, V> n = primero(VENTANA);
+            desengancha(n);
+            engancha(n, PRUEBA);
+        }
+        while (getPeso() > this.pesoMaximo) {
+            Nodo<K, V> victima = primero(PRUEBA);
+            Nodo<K, V> candidato = ultimo(PRUEBA);
+            if (victima == null) {
+                victima = primero(PROTEGIDA);
+                if (victima == null) {
+                    victima = primero(VENTANA);
+                }
+            } else if (candidato != victima &&
+                       this.bosquejo.frecuencia(candidato.dispersion) <=
+                       this.bosquejo.frecuencia(victima.dispersion)) {
+                victima = candidato;
+            }
+            quita(victima);
+            this.desalojos++;
+        }
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada,
+     * sin tiempo de vida. Si la llave ya estaba en el diccionario, su valor
+     * se reemplaza. Puede desalojar otras entradas, o la misma si pesa más
+     * que el peso máximo.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos, o
+     *         el peso de la entrada es negativo.
+     */
+    public void agrega(K llave, V valor) {
+        agrega(llave, valor, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada y
+     * con el tiempo de vida recibido. Si la llave ya estaba en el
+     * diccionario, su valor se reemplaza. Puede desalojar otras entradas, o
+     * la misma si pesa más que el peso máximo.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @param vida el tiempo de vida de la entrada; 0 si no expira.
+     * @param unidad la unidad del tiempo de vida.
+     * @throws IllegalArgumentException si la llave o el valor son nulos, el
+     *         tiempo de vida es negativo, o el peso de la entrada es
+     *         negativo.
+     */
+    public void agrega(K llave, V valor, long vida, TimeUnit unidad) {
+        if (llave == null || valor == null || vida < 0 || unidad == null) {
+            throw new IllegalArgumentException();
+        }
+        int peso = this.pesador.pesa(llave, valor);
+        if (peso < 0) {
+            throw new IllegalArgumentException("Peso negativo");
+        }
+        long expira = 0;
+        if (vida > 0) {
+            expira = this.reloj.getAsLong() + unidad.toNanos(vida);
+            /* El 0 significa que no expira. */
+            if (expira == 0) {
+                expira = 1;
+            }
+        }
+        Nodo<K, V> n = this.entradas.busca(llave);
+        if (peso > this.pesoMaximo) {
+            if (n != null) {
+                quita(n);
+            }
+            this.desalojos++;
+            return;
+        }
+        if (n != null) {
+            this.pesos[n.region] += peso - n.peso;
+            n.peso = peso;
+            n.valor = valor;
+            n.expira = expira;
+            usa(n);
+        } else {
+            n = new Nodo<K, V>();
+            n.llave = llave;
+            n.valor = valor;
+            n.dispersion = dispersa(llave);
+            n.peso = peso;
+            n.expira = expira;
+            this.entradas.agrega(llave, n);
+            if (this.bosquejo != null) {
+                this.bosquejo.incrementa(n.dispersion);
+            }
+            engancha(n, VENTANA);
+        }
+        desaloja();
+    }
+
+    /* Regresa el nodo vivo de la llave, o null; cuenta el acierto o el
+       fallo. */
+    private Nodo<K, V> nodo(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Nodo<K, V> n = this.entradas.busca(llave);
+        if (n != null && expiro(n)) {
+            quita(n);
+            this.expiraciones++;
+            n = null;
+        }
+        if (n == null) {
+            this.fallos++;
+            /* TinyLFU también cuenta las llaves que no están. */
+            if (this.bosquejo != null) {
+                this.bosquejo.incrementa(dispersa(llave));
+            }
+            return null;
+        }
+        this.aciertos++;
+        usa(n);
+        return n;
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada, o
+     * <code>null</code> si la llave no está o ya expiró.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave, o <code>null</code>.
+     * @throws IllegalArgumentException si la llave es nula.
+     */
+    public V get(K llave) {
+        Nodo<K, V> n = nodo(llave);
+        return n == null ? null : n.valor;
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada; si
+     * la llave no está o ya expiró, calcula el valor, lo agrega sin tiempo de
+     * vida y lo regresa.
+     * @param llave la llave para buscar el valor.
+     * @param calculadora la función que calcula el valor de la llave.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave o la calculadora son
+     *         nulas, o la calculadora regresa <code>null</code>.
+     */
+    public V get(K llave, Function<? super K, ? extends V> calculadora) {
+        if (calculadora == null) {
+            throw new IllegalArgumentException();
+        }
+        Nodo<K, V> n = nodo(llave);
+        if (n != null) {
+            return n.valor;
+        }
+        V valor = calculadora.apply(llave);
+        agrega(llave, valor);
+        return valor;
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario y no ha expirado.
+     * No cuenta como acierto ni como fallo, ni cambia el orden de uso.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        if (llave == null) {
+            return false;
+        }
+        Nodo<K, V> n = this.entradas.busca(llave);
+        return n != null && !expiro(n);
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Nodo<K, V> n = this.entradas.busca(llave);
+        if (n == null) {
+            throw new NoSuchElementException();
+        }
+        quita(n);
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío. Los contadores no
+     * cambian.
+     */
+    public void limpia() {
+        this.entradas.limpia();
+        for (int i = 0; i < this.listas.length; i++) {
+            this.listas[i].anterior = this.listas[i];
+            this.listas[i].siguiente = this.listas[i];
+            this.pesos[i] = 0;
+        }
+    }
+
+    /**
+     * Regresa la política de desalojo del diccionario.
+     * @return la política de desalojo del diccionario.
+     */
+    public Politica getPolitica() {
+        return this.politica;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario, incluyendo las que
+     * expiraron y no se han eliminado.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.entradas.getElementos();
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.entradas.esVacia();
+    }
+
+    /**
+     * Regresa la suma de los pesos de las entradas.
+     * @return la suma de los pesos de las entradas.
+     */
+    public long getPeso() {
+        return this.pesos[VENTANA] + this.pesos[PRUEBA] +
+            this.pesos[PROTEGIDA];
+    }
+
+    /**
+     * Regresa el peso máximo del diccionario.
+     * @return el peso máximo del diccionario.
+     */
+    public long getPesoMaximo() {
+        return this.pesoMaximo;
+    }
+
+    /**
+     * Regresa el número de búsquedas que encontraron su llave.
+     * @return el número de aciertos.
+     */
+    public long getAciertos() {
+        return this.aciertos;
+    }
+
+    /**
+     * Regresa el número de búsquedas que no encontraron su llave, o la
+     * encontraron expirada.
+     * @return el número de fallos.
+     */
+    public long getFallos() {
+        return this.fallos;
+    }
+
+    /**
+     * Regresa el número de entradas desalojadas por peso.
+     * @return el número de desalojos.
+     */
+    public long getDesalojos() {
+        return this.desalojos;
+    }
+
+    /**
+     * Regresa el número de entradas eliminadas por expirar.
+     * @return el número de expiraciones.
+     */
+    public long getExpiraciones() {
+        return this.expiraciones;
+    }
+
+    /**
+     * Regresa la proporción de búsquedas que encontraron su llave.
+     * @return la tasa de aciertos, entre 0 y 1; 0 si no ha habido búsquedas.
+     */
+    public double tasaAciertos() {
+        long total = this.aciertos + this.fallos;
+        return total == 0 ? 0.0 : (double)this.aciertos / total;
+    }
+}
@@ -0,0 +1,478 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios compactos que recuerdan el orden de inserción.
+ * Las entradas viven en arreglos densos, en el orden en que se agregaron;
+ * la tabla de dispersión sólo guarda, para cada lugar, el índice de una
+ * entrada en los arreglos densos. Como la tabla tiene al menos el 50% más
+ * de lugares que entradas, los índices son enteros pequeños: de 8 bits
+ * mientras caben, luego de 16 y al final de 32.</p>
+ *
+ * <p>Las colisiones se resuelven con sondeo perturbado: el siguiente lugar
+ * depende de los bits altos de la dispersión, que se van consumiendo. Al
+ * eliminar, la entrada densa se vuelve una lápida y su lugar en la tabla se
+ * marca como borrado; las lápidas se compactan al crecer o encoger. Si la
+ * carga baja de {@link #MINIMA_CARGA}, el diccionario encoge.</p>
+ *
+ * <p>Los iteradores, {@link #toString} y {@link #equals} recorren sólo los
+ * arreglos densos, así que cuestan lo proporcional al número de entradas, y
+ * el orden de iteración es el de inserción. Reemplazar el valor de una
+ * llave no cambia su posición.</p>
+ */
+public class DiccionarioCompacto<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador {
+
+        /* El índice denso de la siguiente entrada. */
+        private int siguiente;
+
+        /* Construye un nuevo iterador. */
+        public Iterador() {
+            this.siguiente = busca(0);
+        }
+
+        /* Regresa el primer índice denso vivo a partir de i. */
+        private int busca(int i) {
+            while (i < usadas && llaves[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        /* Nos dice si hay una siguiente entrada. */
+        public boolean hasNext() {
+            return this.siguiente < usadas;
+        }
+
+        /* Regresa el índice denso de la siguiente entrada. */
+        public int siguiente() {
+            if (this.siguiente >= usadas) {
+                throw new NoSuchElementException();
+            }
+            int i = this.siguiente;
+            this.siguiente = busca(i + 1);
+            return i;
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return llave(siguiente());
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return valor(siguiente());
+        }
+    }
+
+    /** Carga mínima; si al eliminar la carga baja de ésta, el diccionario
+     *  encoge. */
+    public static final double MINIMA_CARGA = 0.1;
+
+    /* Capacidad mínima de la tabla; decidida arbitrariamente a 2^3. */
+    private static final int MINIMA_CAPACIDAD = 8;
+
+    /* Marcas de la tabla de índices: lugar vacío y lugar borrado. Los
+       demás valores son el índice denso más 2. */
+    private static final int VACIO = 0;
+    private static final int BORRADO = 1;
+
+    /* Dispersor. */
+    private Dispersor<K> dispersor;
+    /* La tabla de índices; según su tamaño sólo uno de los tres arreglos no
+       es null. */
+    private byte[] indices8;
+    private char[] indices16;
+    private int[] indices32;
+    /* Tamaño de la tabla de índices menos uno. */
+    private int mascara;
+    /* Las llaves en orden de inserción; null indica una lápida. */
+    private Object[] llaves;
+    /* Los valores. */
+    private Object[] valores;
+    /* Las dispersiones de las llaves. */
+    private int[] dispersiones;
+    /* Número de entradas densas usadas, incluyendo lápidas. */
+    private int usadas;
+    /* Número de valores. */
+    private int elementos;
+    /* La capacidad pedida al construir el diccionario. */
+    private int capacidad;
+
+    /**
+     * Construye un diccionario con una capacidad inicial y dispersor
+     * predeterminados.
+     */
+    public DiccionarioCompacto() {
+        this(MINIMA_CAPACIDAD, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial definida por el
+     * usuario, y un dispersor predeterminado.
+     * @param capacidad la capacidad a utilizar.
+     */
+    public DiccionarioCompacto(int capacidad) {
+        this(capacidad, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial predeterminada, y un
+     * dispersor definido por el usuario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioCompacto(Dispersor<K> dispersor) {
+        this(MINIMA_CAPACIDAD, dispersor);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial y un método de
+     * dispersor definidos por el usuario. El diccionario admite la capacidad
+     * inicial de entradas sin crecer.
+     * @param capacidad la capacidad inicial del diccionario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioCompacto(int capacidad, Dispersor<K> dispersor) {
+        this.dispersor = dispersor;
+        this.capacidad = capacidad;
+        inicializa(calculaCapacidad(capacidad));
+    }
+
+    /* Calcula el tamaño de la tabla: la menor potencia de 2 con lugar para
+       la capacidad pedida en los arreglos densos. */
+    private int calculaCapacidad(int capacidad) {
+        int contador = MINIMA_CAPACIDAD;
+        while (utiles(contador) < capacidad) {
+            contador *= 2;
+        }
+        return contador;
+    }
+
+    /* Regresa el tamaño de los arreglos densos para una tabla de tamaño m:
+       dos terceras partes. */
+    private static int utiles(int m) {
+        return (int)(2L * m / 3);
+    }
+
+    /* Crea la tabla de índices y los arreglos densos vacíos para una tabla
+       de tamaño m. */
+    private void inicializa(int m) {
+        int n = utiles(m);
+        this.indices8 = null;
+        this.indices16 = null;
+        this.indices32 = null;
+        if (n + 2 <= 0xff) {
+            this.indices8 = new byte[m];
+        } else if (n + 2 <= 0xffff) {
+            this.indices16 = new char[m];
+        } else {
+            this.indices32 = new int[m];
+        }
+        this.mascara = m - 1;
+        this.llaves = new Object[n];
+        this.valores = new Object[n];
+        this.dispersiones = new int[n];
+        this.usadas = 0;
+        this.elementos = 0;
+    }
+
+    /* Regresa el valor del lugar i de la tabla de índices. */
+    private int indice(int i) {
+        if (this.indices8 != null) {
+            return this.indices8[i] & 0xff;
+        }
+        if (this.indices16 != null) {
+            return this.indices16[i];
+        }
+        return this.indices32[i];
+    }
+
+    /* Define el valor del lugar i de la tabla de índices. */
+    private void ponIndice(int i, int valor) {
+        if (this.indices8 != null) {
+            this.indices8[i] = (byte)valor;
+        } else if (this.indices16 != null) {
+            this.indices16[i] = (char)valor;
+        } else {
+            this.indices32[i] = valor;
+        }
+    }
+
+    /* Regresa el lugar de la tabla de índices con la llave, o -1 si la
+       llave no está. */
+    private int lugar(K llave, int h) {
+        int i = h & this.mascara;
+        int perturbacion = h;
+        while (true) {
+            int e = indice(i);
+            if (e == VACIO) {
+                return -1;
+            }
+            if (e != BORRADO) {
+                int j = e - 2;
+                if (this.dispersiones[j] == h && this.llaves[j].equals(llave)) {
+                    return i;
+                }
+            }
+            perturbacion >>>= 5;
+            i = (5 * i + 1 + perturbacion) & this.mascara;
+        }
+    }
+
+    /* Regresa el primer lugar vacío o borrado de la tabla para la
+       dispersión. */
+    private int lugarLibre(int h) {
+        int i = h & this.mascara;
+        int perturbacion = h;
+        while (indice(i) > BORRADO) {
+            perturbacion >>>= 5;
+            i = (5 * i + 1 + perturbacion) & this.mascara;
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked") private K llave(int i) {
+        return (K)this.llaves[i];
+    }
+
+    @SuppressWarnings("unchecked") private V valor(int i) {
+        return (V)this.valores[i];
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya había sido utilizada antes para agregar un valor, el
+     * diccionario reemplaza ese valor con el recibido aquí, sin cambiar su
+     * posición en el orden de inserción.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     */
+    public void agrega(K llave, V valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = this.dispersor.dispersa(llave);
+        int i = lugar(llave, h);
+        if (i != -1) {
+            this.valores[indice(i) - 2] = valor;
+            return;
+        }
+        if (this.usadas == this.llaves.length) {
+            redimensiona(calculaCapacidad(2 * (this.elementos + 1)));
+        }
+        int j = this.usadas++;
+        this.llaves[j] = llave;
+        this.valores[j] = valor;
+        this.dispersiones[j] = h;
+        ponIndice(lugarLibre(h), j + 2);
+        this.elementos++;
+    }
+
+    /* Cambia la tabla al tamaño m, compactando las lápidas de los arreglos
+       densos sin cambiar el orden, y vuelve a llenar la tabla con las
+       dispersiones guardadas. */
+    private void redimensiona(int m) {
+        Object[] ls = this.llaves;
+        Object[] vs = this.valores;
+        int[] hs = this.dispersiones;
+        int usadas = this.usadas;
+        inicializa(m);
+        for (int i = 0; i < usadas; i++) {
+            if (ls[i] == null) {
+                continue;
+            }
+            int j = this.usadas++;
+            this.llaves[j] = ls[i];
+            this.valores[j] = vs[i];
+            this.dispersiones[j] = hs[i];
+            ponIndice(lugarLibre(hs[i]), j + 2);
+        }
+        this.elementos = this.usadas;
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = lugar(llave, this.dispersor.dispersa(llave));
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        return valor(indice(i) - 2);
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null &&
+            lugar(llave, this.dispersor.dispersa(llave)) != -1;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada. Si
+     * la carga baja de {@link #MINIMA_CARGA}, el diccionario encoge, pero
+     * nunca por debajo de su capacidad inicial.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = lugar(llave, this.dispersor.dispersa(llave));
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        int j = indice(i) - 2;
+        ponIndice(i, BORRADO);
+        this.llaves[j] = null;
+        this.valores[j] = null;
+        this.elementos--;
+        if (carga() < MINIMA_CARGA) {
+            int m = calculaCapacidad(Math.max(2 * this.elementos,
+                                              this.capacidad));
+            if (m < this.mascara + 1) {
+                redimensiona(m);
+            }
+        }
+    }
+
+    /**
+     * Nos dice la carga del diccionario: el número de entradas entre el
+     * tamaño de la tabla.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos / (this.mascara + 1);
+    }
+
+    /**
+     * Regresa el tamaño de la tabla de índices del diccionario.
+     * @return el tamaño de la tabla de índices.
+     */
+    public int getCubetas() {
+        return this.mascara + 1;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío y con su
+     * capacidad inicial.
+     */
+    public void limpia() {
+        inicializa(calculaCapacidad(this.capacidad));
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario, en orden de
+     * inserción.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.elementos == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < this.usadas; i++) {
+            if (this.llaves[i] != null) {
+                sb.append("'").append(this.llaves[i]).append("': '")
+                  .append(this.valores[i]).append("', ");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido. El orden de
+     * inserción no importa.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioCompacto, y tiene las mismas llaves asociadas a los
+     *         mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked") DiccionarioCompacto<K, V> d =
+            (DiccionarioCompacto<K, V>)o;
+        if (this.elementos != d.elementos) {
+            return false;
+        }
+        for (int i = 0; i < this.usadas; i++) {
+            if (this.llaves[i] == null) {
+                continue;
+            }
+            int h = this.dispersor == d.dispersor ? this.dispersiones[i] :
+                d.dispersor.dispersa(llave(i));
+            int j = d.lugar(llave(i), h);
+            if (j == -1 ||
+                !this.valores[i].equals(d.valores[d.indice(j) - 2])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario en orden de
+     * inserción.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario en orden
+     * de inserción.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
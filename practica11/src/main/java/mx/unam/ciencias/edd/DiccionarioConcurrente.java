@@ -0,0 +1,637 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Clase para diccionarios concurrentes. Varios hilos pueden usar el
+ * diccionario al mismo tiempo sin sincronización externa.</p>
+ *
+ * <p>Las lecturas no usan candados: recorren las cubetas a través de
+ * referencias volátiles. Una escritura en una cubeta vacía se hace con una
+ * comparación-e-intercambio; en una cubeta no vacía se sincroniza sobre el
+ * primer nodo de la cubeta, así que escrituras en cubetas distintas no se
+ * estorban. El número de elementos se lleva en un contador repartido
+ * ({@link LongAdder}).</p>
+ *
+ * <p>Cuando la carga rebasa {@link #MAXIMA_CARGA} se crea una tabla del
+ * doble de tamaño, y todos los hilos que escriben mientras tanto ayudan a
+ * mover cubetas a la tabla nueva, tomando bloques de cubetas de un contador
+ * compartido. Una cubeta ya movida se marca con un nodo de reenvío, que las
+ * lecturas siguen hasta la tabla nueva.</p>
+ *
+ * <p>Los iteradores, {@link #toString} y los diagnósticos recorren una
+ * fotografía del diccionario que puede no reflejar las escrituras
+ * concurrentes.</p>
+ */
+public class DiccionarioConcurrente<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para nodos. */
+    private static class Nodo<K, V> {
+
+        /* La dispersión de la llave. */
+        public final int dispersion;
+        /* La llave. */
+        public final K llave;
+        /* El valor. */
+        public volatile V valor;
+        /* El siguiente nodo de la cubeta. */
+        public volatile Nodo<K, V> siguiente;
+
+        /* Construye un nuevo nodo. */
+        public Nodo(int dispersion, K llave, V valor, Nodo<K, V> siguiente) {
+            this.dispersion = dispersion;
+            this.llave = llave;
+            this.valor = valor;
+            this.siguiente = siguiente;
+        }
+    }
+
+    /* Clase interna privada para nodos de reenvío. */
+    private static class Reenvio<K, V> extends Nodo<K, V> {
+
+        /* La tabla a la que se movió la cubeta. */
+        public final AtomicReferenceArray<Nodo<K, V>> tabla;
+
+        /* Construye un nodo de reenvío a la tabla recibida. */
+        public Reenvio(AtomicReferenceArray<Nodo<K, V>> tabla) {
+            super(MOVIDA, null, null, null);
+            this.tabla = tabla;
+        }
+    }
+
+    /* Clase interna privada para transferencias entre tablas. */
+    private static class Transferencia<K, V> {
+
+        /* La tabla de la que se mueven las cubetas. */
+        public final AtomicReferenceArray<Nodo<K, V>> anterior;
+        /* La tabla a la que se mueven las cubetas. */
+        public final AtomicReferenceArray<Nodo<K, V>> nueva;
+        /* El nodo de reenvío para las cubetas movidas. */
+        public final Reenvio<K, V> reenvio;
+        /* El límite superior del siguiente bloque de cubetas a tomar. */
+        public final AtomicInteger siguiente;
+        /* Cuántas cubetas faltan por mover. */
+        public final AtomicInteger pendientes;
+
+        /* Construye una transferencia al doble de la tabla recibida. */
+        public Transferencia(AtomicReferenceArray<Nodo<K, V>> anterior) {
+            this.anterior = anterior;
+            this.nueva = new AtomicReferenceArray<Nodo<K, V>>(
+                anterior.length() * 2);
+            this.reenvio = new Reenvio<K, V>(this.nueva);
+            this.siguiente = new AtomicInteger(anterior.length());
+            this.pendientes = new AtomicInteger(anterior.length());
+        }
+    }
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador {
+
+        /* Iterador auxiliar sobre la fotografía del diccionario. */
+        private Iterator<Nodo<K, V>> iterador;
+
+        /* Construye un nuevo iterador. */
+        public Iterador() {
+            Lista<Nodo<K, V>> nodos = new Lista<Nodo<K, V>>();
+            for (Nodo<K, V> cabeza : cubetas()) {
+                for (Nodo<K, V> n = cabeza; n != null; n = n.siguiente) {
+                    nodos.agregaFinal(n);
+                }
+            }
+            this.iterador = nodos.iterator();
+        }
+
+        /* Nos dice si hay un siguiente nodo. */
+        public boolean hasNext() {
+            return this.iterador.hasNext();
+        }
+
+        /* Regresa el siguiente nodo. */
+        public Nodo<K, V> siguiente() {
+            return this.iterador.next();
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return siguiente().llave;
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return siguiente().valor;
+        }
+    }
+
+    /** Máxima carga permitida por el diccionario. */
+    public static final double MAXIMA_CARGA = 0.72;
+
+    /* Capacidad mínima; decidida arbitrariamente a 2^6. */
+    private static final int MINIMA_CAPACIDAD = 64;
+
+    /* Dispersión de los nodos de reenvío; las demás son no negativas. */
+    private static final int MOVIDA = -1;
+
+    /* Número de cubetas que toma un hilo a la vez al mover cubetas. */
+    private static final int ZANCADA = 16;
+
+    /* Dispersor. */
+    private final Dispersor<K> dispersor;
+    /* La tabla actual. */
+    private volatile AtomicReferenceArray<Nodo<K, V>> tabla;
+    /* La transferencia en curso, o null si no hay ninguna. */
+    private final AtomicReference<Transferencia<K, V>> transferencia;
+    /* Número de valores. */
+    private final LongAdder elementos;
+
+    /**
+     * Construye un diccionario con una capacidad inicial y dispersor
+     * predeterminados.
+     */
+    public DiccionarioConcurrente() {
+        this(MINIMA_CAPACIDAD, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial definida por el
+     * usuario, y un dispersor predeterminado.
+     * @param capacidad la capacidad a utilizar.
+     */
+    public DiccionarioConcurrente(int capacidad) {
+        this(capacidad, (K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial predeterminada, y un
+     * dispersor definido por el usuario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioConcurrente(Dispersor<K> dispersor) {
+        this(MINIMA_CAPACIDAD, dispersor);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial y un método de
+     * dispersor definidos por el usuario.
+     * @param capacidad la capacidad inicial del diccionario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioConcurrente(int capacidad, Dispersor<K> dispersor) {
+        this.dispersor = dispersor;
+        this.tabla = new AtomicReferenceArray<Nodo<K, V>>(
+            calculaCapacidad(capacidad));
+        this.transferencia = new AtomicReference<Transferencia<K, V>>();
+        this.elementos = new LongAdder();
+    }
+
+    /* Calcula la capacidad: la menor potencia de 2 mayor o igual al doble de
+       la capacidad pedida. */
+    private int calculaCapacidad(int capacidad) {
+        capacidad = (capacidad < MINIMA_CAPACIDAD) ?
+            MINIMA_CAPACIDAD : capacidad;
+        int contador = 1;
+        while (contador < capacidad * 2) {
+            contador *= 2;
+        }
+        return contador;
+    }
+
+    /* Dispersa la llave; el resultado nunca es negativo, para distinguirlo
+       de los nodos de reenvío. */
+    private int dispersa(K llave) {
+        int h = this.dispersor.dispersa(llave);
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya había sido utilizada antes para agregar un valor, el
+     * diccionario reemplaza ese valor con el recibido aquí.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     */
+    public void agrega(K llave, V valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = dispersa(llave);
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        while (true) {
+            int i = h & (t.length() - 1);
+            Nodo<K, V> f = t.get(i);
+            if (f == null) {
+                if (t.compareAndSet(i, null,
+                                    new Nodo<K, V>(h, llave, valor, null))) {
+                    break;
+                }
+                continue;
+            }
+            if (f.dispersion == MOVIDA) {
+                t = ayuda(t, (Reenvio<K, V>)f);
+                continue;
+            }
+            synchronized (f) {
+                if (t.get(i) != f) {
+                    continue;
+                }
+                Nodo<K, V> n = f;
+                while (true) {
+                    if (n.dispersion == h && n.llave.equals(llave)) {
+                        n.valor = valor;
+                        return;
+                    }
+                    if (n.siguiente == null) {
+                        n.siguiente = new Nodo<K, V>(h, llave, valor, null);
+                        break;
+                    }
+                    n = n.siguiente;
+                }
+            }
+            break;
+        }
+        this.elementos.increment();
+        verificaCrecimiento();
+    }
+
+    /* Empieza una transferencia si la carga lo pide, y ayuda con ella. */
+    private void verificaCrecimiento() {
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        if (this.elementos.sum() < t.length() * MAXIMA_CARGA) {
+            return;
+        }
+        Transferencia<K, V> tr;
+        /* El inicio de una transferencia es raro, así que puede serializarse;
+           leemos la transferencia antes que la tabla porque al terminar se
+           escriben en el orden inverso. */
+        synchronized (this.transferencia) {
+            tr = this.transferencia.get();
+            if (tr == null) {
+                if (this.tabla != t) {
+                    return;
+                }
+                tr = new Transferencia<K, V>(t);
+                this.transferencia.set(tr);
+            }
+        }
+        transfiere(tr);
+    }
+
+    /* Ayuda con la transferencia de la tabla t, si sigue en curso, y regresa
+       la tabla a la que apunta el reenvío. */
+    private AtomicReferenceArray<Nodo<K, V>>
+    ayuda(AtomicReferenceArray<Nodo<K, V>> t, Reenvio<K, V> reenvio) {
+        Transferencia<K, V> tr = this.transferencia.get();
+        if (tr != null && tr.anterior == t) {
+            transfiere(tr);
+        }
+        return reenvio.tabla;
+    }
+
+    /* Mueve bloques de cubetas mientras queden bloques sin tomar. El hilo que
+       mueve la última cubeta publica la tabla nueva. */
+    private void transfiere(Transferencia<K, V> tr) {
+        while (true) {
+            int fin = tr.siguiente.getAndAdd(-ZANCADA);
+            if (fin <= 0) {
+                return;
+            }
+            int inicio = Math.max(fin - ZANCADA, 0);
+            for (int i = fin - 1; i >= inicio; i--) {
+                mueve(tr, i);
+            }
+            if (tr.pendientes.addAndGet(inicio - fin) == 0) {
+                this.tabla = tr.nueva;
+                this.transferencia.set(null);
+                return;
+            }
+        }
+    }
+
+    /* Mueve la cubeta i de la tabla anterior a la nueva. Como la tabla nueva
+       es del doble, la cubeta se parte en la i y la i + n de la nueva. Los
+       nodos se copian para no alterar las listas que estén leyendo otros
+       hilos. */
+    private void mueve(Transferencia<K, V> tr, int i) {
+        AtomicReferenceArray<Nodo<K, V>> anterior = tr.anterior;
+        int n = anterior.length();
+        while (true) {
+            Nodo<K, V> f = anterior.get(i);
+            if (f == null) {
+                if (anterior.compareAndSet(i, null, tr.reenvio)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if (anterior.get(i) != f) {
+                    continue;
+                }
+                Nodo<K, V> bajos = null;
+                Nodo<K, V> altos = null;
+                for (Nodo<K, V> e = f; e != null; e = e.siguiente) {
+                    if ((e.dispersion & n) == 0) {
+                        bajos = new Nodo<K, V>(e.dispersion, e.llave,
+                                               e.valor, bajos);
+                    } else {
+                        altos = new Nodo<K, V>(e.dispersion, e.llave,
+                                               e.valor, altos);
+                    }
+                }
+                tr.nueva.set(i, bajos);
+                tr.nueva.set(i + n, altos);
+                anterior.set(i, tr.reenvio);
+                return;
+            }
+        }
+    }
+
+    /* Regresa el nodo de la llave, o null si no está. */
+    private Nodo<K, V> busca(K llave) {
+        int h = dispersa(llave);
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        while (true) {
+            Nodo<K, V> n = t.get(h & (t.length() - 1));
+            if (n == null) {
+                return null;
+            }
+            if (n.dispersion == MOVIDA) {
+                t = ((Reenvio<K, V>)n).tabla;
+                continue;
+            }
+            for (; n != null; n = n.siguiente) {
+                if (n.dispersion == h && n.llave.equals(llave)) {
+                    return n;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Nodo<K, V> n = busca(llave);
+        if (n == null) {
+            throw new NoSuchElementException();
+        }
+        return n.valor;
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null && busca(llave) != null;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = dispersa(llave);
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        while (true) {
+            int i = h & (t.length() - 1);
+            Nodo<K, V> f = t.get(i);
+            if (f == null) {
+                throw new NoSuchElementException();
+            }
+            if (f.dispersion == MOVIDA) {
+                t = ayuda(t, (Reenvio<K, V>)f);
+                continue;
+            }
+            synchronized (f) {
+                if (t.get(i) != f) {
+                    continue;
+                }
+                Nodo<K, V> anterior = null;
+                for (Nodo<K, V> n = f; n != null; n = n.siguiente) {
+                    if (n.dispersion == h && n.llave.equals(llave)) {
+                        if (anterior == null) {
+                            t.set(i, n.siguiente);
+                        } else {
+                            anterior.siguiente = n.siguiente;
+                        }
+                        this.elementos.decrement();
+                        return;
+                    }
+                    anterior = n;
+                }
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    /* Regresa las cabezas de las cubetas no vacías de la tabla actual,
+       siguiendo los reenvíos. */
+    private Lista<Nodo<K, V>> cubetas() {
+        Lista<Nodo<K, V>> cabezas = new Lista<Nodo<K, V>>();
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        for (int i = 0; i < t.length(); i++) {
+            cubetas(t, i, cabezas);
+        }
+        return cabezas;
+    }
+
+    /* Agrega a la lista la cabeza de la cubeta i de la tabla t, o las de las
+       cubetas a las que se movió. */
+    private void cubetas(AtomicReferenceArray<Nodo<K, V>> t, int i,
+                         Lista<Nodo<K, V>> cabezas) {
+        Nodo<K, V> n = t.get(i);
+        if (n == null) {
+            return;
+        }
+        if (n.dispersion != MOVIDA) {
+            cabezas.agregaFinal(n);
+            return;
+        }
+        AtomicReferenceArray<Nodo<K, V>> nueva = ((Reenvio<K, V>)n).tabla;
+        cubetas(nueva, i, cabezas);
+        cubetas(nueva, i + t.length(), cabezas);
+    }
+
+    /* Regresa la longitud de la lista que empieza en el nodo. */
+    private int longitud(Nodo<K, V> n) {
+        int l = 0;
+        for (; n != null; n = n.siguiente) {
+            l++;
+        }
+        return l;
+    }
+
+    /**
+     * Nos dice cuántas colisiones hay en el diccionario.
+     * @return cuántas colisiones hay en el diccionario.
+     */
+    public int colisiones() {
+        int colisiones = 0;
+        for (Nodo<K, V> cabeza : cubetas()) {
+            colisiones += longitud(cabeza) - 1;
+        }
+        return colisiones;
+    }
+
+    /**
+     * Nos dice el máximo número de colisiones para una misma llave que tenemos
+     * en el diccionario.
+     * @return el máximo número de colisiones para una misma llave.
+     */
+    public int colisionMaxima() {
+        int maxima = 0;
+        for (Nodo<K, V> cabeza : cubetas()) {
+            maxima = Math.max(maxima, longitud(cabeza) - 1);
+        }
+        return maxima;
+    }
+
+    /**
+     * Nos dice la carga del diccionario.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos.sum() / this.tabla.length();
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return (int)this.elementos.sum();
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos.sum() == 0;
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío. Las entradas
+     * agregadas concurrentemente pueden sobrevivir a la limpieza.
+     */
+    public void limpia() {
+        AtomicReferenceArray<Nodo<K, V>> t = this.tabla;
+        int i = 0;
+        while (i < t.length()) {
+            Nodo<K, V> f = t.get(i);
+            if (f == null) {
+                i++;
+                continue;
+            }
+            if (f.dispersion == MOVIDA) {
+                t = ayuda(t, (Reenvio<K, V>)f);
+                i = 0;
+                continue;
+            }
+            synchronized (f) {
+                if (t.get(i) != f) {
+                    continue;
+                }
+                t.set(i, null);
+                this.elementos.add(-longitud(f));
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        Lista<Nodo<K, V>> cabezas = cubetas();
+        if (cabezas.esVacia()) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        for (Nodo<K, V> cabeza : cabezas) {
+            for (Nodo<K, V> n = cabeza; n != null; n = n.siguiente) {
+                sb.append("'").append(n.llave).append("': '")
+                  .append(n.valor).append("', ");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioConcurrente, y tiene las mismas llaves asociadas a
+     *         los mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked") DiccionarioConcurrente<K, V> d =
+            (DiccionarioConcurrente<K, V>)o;
+        if (getElementos() != d.getElementos()) {
+            return false;
+        }
+        for (Nodo<K, V> cabeza : cubetas()) {
+            for (Nodo<K, V> n = cabeza; n != null; n = n.siguiente) {
+                Nodo<K, V> m = d.busca(n.llave);
+                if (m == null || !n.valor.equals(m.valor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
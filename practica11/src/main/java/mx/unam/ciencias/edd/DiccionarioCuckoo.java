@@ -0,0 +1,592 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios con dispersión <em>cuckoo</em> por cubetas. Cada
+ * llave tiene dos cubetas posibles, una por cada uno de dos dispersores
+ * independientes, y cada cubeta tiene {@link #ANCHO_CUBETA} lugares. Una
+ * búsqueda revisa a lo más esas dos cubetas y una pequeña reserva de
+ * {@link #TAMANIO_RESERVA} lugares, sin importar la carga.</p>
+ *
+ * <p>Si al agregar una llave sus dos cubetas están llenas, se busca a lo
+ * ancho la ruta más corta de desplazamientos, de a lo más {@link
+ * #MAXIMA_RUTA} pasos, que lleve a un lugar libre: cada llave de la ruta se
+ * mueve a su otra cubeta. Si no hay ruta, la llave va a la reserva; si la
+ * reserva está llena, el diccionario crece. Con cubetas de 4 lugares el
+ * diccionario funciona bien hasta cargas de más del 95%.</p>
+ *
+ * <p>Los dos dispersores deben ser independientes; si muchas llaves tienen
+ * la misma dispersión con ambos, ningún tamaño de arreglo puede
+ * acomodarlas.</p>
+ */
+public class DiccionarioCuckoo<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador {
+
+        /* El índice de la siguiente entrada. */
+        private int siguiente;
+
+        /* Construye un nuevo iterador. */
+        public Iterador() {
+            this.siguiente = busca(0);
+        }
+
+        /* Regresa el primer índice ocupado a partir de i. */
+        private int busca(int i) {
+            while (i < llaves.length && llaves[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        /* Nos dice si hay una siguiente entrada. */
+        public boolean hasNext() {
+            return this.siguiente < llaves.length;
+        }
+
+        /* Regresa el índice de la siguiente entrada. */
+        public int siguiente() {
+            if (this.siguiente >= llaves.length) {
+                throw new NoSuchElementException();
+            }
+            int i = this.siguiente;
+            this.siguiente = busca(i + 1);
+            return i;
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return llave(siguiente());
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return valor(siguiente());
+        }
+    }
+
+    /** Máxima carga permitida por el diccionario. */
+    public static final double MAXIMA_CARGA = 0.95;
+
+    /** Número de lugares de cada cubeta. */
+    public static final int ANCHO_CUBETA = 4;
+
+    /** Número de lugares de la reserva. */
+    public static final int TAMANIO_RESERVA = 4;
+
+    /** Máximo número de desplazamientos para acomodar una llave. */
+    public static final int MAXIMA_RUTA = 5;
+
+    /* Capacidad mínima; decidida arbitrariamente a 2^6. */
+    private static final int MINIMA_CAPACIDAD = 64;
+
+    /* Número de cubetas a menos de MAXIMA_RUTA pasos de las dos cubetas de
+       una llave, que son las que la búsqueda de una ruta puede extender. */
+    private static final int EXTENDIBLES = 2 * (1 + 4 + 16 + 64 + 256);
+
+    /* Máximo número de cubetas que visita la búsqueda de una ruta. */
+    private static final int MAXIMAS_VISITAS = 2 + ANCHO_CUBETA * EXTENDIBLES;
+
+    /* Cuántas veces se puede duplicar el arreglo para acomodar una sola
+       llave antes de rendirse. */
+    private static final int MAXIMOS_CRECIMIENTOS = 4;
+
+    /* Los dispersores. */
+    private Dispersor<K> dispersor1;
+    private Dispersor<K> dispersor2;
+    /* Las llaves; null indica un lugar vacío. Los últimos TAMANIO_RESERVA
+       lugares son la reserva. */
+    private Object[] llaves;
+    /* Los valores. */
+    private Object[] valores;
+    /* Las dispersiones de las llaves con cada dispersor. */
+    private int[] dispersiones1;
+    private int[] dispersiones2;
+    /* Número de cubetas menos uno; el número de cubetas es potencia de 2. */
+    private int mascara;
+    /* Número de valores. */
+    private int elementos;
+    /* Número de valores en la reserva. */
+    private int reservados;
+    /* Número total de desplazamientos. */
+    private long desplazamientos;
+    /* Arreglos de la búsqueda de rutas: cubeta de cada nodo, su padre, y el
+       lugar de la cubeta del padre que lleva a él. */
+    private int[] rutaCubetas;
+    private int[] rutaPadres;
+    private int[] rutaLugares;
+
+    /**
+     * Construye un diccionario con una capacidad inicial predeterminada, y
+     * dos dispersores definidos por el usuario.
+     * @param dispersor1 el primer dispersor a utilizar.
+     * @param dispersor2 el segundo dispersor a utilizar.
+     */
+    public DiccionarioCuckoo(Dispersor<K> dispersor1,
+                             Dispersor<K> dispersor2) {
+        this(MINIMA_CAPACIDAD, dispersor1, dispersor2);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial y dos dispersores
+     * definidos por el usuario.
+     * @param capacidad la capacidad inicial del diccionario.
+     * @param dispersor1 el primer dispersor a utilizar.
+     * @param dispersor2 el segundo dispersor a utilizar.
+     */
+    public DiccionarioCuckoo(int capacidad, Dispersor<K> dispersor1,
+                             Dispersor<K> dispersor2) {
+        this.dispersor1 = dispersor1;
+        this.dispersor2 = dispersor2;
+        this.rutaCubetas = new int[MAXIMAS_VISITAS];
+        this.rutaPadres = new int[MAXIMAS_VISITAS];
+        this.rutaLugares = new int[MAXIMAS_VISITAS];
+        inicializa(calculaCapacidad(capacidad) / ANCHO_CUBETA);
+    }
+
+    /* Calcula la capacidad: la menor potencia de 2 mayor o igual al doble de
+       la capacidad pedida. */
+    private int calculaCapacidad(int capacidad) {
+        capacidad = (capacidad < MINIMA_CAPACIDAD) ?
+            MINIMA_CAPACIDAD : capacidad;
+        int contador = 1;
+        while (contador < capacidad * 2) {
+            contador *= 2;
+        }
+        return contador;
+    }
+
+    /* Crea los arreglos vacíos con el número de cubetas recibido. */
+    private void inicializa(int cubetas) {
+        int n = cubetas * ANCHO_CUBETA + TAMANIO_RESERVA;
+        this.llaves = new Object[n];
+        this.valores = new Object[n];
+        this.dispersiones1 = new int[n];
+        this.dispersiones2 = new int[n];
+        this.mascara = cubetas - 1;
+        this.elementos = 0;
+        this.reservados = 0;
+    }
+
+    /* Mezcla los bits altos de la dispersión con los bajos. */
+    private static int mezcla(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /* Regresa la primera cubeta de las dispersiones. */
+    private int cubeta1(int h1) {
+        return mezcla(h1) & this.mascara;
+    }
+
+    /* Regresa la segunda cubeta de las dispersiones; siempre es distinta de
+       la primera. */
+    private int cubeta2(int h1, int h2) {
+        int c = mezcla(h2) & this.mascara;
+        return c != cubeta1(h1) ? c : c ^ 1;
+    }
+
+    /* Regresa la otra cubeta de la entrada en el lugar i. */
+    private int otraCubeta(int i) {
+        int c1 = cubeta1(this.dispersiones1[i]);
+        return i / ANCHO_CUBETA != c1 ? c1 :
+            cubeta2(this.dispersiones1[i], this.dispersiones2[i]);
+    }
+
+    /* Regresa el primer lugar de la reserva. */
+    private int reserva() {
+        return this.llaves.length - TAMANIO_RESERVA;
+    }
+
+    /* Busca la llave en la cubeta c; regresa su lugar, o -1. */
+    private int buscaEnCubeta(int c, K llave, int h1) {
+        int inicio = c * ANCHO_CUBETA;
+        for (int i = inicio; i < inicio + ANCHO_CUBETA; i++) {
+            if (this.dispersiones1[i] == h1 && this.llaves[i] != null &&
+                this.llaves[i].equals(llave)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* Regresa el índice de la llave, o -1 si no está. */
+    private int indice(K llave) {
+        int h1 = this.dispersor1.dispersa(llave);
+        int i = buscaEnCubeta(cubeta1(h1), llave, h1);
+        if (i != -1) {
+            return i;
+        }
+        int h2 = this.dispersor2.dispersa(llave);
+        i = buscaEnCubeta(cubeta2(h1, h2), llave, h1);
+        if (i != -1 || this.reservados == 0) {
+            return i;
+        }
+        for (i = reserva(); i < this.llaves.length; i++) {
+            if (this.dispersiones1[i] == h1 && this.llaves[i] != null &&
+                this.llaves[i].equals(llave)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked") private K llave(int i) {
+        return (K)this.llaves[i];
+    }
+
+    @SuppressWarnings("unchecked") private V valor(int i) {
+        return (V)this.valores[i];
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya había sido utilizada antes para agregar un valor, el
+     * diccionario reemplaza ese valor con el recibido aquí.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     * @throws IllegalStateException si la llave no se puede acomodar porque
+     *         demasiadas llaves tienen sus mismas dos dispersiones.
+     */
+    public void agrega(K llave, V valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i != -1) {
+            this.valores[i] = valor;
+            return;
+        }
+        int h1 = this.dispersor1.dispersa(llave);
+        int h2 = this.dispersor2.dispersa(llave);
+        if (this.elementos + 1 > MAXIMA_CARGA * (this.mascara + 1) *
+            ANCHO_CUBETA) {
+            crece(null, null, 0, 0);
+        }
+        if (!inserta(llave, valor, h1, h2)) {
+            crece(llave, valor, h1, h2);
+        }
+        this.elementos++;
+    }
+
+    /* Inserta una entrada que sabemos que no está en el diccionario: en un
+       lugar libre de sus cubetas, al final de una ruta de desplazamientos, o
+       en la reserva. Regresa false si no hay lugar. */
+    private boolean inserta(Object llave, Object valor, int h1, int h2) {
+        int i = buscaRuta(cubeta1(h1), cubeta2(h1, h2));
+        if (i == -1) {
+            if (this.reservados == TAMANIO_RESERVA) {
+                return false;
+            }
+            i = reserva();
+            while (this.llaves[i] != null) {
+                i++;
+            }
+            this.reservados++;
+        }
+        this.llaves[i] = llave;
+        this.valores[i] = valor;
+        this.dispersiones1[i] = h1;
+        this.dispersiones2[i] = h2;
+        return true;
+    }
+
+    /* Busca a lo ancho la ruta más corta de las cubetas c1 y c2 a un lugar
+       libre, y la recorre hacia atrás moviendo cada entrada a su otra
+       cubeta. Regresa el lugar que quedó libre en c1 o c2, o -1 si no hay
+       ruta. Cada nivel tiene ANCHO_CUBETA veces los nodos del anterior, así
+       que los nodos extendibles son exactamente los primeros EXTENDIBLES.
+       Como la ruta es la más corta, no repite cubetas, y cada entrada se
+       mueve a lo más una vez. */
+    private int buscaRuta(int c1, int c2) {
+        int[] cubetas = this.rutaCubetas;
+        int[] padres = this.rutaPadres;
+        int[] lugares = this.rutaLugares;
+        cubetas[0] = c1;
+        cubetas[1] = c2;
+        padres[0] = padres[1] = -1;
+        int cabeza = 0, rabo = 2;
+        while (cabeza < rabo) {
+            int n = cabeza++;
+            int inicio = cubetas[n] * ANCHO_CUBETA;
+            for (int j = 0; j < ANCHO_CUBETA; j++) {
+                if (this.llaves[inicio + j] == null) {
+                    return recorreRuta(n, inicio + j);
+                }
+            }
+            if (n >= EXTENDIBLES) {
+                continue;
+            }
+            for (int j = 0; j < ANCHO_CUBETA; j++) {
+                cubetas[rabo] = otraCubeta(inicio + j);
+                padres[rabo] = n;
+                lugares[rabo++] = j;
+            }
+        }
+        return -1;
+    }
+
+    /* Mueve las entradas de la ruta que termina en el nodo n, cuyo lugar i
+       está libre, y regresa el lugar libre al principio de la ruta. */
+    private int recorreRuta(int n, int i) {
+        while (this.rutaPadres[n] != -1) {
+            int p = this.rutaPadres[n];
+            int j = this.rutaCubetas[p] * ANCHO_CUBETA + this.rutaLugares[n];
+            mueve(j, i);
+            this.desplazamientos++;
+            i = j;
+            n = p;
+        }
+        return i;
+    }
+
+    /* Mueve la entrada del lugar j al lugar libre i. */
+    private void mueve(int j, int i) {
+        this.llaves[i] = this.llaves[j];
+        this.valores[i] = this.valores[j];
+        this.dispersiones1[i] = this.dispersiones1[j];
+        this.dispersiones2[i] = this.dispersiones2[j];
+        this.llaves[j] = null;
+        this.valores[j] = null;
+    }
+
+    /* Duplica el número de cubetas, reutilizando las dispersiones guardadas,
+       y acomoda también la entrada recibida si la llave no es null. Si algo
+       no cabe, lo vuelve a duplicar, a lo más MAXIMOS_CRECIMIENTOS veces; si
+       aun así no cabe, deja el diccionario como estaba y lanza
+       IllegalStateException. */
+    private void crece(Object llave, Object valor, int h1, int h2) {
+        Object[] ls = this.llaves;
+        Object[] vs = this.valores;
+        int[] hs1 = this.dispersiones1;
+        int[] hs2 = this.dispersiones2;
+        int mascara = this.mascara;
+        int elementos = this.elementos;
+        int reservados = this.reservados;
+        int cubetas = 2 * (this.mascara + 1);
+        for (int c = 0; c < MAXIMOS_CRECIMIENTOS; c++, cubetas *= 2) {
+            inicializa(cubetas);
+            boolean exito = llave == null || inserta(llave, valor, h1, h2);
+            for (int i = 0; i < ls.length && exito; i++) {
+                if (ls[i] != null) {
+                    exito = inserta(ls[i], vs[i], hs1[i], hs2[i]);
+                }
+            }
+            if (exito) {
+                this.elementos = elementos;
+                return;
+            }
+        }
+        this.llaves = ls;
+        this.valores = vs;
+        this.dispersiones1 = hs1;
+        this.dispersiones2 = hs2;
+        this.mascara = mascara;
+        this.elementos = elementos;
+        this.reservados = reservados;
+        throw new IllegalStateException("Demasiadas colisiones");
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        return valor(i);
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null && indice(llave) != -1;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada. Si
+     * el lugar que queda libre es de una cubeta de alguna entrada de la
+     * reserva, la entrada se mueve ahí.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        this.llaves[i] = null;
+        this.valores[i] = null;
+        this.elementos--;
+        if (i >= reserva()) {
+            this.reservados--;
+            return;
+        }
+        if (this.reservados == 0) {
+            return;
+        }
+        int c = i / ANCHO_CUBETA;
+        for (int j = reserva(); j < this.llaves.length; j++) {
+            if (this.llaves[j] != null &&
+                (cubeta1(this.dispersiones1[j]) == c ||
+                 cubeta2(this.dispersiones1[j],
+                         this.dispersiones2[j]) == c)) {
+                mueve(j, i);
+                this.reservados--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Nos dice la carga del diccionario: la fracción de los lugares de las
+     * cubetas que está ocupada.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos / ((this.mascara + 1) * ANCHO_CUBETA);
+    }
+
+    /**
+     * Regresa el número de cubetas del diccionario.
+     * @return el número de cubetas del diccionario.
+     */
+    public int getCubetas() {
+        return this.mascara + 1;
+    }
+
+    /**
+     * Regresa el número de entradas en la reserva.
+     * @return el número de entradas en la reserva.
+     */
+    public int getReservados() {
+        return this.reservados;
+    }
+
+    /**
+     * Regresa el número total de entradas que se han movido a su otra cubeta
+     * para hacer lugar a otras.
+     * @return el número total de desplazamientos.
+     */
+    public long getDesplazamientos() {
+        return this.desplazamientos;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío.
+     */
+    public void limpia() {
+        inicializa(this.mascara + 1);
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.elementos == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] != null) {
+                sb.append("'").append(this.llaves[i]).append("': '")
+                  .append(this.valores[i]).append("', ");
+            }
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioCuckoo, y tiene las mismas llaves asociadas a los
+     *         mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked") DiccionarioCuckoo<K, V> d =
+            (DiccionarioCuckoo<K, V>)o;
+        if (this.elementos != d.elementos) {
+            return false;
+        }
+        for (int i = 0; i < this.llaves.length; i++) {
+            if (this.llaves[i] == null) {
+                continue;
+            }
+            int j = d.indice(llave(i));
+            if (j == -1 || !this.valores[i].equals(d.valores[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
@@ -0,0 +1,581 @@
+package mx.unam.ciencias.edd;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios de bytes fuera del montón de Java. Las llaves y
+ * los valores se guardan, precedidos de sus longitudes, en bloques de memoria
+ * directa ({@link ByteBuffer#allocateDirect}), así que el recolector de
+ * basura no tiene que recorrerlos. El índice es una tabla con
+ * direccionamiento abierto de referencias a esos bloques; cada referencia
+ * empaqueta el bloque, el desplazamiento y 16 bits de la dispersión de la
+ * llave, para descartar casi todas las llaves distintas sin leer el
+ * bloque.</p>
+ *
+ * <p>Al crecer el índice o al eliminar, las llaves se vuelven a dispersar
+ * directamente sobre los bloques con {@link
+ * Dispersores#dispersaBJ(ByteBuffer,int,int)} o {@link
+ * Dispersores#dispersaDJB(ByteBuffer,int,int)}. Las cadenas se guardan en
+ * UTF-8.</p>
+ *
+ * <p>Reemplazar o eliminar una entrada deja su espacio muerto en el bloque;
+ * {@link #compacta} lo recupera, dejando los bloques anteriores al
+ * recolector de basura. Sólo {@link #cierra} libera la memoria directa sin
+ * esperarlo; después de cerrarlo, el diccionario ya no puede usarse.</p>
+ */
+public class DiccionarioDirecto {
+
+    /** Máxima carga permitida por el índice del diccionario. */
+    public static final double MAXIMA_CARGA = 0.75;
+
+    /** Tamaño predeterminado de los bloques de memoria: 1 MiB. */
+    public static final int TAMANIO_BLOQUE = 1 << 20;
+
+    /* Capacidad mínima del índice; decidida arbitrariamente a 2^6. */
+    private static final int MINIMA_CAPACIDAD = 64;
+
+    /* Tamaño del encabezado de cada registro: dos longitudes. */
+    private static final int ENCABEZADO = 8;
+
+    /* Máximo número de bloques que caben en una referencia. */
+    private static final int MAXIMOS_BLOQUES = 0xFFFF;
+
+    /* El algoritmo de dispersión. */
+    private AlgoritmoDispersor algoritmo;
+    /* El tamaño de los bloques. */
+    private int tamanioBloque;
+    /* Los bloques de memoria directa. */
+    private ByteBuffer[] bloques;
+    /* Número de bloques usados. */
+    private int numBloques;
+    /* La siguiente posición libre en el último bloque. */
+    private int posicion;
+    /* El índice: referencias a los registros; 0 indica un lugar vacío. */
+    private long[] referencias;
+    /* Número de entradas. */
+    private int elementos;
+    /* Bytes ocupados por registros vivos. */
+    private long bytesVivos;
+    /* Bytes ocupados por registros reemplazados o eliminados. */
+    private long bytesMuertos;
+    /* Si el diccionario ya se cerró. */
+    private boolean cerrado;
+
+    /**
+     * Construye un diccionario con el algoritmo de Bob Jenkins y bloques del
+     * tamaño predeterminado.
+     */
+    public DiccionarioDirecto() {
+        this(AlgoritmoDispersor.BJ_STRING, TAMANIO_BLOQUE);
+    }
+
+    /**
+     * Construye un diccionario con el algoritmo y el tamaño de bloque
+     * recibidos.
+     * @param algoritmo el algoritmo de dispersión; {@link
+     *        AlgoritmoDispersor#BJ_STRING} o {@link
+     *        AlgoritmoDispersor#DJB_STRING}.
+     * @param tamanioBloque el tamaño en bytes de los bloques de memoria.
+     * @throws IllegalArgumentException si el algoritmo no está soportado o el
+     *         tamaño de bloque no es positivo.
+     */
+    public DiccionarioDirecto(AlgoritmoDispersor algoritmo,
+                              int tamanioBloque) {
+        if (algoritmo != AlgoritmoDispersor.BJ_STRING &&
+            algoritmo != AlgoritmoDispersor.DJB_STRING) {
+            throw new IllegalArgumentException("Algoritmo inválido");
+        }
+        if (tamanioBloque <= ENCABEZADO) {
+            throw new IllegalArgumentException("Tamaño de bloque inválido");
+        }
+        this.algoritmo = algoritmo;
+        this.tamanioBloque = tamanioBloque;
+        this.bloques = new ByteBuffer[4];
+        this.referencias = new long[MINIMA_CAPACIDAD];
+    }
+
+    /* Crea la referencia de un registro: 16 bits de la dispersión, 16 del
+       bloque y 32 del desplazamiento. El bloque se recorre en uno para que
+       ninguna referencia válida sea 0. */
+    private static long referencia(int h, int bloque, int desplazamiento) {
+        return ((long)(h >>> 16) << 48) | ((long)(bloque + 1) << 32) |
+            (desplazamiento & 0xFFFFFFFFL);
+    }
+
+    /* Nos dice si la dispersión coincide con la guardada en la
+       referencia. */
+    private static boolean coincide(long referencia, int h) {
+        return (int)(referencia >>> 48) == (h >>> 16);
+    }
+
+    /* Regresa el índice del bloque de una referencia. */
+    private static int numBloque(long referencia) {
+        return (int)((referencia >>> 32) & 0xFFFF) - 1;
+    }
+
+    /* Regresa el bloque de una referencia. */
+    private ByteBuffer bloque(long referencia) {
+        return this.bloques[numBloque(referencia)];
+    }
+
+    /* Regresa el desplazamiento de una referencia. */
+    private static int desplazamiento(long referencia) {
+        return (int)referencia;
+    }
+
+    /* Dispersa la llave del registro directamente sobre su bloque. */
+    private int dispersa(long referencia) {
+        ByteBuffer b = bloque(referencia);
+        int d = desplazamiento(referencia);
+        return this.algoritmo == AlgoritmoDispersor.BJ_STRING ?
+            Dispersores.dispersaBJ(b, d + ENCABEZADO, b.getInt(d)) :
+            Dispersores.dispersaDJB(b, d + ENCABEZADO, b.getInt(d));
+    }
+
+    /* Dispersa un arreglo de bytes; coincide con la dispersión del mismo
+       rango en un bloque. */
+    private int dispersa(byte[] llave) {
+        return this.algoritmo == AlgoritmoDispersor.BJ_STRING ?
+            Dispersores.dispersaBJ(llave) : Dispersores.dispersaDJB(llave);
+    }
+
+    /* Nos dice si la llave del registro es igual al arreglo. */
+    private boolean iguales(long referencia, byte[] llave) {
+        ByteBuffer b = bloque(referencia);
+        int d = desplazamiento(referencia);
+        if (b.getInt(d) != llave.length) {
+            return false;
+        }
+        d += ENCABEZADO;
+        for (int i = 0; i < llave.length; i++) {
+            if (b.get(d + i) != llave[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Regresa el tamaño del registro. */
+    private int tamanio(long referencia) {
+        ByteBuffer b = bloque(referencia);
+        int d = desplazamiento(referencia);
+        return ENCABEZADO + b.getInt(d) + b.getInt(d + 4);
+    }
+
+    /* Verifica que el diccionario no esté cerrado. */
+    private void verificaAbierto() {
+        if (this.cerrado) {
+            throw new IllegalStateException("Diccionario cerrado");
+        }
+    }
+
+    /* Regresa el índice de la llave en la tabla, o -1 si no está. */
+    private int indice(byte[] llave, int h) {
+        int mascara = this.referencias.length - 1;
+        int i = h & mascara;
+        while (this.referencias[i] != 0) {
+            if (coincide(this.referencias[i], h) &&
+                iguales(this.referencias[i], llave)) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /* Inserta una referencia que sabemos que no está en la tabla. */
+    private void inserta(long referencia, int h) {
+        int mascara = this.referencias.length - 1;
+        int i = h & mascara;
+        while (this.referencias[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        this.referencias[i] = referencia;
+    }
+
+    /* Escribe un registro en los bloques y regresa su referencia. */
+    private long escribe(byte[] llave, byte[] valor, int h) {
+        int tamanio = ENCABEZADO + llave.length + valor.length;
+        reserva(tamanio);
+        ByteBuffer b = this.bloques[this.numBloques - 1];
+        int d = this.posicion;
+        b.putInt(d, llave.length);
+        b.putInt(d + 4, valor.length);
+        for (int i = 0; i < llave.length; i++) {
+            b.put(d + ENCABEZADO + i, llave[i]);
+        }
+        for (int i = 0; i < valor.length; i++) {
+            b.put(d + ENCABEZADO + llave.length + i, valor[i]);
+        }
+        this.posicion += tamanio;
+        this.bytesVivos += tamanio;
+        return referencia(h, this.numBloques - 1, d);
+    }
+
+    /* Se asegura de que el último bloque tenga espacio para un registro del
+       tamaño recibido; los registros más grandes que un bloque tienen un
+       bloque propio. */
+    private void reserva(int tamanio) {
+        if (this.numBloques > 0 && this.posicion + tamanio <=
+            this.bloques[this.numBloques - 1].capacity()) {
+            return;
+        }
+        nuevoBloque(Math.max(tamanio, this.tamanioBloque));
+    }
+
+    /* Agrega un bloque nuevo de la capacidad recibida. */
+    private void nuevoBloque(int capacidad) {
+        if (this.numBloques == MAXIMOS_BLOQUES) {
+            throw new IllegalStateException("Demasiados bloques");
+        }
+        if (this.numBloques == this.bloques.length) {
+            ByteBuffer[] nuevos = new ByteBuffer[this.bloques.length * 2];
+            for (int i = 0; i < this.numBloques; i++) {
+                nuevos[i] = this.bloques[i];
+            }
+            this.bloques = nuevos;
+        }
+        this.bloques[this.numBloques++] = ByteBuffer.allocateDirect(capacidad);
+        this.posicion = 0;
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya estaba en el diccionario, su valor se reemplaza.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void agrega(byte[] llave, byte[] valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        int h = dispersa(llave);
+        int i = indice(llave, h);
+        if (i != -1) {
+            int tamanio = tamanio(this.referencias[i]);
+            this.bytesVivos -= tamanio;
+            this.bytesMuertos += tamanio;
+            this.referencias[i] = escribe(llave, valor, h);
+            return;
+        }
+        inserta(escribe(llave, valor, h), h);
+        if (++this.elementos >= this.referencias.length * MAXIMA_CARGA) {
+            creceIndice();
+        }
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada.
+     * Ambas cadenas se guardan en UTF-8.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void agrega(String llave, String valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        agrega(llave.getBytes(StandardCharsets.UTF_8),
+               valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* Duplica la capacidad del índice, dispersando de nuevo las llaves
+       sobre los bloques. */
+    private void creceIndice() {
+        long[] rs = this.referencias;
+        this.referencias = new long[rs.length * 2];
+        for (int i = 0; i < rs.length; i++) {
+            if (rs[i] != 0) {
+                inserta(rs[i], dispersa(rs[i]));
+            }
+        }
+    }
+
+    /* Regresa la referencia de la llave, o lanza NoSuchElementException. */
+    private long busca(byte[] llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        int i = indice(llave, dispersa(llave));
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        return this.referencias[i];
+    }
+
+    /**
+     * Regresa una copia del valor asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return una copia del valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public byte[] get(byte[] llave) {
+        long r = busca(llave);
+        ByteBuffer b = bloque(r);
+        int d = desplazamiento(r);
+        byte[] valor = new byte[b.getInt(d + 4)];
+        d += ENCABEZADO + b.getInt(d);
+        for (int i = 0; i < valor.length; i++) {
+            valor[i] = b.get(d + i);
+        }
+        return valor;
+    }
+
+    /**
+     * Regresa el valor asociado a la llave proporcionada, decodificado de
+     * UTF-8.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public String get(String llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        return new String(get(llave.getBytes(StandardCharsets.UTF_8)),
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Regresa una vista de sólo lectura del valor asociado a la llave, sin
+     * copiarlo. La vista apunta directamente al bloque de memoria, así que
+     * deja de reflejar al diccionario al reemplazar o eliminar la llave, o al
+     * compactar; su memoria sigue siendo válida mientras exista la vista.
+     * Después de {@link #cierra} la memoria ya no existe, y leer la vista
+     * puede tirar a la máquina virtual.
+     * @param llave la llave para buscar el valor.
+     * @return una vista de sólo lectura del valor.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public ByteBuffer getVista(byte[] llave) {
+        long r = busca(llave);
+        ByteBuffer b = bloque(r);
+        int d = desplazamiento(r);
+        int inicio = d + ENCABEZADO + b.getInt(d);
+        ByteBuffer vista = b.duplicate();
+        /* Las conversiones a Buffer mantienen la compatibilidad con Java 8. */
+        ((Buffer)vista).limit(inicio + b.getInt(d + 4));
+        ((Buffer)vista).position(inicio);
+        return vista.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public boolean contiene(byte[] llave) {
+        verificaAbierto();
+        return llave != null && indice(llave, dispersa(llave)) != -1;
+    }
+
+    /**
+     * Nos dice si una cadena se encuentra como llave en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public boolean contiene(String llave) {
+        return llave != null &&
+            contiene(llave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void elimina(byte[] llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        int i = indice(llave, dispersa(llave));
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        int tamanio = tamanio(this.referencias[i]);
+        this.bytesVivos -= tamanio;
+        this.bytesMuertos += tamanio;
+        /* Recorremos hacia atrás las entradas que quedarían inalcanzables. */
+        int mascara = this.referencias.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (this.referencias[j] == 0) {
+                break;
+            }
+            int k = dispersa(this.referencias[j]) & mascara;
+            if (((j - k) & mascara) >= ((j - i) & mascara)) {
+                this.referencias[i] = this.referencias[j];
+                i = j;
+            }
+        }
+        this.referencias[i] = 0;
+        this.elementos--;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la cadena proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void elimina(String llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        elimina(llave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copia los registros vivos a bloques nuevos, recuperando el espacio de
+     * los registros reemplazados o eliminados. Los bloques anteriores no se
+     * liberan aquí: los reclama el recolector de basura cuando ya no quede
+     * ninguna vista de {@link #getVista} que apunte a ellos.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void compacta() {
+        verificaAbierto();
+        ByteBuffer[] anteriores = this.bloques;
+        this.bloques = new ByteBuffer[4];
+        this.numBloques = 0;
+        this.posicion = 0;
+        this.bytesVivos = 0;
+        this.bytesMuertos = 0;
+        for (int i = 0; i < this.referencias.length; i++) {
+            long r = this.referencias[i];
+            if (r == 0) {
+                continue;
+            }
+            ByteBuffer b = anteriores[numBloque(r)];
+            long nueva = copia(b, desplazamiento(r));
+            /* Conservamos los 16 bits de la dispersión. */
+            this.referencias[i] = (r & 0xFFFF000000000000L) | nueva;
+        }
+    }
+
+    /* Copia el registro en el desplazamiento del bloque al final de los
+       bloques actuales, y regresa su nueva referencia. */
+    private long copia(ByteBuffer origen, int d) {
+        int tamanio = ENCABEZADO + origen.getInt(d) + origen.getInt(d + 4);
+        reserva(tamanio);
+        ByteBuffer b = this.bloques[this.numBloques - 1];
+        for (int i = 0; i < tamanio; i++) {
+            b.put(this.posicion + i, origen.get(d + i));
+        }
+        long r = referencia(0, this.numBloques - 1, this.posicion);
+        this.posicion += tamanio;
+        this.bytesVivos += tamanio;
+        return r;
+    }
+
+    /**
+     * Cierra el diccionario, liberando su memoria directa en el momento en
+     * lugar de esperar al recolector de basura. Las vistas obtenidas con
+     * {@link #getVista} apuntan entonces a memoria liberada: leerlas
+     * después de cerrar puede tirar a la máquina virtual, así que no deben
+     * conservarse más allá de esta llamada.
+     */
+    public void cierra() {
+        if (this.cerrado) {
+            return;
+        }
+        for (int i = 0; i < this.numBloques; i++) {
+            libera(this.bloques[i]);
+        }
+        this.bloques = null;
+        this.referencias = null;
+        this.numBloques = 0;
+        this.elementos = 0;
+        this.cerrado = true;
+    }
+
+    /* Libera la memoria de un buffer directo. En Java 9 y posteriores se usa
+       Unsafe.invokeCleaner; si no está disponible, la memoria se libera
+       cuando el recolector de basura reclame el buffer. Cualquier vista o
+       rebanada del buffer queda apuntando a memoria liberada, así que sólo
+       se llama al cerrar; también lo usa DiccionarioMapeado al cerrar. */
+    static void libera(ByteBuffer buffer) {
+        try {
+            Class<?> clase = Class.forName("sun.misc.Unsafe");
+            Field campo = clase.getDeclaredField("theUnsafe");
+            campo.setAccessible(true);
+            Method m = clase.getMethod("invokeCleaner", ByteBuffer.class);
+            m.invoke(campo.get(null), buffer);
+        } catch (InvocationTargetException ite) {
+            /* invokeCleaner rechaza rebanadas y duplicados. */
+            throw new IllegalArgumentException(ite.getCause());
+        } catch (ReflectiveOperationException | SecurityException e) {
+            /* Java 8 o un entorno restringido; lo libera el recolector. */
+        }
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Regresa el número de bytes que ocupan los registros vivos.
+     * @return el número de bytes que ocupan los registros vivos.
+     */
+    public long getBytesVivos() {
+        return this.bytesVivos;
+    }
+
+    /**
+     * Regresa el número de bytes que ocupan los registros reemplazados o
+     * eliminados, que {@link #compacta} puede recuperar.
+     * @return el número de bytes muertos.
+     */
+    public long getBytesMuertos() {
+        return this.bytesMuertos;
+    }
+
+    /**
+     * Nos dice si el diccionario está cerrado.
+     * @return <code>true</code> si el diccionario está cerrado,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean estaCerrado() {
+        return this.cerrado;
+    }
+}
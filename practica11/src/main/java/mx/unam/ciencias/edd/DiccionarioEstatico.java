@@ -0,0 +1,567 @@
+package mx.unam.ciencias.edd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Clase para diccionarios estáticos: de sólo lectura, con una función de
+ * dispersión perfecta mínima. Se obtienen con {@link Diccionario#congela},
+ * o cargando una imagen con {@link #carga}.</p>
+ *
+ * <p>La función de dispersión perfecta se construye con el algoritmo CHD
+ * (<em>compress, hash, displace</em>): las llaves se reparten en cubetas de
+ * en promedio {@link #LLAVES_POR_CUBETA} llaves, y para cada cubeta, de la
+ * más grande a la más chica, se busca un piloto que mande todas sus llaves a
+ * lugares libres. Las llaves y los valores viven en arreglos planos sin
+ * lugares vacíos, y una búsqueda lee el piloto de su cubeta y revisa un solo
+ * lugar.</p>
+ *
+ * <p>La función parte de la dispersión del {@link Dispersor} del
+ * diccionario, así que dos llaves con la misma dispersión no se pueden
+ * separar. Esas llaves van a un pequeño desbordamiento al final de los
+ * arreglos, ordenado por dispersión, que sólo se revisa cuando el lugar de
+ * la llave tiene otra llave.</p>
+ */
+public class DiccionarioEstatico<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador {
+
+        /* El índice de la siguiente entrada. */
+        private int siguiente;
+
+        /* Nos dice si hay una siguiente entrada. */
+        public boolean hasNext() {
+            return this.siguiente < llaves.length;
+        }
+
+        /* Regresa el índice de la siguiente entrada. */
+        public int siguiente() {
+            if (this.siguiente >= llaves.length) {
+                throw new NoSuchElementException();
+            }
+            return this.siguiente++;
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return llave(siguiente());
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return valor(siguiente());
+        }
+    }
+
+    /** Número promedio de llaves por cubeta de la función perfecta. */
+    public static final int LLAVES_POR_CUBETA = 4;
+
+    /* Número de semillas que se intentan antes de rendirse. */
+    private static final int MAXIMOS_INTENTOS = 16;
+
+    /* Identificador de las imágenes de diccionarios: "EDDESTAT". */
+    private static final long MAGIA = 0x4544444553544154L;
+
+    /* Versión del formato de la imagen. */
+    private static final int VERSION = 1;
+
+    /* Constante para mezclar los pilotos: 2^64 entre la razón áurea. */
+    private static final long AUREO = 0x9E3779B97F4A7C15L;
+
+    /* Dispersor. */
+    private Dispersor<K> dispersor;
+    /* Las llaves; las primeras perfectas en su lugar, y luego las
+       desbordadas. */
+    private Object[] llaves;
+    /* Los valores. */
+    private Object[] valores;
+    /* Las dispersiones de las llaves. */
+    private int[] dispersiones;
+    /* Número de llaves acomodadas por la función perfecta. */
+    private int perfectas;
+    /* El piloto de cada cubeta. */
+    private int[] pilotos;
+    /* La semilla de la función perfecta. */
+    private long semilla;
+
+    /* Construye un diccionario estático con las llaves, valores y
+       dispersiones; las llaves deben ser distintas y no nulas. */
+    DiccionarioEstatico(Object[] llaves, Object[] valores,
+                        int[] dispersiones, Dispersor<K> dispersor) {
+        this.dispersor = dispersor;
+        int n = llaves.length;
+        /* Se ordenan por dispersión, y de cada dispersión repetida sólo la
+           primera llave va a la función perfecta. */
+        long[] orden = new long[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = ((long)dispersiones[i] << 32) | i;
+        }
+        Arrays.sort(orden);
+        int[] unicas = new int[n];
+        int[] desbordadas = new int[n];
+        int u = 0, d = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (int)orden[i];
+            if (i > 0 && (int)(orden[i] >> 32) == (int)(orden[i - 1] >> 32)) {
+                desbordadas[d++] = j;
+            } else {
+                unicas[u++] = j;
+            }
+        }
+        this.perfectas = u;
+        int[] h = new int[u];
+        for (int i = 0; i < u; i++) {
+            h[i] = dispersiones[unicas[i]];
+        }
+        this.pilotos = new int[0];
+        for (int intento = 0; u > 0; intento++) {
+            if (intento == MAXIMOS_INTENTOS) {
+                throw new IllegalStateException("No se encontró una " +
+                                                "función perfecta");
+            }
+            this.semilla = mezcla(AUREO * (intento + 1));
+            this.pilotos = buscaPilotos(h, this.semilla);
+            if (this.pilotos != null) {
+                break;
+            }
+        }
+        this.llaves = new Object[n];
+        this.valores = new Object[n];
+        this.dispersiones = new int[n];
+        for (int i = 0; i < u; i++) {
+            int j = lugar(h[i]);
+            this.llaves[j] = llaves[unicas[i]];
+            this.valores[j] = valores[unicas[i]];
+            this.dispersiones[j] = h[i];
+        }
+        for (int i = 0; i < d; i++) {
+            this.llaves[u + i] = llaves[desbordadas[i]];
+            this.valores[u + i] = valores[desbordadas[i]];
+            this.dispersiones[u + i] = dispersiones[desbordadas[i]];
+        }
+    }
+
+    /* Construye un diccionario estático ya acomodado, para cargar
+       imágenes. */
+    private DiccionarioEstatico(Dispersor<K> dispersor, Object[] llaves,
+                                Object[] valores, int[] dispersiones,
+                                int perfectas, int[] pilotos, long semilla) {
+        this.dispersor = dispersor;
+        this.llaves = llaves;
+        this.valores = valores;
+        this.dispersiones = dispersiones;
+        this.perfectas = perfectas;
+        this.pilotos = pilotos;
+        this.semilla = semilla;
+    }
+
+    /* El finalizador de SplitMix64. */
+    private static long mezcla(long x) {
+        x ^= x >>> 30;
+        x *= 0xBF58476D1CE4E5B9L;
+        x ^= x >>> 27;
+        x *= 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /* Mezcla una dispersión con la semilla. */
+    private static long mezcla(int h, long semilla) {
+        return mezcla((h & 0xFFFFFFFFL) ^ semilla);
+    }
+
+    /* Regresa la cubeta de una dispersión mezclada, de r cubetas. */
+    private static int cubeta(long x, int r) {
+        return (int)(((x >>> 32) * r) >>> 32);
+    }
+
+    /* Regresa el lugar de una dispersión mezclada con el piloto dado, de m
+       lugares. */
+    private static int posicion(long x, int piloto, int m) {
+        long y = mezcla(x ^ (piloto * AUREO));
+        return (int)(((y >>> 32) * m) >>> 32);
+    }
+
+    /* Regresa el lugar de la dispersión h en la función perfecta. */
+    private int lugar(int h) {
+        long x = mezcla(h, this.semilla);
+        int piloto = this.pilotos[cubeta(x, this.pilotos.length)];
+        return posicion(x, piloto, this.perfectas);
+    }
+
+    /* Busca los pilotos de la función perfecta para las dispersiones
+       distintas h con la semilla dada. Regresa null si alguna cubeta no
+       encuentra piloto. */
+    private static int[] buscaPilotos(int[] h, long semilla) {
+        int m = h.length;
+        int r = (m + LLAVES_POR_CUBETA - 1) / LLAVES_POR_CUBETA;
+        long[] x = new long[m];
+        int[] inicios = new int[r + 1];
+        for (int i = 0; i < m; i++) {
+            x[i] = mezcla(h[i], semilla);
+            inicios[cubeta(x[i], r) + 1]++;
+        }
+        int maximo = 0;
+        for (int b = 0; b < r; b++) {
+            maximo = Math.max(maximo, inicios[b + 1]);
+            inicios[b + 1] += inicios[b];
+        }
+        /* Las dispersiones agrupadas por cubeta. */
+        long[] miembros = new long[m];
+        int[] llenos = Arrays.copyOf(inicios, r);
+        for (int i = 0; i < m; i++) {
+            miembros[llenos[cubeta(x[i], r)]++] = x[i];
+        }
+        /* Las cubetas ordenadas de la más grande a la más chica. */
+        int[] porTamanio = new int[maximo + 2];
+        for (int b = 0; b < r; b++) {
+            porTamanio[maximo - (inicios[b + 1] - inicios[b]) + 1]++;
+        }
+        for (int t = 0; t <= maximo; t++) {
+            porTamanio[t + 1] += porTamanio[t];
+        }
+        int[] orden = new int[r];
+        for (int b = 0; b < r; b++) {
+            orden[porTamanio[maximo - (inicios[b + 1] - inicios[b])]++] = b;
+        }
+
+        /* Las últimas cubetas de una llave tienen pocos lugares libres;
+           la última espera en promedio m intentos. */
+        long tope = Math.max(1L << 16, 32L * m);
+        boolean[] ocupados = new boolean[m];
+        int[] lugares = new int[maximo];
+        int[] pilotos = new int[r];
+        for (int b : orden) {
+            int inicio = inicios[b], tamanio = inicios[b + 1] - inicio;
+            if (tamanio == 0) {
+                break;
+            }
+            int piloto = 0;
+            while (!acomoda(miembros, inicio, tamanio, piloto,
+                            ocupados, lugares)) {
+                if (++piloto > tope) {
+                    return null;
+                }
+            }
+            pilotos[b] = piloto;
+        }
+        return pilotos;
+    }
+
+    /* Intenta acomodar una cubeta con el piloto dado; si todas sus llaves
+       caen en lugares libres y distintos, los marca como ocupados. */
+    private static boolean acomoda(long[] miembros, int inicio, int tamanio,
+                                   int piloto, boolean[] ocupados,
+                                   int[] lugares) {
+        int m = ocupados.length;
+        for (int k = 0; k < tamanio; k++) {
+            int j = posicion(miembros[inicio + k], piloto, m);
+            if (ocupados[j]) {
+                for (int l = 0; l < k; l++) {
+                    ocupados[lugares[l]] = false;
+                }
+                return false;
+            }
+            ocupados[j] = true;
+            lugares[k] = j;
+        }
+        return true;
+    }
+
+    /* Regresa la llave del índice i. */
+    @SuppressWarnings("unchecked") private K llave(int i) {
+        return (K)this.llaves[i];
+    }
+
+    /* Regresa el valor del índice i. */
+    @SuppressWarnings("unchecked") private V valor(int i) {
+        return (V)this.valores[i];
+    }
+
+    /* Regresa el índice de la llave, o -1 si no está. */
+    private int indice(K llave) {
+        int h = this.dispersor.dispersa(llave);
+        if (this.perfectas > 0) {
+            int i = lugar(h);
+            if (this.dispersiones[i] == h && this.llaves[i].equals(llave)) {
+                return i;
+            }
+        }
+        if (this.perfectas == this.llaves.length) {
+            return -1;
+        }
+        /* La primera desbordada con dispersión al menos h. */
+        int a = this.perfectas, b = this.llaves.length;
+        while (a < b) {
+            int c = (a + b) >>> 1;
+            if (this.dispersiones[c] < h) {
+                a = c + 1;
+            } else {
+                b = c;
+            }
+        }
+        for (; a < this.llaves.length && this.dispersiones[a] == h; a++) {
+            if (this.llaves[a].equals(llave)) {
+                return a;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        return valor(i);
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null && indice(llave) != -1;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.llaves.length;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean esVacia() {
+        return this.llaves.length == 0;
+    }
+
+    /**
+     * Regresa el número de llaves que no acomodó la función perfecta porque
+     * su dispersión es igual a la de otra llave.
+     * @return el número de llaves desbordadas.
+     */
+    public int getDesbordadas() {
+        return this.llaves.length - this.perfectas;
+    }
+
+    /**
+     * Regresa la imagen del diccionario: un arreglo de bytes con las
+     * entradas ya acomodadas, que {@link #carga} convierte de nuevo en
+     * diccionario sin reconstruir la función perfecta. La imagen termina con
+     * una suma de verificación CRC32.
+     * @param codificadorLlaves el codificador de las llaves.
+     * @param codificadorValores el codificador de los valores.
+     * @return la imagen del diccionario.
+     */
+    public byte[] imagen(Codificador<K> codificadorLlaves,
+                         Codificador<V> codificadorValores) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        try {
+            salida.writeLong(MAGIA);
+            salida.writeInt(VERSION);
+            salida.writeInt(this.llaves.length);
+            salida.writeInt(this.perfectas);
+            salida.writeLong(this.semilla);
+            salida.writeInt(this.pilotos.length);
+            for (int piloto : this.pilotos) {
+                salida.writeInt(piloto);
+            }
+            for (int i = 0; i < this.llaves.length; i++) {
+                salida.writeInt(this.dispersiones[i]);
+                byte[] llave = codificadorLlaves.codifica(llave(i));
+                salida.writeInt(llave.length);
+                salida.write(llave);
+                byte[] valor = codificadorValores.codifica(valor(i));
+                salida.writeInt(valor.length);
+                salida.write(valor);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            salida.writeInt((int)crc.getValue());
+        } catch (IOException ioe) {
+            /* Un ByteArrayOutputStream no lanza excepciones. */
+            throw new IllegalStateException(ioe);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Carga un diccionario estático de una imagen generada por {@link
+     * #imagen}.
+     * @param <K> el tipo de las llaves.
+     * @param <V> el tipo de los valores.
+     * @param imagen la imagen del diccionario.
+     * @param dispersor el dispersor con el que se construyó el diccionario.
+     * @param codificadorLlaves el codificador de las llaves.
+     * @param codificadorValores el codificador de los valores.
+     * @return el diccionario de la imagen.
+     * @throws IllegalArgumentException si la imagen no es válida, o si el
+     *         dispersor no coincide con el de la imagen.
+     */
+    public static <K, V> DiccionarioEstatico<K, V>
+    carga(byte[] imagen, Dispersor<K> dispersor,
+          Codificador<K> codificadorLlaves,
+          Codificador<V> codificadorValores) {
+        if (imagen.length < 4) {
+            throw new IllegalArgumentException("La imagen no es válida");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(imagen, 0, imagen.length - 4);
+        ByteBuffer b = ByteBuffer.wrap(imagen);
+        if ((int)crc.getValue() != b.getInt(imagen.length - 4)) {
+            throw new IllegalArgumentException("La imagen está corrupta");
+        }
+        b.limit(imagen.length - 4);
+        try {
+            if (b.getLong() != MAGIA || b.getInt() != VERSION) {
+                throw new IllegalArgumentException("La imagen no es válida");
+            }
+            int n = b.getInt();
+            int perfectas = b.getInt();
+            long semilla = b.getLong();
+            int r = b.getInt();
+            if (perfectas < 0 || perfectas > n || r != (perfectas +
+                LLAVES_POR_CUBETA - 1) / LLAVES_POR_CUBETA ||
+                r > b.remaining() / 4) {
+                throw new IllegalArgumentException("La imagen no es válida");
+            }
+            int[] pilotos = new int[r];
+            for (int i = 0; i < r; i++) {
+                pilotos[i] = b.getInt();
+            }
+            if (n > b.remaining() / 12) {
+                throw new IllegalArgumentException("La imagen no es válida");
+            }
+            Object[] llaves = new Object[n];
+            Object[] valores = new Object[n];
+            int[] dispersiones = new int[n];
+            for (int i = 0; i < n; i++) {
+                dispersiones[i] = b.getInt();
+                llaves[i] = decodifica(b, imagen, codificadorLlaves);
+                valores[i] = decodifica(b, imagen, codificadorValores);
+            }
+            if (b.hasRemaining()) {
+                throw new IllegalArgumentException("La imagen no es válida");
+            }
+            DiccionarioEstatico<K, V> d =
+                new DiccionarioEstatico<K, V>(dispersor, llaves, valores,
+                                              dispersiones, perfectas,
+                                              pilotos, semilla);
+            if (n > 0 && dispersor.dispersa(d.llave(0)) != dispersiones[0]) {
+                throw new IllegalArgumentException("El dispersor no " +
+                                                   "coincide con el de la " +
+                                                   "imagen");
+            }
+            return d;
+        } catch (BufferUnderflowException bue) {
+            throw new IllegalArgumentException("La imagen no es válida");
+        }
+    }
+
+    /* Decodifica un objeto precedido por su longitud. */
+    private static <T> T decodifica(ByteBuffer b, byte[] imagen,
+                                    Codificador<T> codificador) {
+        int longitud = b.getInt();
+        if (longitud < 0 || longitud > b.remaining()) {
+            throw new IllegalArgumentException("La imagen no es válida");
+        }
+        T objeto = codificador.decodifica(imagen, b.position(), longitud);
+        b.position(b.position() + longitud);
+        return objeto;
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.llaves.length == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < this.llaves.length; i++) {
+            sb.append("'").append(this.llaves[i]).append("': '")
+              .append(this.valores[i]).append("', ");
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioEstatico, y tiene las mismas llaves asociadas a los
+     *         mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked") DiccionarioEstatico<K, V> d =
+            (DiccionarioEstatico<K, V>)o;
+        if (this.llaves.length != d.llaves.length) {
+            return false;
+        }
+        for (int i = 0; i < this.llaves.length; i++) {
+            int j = d.indice(llave(i));
+            if (j == -1 || !this.valores[i].equals(d.valores[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
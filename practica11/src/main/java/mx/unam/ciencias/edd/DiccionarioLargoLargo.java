@@ -0,0 +1,376 @@
+package mx.unam.ciencias.edd;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios de enteros largos a enteros largos. Las llaves y
+ * los valores se guardan como <code>long</code> en dos arreglos paralelos con
+ * direccionamiento abierto, así que ninguna operación crea objetos.</p>
+ *
+ * <p>Como no hay objetos, {@link #get} no puede regresar <code>null</code>
+ * cuando una llave no está: regresa el valor <em>ausente</em> del diccionario,
+ * que se define al construirlo.</p>
+ */
+public class DiccionarioLargoLargo {
+
+    /**
+     * Clase para cursores del diccionario. Un cursor recorre las entradas sin
+     * crear objetos; puede reutilizarse llamando {@link #reinicia}.
+     */
+    public class Cursor {
+
+        /* El índice actual; -2 antes de empezar, -1 para la llave cero. */
+        private int indice;
+
+        /* Construye un cursor antes de la primera entrada. */
+        private Cursor() {
+            reinicia();
+        }
+
+        /**
+         * Regresa el cursor a antes de la primera entrada.
+         */
+        public void reinicia() {
+            this.indice = -2;
+        }
+
+        /**
+         * Mueve el cursor a la siguiente entrada.
+         * @return <code>true</code> si hay una siguiente entrada,
+         *         <code>false</code> en otro caso.
+         */
+        public boolean avanza() {
+            if (this.indice == -2) {
+                this.indice = -1;
+                if (hayCero) {
+                    return true;
+                }
+            }
+            while (++this.indice < llaves.length) {
+                if (llaves[this.indice] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Regresa la llave de la entrada actual.
+         * @return la llave de la entrada actual.
+         * @throws NoSuchElementException si el cursor no está en una entrada.
+         */
+        public long llave() {
+            verifica();
+            return this.indice == -1 ? 0 : llaves[this.indice];
+        }
+
+        /**
+         * Regresa el valor de la entrada actual.
+         * @return el valor de la entrada actual.
+         * @throws NoSuchElementException si el cursor no está en una entrada.
+         */
+        public long valor() {
+            verifica();
+            return this.indice == -1 ? valorCero : valores[this.indice];
+        }
+
+        /* Verifica que el cursor esté en una entrada. */
+        private void verifica() {
+            if (this.indice < -1 || this.indice >= llaves.length) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    /** Máxima carga permitida por el diccionario. */
+    public static final double MAXIMA_CARGA = 0.75;
+
+    /* Capacidad mínima; decidida arbitrariamente a 2^4. */
+    private static final int MINIMA_CAPACIDAD = 16;
+
+    /* Dispersor predeterminado: multiplica por la razón áurea y se queda con
+       los 32 bits altos, que dependen de todos los bits de la llave. */
+    private static final DispersorEnteroLargo DISPERSOR = e -> {
+        long h = e * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 32) ^ (int)h;
+    };
+
+    /* Dispersor. */
+    private DispersorEnteroLargo dispersor;
+    /* Las llaves; 0 indica un lugar vacío. */
+    private long[] llaves;
+    /* Los valores. */
+    private long[] valores;
+    /* Si la llave 0 está en el diccionario. */
+    private boolean hayCero;
+    /* El valor de la llave 0. */
+    private long valorCero;
+    /* El valor que regresa get cuando la llave no está. */
+    private long ausente;
+    /* Número de entradas. */
+    private int elementos;
+
+    /**
+     * Construye un diccionario con capacidad, dispersor y valor ausente
+     * predeterminados. El valor ausente es 0.
+     */
+    public DiccionarioLargoLargo() {
+        this(MINIMA_CAPACIDAD, DISPERSOR, 0);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial definida por el
+     * usuario, y dispersor y valor ausente predeterminados.
+     * @param capacidad el número tentativo de entradas.
+     */
+    public DiccionarioLargoLargo(int capacidad) {
+        this(capacidad, DISPERSOR, 0);
+    }
+
+    /**
+     * Construye un diccionario con una capacidad inicial, un dispersor y un
+     * valor ausente definidos por el usuario.
+     * @param capacidad el número tentativo de entradas.
+     * @param dispersor el dispersor a utilizar.
+     * @param ausente el valor que regresa {@link #get} cuando la llave no
+     *        está en el diccionario.
+     */
+    public DiccionarioLargoLargo(int capacidad,
+                                 DispersorEnteroLargo dispersor,
+                                 long ausente) {
+        if (dispersor == null) {
+            throw new IllegalArgumentException();
+        }
+        this.dispersor = dispersor;
+        this.ausente = ausente;
+        int c = MINIMA_CAPACIDAD;
+        while (c * MAXIMA_CARGA <= capacidad) {
+            c *= 2;
+        }
+        this.llaves = new long[c];
+        this.valores = new long[c];
+    }
+
+    /* Regresa el índice de la llave distinta de cero, o -1 si no está. */
+    private int indice(long llave) {
+        int mascara = this.llaves.length - 1;
+        int i = this.dispersor.dispersa(llave) & mascara;
+        long l;
+        while ((l = this.llaves[i]) != 0) {
+            if (l == llave) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya estaba en el diccionario, su valor se reemplaza.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     */
+    public void agrega(long llave, long valor) {
+        if (llave == 0) {
+            if (!this.hayCero) {
+                this.elementos++;
+            }
+            this.hayCero = true;
+            this.valorCero = valor;
+            return;
+        }
+        int mascara = this.llaves.length - 1;
+        int i = this.dispersor.dispersa(llave) & mascara;
+        long l;
+        while ((l = this.llaves[i]) != 0) {
+            if (l == llave) {
+                this.valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        this.llaves[i] = llave;
+        this.valores[i] = valor;
+        if (++this.elementos >= this.llaves.length * MAXIMA_CARGA) {
+            crece();
+        }
+    }
+
+    /* Duplica la capacidad del diccionario. */
+    private void crece() {
+        long[] ls = this.llaves;
+        long[] vs = this.valores;
+        this.llaves = new long[ls.length * 2];
+        this.valores = new long[ls.length * 2];
+        int mascara = this.llaves.length - 1;
+        for (int j = 0; j < ls.length; j++) {
+            if (ls[j] == 0) {
+                continue;
+            }
+            int i = this.dispersor.dispersa(ls[j]) & mascara;
+            while (this.llaves[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            this.llaves[i] = ls[j];
+            this.valores[i] = vs[j];
+        }
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada, o el
+     * valor ausente si la llave no está.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave, o el valor ausente.
+     */
+    public long get(long llave) {
+        if (llave == 0) {
+            return this.hayCero ? this.valorCero : this.ausente;
+        }
+        int i = indice(llave);
+        return i == -1 ? this.ausente : this.valores[i];
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(long llave) {
+        return llave == 0 ? this.hayCero : indice(llave) != -1;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     */
+    public void elimina(long llave) {
+        if (llave == 0) {
+            if (!this.hayCero) {
+                throw new NoSuchElementException();
+            }
+            this.hayCero = false;
+            this.elementos--;
+            return;
+        }
+        int i = indice(llave);
+        if (i == -1) {
+            throw new NoSuchElementException();
+        }
+        /* Recorremos hacia atrás las entradas que quedarían inalcanzables. */
+        int mascara = this.llaves.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            long l = this.llaves[j];
+            if (l == 0) {
+                break;
+            }
+            int k = this.dispersor.dispersa(l) & mascara;
+            if (((j - k) & mascara) >= ((j - i) & mascara)) {
+                this.llaves[i] = l;
+                this.valores[i] = this.valores[j];
+                i = j;
+            }
+        }
+        this.llaves[i] = 0;
+        this.elementos--;
+    }
+
+    /**
+     * Regresa el valor ausente del diccionario.
+     * @return el valor que regresa {@link #get} cuando la llave no está.
+     */
+    public long getAusente() {
+        return this.ausente;
+    }
+
+    /**
+     * Nos dice la carga del diccionario.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos / this.llaves.length;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Limpia el diccionario de elementos, dejándolo vacío.
+     */
+    public void limpia() {
+        for (int i = 0; i < this.llaves.length; i++) {
+            this.llaves[i] = 0;
+        }
+        this.hayCero = false;
+        this.elementos = 0;
+    }
+
+    /**
+     * Regresa un cursor para recorrer las entradas del diccionario, sin
+     * ningún orden específico.
+     * @return un cursor para recorrer las entradas del diccionario.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.elementos == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder("{ ");
+        Cursor c = cursor();
+        while (c.avanza()) {
+            sb.append("'").append(c.llave()).append("': '")
+              .append(c.valor()).append("', ");
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioLargoLargo, y tiene las mismas llaves asociadas a
+     *         los mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DiccionarioLargoLargo d = (DiccionarioLargoLargo)o;
+        if (this.elementos != d.elementos) {
+            return false;
+        }
+        Cursor c = cursor();
+        while (c.avanza()) {
+            if (!d.contiene(c.llave()) || d.get(c.llave()) != c.valor()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
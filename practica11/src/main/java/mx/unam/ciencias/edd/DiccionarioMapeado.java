@@ -0,0 +1,741 @@
+package mx.unam.ciencias.edd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * <p>Clase para diccionarios de cadenas guardados en un archivo mapeado a
+ * memoria. Las cubetas y las entradas viven en el archivo, así que abrir de
+ * nuevo un diccionario sólo mapea el archivo: no hay que deserializar
+ * nada.</p>
+ *
+ * <p>El archivo empieza con dos encabezados alternados, cada uno con un
+ * número de secuencia y una suma de verificación CRC32; al abrir se usa el
+ * encabezado válido más reciente. El encabezado guarda el algoritmo de
+ * dispersión y la dispersión de una cadena de prueba con caracteres fuera
+ * de ASCII, que se verifican al abrir el archivo con el dispersor de {@link
+ * FabricaDispersores#dispersorCadenaUTF8}: se dispersan los bytes en UTF-8
+ * de las llaves, que son los que se guardan, así que el archivo no depende
+ * de la codificación predeterminada de la plataforma.</p>
+ *
+ * <p>Las escrituras nunca modifican una entrada publicada: la entrada nueva se
+ * agrega al final del archivo, se escribe un encabezado que la cubre y se
+ * marca como sucio, se publica con una sola escritura del apuntador que la
+ * enlaza, y se escribe un encabezado limpio. Si el proceso muere a la mitad,
+ * al abrir el archivo sucio se vuelven a contar las entradas. Para
+ * sobrevivir también a una caída del sistema hay que llamar {@link
+ * #sincroniza}.</p>
+ *
+ * <p>El archivo se mapea en segmentos del mismo tamaño, que se agregan
+ * conforme crece; ninguna entrada cruza de un segmento a otro. El tamaño
+ * de los segmentos se guarda en el encabezado, y al abrir un archivo
+ * existente se usa ése. Al crecer,
+ * las cubetas y las entradas vivas se copian al final del archivo y se
+ * publican con un solo encabezado.</p>
+ *
+ * <p>El archivo nunca se reutiliza: las entradas reemplazadas o eliminadas
+ * y las cubetas viejas se quedan donde estaban. {@link #compacta} escribe
+ * las entradas vivas en un archivo nuevo y lo pone en lugar del actual.</p>
+ *
+ * <p>Los diccionarios mapeados no son seguros para hilos.</p>
+ */
+public class DiccionarioMapeado {
+
+    /** Máxima carga permitida por el diccionario. */
+    public static final double MAXIMA_CARGA = 0.75;
+
+    /** Tamaño predeterminado de los segmentos: 16 MiB. */
+    public static final int TAMANIO_SEGMENTO = 1 << 24;
+
+    /* Tamaño mínimo de los segmentos. */
+    private static final int MINIMO_SEGMENTO = 1 << 12;
+
+    /* Número mínimo de cubetas; decidido arbitrariamente a 2^6. */
+    private static final int MINIMAS_CUBETAS = 64;
+
+    /* Identificador de los archivos de diccionarios: "EDDMAPEO". */
+    private static final long MAGIA = 0x4544444d4150454fL;
+
+    /* Versión del formato del archivo. La versión 1 no guardaba el tamaño
+       de los segmentos, y su CRC32 estaba en el byte 56. */
+    private static final int VERSION = 2;
+
+    /* La cadena cuya dispersión se guarda en el encabezado; con caracteres
+       de dos, tres y cuatro bytes en UTF-8. */
+    private static final String SONDA =
+        "mx.unam.ciencias.edd.DiccionarioMapeado ñandú \u20AC \uD834\uDD1E";
+
+    /* La sonda de la versión 1. */
+    private static final String SONDA_1 =
+        "mx.unam.ciencias.edd.DiccionarioMapeado";
+
+    /* Tamaño de cada encabezado, y bytes cubiertos por su CRC32. */
+    private static final int ENCABEZADO = 64;
+    private static final int CUBIERTOS = 60;
+    private static final int CUBIERTOS_1 = 56;
+
+    /* Dónde empiezan los datos, después de los dos encabezados. */
+    private static final long INICIO_DATOS = 2 * ENCABEZADO;
+
+    /* Desplazamientos de los campos de una entrada: el apuntador a la
+       siguiente entrada, la dispersión, y las longitudes de la llave y el
+       valor. Les siguen los bytes de la llave y el valor. */
+    private static final int SIGUIENTE = 0;
+    private static final int DISPERSION = 8;
+    private static final int LONGITUD_LLAVE = 12;
+    private static final int LONGITUD_VALOR = 16;
+    private static final int ENTRADA = 20;
+
+    /* La ruta y el canal del archivo. */
+    private Path archivo;
+    private FileChannel canal;
+    /* Los segmentos mapeados. */
+    private MappedByteBuffer[] segmentos;
+    /* Número de segmentos mapeados. */
+    private int numSegmentos;
+    /* Tamaño de los segmentos, y su logaritmo base 2. */
+    private int tamanioSegmento;
+    private int corrimiento;
+    /* El algoritmo y el dispersor. */
+    private AlgoritmoDispersor algoritmo;
+    private Dispersor<String> dispersor;
+    /* La dispersión de la sonda. */
+    private int huella;
+    /* Número de secuencia del último encabezado escrito. */
+    private long secuencia;
+    /* Posición y número de las cubetas. */
+    private long cubetas;
+    private int numCubetas;
+    /* La siguiente posición libre del archivo. */
+    private long fin;
+    /* Número de entradas. */
+    private int elementos;
+
+    /**
+     * Abre el diccionario guardado en el archivo, o lo crea con el algoritmo
+     * de Bob Jenkins si el archivo no existe o es vacío.
+     * @param archivo la ruta del archivo.
+     * @throws IOException si ocurre un error de entrada/salida, o el archivo
+     *         no es un diccionario válido.
+     * @throws IllegalArgumentException si el dispersor no coincide con el
+     *         registrado en el archivo.
+     */
+    public DiccionarioMapeado(Path archivo) throws IOException {
+        this(archivo, null, TAMANIO_SEGMENTO);
+    }
+
+    /**
+     * Abre el diccionario guardado en el archivo, o lo crea si el archivo no
+     * existe o es vacío.
+     * @param archivo la ruta del archivo.
+     * @param algoritmo el algoritmo de dispersión; si es <code>null</code> se
+     *        usa el registrado en el archivo, o el de Bob Jenkins si el
+     *        archivo es nuevo.
+     * @throws IOException si ocurre un error de entrada/salida, o el archivo
+     *         no es un diccionario válido.
+     * @throws IllegalArgumentException si el algoritmo o el dispersor no
+     *         coinciden con los registrados en el archivo.
+     */
+    public DiccionarioMapeado(Path archivo, AlgoritmoDispersor algoritmo)
+        throws IOException {
+        this(archivo, algoritmo, TAMANIO_SEGMENTO);
+    }
+
+    /**
+     * Abre el diccionario guardado en el archivo, o lo crea si el archivo no
+     * existe o es vacío, mapeándolo en segmentos del tamaño recibido.
+     * @param archivo la ruta del archivo.
+     * @param algoritmo el algoritmo de dispersión; si es <code>null</code> se
+     *        usa el registrado en el archivo, o el de Bob Jenkins si el
+     *        archivo es nuevo.
+     * @param tamanioSegmento el tamaño de los segmentos de un archivo
+     *        nuevo; una potencia de 2 mayor o igual a 4096. Un archivo
+     *        existente usa el tamaño guardado en su encabezado.
+     * @throws IOException si ocurre un error de entrada/salida, o el archivo
+     *         no es un diccionario válido.
+     * @throws IllegalArgumentException si el tamaño de segmento es inválido,
+     *         o el algoritmo o el dispersor no coinciden con los registrados
+     *         en el archivo.
+     */
+    public DiccionarioMapeado(Path archivo, AlgoritmoDispersor algoritmo,
+                              int tamanioSegmento) throws IOException {
+        if (archivo == null || tamanioSegmento < MINIMO_SEGMENTO ||
+            Integer.bitCount(tamanioSegmento) != 1) {
+            throw new IllegalArgumentException();
+        }
+        this.archivo = archivo;
+        this.tamanioSegmento = tamanioSegmento;
+        this.corrimiento = Integer.numberOfTrailingZeros(tamanioSegmento);
+        abreCanal(algoritmo);
+    }
+
+    /* Abre el archivo y lo mapea, creándolo si es nuevo. */
+    private void abreCanal(AlgoritmoDispersor algoritmo) throws IOException {
+        this.segmentos = new MappedByteBuffer[4];
+        this.numSegmentos = 0;
+        this.canal = FileChannel.open(this.archivo, StandardOpenOption.READ,
+                                      StandardOpenOption.WRITE,
+                                      StandardOpenOption.CREATE);
+        try {
+            if (this.canal.size() == 0) {
+                crea(algoritmo == null ? AlgoritmoDispersor.BJ_STRING :
+                     algoritmo);
+            } else {
+                abre(algoritmo);
+            }
+        } catch (IOException | RuntimeException e) {
+            cierra();
+            throw e;
+        }
+    }
+
+    /* Inicializa un archivo nuevo. */
+    private void crea(AlgoritmoDispersor algoritmo) throws IOException {
+        asignaDispersor(algoritmo);
+        this.numCubetas = MINIMAS_CUBETAS;
+        this.fin = INICIO_DATOS;
+        this.cubetas = reservaCubetas(this.numCubetas);
+        escribeEncabezado(false);
+    }
+
+    /* Lee el encabezado válido más reciente de un archivo existente. */
+    private void abre(AlgoritmoDispersor algoritmo) throws IOException {
+        if (this.canal.size() < INICIO_DATOS) {
+            throw new IOException("El archivo no es un diccionario válido");
+        }
+        asegura(this.canal.size());
+        ByteBuffer s = this.segmentos[0];
+        int elegido = -1;
+        for (int i = 0; i < 2; i++) {
+            if (encabezadoValido(i * ENCABEZADO) &&
+                (elegido == -1 || s.getLong(i * ENCABEZADO + 16) >
+                 s.getLong(elegido + 16))) {
+                elegido = i * ENCABEZADO;
+            }
+        }
+        if (elegido == -1) {
+            throw new IOException("El archivo no es un diccionario válido");
+        }
+        AlgoritmoDispersor[] algoritmos = AlgoritmoDispersor.values();
+        int a = s.getInt(elegido + 12);
+        if (a < 0 || a >= algoritmos.length) {
+            throw new IOException("Algoritmo desconocido en el archivo");
+        }
+        if (algoritmo != null && algoritmo != algoritmos[a]) {
+            throw new IllegalArgumentException("El archivo usa " +
+                                               algoritmos[a]);
+        }
+        asignaDispersor(algoritmos[a]);
+        int version = s.getInt(elegido + 8);
+        int huella = version == 1 ?
+            this.dispersor.dispersa(SONDA_1) : this.huella;
+        if (s.getInt(elegido + 24) != huella) {
+            throw new IllegalArgumentException("El dispersor no coincide " +
+                                               "con el del archivo");
+        }
+        if (version > 1 && s.getInt(elegido + 56) != this.tamanioSegmento) {
+            remapea(s.getInt(elegido + 56));
+        }
+        this.secuencia = s.getLong(elegido + 16);
+        this.numCubetas = s.getInt(elegido + 28);
+        this.cubetas = s.getLong(elegido + 32);
+        this.fin = s.getLong(elegido + 40);
+        this.elementos = s.getInt(elegido + 48);
+        if (s.getInt(elegido + 52) != 0) {
+            /* El proceso murió a la mitad de una escritura. */
+            this.elementos = cuenta();
+            escribeEncabezado(false);
+        }
+    }
+
+    /* Vuelve a mapear el archivo con el tamaño de segmento guardado en
+       él. */
+    private void remapea(int tamanioSegmento) throws IOException {
+        if (tamanioSegmento < MINIMO_SEGMENTO ||
+            Integer.bitCount(tamanioSegmento) != 1) {
+            throw new IOException("Tamaño de segmento inválido en el " +
+                                  "archivo");
+        }
+        this.tamanioSegmento = tamanioSegmento;
+        this.corrimiento = Integer.numberOfTrailingZeros(tamanioSegmento);
+        this.segmentos = new MappedByteBuffer[4];
+        this.numSegmentos = 0;
+        asegura(this.canal.size());
+    }
+
+    /* Asigna el algoritmo, el dispersor y la huella. */
+    private void asignaDispersor(AlgoritmoDispersor algoritmo) {
+        this.algoritmo = algoritmo;
+        this.dispersor = FabricaDispersores.dispersorCadenaUTF8(algoritmo);
+        this.huella = this.dispersor.dispersa(SONDA);
+    }
+
+    /* Nos dice si el encabezado en la posición tiene la firma, una versión
+       conocida y la suma de verificación correcta. */
+    private boolean encabezadoValido(int posicion) {
+        ByteBuffer s = this.segmentos[0];
+        int version = s.getInt(posicion + 8);
+        int cubiertos = version == 1 ? CUBIERTOS_1 : CUBIERTOS;
+        return s.getLong(posicion) == MAGIA &&
+            (version == 1 || version == VERSION) &&
+            s.getInt(posicion + cubiertos) == crc(posicion, cubiertos);
+    }
+
+    /* Calcula la suma de verificación de los primeros bytes del encabezado
+       en la posición. */
+    private int crc(int posicion, int cubiertos) {
+        byte[] bytes = new byte[cubiertos];
+        ByteBuffer s = this.segmentos[0];
+        for (int i = 0; i < cubiertos; i++) {
+            bytes[i] = s.get(posicion + i);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, cubiertos);
+        return (int)crc.getValue();
+    }
+
+    /* Escribe el siguiente encabezado, en el lugar del más viejo. */
+    private void escribeEncabezado(boolean sucio) {
+        this.secuencia++;
+        int p = (int)(this.secuencia & 1) * ENCABEZADO;
+        ByteBuffer s = this.segmentos[0];
+        s.putLong(p, MAGIA);
+        s.putInt(p + 8, VERSION);
+        s.putInt(p + 12, this.algoritmo.ordinal());
+        s.putLong(p + 16, this.secuencia);
+        s.putInt(p + 24, this.huella);
+        s.putInt(p + 28, this.numCubetas);
+        s.putLong(p + 32, this.cubetas);
+        s.putLong(p + 40, this.fin);
+        s.putInt(p + 48, this.elementos);
+        s.putInt(p + 52, sucio ? 1 : 0);
+        s.putInt(p + 56, this.tamanioSegmento);
+        s.putInt(p + CUBIERTOS, crc(p, CUBIERTOS));
+    }
+
+    /* Se asegura de que el archivo esté mapeado hasta la posición. */
+    private void asegura(long posicion) throws IOException {
+        while (((long)this.numSegmentos << this.corrimiento) < posicion) {
+            if (this.numSegmentos == this.segmentos.length) {
+                MappedByteBuffer[] nuevos =
+                    new MappedByteBuffer[this.segmentos.length * 2];
+                for (int i = 0; i < this.numSegmentos; i++) {
+                    nuevos[i] = this.segmentos[i];
+                }
+                this.segmentos = nuevos;
+            }
+            long inicio = (long)this.numSegmentos << this.corrimiento;
+            this.segmentos[this.numSegmentos++] =
+                this.canal.map(FileChannel.MapMode.READ_WRITE, inicio,
+                               this.tamanioSegmento);
+        }
+    }
+
+    /* Regresa el segmento de una posición. */
+    private ByteBuffer segmento(long posicion) {
+        return this.segmentos[(int)(posicion >>> this.corrimiento)];
+    }
+
+    /* Regresa una posición relativa a su segmento. */
+    private int relativa(long posicion) {
+        return (int)(posicion & (this.tamanioSegmento - 1));
+    }
+
+    /* Lee un long del archivo. */
+    private long getLong(long posicion) {
+        return segmento(posicion).getLong(relativa(posicion));
+    }
+
+    /* Escribe un long en el archivo. */
+    private void putLong(long posicion, long valor) {
+        segmento(posicion).putLong(relativa(posicion), valor);
+    }
+
+    /* Lee un int del archivo. */
+    private int getInt(long posicion) {
+        return segmento(posicion).getInt(relativa(posicion));
+    }
+
+    /* Reserva al final del archivo un arreglo de cubetas vacías, y regresa
+       su posición. El arreglo puede cruzar segmentos. */
+    private long reservaCubetas(int n) throws IOException {
+        long p = this.fin;
+        this.fin += 8L * n;
+        asegura(this.fin);
+        /* Puede haber basura de una escritura que nunca se publicó. */
+        for (int i = 0; i < n; i++) {
+            putLong(p + 8L * i, 0);
+        }
+        return p;
+    }
+
+    /* Escribe una entrada al final del archivo, sin publicarla, y regresa su
+       posición. */
+    private long escribeEntrada(long siguiente, int h, byte[] llave,
+                                byte[] valor) throws IOException {
+        int tamanio = ENTRADA + llave.length + valor.length;
+        if (tamanio > this.tamanioSegmento) {
+            throw new IllegalArgumentException("Entrada más grande que " +
+                                               "un segmento");
+        }
+        long p = this.fin;
+        if (relativa(p) + tamanio > this.tamanioSegmento) {
+            p = ((p >>> this.corrimiento) + 1) << this.corrimiento;
+        }
+        asegura(p + tamanio);
+        ByteBuffer s = segmento(p);
+        int r = relativa(p);
+        s.putLong(r + SIGUIENTE, siguiente);
+        s.putInt(r + DISPERSION, h);
+        s.putInt(r + LONGITUD_LLAVE, llave.length);
+        s.putInt(r + LONGITUD_VALOR, valor.length);
+        r += ENTRADA;
+        for (int i = 0; i < llave.length; i++) {
+            s.put(r + i, llave[i]);
+        }
+        r += llave.length;
+        for (int i = 0; i < valor.length; i++) {
+            s.put(r + i, valor[i]);
+        }
+        /* Alineamos a 8 bytes el final. */
+        this.fin = (p + tamanio + 7) & ~7L;
+        return p;
+    }
+
+    /* Regresa los bytes de la llave de la entrada. */
+    private byte[] llave(long entrada) {
+        ByteBuffer s = segmento(entrada);
+        int r = relativa(entrada);
+        byte[] llave = new byte[s.getInt(r + LONGITUD_LLAVE)];
+        for (int i = 0; i < llave.length; i++) {
+            llave[i] = s.get(r + ENTRADA + i);
+        }
+        return llave;
+    }
+
+    /* Regresa los bytes del valor de la entrada. */
+    private byte[] valor(long entrada) {
+        ByteBuffer s = segmento(entrada);
+        int r = relativa(entrada);
+        byte[] valor = new byte[s.getInt(r + LONGITUD_VALOR)];
+        r += ENTRADA + s.getInt(r + LONGITUD_LLAVE);
+        for (int i = 0; i < valor.length; i++) {
+            valor[i] = s.get(r + i);
+        }
+        return valor;
+    }
+
+    /* Nos dice si la llave de la entrada es igual al arreglo. */
+    private boolean iguales(long entrada, byte[] llave) {
+        ByteBuffer s = segmento(entrada);
+        int r = relativa(entrada);
+        if (s.getInt(r + LONGITUD_LLAVE) != llave.length) {
+            return false;
+        }
+        r += ENTRADA;
+        for (int i = 0; i < llave.length; i++) {
+            if (s.get(r + i) != llave[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Regresa la posición de la cubeta para la dispersión. */
+    private long cubeta(int h) {
+        return this.cubetas + 8L * ((h ^ (h >>> 16)) & (this.numCubetas - 1));
+    }
+
+    /* Regresa la posición del apuntador a la entrada con la llave: la
+       cubeta o el campo siguiente de la entrada anterior. Si la llave no
+       está, el apuntador que regresa vale 0. */
+    private long apuntador(int h, byte[] llave) {
+        long a = cubeta(h);
+        long e;
+        while ((e = getLong(a)) != 0) {
+            if (getInt(e + DISPERSION) == h && iguales(e, llave)) {
+                return a;
+            }
+            a = e + SIGUIENTE;
+        }
+        return a;
+    }
+
+    /* Verifica que el diccionario no esté cerrado. */
+    private void verificaAbierto() {
+        if (this.canal == null) {
+            throw new IllegalStateException("Diccionario cerrado");
+        }
+    }
+
+    /**
+     * Agrega un nuevo valor al diccionario, usando la llave proporcionada. Si
+     * la llave ya estaba en el diccionario, su valor se reemplaza.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @throws IllegalArgumentException si la llave o el valor son nulos, o
+     *         la entrada no cabe en un segmento.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     * @throws IOException si ocurre un error al hacer crecer el archivo.
+     */
+    public void agrega(String llave, String valor) throws IOException {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        byte[] l = llave.getBytes(StandardCharsets.UTF_8);
+        byte[] v = valor.getBytes(StandardCharsets.UTF_8);
+        int h = this.dispersor.dispersa(llave);
+        long a = apuntador(h, l);
+        long e = getLong(a);
+        if (e != 0) {
+            /* El número de elementos no cambia, así que basta un encabezado
+               limpio antes de publicar. */
+            long nueva = escribeEntrada(getLong(e + SIGUIENTE), h, l, v);
+            escribeEncabezado(false);
+            putLong(a, nueva);
+            return;
+        }
+        long c = cubeta(h);
+        long nueva = escribeEntrada(getLong(c), h, l, v);
+        escribeEncabezado(true);
+        putLong(c, nueva);
+        this.elementos++;
+        escribeEncabezado(false);
+        if (this.elementos >= this.numCubetas * MAXIMA_CARGA) {
+            crece();
+        }
+    }
+
+    /* Copia las entradas a un arreglo de cubetas del doble de tamaño al
+       final del archivo, y las publica con un solo encabezado. */
+    private void crece() throws IOException {
+        int n = this.numCubetas * 2;
+        long nuevas = reservaCubetas(n);
+        copiaEntradas(this, nuevas, n);
+        this.cubetas = nuevas;
+        this.numCubetas = n;
+        escribeEncabezado(false);
+    }
+
+    /* Copia las entradas del diccionario de origen al final de este
+       archivo, enlazándolas en las n cubetas en la posición recibida. */
+    private void copiaEntradas(DiccionarioMapeado origen, long nuevas, int n)
+        throws IOException {
+        for (int i = 0; i < origen.numCubetas; i++) {
+            long e = origen.getLong(origen.cubetas + 8L * i);
+            while (e != 0) {
+                int h = origen.getInt(e + DISPERSION);
+                long c = nuevas + 8L * ((h ^ (h >>> 16)) & (n - 1));
+                putLong(c, escribeEntrada(getLong(c), h, origen.llave(e),
+                                          origen.valor(e)));
+                e = origen.getLong(e + SIGUIENTE);
+            }
+        }
+    }
+
+    /* Cuenta las entradas alcanzables desde las cubetas. */
+    private int cuenta() {
+        int n = 0;
+        for (int i = 0; i < this.numCubetas; i++) {
+            for (long e = getLong(this.cubetas + 8L * i); e != 0;
+                 e = getLong(e + SIGUIENTE)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public String get(String llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        long e = getLong(apuntador(this.dispersor.dispersa(llave),
+                                   llave.getBytes(StandardCharsets.UTF_8)));
+        if (e == 0) {
+            throw new NoSuchElementException();
+        }
+        return new String(valor(e), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public boolean contiene(String llave) {
+        verificaAbierto();
+        return llave != null &&
+            getLong(apuntador(this.dispersor.dispersa(llave),
+                              llave.getBytes(StandardCharsets.UTF_8))) != 0;
+    }
+
+    /**
+     * Elimina el valor del diccionario asociado a la llave proporcionada. La
+     * entrada sólo se desenlaza: su espacio en el archivo no se reutiliza
+     * hasta que se llame {@link #compacta}.
+     * @param llave la llave para buscar el valor a eliminar.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no se encuentra en
+     *         el diccionario.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void elimina(String llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        verificaAbierto();
+        long a = apuntador(this.dispersor.dispersa(llave),
+                           llave.getBytes(StandardCharsets.UTF_8));
+        long e = getLong(a);
+        if (e == 0) {
+            throw new NoSuchElementException();
+        }
+        escribeEncabezado(true);
+        putLong(a, getLong(e + SIGUIENTE));
+        this.elementos--;
+        escribeEncabezado(false);
+    }
+
+    /**
+     * Escribe al disco los segmentos y después el encabezado, para que el
+     * archivo sobreviva a una caída del sistema.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     */
+    public void sincroniza() {
+        verificaAbierto();
+        for (int i = 1; i < this.numSegmentos; i++) {
+            this.segmentos[i].force();
+        }
+        /* El primer segmento tiene los encabezados; va al final. */
+        this.segmentos[0].force();
+    }
+
+    /**
+     * Escribe las entradas vivas en un archivo nuevo junto al actual, con
+     * el mismo número de cubetas, y lo pone en lugar del actual con un
+     * movimiento atómico. El espacio de las entradas reemplazadas o
+     * eliminadas y de las cubetas viejas se recupera. Si el proceso muere
+     * antes del movimiento, el archivo original queda intacto.
+     * @throws IllegalStateException si el diccionario está cerrado.
+     * @throws IOException si ocurre un error al escribir el archivo nuevo o
+     *         al reemplazar el actual; el diccionario sigue entonces con el
+     *         archivo actual.
+     */
+    public void compacta() throws IOException {
+        verificaAbierto();
+        Path temporal =
+            this.archivo.resolveSibling(this.archivo.getFileName() +
+                                        ".compacta");
+        Files.deleteIfExists(temporal);
+        DiccionarioMapeado nuevo =
+            new DiccionarioMapeado(temporal, this.algoritmo,
+                                   this.tamanioSegmento);
+        try {
+            nuevo.cubetas = nuevo.reservaCubetas(this.numCubetas);
+            nuevo.numCubetas = this.numCubetas;
+            nuevo.copiaEntradas(this, nuevo.cubetas, nuevo.numCubetas);
+            nuevo.elementos = this.elementos;
+            nuevo.escribeEncabezado(false);
+            nuevo.sincroniza();
+            nuevo.cierra();
+        } catch (IOException | RuntimeException e) {
+            nuevo.cierra();
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        AlgoritmoDispersor algoritmo = this.algoritmo;
+        cierra();
+        try {
+            Files.move(temporal, this.archivo,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        } finally {
+            abreCanal(algoritmo);
+        }
+    }
+
+    /**
+     * Cierra el diccionario y libera sus segmentos. Los cambios que no se
+     * hayan sincronizado quedan a cargo del sistema operativo.
+     * @throws IOException si ocurre un error al cerrar el archivo.
+     */
+    public void cierra() throws IOException {
+        if (this.canal == null) {
+            return;
+        }
+        for (int i = 0; i < this.numSegmentos; i++) {
+            DiccionarioDirecto.libera(this.segmentos[i]);
+        }
+        this.segmentos = null;
+        this.numSegmentos = 0;
+        FileChannel c = this.canal;
+        this.canal = null;
+        c.close();
+    }
+
+    /**
+     * Regresa el algoritmo de dispersión del diccionario.
+     * @return el algoritmo de dispersión del diccionario.
+     */
+    public AlgoritmoDispersor getAlgoritmo() {
+        return this.algoritmo;
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Nos dice la carga del diccionario.
+     * @return la carga del diccionario.
+     */
+    public double carga() {
+        return (double)this.elementos / this.numCubetas;
+    }
+
+    /**
+     * Nos dice si el diccionario está cerrado.
+     * @return <code>true</code> si el diccionario está cerrado,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean estaCerrado() {
+        return this.canal == null;
+    }
+}
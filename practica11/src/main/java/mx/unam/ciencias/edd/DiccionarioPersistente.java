@@ -0,0 +1,741 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para diccionarios persistentes. Un diccionario persistente nunca
+ * cambia: {@link #agrega} y {@link #elimina} regresan una nueva versión del
+ * diccionario, y la versión anterior sigue siendo válida.</p>
+ *
+ * <p>El diccionario es un árbol de prefijos sobre las dispersiones de las
+ * llaves (<em>hash array mapped trie</em>): cada nivel consume 5 bits de la
+ * dispersión, y cada nodo guarda sólo los hijos que existen junto con un
+ * mapa de 32 bits que dice cuáles son. Una nueva versión copia únicamente
+ * los nodos del camino de la raíz a la llave, a lo más 7, y comparte todos
+ * los demás con la versión anterior. Las llaves con la misma dispersión
+ * completa se guardan juntas en un nodo de colisiones.</p>
+ *
+ * <p>Como ninguna versión cambia, varios hilos pueden leerla sin
+ * sincronización. Para compartir un diccionario que cambia basta publicar
+ * cada versión nueva en una referencia volátil (por ejemplo, una {@link
+ * java.util.concurrent.atomic.AtomicReference}); los lectores toman la
+ * versión actual y la usan como fotografía todo el tiempo que quieran.</p>
+ *
+ * <p>Para cargar muchas llaves de golpe se puede usar un {@link
+ * Transitorio}, que modifica en su lugar los nodos que él mismo creó en
+ * lugar de copiarlos.</p>
+ */
+public class DiccionarioPersistente<K, V> implements Iterable<V> {
+
+    /* Clase interna privada para registrar si una operación agregó o
+       eliminó una llave. */
+    private static class Cambio {
+        /* Si la operación agregó o eliminó una llave. */
+        public boolean hubo;
+    }
+
+    /* Clase interna privada para nodos. Los nodos guardan pares en un
+       arreglo: en la posición 2i la llave y en la 2i + 1 su valor; si la
+       llave es null, el valor es un nodo hijo. */
+    private static abstract class Nodo<K, V> {
+
+        /* El transitorio que puede modificar el nodo en su lugar, o null. */
+        public Object propietario;
+        /* Los pares del nodo. */
+        public Object[] arreglo;
+
+        /* Construye un nodo. */
+        public Nodo(Object propietario, Object[] arreglo) {
+            this.propietario = propietario;
+            this.arreglo = arreglo;
+        }
+
+        /* Regresa el número de pares del nodo. */
+        public abstract int pares();
+
+        /* Regresa el valor de la llave, o null si no está. */
+        public abstract V busca(K llave, int h, int corrimiento);
+
+        /* Regresa el nodo con la llave agregada; el mismo nodo si nada
+           cambió. */
+        public abstract Nodo<K, V> agrega(Object propietario,
+                                          Dispersor<K> dispersor,
+                                          int corrimiento, int h,
+                                          K llave, V valor, Cambio cambio);
+
+        /* Regresa el nodo sin la llave; el mismo nodo si la llave no está, o
+           null si el nodo se queda vacío. */
+        public abstract Nodo<K, V> elimina(Object propietario,
+                                           int corrimiento, int h,
+                                           K llave, Cambio cambio);
+    }
+
+    /* Clase interna privada para nodos con mapa de bits. */
+    private static class NodoMapa<K, V> extends Nodo<K, V> {
+
+        /* El mapa de los hijos presentes. */
+        public int mapa;
+
+        /* Construye un nodo con mapa de bits. */
+        public NodoMapa(Object propietario, int mapa, Object[] arreglo) {
+            super(propietario, arreglo);
+            this.mapa = mapa;
+        }
+
+        /* Regresa el número de pares del nodo. */
+        @Override public int pares() {
+            return Integer.bitCount(this.mapa);
+        }
+
+        /* Regresa la posición en el arreglo del par del bit. */
+        private int indice(int bit) {
+            return 2 * Integer.bitCount(this.mapa & (bit - 1));
+        }
+
+        /* Regresa un nodo que el propietario puede modificar, con un arreglo
+           de al menos el tamaño dado: el mismo nodo si ya es suyo y cabe, o
+           una copia. */
+        private NodoMapa<K, V> editable(Object propietario, int tamanio) {
+            if (propietario != null && propietario == this.propietario &&
+                tamanio <= this.arreglo.length) {
+                return this;
+            }
+            int n = Math.max(tamanio, this.arreglo.length);
+            if (propietario != null && tamanio > this.arreglo.length) {
+                /* Un transitorio deja espacio para crecer en su lugar. */
+                n = Math.min(2 * 32, tamanio + 4);
+            }
+            Object[] copia = new Object[n];
+            System.arraycopy(this.arreglo, 0, copia, 0, 2 * pares());
+            return new NodoMapa<K, V>(propietario, this.mapa, copia);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V busca(K llave, int h, int corrimiento) {
+            int bit = 1 << ((h >>> corrimiento) & 31);
+            if ((this.mapa & bit) == 0) {
+                return null;
+            }
+            int i = indice(bit);
+            Object k = this.arreglo[i];
+            Object v = this.arreglo[i + 1];
+            if (k == null) {
+                return ((Nodo<K, V>)v).busca(llave, h, corrimiento + 5);
+            }
+            return llave.equals(k) ? (V)v : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public Nodo<K, V> agrega(Object propietario,
+                                           Dispersor<K> dispersor,
+                                           int corrimiento, int h,
+                                           K llave, V valor, Cambio cambio) {
+            int bit = 1 << ((h >>> corrimiento) & 31);
+            int i = indice(bit);
+            int n = 2 * pares();
+            if ((this.mapa & bit) == 0) {
+                cambio.hubo = true;
+                NodoMapa<K, V> nodo = editable(propietario, n + 2);
+                System.arraycopy(nodo.arreglo, i, nodo.arreglo, i + 2, n - i);
+                nodo.arreglo[i] = llave;
+                nodo.arreglo[i + 1] = valor;
+                nodo.mapa |= bit;
+                return nodo;
+            }
+            Object k = this.arreglo[i];
+            Object v = this.arreglo[i + 1];
+            Object nuevo;
+            if (k == null) {
+                nuevo = ((Nodo<K, V>)v).agrega(propietario, dispersor,
+                                               corrimiento + 5, h,
+                                               llave, valor, cambio);
+            } else if (llave.equals(k)) {
+                nuevo = valor;
+            } else {
+                cambio.hubo = true;
+                nuevo = creaNodo(propietario, dispersor, corrimiento + 5,
+                                 (K)k, (V)v, h, llave, valor);
+                k = null;
+            }
+            if (nuevo == v) {
+                return this;
+            }
+            NodoMapa<K, V> nodo = editable(propietario, n);
+            nodo.arreglo[i] = k;
+            nodo.arreglo[i + 1] = nuevo;
+            return nodo;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public Nodo<K, V> elimina(Object propietario,
+                                            int corrimiento, int h,
+                                            K llave, Cambio cambio) {
+            int bit = 1 << ((h >>> corrimiento) & 31);
+            if ((this.mapa & bit) == 0) {
+                return this;
+            }
+            int i = indice(bit);
+            int n = 2 * pares();
+            Object k = this.arreglo[i];
+            Object v = this.arreglo[i + 1];
+            if (k == null) {
+                Nodo<K, V> hijo = ((Nodo<K, V>)v).elimina(propietario,
+                                                          corrimiento + 5, h,
+                                                          llave, cambio);
+                if (hijo == v) {
+                    return this;
+                }
+                if (hijo != null) {
+                    NodoMapa<K, V> nodo = editable(propietario, n);
+                    nodo.arreglo[i + 1] = hijo;
+                    return nodo;
+                }
+            } else if (!llave.equals(k)) {
+                return this;
+            } else {
+                cambio.hubo = true;
+            }
+            if (this.mapa == bit) {
+                return null;
+            }
+            NodoMapa<K, V> nodo = editable(propietario, n);
+            System.arraycopy(nodo.arreglo, i + 2, nodo.arreglo, i, n - i - 2);
+            nodo.arreglo[n - 2] = null;
+            nodo.arreglo[n - 1] = null;
+            nodo.mapa ^= bit;
+            return nodo;
+        }
+    }
+
+    /* Clase interna privada para nodos de llaves con la misma dispersión. */
+    private static class NodoColisiones<K, V> extends Nodo<K, V> {
+
+        /* La dispersión de todas las llaves del nodo. */
+        public int dispersion;
+
+        /* Construye un nodo de colisiones. */
+        public NodoColisiones(Object propietario, int dispersion,
+                              Object[] arreglo) {
+            super(propietario, arreglo);
+            this.dispersion = dispersion;
+        }
+
+        /* Regresa el número de pares del nodo. */
+        @Override public int pares() {
+            return this.arreglo.length / 2;
+        }
+
+        /* Regresa la posición de la llave en el arreglo, o -1. */
+        private int indice(K llave) {
+            for (int i = 0; i < this.arreglo.length; i += 2) {
+                if (llave.equals(this.arreglo[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override public V busca(K llave, int h, int corrimiento) {
+            if (h != this.dispersion) {
+                return null;
+            }
+            int i = indice(llave);
+            return i == -1 ? null : (V)this.arreglo[i + 1];
+        }
+
+        @Override public Nodo<K, V> agrega(Object propietario,
+                                           Dispersor<K> dispersor,
+                                           int corrimiento, int h,
+                                           K llave, V valor, Cambio cambio) {
+            if (h != this.dispersion) {
+                /* Las dispersiones se separan en este nivel o más abajo. */
+                int bit = 1 << ((this.dispersion >>> corrimiento) & 31);
+                NodoMapa<K, V> nodo = new NodoMapa<K, V>(
+                    propietario, bit, new Object[] { null, this });
+                return nodo.agrega(propietario, dispersor, corrimiento, h,
+                                   llave, valor, cambio);
+            }
+            int i = indice(llave);
+            Object[] arreglo;
+            if (i == -1) {
+                cambio.hubo = true;
+                i = this.arreglo.length;
+                arreglo = new Object[i + 2];
+                System.arraycopy(this.arreglo, 0, arreglo, 0, i);
+                arreglo[i] = llave;
+            } else if (this.arreglo[i + 1] == valor) {
+                return this;
+            } else if (propietario != null &&
+                       propietario == this.propietario) {
+                this.arreglo[i + 1] = valor;
+                return this;
+            } else {
+                arreglo = this.arreglo.clone();
+            }
+            arreglo[i + 1] = valor;
+            return new NodoColisiones<K, V>(propietario, h, arreglo);
+        }
+
+        @Override public Nodo<K, V> elimina(Object propietario,
+                                            int corrimiento, int h,
+                                            K llave, Cambio cambio) {
+            int i = h == this.dispersion ? indice(llave) : -1;
+            if (i == -1) {
+                return this;
+            }
+            cambio.hubo = true;
+            if (this.arreglo.length == 2) {
+                return null;
+            }
+            Object[] arreglo = new Object[this.arreglo.length - 2];
+            System.arraycopy(this.arreglo, 0, arreglo, 0, i);
+            System.arraycopy(this.arreglo, i + 2, arreglo, i,
+                             arreglo.length - i);
+            return new NodoColisiones<K, V>(propietario, h, arreglo);
+        }
+    }
+
+    /* Crea un nodo con dos llaves distintas. */
+    private static <K, V> Nodo<K, V> creaNodo(Object propietario,
+                                              Dispersor<K> dispersor,
+                                              int corrimiento,
+                                              K llave1, V valor1,
+                                              int h2, K llave2, V valor2) {
+        int h1 = dispersor.dispersa(llave1);
+        if (h1 == h2) {
+            return new NodoColisiones<K, V>(
+                propietario, h1,
+                new Object[] { llave1, valor1, llave2, valor2 });
+        }
+        Cambio cambio = new Cambio();
+        Nodo<K, V> nodo = new NodoMapa<K, V>(propietario, 0, new Object[0]);
+        nodo = nodo.agrega(propietario, dispersor, corrimiento, h1,
+                           llave1, valor1, cambio);
+        return nodo.agrega(propietario, dispersor, corrimiento, h2,
+                           llave2, valor2, cambio);
+    }
+
+    /* Clase interna privada para iteradores. Recorre el árbol en
+       profundidad con una pila de nodos; la altura es a lo más 8. */
+    private class Iterador {
+
+        /* La pila de nodos y la siguiente posición en cada uno. */
+        private Object[] nodos;
+        private int[] posiciones;
+        /* El tope de la pila. */
+        private int tope;
+        /* La siguiente llave y su valor, o null si no hay. */
+        private K llave;
+        private V valor;
+
+        /* Construye un nuevo iterador. */
+        public Iterador() {
+            this.nodos = new Object[8];
+            this.posiciones = new int[8];
+            this.tope = -1;
+            if (raiz != null) {
+                this.nodos[++this.tope] = raiz;
+            }
+            avanza();
+        }
+
+        /* Busca el siguiente par. */
+        @SuppressWarnings("unchecked")
+        private void avanza() {
+            this.llave = null;
+            while (this.tope >= 0) {
+                Nodo<K, V> nodo = (Nodo<K, V>)this.nodos[this.tope];
+                int i = this.posiciones[this.tope];
+                if (i == 2 * nodo.pares()) {
+                    this.nodos[this.tope] = null;
+                    this.posiciones[this.tope--] = 0;
+                    continue;
+                }
+                this.posiciones[this.tope] = i + 2;
+                if (nodo.arreglo[i] == null) {
+                    this.nodos[++this.tope] = nodo.arreglo[i + 1];
+                    continue;
+                }
+                this.llave = (K)nodo.arreglo[i];
+                this.valor = (V)nodo.arreglo[i + 1];
+                return;
+            }
+        }
+
+        /* Nos dice si hay un siguiente par. */
+        public boolean hasNext() {
+            return this.llave != null;
+        }
+
+        /* Regresa la llave del siguiente par, y avanza. */
+        public K siguienteLlave() {
+            if (this.llave == null) {
+                throw new NoSuchElementException();
+            }
+            K llave = this.llave;
+            avanza();
+            return llave;
+        }
+
+        /* Regresa el valor del siguiente par, y avanza. */
+        public V siguienteValor() {
+            if (this.llave == null) {
+                throw new NoSuchElementException();
+            }
+            V valor = this.valor;
+            avanza();
+            return valor;
+        }
+    }
+
+    /* Clase interna privada para iteradores de llaves. */
+    private class IteradorLlaves extends Iterador
+        implements Iterator<K> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public K next() {
+            return siguienteLlave();
+        }
+    }
+
+    /* Clase interna privada para iteradores de valores. */
+    private class IteradorValores extends Iterador
+        implements Iterator<V> {
+
+        /* Regresa el siguiente elemento. */
+        @Override public V next() {
+            return siguienteValor();
+        }
+    }
+
+    /**
+     * Clase para construir diccionarios persistentes con muchos cambios.
+     * Un transitorio empieza con las llaves de una versión y la modifica en
+     * su lugar; los nodos que crea son suyos y no se vuelven a copiar, así
+     * que una carga de n llaves crea O(n) nodos en lugar de O(n log n). Un
+     * transitorio no es seguro para varios hilos, y deja de poder usarse
+     * después de llamar a {@link #persistente}.
+     */
+    public static class Transitorio<K, V> {
+
+        /* El dispersor. */
+        private Dispersor<K> dispersor;
+        /* La raíz. */
+        private Nodo<K, V> raiz;
+        /* El número de elementos. */
+        private int elementos;
+        /* La marca de los nodos de este transitorio; null al terminar. */
+        private Object propietario;
+
+        /* Construye un transitorio a partir de una versión. */
+        private Transitorio(DiccionarioPersistente<K, V> diccionario) {
+            this.dispersor = diccionario.dispersor;
+            this.raiz = diccionario.raiz;
+            this.elementos = diccionario.elementos;
+            this.propietario = new Object();
+        }
+
+        /* Verifica que el transitorio se pueda usar. */
+        private void verifica() {
+            if (this.propietario == null) {
+                throw new IllegalStateException();
+            }
+        }
+
+        /**
+         * Agrega un valor con la llave, o lo reemplaza si la llave ya
+         * estaba.
+         * @param llave la llave para agregar el valor.
+         * @param valor el valor a agregar.
+         * @throws IllegalArgumentException si la llave o el valor son nulos.
+         * @throws IllegalStateException si ya se llamó a {@link
+         *         #persistente}.
+         */
+        public void agrega(K llave, V valor) {
+            verifica();
+            if (llave == null || valor == null) {
+                throw new IllegalArgumentException();
+            }
+            int h = this.dispersor.dispersa(llave);
+            Cambio cambio = new Cambio();
+            if (this.raiz == null) {
+                this.raiz = new NodoMapa<K, V>(this.propietario, 0,
+                                               new Object[0]);
+            }
+            this.raiz = this.raiz.agrega(this.propietario, this.dispersor,
+                                         0, h, llave, valor, cambio);
+            if (cambio.hubo) {
+                this.elementos++;
+            }
+        }
+
+        /**
+         * Elimina el valor asociado a la llave.
+         * @param llave la llave a eliminar.
+         * @throws IllegalArgumentException si la llave es nula.
+         * @throws NoSuchElementException si la llave no está.
+         * @throws IllegalStateException si ya se llamó a {@link
+         *         #persistente}.
+         */
+        public void elimina(K llave) {
+            verifica();
+            if (llave == null) {
+                throw new IllegalArgumentException();
+            }
+            Cambio cambio = new Cambio();
+            if (this.raiz != null) {
+                this.raiz = this.raiz.elimina(this.propietario, 0,
+                                              this.dispersor.dispersa(llave),
+                                              llave, cambio);
+            }
+            if (!cambio.hubo) {
+                throw new NoSuchElementException();
+            }
+            this.elementos--;
+        }
+
+        /**
+         * Nos dice si la llave está en el transitorio.
+         * @param llave la llave que queremos ver si está.
+         * @return <code>true</code> si la llave está, <code>false</code> en
+         *         otro caso.
+         * @throws IllegalStateException si ya se llamó a {@link
+         *         #persistente}.
+         */
+        public boolean contiene(K llave) {
+            verifica();
+            return llave != null && this.raiz != null &&
+                this.raiz.busca(llave, this.dispersor.dispersa(llave),
+                                0) != null;
+        }
+
+        /**
+         * Regresa el número de elementos en el transitorio.
+         * @return el número de elementos en el transitorio.
+         */
+        public int getElementos() {
+            return this.elementos;
+        }
+
+        /**
+         * Termina el transitorio y regresa la versión persistente con sus
+         * llaves. Los nodos del transitorio se quedan como están; ya nadie
+         * puede modificarlos.
+         * @return la versión persistente del transitorio.
+         * @throws IllegalStateException si ya se llamó a este método.
+         */
+        public DiccionarioPersistente<K, V> persistente() {
+            verifica();
+            this.propietario = null;
+            return new DiccionarioPersistente<K, V>(this.dispersor,
+                                                    this.raiz,
+                                                    this.elementos);
+        }
+    }
+
+    /* Dispersor. */
+    private final Dispersor<K> dispersor;
+    /* La raíz, o null si el diccionario es vacío. */
+    private final Nodo<K, V> raiz;
+    /* Número de valores. */
+    private final int elementos;
+
+    /**
+     * Construye un diccionario persistente vacío con el dispersor
+     * predeterminado.
+     */
+    public DiccionarioPersistente() {
+        this((K llave) -> llave.hashCode());
+    }
+
+    /**
+     * Construye un diccionario persistente vacío con un dispersor definido
+     * por el usuario.
+     * @param dispersor el dispersor a utilizar.
+     */
+    public DiccionarioPersistente(Dispersor<K> dispersor) {
+        this(dispersor, null, 0);
+    }
+
+    /* Construye una versión con la raíz dada. Los campos son finales, así
+       que la versión es visible completa para cualquier hilo que reciba una
+       referencia a ella. */
+    private DiccionarioPersistente(Dispersor<K> dispersor, Nodo<K, V> raiz,
+                                   int elementos) {
+        this.dispersor = dispersor;
+        this.raiz = raiz;
+        this.elementos = elementos;
+    }
+
+    /**
+     * Regresa una nueva versión del diccionario con el valor asociado a la
+     * llave; si la llave ya estaba, su valor se reemplaza. El diccionario
+     * original no cambia.
+     * @param llave la llave para agregar el valor.
+     * @param valor el valor a agregar.
+     * @return la nueva versión del diccionario; el mismo diccionario si la
+     *         llave ya tenía ese valor.
+     * @throws IllegalArgumentException si la llave o el valor son nulos.
+     */
+    public DiccionarioPersistente<K, V> agrega(K llave, V valor) {
+        if (llave == null || valor == null) {
+            throw new IllegalArgumentException();
+        }
+        int h = this.dispersor.dispersa(llave);
+        Cambio cambio = new Cambio();
+        Nodo<K, V> raiz = this.raiz;
+        if (raiz == null) {
+            raiz = new NodoMapa<K, V>(null, 0, new Object[0]);
+        }
+        raiz = raiz.agrega(null, this.dispersor, 0, h, llave, valor, cambio);
+        if (raiz == this.raiz) {
+            return this;
+        }
+        return new DiccionarioPersistente<K, V>(this.dispersor, raiz,
+                                                this.elementos +
+                                                (cambio.hubo ? 1 : 0));
+    }
+
+    /**
+     * Regresa una nueva versión del diccionario sin la llave. El diccionario
+     * original no cambia.
+     * @param llave la llave a eliminar.
+     * @return la nueva versión del diccionario.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public DiccionarioPersistente<K, V> elimina(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        Cambio cambio = new Cambio();
+        Nodo<K, V> raiz = this.raiz == null ? null :
+            this.raiz.elimina(null, 0, this.dispersor.dispersa(llave),
+                              llave, cambio);
+        if (!cambio.hubo) {
+            throw new NoSuchElementException();
+        }
+        return new DiccionarioPersistente<K, V>(this.dispersor, raiz,
+                                                this.elementos - 1);
+    }
+
+    /**
+     * Regresa el valor del diccionario asociado a la llave proporcionada.
+     * @param llave la llave para buscar el valor.
+     * @return el valor correspondiente a la llave.
+     * @throws IllegalArgumentException si la llave es nula.
+     * @throws NoSuchElementException si la llave no está en el diccionario.
+     */
+    public V get(K llave) {
+        if (llave == null) {
+            throw new IllegalArgumentException();
+        }
+        V valor = this.raiz == null ? null :
+            this.raiz.busca(llave, this.dispersor.dispersa(llave), 0);
+        if (valor == null) {
+            throw new NoSuchElementException();
+        }
+        return valor;
+    }
+
+    /**
+     * Nos dice si una llave se encuentra en el diccionario.
+     * @param llave la llave que queremos ver si está en el diccionario.
+     * @return <code>true</code> si la llave está en el diccionario,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(K llave) {
+        return llave != null && this.raiz != null &&
+            this.raiz.busca(llave, this.dispersor.dispersa(llave), 0) != null;
+    }
+
+    /**
+     * Regresa un transitorio que empieza con las llaves de esta versión,
+     * para hacer muchos cambios sin copiar nodos. Esta versión no cambia.
+     * @return un transitorio con las llaves de esta versión.
+     */
+    public Transitorio<K, V> transitorio() {
+        return new Transitorio<K, V>(this);
+    }
+
+    /**
+     * Regresa el número de entradas en el diccionario.
+     * @return el número de entradas en el diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Nos dice si el diccionario es vacío.
+     * @return <code>true</code> si el diccionario es vacío, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean esVacia() {
+        return this.elementos == 0;
+    }
+
+    /**
+     * Regresa una representación en cadena del diccionario.
+     * @return una representación en cadena del diccionario.
+     */
+    @Override public String toString() {
+        if (this.elementos == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder("{ ");
+        Iterador iterador = new Iterador();
+        while (iterador.hasNext()) {
+            sb.append("'").append(iterador.llave).append("': '")
+              .append(iterador.valor).append("', ");
+            iterador.avanza();
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * Nos dice si el diccionario es igual al objeto recibido.
+     * @param o el objeto que queremos saber si es igual al diccionario.
+     * @return <code>true</code> si el objeto recibido es instancia de
+     *         DiccionarioPersistente, y tiene las mismas llaves asociadas a
+     *         los mismos valores.
+     */
+    @Override public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass())
+            return false;
+        @SuppressWarnings("unchecked") DiccionarioPersistente<K, V> d =
+            (DiccionarioPersistente<K, V>)o;
+        if (this.elementos != d.elementos)
+            return false;
+        if (this.raiz == d.raiz)
+            return true;
+        Iterador iterador = new Iterador();
+        while (iterador.hasNext()) {
+            V valor = d.raiz.busca(iterador.llave,
+                                   d.dispersor.dispersa(iterador.llave), 0);
+            if (valor == null || !valor.equals(iterador.valor))
+                return false;
+            iterador.avanza();
+        }
+        return true;
+    }
+
+    /**
+     * Regresa un iterador para iterar las llaves del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar las llaves del diccionario.
+     */
+    public Iterator<K> iteradorLlaves() {
+        return new IteradorLlaves();
+    }
+
+    /**
+     * Regresa un iterador para iterar los valores del diccionario. El
+     * diccionario se itera sin ningún orden específico.
+     * @return un iterador para iterar los valores del diccionario.
+     */
+    @Override public Iterator<V> iterator() {
+        return new IteradorValores();
+    }
+}
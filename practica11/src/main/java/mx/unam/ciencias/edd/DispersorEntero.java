@@ -0,0 +1,15 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz para dispersores de enteros primitivos.
+ */
+@FunctionalInterface
+public interface DispersorEntero {
+
+    /**
+     * Calcula la función de dispersión del entero recibido.
+     * @param entero el entero que queremos dispersar.
+     * @return el resultado de dispersar el entero recibido.
+     */
+    public int dispersa(int entero);
+}
@@ -0,0 +1,15 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz para dispersores de enteros largos primitivos.
+ */
+@FunctionalInterface
+public interface DispersorEnteroLargo {
+
+    /**
+     * Calcula la función de dispersión del entero largo recibido.
+     * @param entero el entero largo que queremos dispersar.
+     * @return el resultado de dispersar el entero largo recibido.
+     */
+    public int dispersa(long entero);
+}
@@ -0,0 +1,56 @@
+package mx.unam.ciencias.edd;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Interfaz para dispersores incrementales: la llave se recibe en
+ * pedazos de cualquier tamaño, y la dispersión es la misma que la del
+ * algoritmo correspondiente de {@link Dispersores} con todos los bytes
+ * juntos. Entre llamadas sólo se guarda el estado de la mezcla y un bloque
+ * incompleto, así que la memoria usada no depende del tamaño de la
+ * llave.</p>
+ *
+ * <p>Las instancias se obtienen con {@link
+ * FabricaDispersores#dispersorIncremental}, y no son seguras para usarse
+ * desde varios hilos a la vez.</p>
+ */
+public interface DispersorIncremental {
+
+    /**
+     * Agrega los bytes de un arreglo a la llave.
+     * @param datos el arreglo con los bytes.
+     */
+    default void actualiza(byte[] datos) {
+        actualiza(datos, 0, datos.length);
+    }
+
+    /**
+     * Agrega los bytes de un rango de un arreglo a la llave.
+     * @param datos el arreglo con los bytes.
+     * @param inicio el índice del primer byte del rango.
+     * @param longitud el número de bytes del rango.
+     * @throws IndexOutOfBoundsException si el rango no está en el arreglo.
+     */
+    public void actualiza(byte[] datos, int inicio, int longitud);
+
+    /**
+     * Agrega los bytes restantes de un <em>buffer</em> a la llave, y deja
+     * su posición en su límite.
+     * @param buffer el <em>buffer</em> con los bytes.
+     */
+    public void actualiza(ByteBuffer buffer);
+
+    /**
+     * Regresa la dispersión de todos los bytes agregados desde la última
+     * vez que se reinició el dispersor, y lo reinicia. Con los algoritmos
+     * de 32 bits la dispersión se extiende con signo, así que el
+     * <code>int</code> es <code>(int)finaliza()</code>.
+     * @return la dispersión de la llave.
+     */
+    public long finaliza();
+
+    /**
+     * Descarta los bytes agregados, para empezar una llave nueva.
+     */
+    public void reinicia();
+}
@@ -0,0 +1,29 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz genérica para dispersores de 64 bits, para cuando 32 bits no
+ * alcanzan: repartir entre fragmentos, bosquejos probabilísticos o tablas
+ * muy grandes.
+ */
+@FunctionalInterface
+public interface DispersorLargo<T> {
+
+    /**
+     * Calcula la función de dispersión de 64 bits del objeto recibido.
+     * @param objeto el objeto que queremos dispersar.
+     * @return el resultado de dispersar el objeto recibido.
+     */
+    public long dispersa(T objeto);
+
+    /**
+     * Regresa un {@link Dispersor} de 32 bits que combina con XOR las dos
+     * mitades de la dispersión de 64 bits.
+     * @return un dispersor de 32 bits a partir de éste.
+     */
+    default Dispersor<T> dispersor() {
+        return o -> {
+            long h = dispersa(o);
+            return (int)(h ^ (h >>> 32));
+        };
+    }
+}
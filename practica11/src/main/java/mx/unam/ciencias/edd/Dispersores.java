@@ -1,10 +1,66 @@
 package mx.unam.ciencias.edd;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 /**
- * Clase para métodos estáticos con dispersores de bytes.
+ * <p>Clase para métodos estáticos con dispersores de bytes.</p>
+ *
+ * <p>Los dispersores de 32 bits se pueden usar con un arreglo completo,
+ * con un rango de un arreglo, o con un rango de un <em>buffer</em> (en el
+ * montículo, directo o mapeado a memoria), y con los tres dan el mismo
+ * resultado para los mismos bytes. Ninguno crea objetos: el estado de la
+ * mezcla vive en variables locales. En los <em>buffers</em> los bytes se
+ * leen de cuatro en cuatro con lecturas absolutas, así que no se modifica
+ * su posición ni su orden de bytes.</p>
+ *
+ * <p>Los dispersores de 32 bits también se pueden usar directamente con
+ * las unidades UTF-16 de una {@link CharSequence}, como si fueran sus
+ * bytes en UTF-16LE (que son los de la codificación UTF-16LE si la
+ * secuencia no tiene sustitutos sin pareja).</p>
+ *
+ * <p>Los dispersores de 64 bits (xxHash64, MurmurHash3 x64_128 y wyhash)
+ * reciben además una semilla, y leen la llave de ocho bytes en ocho.</p>
+ *
+ * <p>Todos los algoritmos tienen una versión incremental ({@link
+ * DispersorIncremental}) para llaves que no caben en memoria, como
+ * archivos ({@link #dispersaArchivo}).</p>
  */
 public class Dispersores {
 
+    /** Tamaño de los segmentos en los que se mapea un archivo: 64 MiB. */
+    public static final int TAMANIO_SEGMENTO = 1 << 26;
+
+    /* Tamaño del arreglo para copiar de buffers sin arreglo. */
+    private static final int TAMANIO_COPIA = 1 << 16;
+
+    /* Potencias de 33 para dispersar cuatro bytes a la vez con el
+       dispersor de Daniel J. Bernstein. */
+    private static final int DJB_33_2 = 33 * 33;
+    private static final int DJB_33_3 = 33 * 33 * 33;
+    private static final int DJB_33_4 = 33 * 33 * 33 * 33;
+
+    /* Primos de xxHash64. */
+    private static final long XXH_P1 = 0x9E3779B185EBCA87L;
+    private static final long XXH_P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long XXH_P3 = 0x165667B19E3779F9L;
+    private static final long XXH_P4 = 0x85EBCA77C2B2AE63L;
+    private static final long XXH_P5 = 0x27D4EB2F165667C5L;
+
+    /* Constantes de MurmurHash3 x64_128. */
+    private static final long MURMUR_C1 = 0x87C37B91114253D5L;
+    private static final long MURMUR_C2 = 0x4CF5AD432745937FL;
+
+    /* El secreto predeterminado de wyhash. */
+    private static final long WY_S0 = 0xA0761D6478BD642FL;
+    private static final long WY_S1 = 0xE7037ED1A0B428DBL;
+    private static final long WY_S2 = 0x8EBC6AF09C88C6E3L;
+    private static final long WY_S3 = 0x589965CC75374CC3L;
+
     /* Constructor privado para evitar instanciación. */
     private Dispersores() {}
 
@@ -14,32 +70,69 @@ public class Dispersores {
      * @return la dispersión de XOR de la llave.
      */
     public static int dispersaXOR(byte[] llave) {
-        if (llave.length % 4 != 0) {
-            int residuo = llave.length % 4;
-            int completar = 4 - residuo;
-            byte[] nuevo = new byte[llave.length + completar];
-            for (int i = 0; i < nuevo.length; i++) {
-                if (i < llave.length) {
-                    nuevo[i] = llave[i];
-                } else {
-                    nuevo[i] = (byte) 0;
-                }
-            }
-            int dispersion = 0;
-            for (int i = 0; i < nuevo.length; i += 4) {
-                dispersion ^= combinaBigEndian(nuevo[i], nuevo[i + 1], nuevo[i + 2], nuevo[i + 3]);   
-            }
-            return dispersion;
-        } else {
-            int dispersion = 0;
-            for (int i = 0; i < llave.length; i += 4) {
-                dispersion ^= combinaBigEndian(llave[i], llave[i + 1], llave[i + 2], llave[i + 3]);
-            }
-            return dispersion; 
-        }
+        return dispersaXOR(llave, 0, llave.length);
         // Aquí va su código.
     }
 
+    /**
+     * Función de dispersión XOR sobre un rango de un arreglo. El resultado
+     * es el mismo que el de {@link #dispersaXOR(byte[])} con los bytes del
+     * rango; los bytes que faltan para completar la última palabra cuentan
+     * como ceros.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de XOR de la llave.
+     */
+    public static int dispersaXOR(byte[] llave, int inicio, int longitud) {
+        int dispersion = 0;
+        int fin = inicio + (longitud & ~3);
+        int i = inicio;
+        for (; i < fin; i += 4) {
+            dispersion ^= combinaBigEndian(llave[i], llave[i + 1],
+                                           llave[i + 2], llave[i + 3]);
+        }
+        switch (longitud & 3) {
+            case 3:
+                dispersion ^= (llave[i + 2] & 0xFF) << 8;
+            case 2:
+                dispersion ^= (llave[i + 1] & 0xFF) << 16;
+            case 1:
+                dispersion ^= (llave[i] & 0xFF) << 24;
+        }
+        return dispersion;
+    }
+
+    /**
+     * Función de dispersión XOR sobre un rango de un <em>buffer</em>. El
+     * resultado es el mismo que el de {@link #dispersaXOR(byte[])} con los
+     * bytes del rango; no se modifica la posición del <em>buffer</em>.
+     * @param buffer el <em>buffer</em> con la llave a dispersar.
+     * @param inicio el índice absoluto del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de XOR de la llave.
+     */
+    public static int dispersaXOR(ByteBuffer buffer, int inicio,
+                                  int longitud) {
+        boolean invierte = buffer.order() != ByteOrder.BIG_ENDIAN;
+        int dispersion = 0;
+        int fin = inicio + (longitud & ~3);
+        int i = inicio;
+        for (; i < fin; i += 4) {
+            int palabra = buffer.getInt(i);
+            dispersion ^= invierte ? Integer.reverseBytes(palabra) : palabra;
+        }
+        switch (longitud & 3) {
+            case 3:
+                dispersion ^= (buffer.get(i + 2) & 0xFF) << 8;
+            case 2:
+                dispersion ^= (buffer.get(i + 1) & 0xFF) << 16;
+            case 1:
+                dispersion ^= (buffer.get(i) & 0xFF) << 24;
+        }
+        return dispersion;
+    }
+
     private static int combinaBigEndian(byte a, byte b, byte c, byte d) {
         int entero = ((a & 0xFF) << 24) | ((b & 0xFF) << 16) | ((c & 0xFF) << 8) | (d & 0xFF);
         return entero;
@@ -51,105 +144,1040 @@ public class Dispersores {
      * @return la dispersión de Bob Jenkins de la llave.
      */
     public static int dispersaBJ(byte[] llave) {
+        return dispersaBJ(llave, 0, llave.length);
+        // Aquí va su código.
+    }
+
+    /**
+     * Función de dispersión de Bob Jenkins sobre un rango de un arreglo.
+     * El resultado es el mismo que el de {@link #dispersaBJ(byte[])} con los
+     * bytes del rango.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de Bob Jenkins de la llave.
+     */
+    public static int dispersaBJ(byte[] llave, int inicio, int longitud) {
+        int a = 0x9E3779B9;
+        int b = 0x9E3779B9;
+        int c = 0xFFFFFFFF;
+        int fin = inicio + longitud - longitud % 12;
+        int i = inicio;
+        /* Cada vuelta mezcla un bloque de 12 bytes; la última, el residuo
+           con la longitud. Así la mezcla se escribe una sola vez. */
+        boolean ultimo = false;
+        while (!ultimo) {
+            if (i < fin) {
+                a += combinaLittleEndian(llave[i], llave[i + 1],
+                                         llave[i + 2], llave[i + 3]);
+                b += combinaLittleEndian(llave[i + 4], llave[i + 5],
+                                         llave[i + 6], llave[i + 7]);
+                c += combinaLittleEndian(llave[i + 8], llave[i + 9],
+                                         llave[i + 10], llave[i + 11]);
+                i += 12;
+            } else {
+                c += longitud;
+                switch (longitud % 12) {
+                    case 11:
+                        c += (llave[i + 10] & 0xFF) << 24;
+                    case 10:
+                        c += (llave[i + 9] & 0xFF) << 16;
+                    case 9:
+                        c += (llave[i + 8] & 0xFF) << 8;
+                    case 8:
+                        b += (llave[i + 7] & 0xFF) << 24;
+                    case 7:
+                        b += (llave[i + 6] & 0xFF) << 16;
+                    case 6:
+                        b += (llave[i + 5] & 0xFF) << 8;
+                    case 5:
+                        b += (llave[i + 4] & 0xFF);
+                    case 4:
+                        a += (llave[i + 3] & 0xFF) << 24;
+                    case 3:
+                        a += (llave[i + 2] & 0xFF) << 16;
+                    case 2:
+                        a += (llave[i + 1] & 0xFF) << 8;
+                    case 1:
+                        a += (llave[i] & 0xFF);
+                }
+                ultimo = true;
+            }
+            // 1ra Parte
+            a -= b; a -= c; a ^= (c >>> 13);
+            b -= c; b -= a; b ^= (a << 8);
+            c -= a; c -= b; c ^= (b >>> 13);
+            // 2da Parte
+            a -= b; a -= c; a ^= (c >>> 12);
+            b -= c; b -= a; b ^= (a << 16);
+            c -= a; c -= b; c ^= (b >>> 5);
+            // 3ra Parte
+            a -= b; a -= c; a ^= (c >>> 3);
+            b -= c; b -= a; b ^= (a << 10);
+            c -= a; c -= b; c ^= (b >>> 15);
+        }
+        return c;
+    }
+
+    /**
+     * Función de dispersión de Bob Jenkins sobre un rango de un
+     * <em>buffer</em>. El resultado es el mismo que el de {@link
+     * #dispersaBJ(byte[])} con los bytes del rango; no se modifica la
+     * posición del <em>buffer</em>.
+     * @param buffer el <em>buffer</em> con la llave a dispersar.
+     * @param inicio el índice absoluto del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de Bob Jenkins de la llave.
+     */
+    public static int dispersaBJ(ByteBuffer buffer, int inicio, int longitud) {
+        boolean invierte = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        int a = 0x9E3779B9;
+        int b = 0x9E3779B9;
+        int c = 0xFFFFFFFF;
+        int fin = inicio + longitud - longitud % 12;
+        int i = inicio;
+        boolean ultimo = false;
+        while (!ultimo) {
+            if (i < fin) {
+                int x = buffer.getInt(i);
+                int y = buffer.getInt(i + 4);
+                int z = buffer.getInt(i + 8);
+                if (invierte) {
+                    x = Integer.reverseBytes(x);
+                    y = Integer.reverseBytes(y);
+                    z = Integer.reverseBytes(z);
+                }
+                a += x;
+                b += y;
+                c += z;
+                i += 12;
+            } else {
+                c += longitud;
+                switch (longitud % 12) {
+                    case 11:
+                        c += (buffer.get(i + 10) & 0xFF) << 24;
+                    case 10:
+                        c += (buffer.get(i + 9) & 0xFF) << 16;
+                    case 9:
+                        c += (buffer.get(i + 8) & 0xFF) << 8;
+                    case 8:
+                        b += (buffer.get(i + 7) & 0xFF) << 24;
+                    case 7:
+                        b += (buffer.get(i + 6) & 0xFF) << 16;
+                    case 6:
+                        b += (buffer.get(i + 5) & 0xFF) << 8;
+                    case 5:
+                        b += (buffer.get(i + 4) & 0xFF);
+                    case 4:
+                        a += (buffer.get(i + 3) & 0xFF) << 24;
+                    case 3:
+                        a += (buffer.get(i + 2) & 0xFF) << 16;
+                    case 2:
+                        a += (buffer.get(i + 1) & 0xFF) << 8;
+                    case 1:
+                        a += (buffer.get(i) & 0xFF);
+                }
+                ultimo = true;
+            }
+            // 1ra Parte
+            a -= b; a -= c; a ^= (c >>> 13);
+            b -= c; b -= a; b ^= (a << 8);
+            c -= a; c -= b; c ^= (b >>> 13);
+            // 2da Parte
+            a -= b; a -= c; a ^= (c >>> 12);
+            b -= c; b -= a; b ^= (a << 16);
+            c -= a; c -= b; c ^= (b >>> 5);
+            // 3ra Parte
+            a -= b; a -= c; a ^= (c >>> 3);
+            b -= c; b -= a; b ^= (a << 10);
+            c -= a; c -= b; c ^= (b >>> 15);
+        }
+        return c;
+    }
+
+    private static int combinaLittleEndian(byte a, byte b, byte c, byte d) {
+        int entero = (a & 0xFF) | ((b & 0xFF) << 8) | ((c & 0xFF) << 16) | ((d & 0xFF) << 24);
+        return entero;
+    }
+
+    /**
+     * Función de dispersión Daniel J. Bernstein.
+     * @param llave la llave a dispersar.
+     * @return la dispersión de Daniel Bernstein de la llave.
+     */
+    public static int dispersaDJB(byte[] llave) {
+        return dispersaDJB(llave, 0, llave.length);
+        // Aquí va su código.
+    }
+
+    /**
+     * Función de dispersión Daniel J. Bernstein sobre un rango de un
+     * arreglo. El resultado es el mismo que el de {@link
+     * #dispersaDJB(byte[])} con los bytes del rango.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de Daniel Bernstein de la llave.
+     */
+    public static int dispersaDJB(byte[] llave, int inicio, int longitud) {
+        return continuaDJB(5381, llave, inicio, longitud);
+    }
+
+    /* Continúa la dispersión de Daniel J. Bernstein h con los bytes de un
+       rango de un arreglo. */
+    private static int continuaDJB(int h, byte[] llave, int inicio,
+                                   int longitud) {
+        int fin = inicio + (longitud & ~3);
+        int i = inicio;
+        /* h·33⁴ + b₀·33³ + b₁·33² + b₂·33 + b₃ es lo mismo que cuatro
+           pasos, con menos dependencias entre multiplicaciones. */
+        for (; i < fin; i += 4) {
+            h = h * DJB_33_4 + (llave[i] & 0xFF) * DJB_33_3 +
+                (llave[i + 1] & 0xFF) * DJB_33_2 +
+                (llave[i + 2] & 0xFF) * 33 + (llave[i + 3] & 0xFF);
+        }
+        for (; i < inicio + longitud; i++) {
+            h = h * 33 + (llave[i] & 0xFF);
+        }
+        return h;
+    }
+
+    /**
+     * Función de dispersión Daniel J. Bernstein sobre un rango de un
+     * <em>buffer</em>. El resultado es el mismo que el de {@link
+     * #dispersaDJB(byte[])} con los bytes del rango; no se modifica la
+     * posición del <em>buffer</em>.
+     * @param buffer el <em>buffer</em> con la llave a dispersar.
+     * @param inicio el índice absoluto del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @return la dispersión de Daniel Bernstein de la llave.
+     */
+    public static int dispersaDJB(ByteBuffer buffer, int inicio,
+                                  int longitud) {
+        boolean invierte = buffer.order() != ByteOrder.BIG_ENDIAN;
+        int h = 5381;
+        int fin = inicio + (longitud & ~3);
+        int i = inicio;
+        for (; i < fin; i += 4) {
+            int palabra = buffer.getInt(i);
+            if (invierte) {
+                palabra = Integer.reverseBytes(palabra);
+            }
+            h = h * DJB_33_4 + (palabra >>> 24) * DJB_33_3 +
+                ((palabra >>> 16) & 0xFF) * DJB_33_2 +
+                ((palabra >>> 8) & 0xFF) * 33 + (palabra & 0xFF);
+        }
+        for (; i < inicio + longitud; i++) {
+            h = h * 33 + (buffer.get(i) & 0xFF);
+        }
+        return h;
+    }
+
+    /**
+     * Función de dispersión XOR sobre las unidades UTF-16 de una secuencia
+     * de caracteres. El resultado es el mismo que el de {@link
+     * #dispersaXOR(byte[])} con las unidades de la secuencia en
+     * little-endian, que son sus bytes en UTF-16LE, pero sin codificarla
+     * ni crear ningún arreglo.
+     * @param llave la secuencia a dispersar.
+     * @return la dispersión de XOR de la secuencia.
+     */
+    public static int dispersaXOR(CharSequence llave) {
+        int n = llave.length();
+        int dispersion = 0;
+        int i = 0;
+        for (; i < n - 1; i += 2) {
+            dispersion ^= (Character.reverseBytes(llave.charAt(i)) << 16) |
+                Character.reverseBytes(llave.charAt(i + 1));
+        }
+        if (i < n) {
+            dispersion ^= Character.reverseBytes(llave.charAt(i)) << 16;
+        }
+        return dispersion;
+    }
+
+    /**
+     * Función de dispersión de Bob Jenkins sobre las unidades UTF-16 de una
+     * secuencia de caracteres. El resultado es el mismo que el de {@link
+     * #dispersaBJ(byte[])} con las unidades de la secuencia en
+     * little-endian, que son sus bytes en UTF-16LE, pero sin codificarla
+     * ni crear ningún arreglo: cada palabra de 32 bits son dos caracteres,
+     * y cada bloque seis.
+     * @param llave la secuencia a dispersar.
+     * @return la dispersión de Bob Jenkins de la secuencia.
+     */
+    public static int dispersaBJ(CharSequence llave) {
+        int n = llave.length();
         int a = 0x9E3779B9;
         int b = 0x9E3779B9;
         int c = 0xFFFFFFFF;
-        int residuo = llave.length % 12;
-        int longitud = llave.length - residuo;
-        for (int i = 0; i < longitud; i += 12) {
-            a += combinaLittleEndian(llave[i], llave[i + 1], llave[i + 2], llave[i + 3]);
-            b += combinaLittleEndian(llave[i + 4], llave[i + 5], llave[i + 6], llave[i + 7]);
-            c += combinaLittleEndian(llave[i + 8], llave[i + 9],  llave[i + 10], llave[i + 11]);
-            int[] mezclados = mezcla(a, b, c);
-            a = mezclados[0];
-            b = mezclados[1];
-            c = mezclados[2];
-        }
-        c += llave.length;
-        switch (residuo) {
+        int fin = n - n % 6;
+        int i = 0;
+        boolean ultimo = false;
+        while (!ultimo) {
+            if (i < fin) {
+                a += llave.charAt(i) | (llave.charAt(i + 1) << 16);
+                b += llave.charAt(i + 2) | (llave.charAt(i + 3) << 16);
+                c += llave.charAt(i + 4) | (llave.charAt(i + 5) << 16);
+                i += 6;
+            } else {
+                /* El byte bajo de c es para la longitud en bytes. */
+                c += 2 * n;
+                switch (n % 6) {
+                    case 5:
+                        c += llave.charAt(i + 4) << 8;
+                    case 4:
+                        b += llave.charAt(i + 3) << 16;
+                    case 3:
+                        b += llave.charAt(i + 2);
+                    case 2:
+                        a += llave.charAt(i + 1) << 16;
+                    case 1:
+                        a += llave.charAt(i);
+                }
+                ultimo = true;
+            }
+            // 1ra Parte
+            a -= b; a -= c; a ^= (c >>> 13);
+            b -= c; b -= a; b ^= (a << 8);
+            c -= a; c -= b; c ^= (b >>> 13);
+            // 2da Parte
+            a -= b; a -= c; a ^= (c >>> 12);
+            b -= c; b -= a; b ^= (a << 16);
+            c -= a; c -= b; c ^= (b >>> 5);
+            // 3ra Parte
+            a -= b; a -= c; a ^= (c >>> 3);
+            b -= c; b -= a; b ^= (a << 10);
+            c -= a; c -= b; c ^= (b >>> 15);
+        }
+        return c;
+    }
+
+    /**
+     * Función de dispersión Daniel J. Bernstein sobre las unidades UTF-16
+     * de una secuencia de caracteres. El resultado es el mismo que el de
+     * {@link #dispersaDJB(byte[])} con las unidades de la secuencia en
+     * little-endian, que son sus bytes en UTF-16LE, pero sin codificarla
+     * ni crear ningún arreglo.
+     * @param llave la secuencia a dispersar.
+     * @return la dispersión de Daniel Bernstein de la secuencia.
+     */
+    public static int dispersaDJB(CharSequence llave) {
+        int n = llave.length();
+        int h = 5381;
+        for (int i = 0; i < n; i++) {
+            char c = llave.charAt(i);
+            h = h * DJB_33_2 + (c & 0xFF) * 33 + (c >>> 8);
+        }
+        return h;
+    }
+
+    /* Lee ocho bytes en orden little-endian. */
+    private static long lee64(byte[] b, int i) {
+        return (b[i] & 0xFFL) | ((b[i + 1] & 0xFFL) << 8) |
+            ((b[i + 2] & 0xFFL) << 16) | ((b[i + 3] & 0xFFL) << 24) |
+            ((b[i + 4] & 0xFFL) << 32) | ((b[i + 5] & 0xFFL) << 40) |
+            ((b[i + 6] & 0xFFL) << 48) | ((long)b[i + 7] << 56);
+    }
+
+    /* Lee cuatro bytes en orden little-endian, sin signo. */
+    private static long lee32(byte[] b, int i) {
+        return (b[i] & 0xFFL) | ((b[i + 1] & 0xFFL) << 8) |
+            ((b[i + 2] & 0xFFL) << 16) | ((b[i + 3] & 0xFFL) << 24);
+    }
+
+    /* Regresa los 64 bits altos del producto sin signo de 128 bits; los
+       bajos son a * b. Java 8 no tiene Math.multiplyHigh. */
+    private static long multiplicaAlto(long a, long b) {
+        long a0 = a & 0xFFFFFFFFL, a1 = a >>> 32;
+        long b0 = b & 0xFFFFFFFFL, b1 = b >>> 32;
+        long p00 = a0 * b0, p01 = a0 * b1, p10 = a1 * b0;
+        long medio = (p00 >>> 32) + (p01 & 0xFFFFFFFFL) +
+            (p10 & 0xFFFFFFFFL);
+        return a1 * b1 + (p01 >>> 32) + (p10 >>> 32) + (medio >>> 32);
+    }
+
+    /**
+     * Función de dispersión xxHash64 con semilla 0.
+     * @param llave la llave a dispersar.
+     * @return la dispersión xxHash64 de la llave.
+     */
+    public static long dispersaXXH64(byte[] llave) {
+        return dispersaXXH64(llave, 0, llave.length, 0);
+    }
+
+    /**
+     * Función de dispersión xxHash64 de Yann Collet sobre un rango de un
+     * arreglo. Procesa la llave en franjas de 32 bytes con cuatro
+     * acumuladores independientes, leyendo ocho bytes a la vez.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @param semilla la semilla.
+     * @return la dispersión xxHash64 de la llave.
+     */
+    public static long dispersaXXH64(byte[] llave, int inicio, int longitud,
+                                     long semilla) {
+        int fin = inicio + longitud;
+        int i = inicio;
+        long h;
+        if (longitud >= 32) {
+            long v1 = semilla + XXH_P1 + XXH_P2;
+            long v2 = semilla + XXH_P2;
+            long v3 = semilla;
+            long v4 = semilla - XXH_P1;
+            for (; i <= fin - 32; i += 32) {
+                v1 = rondaXXH64(v1, lee64(llave, i));
+                v2 = rondaXXH64(v2, lee64(llave, i + 8));
+                v3 = rondaXXH64(v3, lee64(llave, i + 16));
+                v4 = rondaXXH64(v4, lee64(llave, i + 24));
+            }
+            h = juntaXXH64(v1, v2, v3, v4);
+        } else {
+            h = semilla + XXH_P5;
+        }
+        return colaXXH64(llave, i, fin, h + longitud);
+    }
+
+    /* Una ronda de xxHash64 sobre un acumulador. */
+    private static long rondaXXH64(long v, long dato) {
+        return Long.rotateLeft(v + dato * XXH_P2, 31) * XXH_P1;
+    }
+
+    /* Junta los cuatro acumuladores de xxHash64. */
+    private static long juntaXXH64(long v1, long v2, long v3, long v4) {
+        long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) +
+            Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        h = (h ^ rondaXXH64(0, v1)) * XXH_P1 + XXH_P4;
+        h = (h ^ rondaXXH64(0, v2)) * XXH_P1 + XXH_P4;
+        h = (h ^ rondaXXH64(0, v3)) * XXH_P1 + XXH_P4;
+        h = (h ^ rondaXXH64(0, v4)) * XXH_P1 + XXH_P4;
+        return h;
+    }
+
+    /* Termina xxHash64 con los bytes de i a fin, menos de 32, a partir de
+       h con la longitud ya sumada. */
+    private static long colaXXH64(byte[] llave, int i, int fin, long h) {
+        for (; i <= fin - 8; i += 8) {
+            h ^= rondaXXH64(0, lee64(llave, i));
+            h = Long.rotateLeft(h, 27) * XXH_P1 + XXH_P4;
+        }
+        if (i <= fin - 4) {
+            h ^= lee32(llave, i) * XXH_P1;
+            h = Long.rotateLeft(h, 23) * XXH_P2 + XXH_P3;
+            i += 4;
+        }
+        for (; i < fin; i++) {
+            h ^= (llave[i] & 0xFFL) * XXH_P5;
+            h = Long.rotateLeft(h, 11) * XXH_P1;
+        }
+        h ^= h >>> 33;
+        h *= XXH_P2;
+        h ^= h >>> 29;
+        h *= XXH_P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Función de dispersión MurmurHash3 x64_128 con semilla 0, truncada a
+     * su primera mitad.
+     * @param llave la llave a dispersar.
+     * @return los primeros 64 bits de la dispersión MurmurHash3 x64_128 de
+     *         la llave.
+     */
+    public static long dispersaMurmur3(byte[] llave) {
+        return dispersaMurmur3(llave, 0, llave.length, 0);
+    }
+
+    /**
+     * Función de dispersión MurmurHash3 x64_128 de Austin Appleby sobre un
+     * rango de un arreglo, truncada a su primera mitad (<code>h1</code>).
+     * Procesa la llave en bloques de 16 bytes, leyendo ocho bytes a la vez.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @param semilla la semilla; como en la referencia, sólo se usan sus 32
+     *        bits bajos.
+     * @return los primeros 64 bits de la dispersión MurmurHash3 x64_128 de
+     *         la llave.
+     */
+    public static long dispersaMurmur3(byte[] llave, int inicio, int longitud,
+                                       long semilla) {
+        long h1 = semilla & 0xFFFFFFFFL;
+        long h2 = h1;
+        int fin = inicio + longitud - (longitud & 15);
+        int i = inicio;
+        for (; i < fin; i += 16) {
+            long k1 = lee64(llave, i);
+            long k2 = lee64(llave, i + 8);
+            h1 ^= Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52DCE729;
+            h2 ^= Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495AB5;
+        }
+        return colaMurmur3(llave, i, longitud & 15, h1, h2, longitud);
+    }
+
+    /* Termina MurmurHash3 con los resto bytes desde i, menos de 16, a
+       partir de h1 y h2. */
+    private static long colaMurmur3(byte[] llave, int i, int resto, long h1,
+                                    long h2, long longitud) {
+        long k1 = 0;
+        long k2 = 0;
+        switch (resto) {
+            case 15:
+                k2 ^= (llave[i + 14] & 0xFFL) << 48;
+            case 14:
+                k2 ^= (llave[i + 13] & 0xFFL) << 40;
+            case 13:
+                k2 ^= (llave[i + 12] & 0xFFL) << 32;
+            case 12:
+                k2 ^= (llave[i + 11] & 0xFFL) << 24;
             case 11:
-                c += (llave[longitud + 10] & 0xFF) << 24;
+                k2 ^= (llave[i + 10] & 0xFFL) << 16;
             case 10:
-                c += (llave[longitud + 9] & 0xFF) << 16;
+                k2 ^= (llave[i + 9] & 0xFFL) << 8;
             case 9:
-                c += (llave[longitud + 8] & 0xFF) << 8;
+                k2 ^= (llave[i + 8] & 0xFFL);
+                h2 ^= Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
             case 8:
-                b += (llave[longitud + 7] & 0xFF) << 24;
+                k1 ^= (llave[i + 7] & 0xFFL) << 56;
             case 7:
-                b += (llave[longitud + 6] & 0xFF) << 16;
+                k1 ^= (llave[i + 6] & 0xFFL) << 48;
             case 6:
-                b += (llave[longitud + 5] & 0xFF) << 8;
+                k1 ^= (llave[i + 5] & 0xFFL) << 40;
             case 5:
-                b += (llave[longitud + 4] & 0xFF);
+                k1 ^= (llave[i + 4] & 0xFFL) << 32;
             case 4:
-                a += (llave[longitud + 3] & 0xFF) << 24;
+                k1 ^= (llave[i + 3] & 0xFFL) << 24;
             case 3:
-                a += (llave[longitud + 2] & 0xFF) << 16;
+                k1 ^= (llave[i + 2] & 0xFFL) << 16;
             case 2:
-                a += (llave[longitud + 1] & 0xFF) << 8;
+                k1 ^= (llave[i + 1] & 0xFFL) << 8;
             case 1:
-                a += (llave[longitud] & 0xFF);
+                k1 ^= (llave[i] & 0xFFL);
+                h1 ^= Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
         }
-        int[] mezclados = mezcla(a, b, c);
-        return mezclados[2];
-        // Aquí va su código.
+        h1 ^= longitud;
+        h2 ^= longitud;
+        h1 += h2;
+        h2 += h1;
+        h1 = mezclaMurmur3(h1);
+        h2 = mezclaMurmur3(h2);
+        return h1 + h2;
     }
 
-    private static int[] mezcla(int a, int b, int c) {
-        int[] mezclados = new int[3];
-        // 1ra Parte
-        a -= b;
-        a -= c;
-        a ^= (c >>> 13);
-        b -= c;
-        b -= a;
-        b ^= (a << 8);
-        c -= a;
-        c -= b;
-        c ^= (b >>> 13);
-        // 2da Parte
-        a -= b;
-        a -= c;
-        a ^= (c >>> 12);
-        b -= c;
-        b -= a;
-        b ^= (a << 16);
-        c -= a;
-        c -= b;
-        c ^= (b >>> 5);
-        // 3ra Parte
-        a -= b;
-        a -= c;
-        a ^= (c >>> 3);
-        b -= c;
-        b -= a;
-        b ^= (a << 10);
-        c -= a;
-        c -= b;
-        c ^= (b >>> 15);
-        mezclados[0] = a;
-        mezclados[1] = b;
-        mezclados[2] = c;
-        return mezclados;
+    /* La mezcla final de MurmurHash3 de 64 bits. */
+    private static long mezclaMurmur3(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
     }
 
-    private static int combinaLittleEndian(byte a, byte b, byte c, byte d) {
-        int entero = (a & 0xFF) | ((b & 0xFF) << 8) | ((c & 0xFF) << 16) | ((d & 0xFF) << 24);
-        return entero;
+    /**
+     * Función de dispersión wyhash con semilla 0.
+     * @param llave la llave a dispersar.
+     * @return la dispersión wyhash de la llave.
+     */
+    public static long dispersaWyhash(byte[] llave) {
+        return dispersaWyhash(llave, 0, llave.length, 0);
     }
 
     /**
-     * Función de dispersión Daniel J. Bernstein.
-     * @param llave la llave a dispersar.
-     * @return la dispersión de Daniel Bernstein de la llave.
+     * Función de dispersión wyhash de Wang Yi (versión <em>final3</em>, con
+     * el secreto predeterminado) sobre un rango de un arreglo. Procesa la
+     * llave en franjas de 48 bytes con tres acumuladores, mezclando con
+     * multiplicaciones de 64×64 a 128 bits.
+     * @param llave el arreglo con la llave a dispersar.
+     * @param inicio el índice del primer byte de la llave.
+     * @param longitud el número de bytes de la llave.
+     * @param semilla la semilla.
+     * @return la dispersión wyhash de la llave.
      */
-    public static int dispersaDJB(byte[] llave) {
-        int h = 5381;
-        for (int i = 0; i < llave.length; i++) {
-            h *= 33;
-            h += llave[i] & 0xFF;
+    public static long dispersaWyhash(byte[] llave, int inicio, int longitud,
+                                      long semilla) {
+        semilla ^= WY_S0;
+        if (longitud > 16) {
+            int i = inicio;
+            int resto = longitud;
+            if (resto > 48) {
+                long s1 = semilla;
+                long s2 = semilla;
+                do {
+                    semilla = mezclaWyhash(lee64(llave, i) ^ WY_S1,
+                                           lee64(llave, i + 8) ^ semilla);
+                    s1 = mezclaWyhash(lee64(llave, i + 16) ^ WY_S2,
+                                      lee64(llave, i + 24) ^ s1);
+                    s2 = mezclaWyhash(lee64(llave, i + 32) ^ WY_S3,
+                                      lee64(llave, i + 40) ^ s2);
+                    i += 48;
+                    resto -= 48;
+                } while (resto > 48);
+                semilla ^= s1 ^ s2;
+            }
+            return colaWyhash(llave, i, resto, semilla, longitud);
+        }
+        long a;
+        long b;
+        if (longitud >= 4) {
+            int d = (longitud >>> 3) << 2;
+            int u = inicio + longitud - 4;
+            a = (lee32(llave, inicio) << 32) | lee32(llave, inicio + d);
+            b = (lee32(llave, u) << 32) | lee32(llave, u - d);
+        } else if (longitud > 0) {
+            a = ((llave[inicio] & 0xFFL) << 16) |
+                ((llave[inicio + (longitud >>> 1)] & 0xFFL) << 8) |
+                (llave[inicio + longitud - 1] & 0xFFL);
+            b = 0;
+        } else {
+            a = 0;
+            b = 0;
+        }
+        return mezclaWyhash(WY_S1 ^ longitud,
+                            mezclaWyhash(a ^ WY_S1, b ^ semilla));
+    }
+
+    /* Termina wyhash con los resto bytes desde i, entre 1 y 48; los 16
+       bytes anteriores a i + resto deben estar en el arreglo aunque sean
+       de antes de i. */
+    private static long colaWyhash(byte[] llave, int i, int resto,
+                                   long semilla, long longitud) {
+        while (resto > 16) {
+            semilla = mezclaWyhash(lee64(llave, i) ^ WY_S1,
+                                   lee64(llave, i + 8) ^ semilla);
+            i += 16;
+            resto -= 16;
+        }
+        long a = lee64(llave, i + resto - 16);
+        long b = lee64(llave, i + resto - 8);
+        return mezclaWyhash(WY_S1 ^ longitud,
+                            mezclaWyhash(a ^ WY_S1, b ^ semilla));
+    }
+
+    /* La mezcla de wyhash: los dos lados del producto de 128 bits, con
+       XOR. */
+    private static long mezclaWyhash(long a, long b) {
+        return (a * b) ^ multiplicaAlto(a, b);
+    }
+
+    /**
+     * Dispersa el contenido de un archivo con semilla 0, mapeándolo a
+     * memoria en segmentos de {@link #TAMANIO_SEGMENTO} bytes. El resultado
+     * es el mismo que el de dispersar todos sus bytes en un arreglo, y la
+     * memoria usada no depende del tamaño del archivo.
+     * @param archivo el archivo a dispersar.
+     * @param algoritmo el algoritmo de dispersor que se desea.
+     * @return la dispersión del archivo; con los algoritmos de 32 bits, se
+     *         extiende con signo.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    public static long dispersaArchivo(Path archivo,
+                                       AlgoritmoDispersor algoritmo)
+        throws IOException {
+        return dispersaArchivo(archivo, algoritmo, TAMANIO_SEGMENTO);
+    }
+
+    /**
+     * Dispersa el contenido de un archivo con semilla 0, mapeándolo a
+     * memoria en segmentos del tamaño dado.
+     * @param archivo el archivo a dispersar.
+     * @param algoritmo el algoritmo de dispersor que se desea.
+     * @param tamanioSegmento el tamaño de los segmentos, en bytes.
+     * @return la dispersión del archivo; con los algoritmos de 32 bits, se
+     *         extiende con signo.
+     * @throws IOException si ocurre un error de entrada/salida.
+     * @throws IllegalArgumentException si el tamaño de los segmentos es
+     *         menor que 1.
+     */
+    public static long dispersaArchivo(Path archivo,
+                                       AlgoritmoDispersor algoritmo,
+                                       int tamanioSegmento)
+        throws IOException {
+        if (tamanioSegmento < 1) {
+            throw new IllegalArgumentException("Tamaño inválido");
+        }
+        DispersorIncremental dispersor = incremental(algoritmo);
+        try (FileChannel canal = FileChannel.open(archivo,
+                                                  StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            for (long p = 0; p < tamanio; p += tamanioSegmento) {
+                long n = Math.min(tamanioSegmento, tamanio - p);
+                dispersor.actualiza(canal.map(FileChannel.MapMode.READ_ONLY,
+                                              p, n));
+            }
+        }
+        return dispersor.finaliza();
+    }
+
+    /* Regresa un dispersor incremental con semilla 0 para el algoritmo. */
+    static DispersorIncremental incremental(AlgoritmoDispersor algoritmo) {
+        switch (algoritmo) {
+        case XOR_STRING:
+            return new IncrementalXOR();
+        case BJ_STRING:
+            return new IncrementalBJ();
+        case DJB_STRING:
+            return new IncrementalDJB();
+        case XXH64_STRING:
+            return new IncrementalXXH64(0);
+        case MURMUR3_STRING:
+            return new IncrementalMurmur3(0);
+        case WYHASH_STRING:
+            return new IncrementalWyhash(0);
+        default: throw new IllegalArgumentException("Algoritmo inválido");
+        }
+    }
+
+    /* Base de los dispersores incrementales. Junta en un bloque los bytes
+       que no completan uno entre llamadas, y a las subclases les pasa los
+       bloques completos directamente del arreglo que recibe. */
+    private static abstract class Incremental
+        implements DispersorIncremental {
+
+        /* El bloque incompleto. */
+        protected final byte[] pendientes;
+        /* El número de bytes en el bloque incompleto. */
+        protected int numPendientes;
+        /* El número total de bytes agregados. */
+        protected long longitud;
+        /* Si un bloque completo espera a que lleguen más bytes para
+           procesarse. */
+        private final boolean perezoso;
+        /* El arreglo para copiar de buffers sin arreglo. */
+        private byte[] copia;
+
+        /* Crea la base con el tamaño de bloque. */
+        protected Incremental(int tamanioBloque, boolean perezoso) {
+            pendientes = new byte[tamanioBloque];
+            this.perezoso = perezoso;
+        }
+
+        /* Procesa los bloques completos de inicio a fin. */
+        protected abstract void procesa(byte[] datos, int inicio, int fin);
+
+        /* Regresa la dispersión con el bloque incompleto. */
+        protected abstract long termina();
+
+        @Override public void actualiza(byte[] datos, int inicio,
+                                        int longitud) {
+            if (inicio < 0 || longitud < 0 ||
+                inicio > datos.length - longitud) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (longitud == 0) {
+                return;
+            }
+            this.longitud += longitud;
+            int fin = inicio + longitud;
+            int t = pendientes.length;
+            if (numPendientes > 0) {
+                int n = Math.min(t - numPendientes, longitud);
+                System.arraycopy(datos, inicio, pendientes, numPendientes, n);
+                numPendientes += n;
+                inicio += n;
+                if (numPendientes < t || (perezoso && inicio == fin)) {
+                    return;
+                }
+                procesa(pendientes, 0, t);
+                numPendientes = 0;
+            }
+            int resto = fin - inicio;
+            int completos = (perezoso ? (resto - 1) / t : resto / t) * t;
+            if (completos > 0) {
+                procesa(datos, inicio, inicio + completos);
+                inicio += completos;
+            }
+            numPendientes = fin - inicio;
+            System.arraycopy(datos, inicio, pendientes, 0, numPendientes);
+        }
+
+        @Override public void actualiza(ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                actualiza(buffer.array(),
+                          buffer.arrayOffset() + buffer.position(),
+                          buffer.remaining());
+                buffer.position(buffer.limit());
+                return;
+            }
+            if (copia == null) {
+                copia = new byte[TAMANIO_COPIA];
+            }
+            while (buffer.hasRemaining()) {
+                int n = Math.min(copia.length, buffer.remaining());
+                buffer.get(copia, 0, n);
+                actualiza(copia, 0, n);
+            }
+        }
+
+        @Override public long finaliza() {
+            long h = termina();
+            reinicia();
+            return h;
+        }
+
+        @Override public void reinicia() {
+            numPendientes = 0;
+            longitud = 0;
+        }
+    }
+
+    /* XOR incremental: como XOR es lineal, los bloques de cuatro bytes se
+       combinan con la dispersión de cada rango. */
+    private static class IncrementalXOR extends Incremental {
+
+        private int dispersion;
+
+        public IncrementalXOR() {
+            super(4, false);
+        }
+
+        @Override protected void procesa(byte[] datos, int inicio, int fin) {
+            dispersion ^= dispersaXOR(datos, inicio, fin - inicio);
+        }
+
+        @Override protected long termina() {
+            return dispersion ^ dispersaXOR(pendientes, 0, numPendientes);
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            dispersion = 0;
+        }
+    }
+
+    /* Bob Jenkins incremental, en bloques de 12 bytes. */
+    private static class IncrementalBJ extends Incremental {
+
+        private int a;
+        private int b;
+        private int c;
+
+        public IncrementalBJ() {
+            super(12, false);
+            reinicia();
+        }
+
+        @Override protected void procesa(byte[] datos, int i, int fin) {
+            int a = this.a;
+            int b = this.b;
+            int c = this.c;
+            for (; i < fin; i += 12) {
+                a += combinaLittleEndian(datos[i], datos[i + 1],
+                                         datos[i + 2], datos[i + 3]);
+                b += combinaLittleEndian(datos[i + 4], datos[i + 5],
+                                         datos[i + 6], datos[i + 7]);
+                c += combinaLittleEndian(datos[i + 8], datos[i + 9],
+                                         datos[i + 10], datos[i + 11]);
+                // 1ra Parte
+                a -= b; a -= c; a ^= (c >>> 13);
+                b -= c; b -= a; b ^= (a << 8);
+                c -= a; c -= b; c ^= (b >>> 13);
+                // 2da Parte
+                a -= b; a -= c; a ^= (c >>> 12);
+                b -= c; b -= a; b ^= (a << 16);
+                c -= a; c -= b; c ^= (b >>> 5);
+                // 3ra Parte
+                a -= b; a -= c; a ^= (c >>> 3);
+                b -= c; b -= a; b ^= (a << 10);
+                c -= a; c -= b; c ^= (b >>> 15);
+            }
+            this.a = a;
+            this.b = b;
+            this.c = c;
+        }
+
+        @Override protected long termina() {
+            /* El residuo es un bloque más con ceros al final, salvo que en
+               c sus bytes van un lugar arriba para dejarle el byte bajo a
+               la longitud. */
+            for (int i = numPendientes; i < 12; i++) {
+                pendientes[i] = 0;
+            }
+            pendientes[11] = pendientes[10];
+            pendientes[10] = pendientes[9];
+            pendientes[9] = pendientes[8];
+            pendientes[8] = 0;
+            c += (int)longitud;
+            procesa(pendientes, 0, 12);
+            return c;
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            a = 0x9E3779B9;
+            b = 0x9E3779B9;
+            c = 0xFFFFFFFF;
+        }
+    }
+
+    /* Daniel J. Bernstein incremental: no necesita bloques. */
+    private static class IncrementalDJB extends Incremental {
+
+        private int h;
+
+        public IncrementalDJB() {
+            super(1, false);
+            reinicia();
+        }
+
+        @Override protected void procesa(byte[] datos, int inicio, int fin) {
+            h = continuaDJB(h, datos, inicio, fin - inicio);
+        }
+
+        @Override protected long termina() {
+            return h;
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            h = 5381;
+        }
+    }
+
+    /* xxHash64 incremental, en franjas de 32 bytes. */
+    private static class IncrementalXXH64 extends Incremental {
+
+        private final long semilla;
+        private long v1;
+        private long v2;
+        private long v3;
+        private long v4;
+
+        public IncrementalXXH64(long semilla) {
+            super(32, false);
+            this.semilla = semilla;
+            reinicia();
+        }
+
+        @Override protected void procesa(byte[] datos, int i, int fin) {
+            long v1 = this.v1;
+            long v2 = this.v2;
+            long v3 = this.v3;
+            long v4 = this.v4;
+            for (; i < fin; i += 32) {
+                v1 = rondaXXH64(v1, lee64(datos, i));
+                v2 = rondaXXH64(v2, lee64(datos, i + 8));
+                v3 = rondaXXH64(v3, lee64(datos, i + 16));
+                v4 = rondaXXH64(v4, lee64(datos, i + 24));
+            }
+            this.v1 = v1;
+            this.v2 = v2;
+            this.v3 = v3;
+            this.v4 = v4;
+        }
+
+        @Override protected long termina() {
+            if (longitud < 32) {
+                return dispersaXXH64(pendientes, 0, numPendientes, semilla);
+            }
+            long h = juntaXXH64(v1, v2, v3, v4) + longitud;
+            return colaXXH64(pendientes, 0, numPendientes, h);
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            v1 = semilla + XXH_P1 + XXH_P2;
+            v2 = semilla + XXH_P2;
+            v3 = semilla;
+            v4 = semilla - XXH_P1;
+        }
+    }
+
+    /* MurmurHash3 x64_128 incremental, en bloques de 16 bytes. */
+    private static class IncrementalMurmur3 extends Incremental {
+
+        private final long semilla;
+        private long h1;
+        private long h2;
+
+        public IncrementalMurmur3(long semilla) {
+            super(16, false);
+            this.semilla = semilla & 0xFFFFFFFFL;
+            reinicia();
+        }
+
+        @Override protected void procesa(byte[] datos, int i, int fin) {
+            long h1 = this.h1;
+            long h2 = this.h2;
+            for (; i < fin; i += 16) {
+                long k1 = lee64(datos, i);
+                long k2 = lee64(datos, i + 8);
+                h1 ^= Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
+                h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52DCE729;
+                h2 ^= Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
+                h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495AB5;
+            }
+            this.h1 = h1;
+            this.h2 = h2;
+        }
+
+        @Override protected long termina() {
+            return colaMurmur3(pendientes, 0, numPendientes, h1, h2,
+                               longitud);
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            h1 = semilla;
+            h2 = semilla;
+        }
+    }
+
+    /* wyhash incremental, en franjas de 48 bytes. Una franja sólo se
+       procesa cuando le siguen más bytes, porque las últimas se terminan
+       distinto; y de la última procesada se guardan sus 16 bytes finales,
+       porque el final puede leer hasta 15 bytes hacia atrás. */
+    private static class IncrementalWyhash extends Incremental {
+
+        private final long semilla;
+        private long s0;
+        private long s1;
+        private long s2;
+        /* Los 16 bytes anteriores a los pendientes, y los pendientes. */
+        private final byte[] cola = new byte[16 + 48];
+
+        public IncrementalWyhash(long semilla) {
+            super(48, true);
+            this.semilla = semilla;
+            reinicia();
+        }
+
+        @Override protected void procesa(byte[] datos, int i, int fin) {
+            long s0 = this.s0;
+            long s1 = this.s1;
+            long s2 = this.s2;
+            for (; i < fin; i += 48) {
+                s0 = mezclaWyhash(lee64(datos, i) ^ WY_S1,
+                                  lee64(datos, i + 8) ^ s0);
+                s1 = mezclaWyhash(lee64(datos, i + 16) ^ WY_S2,
+                                  lee64(datos, i + 24) ^ s1);
+                s2 = mezclaWyhash(lee64(datos, i + 32) ^ WY_S3,
+                                  lee64(datos, i + 40) ^ s2);
+            }
+            this.s0 = s0;
+            this.s1 = s1;
+            this.s2 = s2;
+            System.arraycopy(datos, fin - 16, cola, 0, 16);
+        }
+
+        @Override protected long termina() {
+            if (longitud <= 48) {
+                return dispersaWyhash(pendientes, 0, numPendientes, semilla);
+            }
+            System.arraycopy(pendientes, 0, cola, 16, numPendientes);
+            return colaWyhash(cola, 16, numPendientes, s0 ^ s1 ^ s2,
+                              longitud);
+        }
+
+        @Override public void reinicia() {
+            super.reinicia();
+            s0 = semilla ^ WY_S0;
+            s1 = s0;
+            s2 = s0;
         }
-        return h;
-        // Aquí va su código.
     }
 }
@@ -0,0 +1,188 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * <p>Clase para fotografías de las estadísticas de un {@link Diccionario}.
+ * Una fotografía no cambia aunque el diccionario cambie.</p>
+ *
+ * <p>Los costos de búsqueda cuentan las comparaciones de llaves suponiendo
+ * que cada cubeta es una lista; en las cubetas árbol el costo real es
+ * menor. La calidad del dispersor se mide con la estadística ji cuadrada de
+ * las longitudes de las cubetas contra una distribución uniforme: con un
+ * buen dispersor su valor es cercano a los grados de libertad, y {@link
+ * #getCalidad} es cercana a 1.</p>
+ */
+public class EstadisticasDiccionario {
+
+    /* Número de entradas. */
+    private int elementos;
+    /* Número de cubetas. */
+    private int cubetas;
+    /* Suma de los cuadrados de las longitudes de las cubetas. */
+    private long sumaCuadrados;
+    /* Cuántas cubetas hay de cada longitud. */
+    private int[] histograma;
+    /* Número de crecimientos. */
+    private int crecimientos;
+    /* Nanosegundos gastados en crecer. */
+    private long tiempoCrecimiento;
+
+    /* Construye una fotografía; sólo el diccionario puede hacerlo. */
+    EstadisticasDiccionario(int elementos, int cubetas, long sumaCuadrados,
+                            int[] histograma, int crecimientos,
+                            long tiempoCrecimiento) {
+        this.elementos = elementos;
+        this.cubetas = cubetas;
+        this.sumaCuadrados = sumaCuadrados;
+        this.histograma = histograma;
+        this.crecimientos = crecimientos;
+        this.tiempoCrecimiento = tiempoCrecimiento;
+    }
+
+    /**
+     * Regresa el número de entradas del diccionario.
+     * @return el número de entradas del diccionario.
+     */
+    public int getElementos() {
+        return this.elementos;
+    }
+
+    /**
+     * Regresa el número de cubetas del diccionario.
+     * @return el número de cubetas del diccionario.
+     */
+    public int getCubetas() {
+        return this.cubetas;
+    }
+
+    /**
+     * Regresa el número de cubetas no vacías.
+     * @return el número de cubetas no vacías.
+     */
+    public int getCubetasOcupadas() {
+        return this.cubetas - this.histograma[0];
+    }
+
+    /**
+     * Regresa la carga del diccionario.
+     * @return la carga del diccionario.
+     */
+    public double getCarga() {
+        return (double)this.elementos / this.cubetas;
+    }
+
+    /**
+     * Regresa el número de colisiones: entradas que no son las primeras de su
+     * cubeta.
+     * @return el número de colisiones.
+     */
+    public int getColisiones() {
+        return this.elementos - getCubetasOcupadas();
+    }
+
+    /**
+     * Regresa el máximo número de colisiones en una misma cubeta.
+     * @return el máximo número de colisiones en una misma cubeta.
+     */
+    public int getColisionMaxima() {
+        return this.histograma.length - 2;
+    }
+
+    /**
+     * Regresa el histograma de longitudes de las cubetas: el elemento
+     * <em>i</em> es el número de cubetas con <em>i</em> entradas. El arreglo
+     * tiene la longitud máxima más uno como tamaño.
+     * @return una copia del histograma de longitudes de las cubetas.
+     */
+    public int[] getHistograma() {
+        int[] copia = new int[this.histograma.length];
+        for (int i = 0; i < copia.length; i++)
+            copia[i] = this.histograma[i];
+        return copia;
+    }
+
+    /**
+     * Regresa el número de veces que el diccionario ha crecido.
+     * @return el número de crecimientos.
+     */
+    public int getCrecimientos() {
+        return this.crecimientos;
+    }
+
+    /**
+     * Regresa el tiempo acumulado que el diccionario ha gastado en crecer,
+     * incluyendo las migraciones incrementales.
+     * @return el tiempo de crecimiento en nanosegundos.
+     */
+    public long getTiempoCrecimiento() {
+        return this.tiempoCrecimiento;
+    }
+
+    /**
+     * Regresa el número promedio de comparaciones de una búsqueda exitosa,
+     * sobre todas las llaves del diccionario.
+     * @return el costo promedio de una búsqueda exitosa; 0 si el diccionario
+     *         es vacío.
+     */
+    public double getCostoExitoso() {
+        if (this.elementos == 0)
+            return 0.0;
+        return (this.sumaCuadrados + this.elementos) / (2.0 * this.elementos);
+    }
+
+    /**
+     * Regresa el número promedio de comparaciones de una búsqueda fallida,
+     * que es la longitud promedio de las cubetas.
+     * @return el costo promedio de una búsqueda fallida.
+     */
+    public double getCostoFallido() {
+        return getCarga();
+    }
+
+    /**
+     * Regresa la estadística ji cuadrada de las longitudes de las cubetas
+     * contra una distribución uniforme.
+     * @return la estadística ji cuadrada; 0 si el diccionario es vacío.
+     */
+    public double getJiCuadrada() {
+        if (this.elementos == 0)
+            return 0.0;
+        return (double)this.cubetas * this.sumaCuadrados / this.elementos -
+            this.elementos;
+    }
+
+    /**
+     * Regresa los grados de libertad de la estadística ji cuadrada.
+     * @return el número de cubetas menos uno.
+     */
+    public int getGradosLibertad() {
+        return this.cubetas - 1;
+    }
+
+    /**
+     * Regresa la razón entre la estadística ji cuadrada y sus grados de
+     * libertad. Con un buen dispersor es cercana a 1 mientras la carga no
+     * sea muy baja; valores mucho mayores indican un mal dispersor o llaves
+     * adversarias.
+     * @return la razón entre la ji cuadrada y los grados de libertad.
+     */
+    public double getCalidad() {
+        return getJiCuadrada() / getGradosLibertad();
+    }
+
+    /**
+     * Regresa una representación en cadena de las estadísticas.
+     * @return una representación en cadena de las estadísticas.
+     */
+    @Override public String toString() {
+        return String.format("elementos=%d cubetas=%d carga=%.3f " +
+                             "colisiones=%d colisionMaxima=%d " +
+                             "costoExitoso=%.3f costoFallido=%.3f " +
+                             "jiCuadrada=%.1f calidad=%.3f crecimientos=%d " +
+                             "tiempoCrecimiento=%dns",
+                             this.elementos, this.cubetas, getCarga(),
+                             getColisiones(), getColisionMaxima(),
+                             getCostoExitoso(), getCostoFallido(),
+                             getJiCuadrada(), getCalidad(),
+                             this.crecimientos, this.tiempoCrecimiento);
+    }
+}
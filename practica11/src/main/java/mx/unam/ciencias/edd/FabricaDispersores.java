@@ -5,11 +5,22 @@ package mx.unam.ciencias.edd;
  */
 public class FabricaDispersores {
 
+    /* Tamaño máximo del arreglo por hilo para codificar en UTF-8. */
+    private static final int MAXIMO_UTF8 = 1 << 16;
+
+    /* El arreglo por hilo para codificar en UTF-8. */
+    private static final ThreadLocal<byte[]> utf8 =
+        ThreadLocal.withInitial(() -> new byte[256]);
+
     /* Constructor privado para evitar instanciación. */
     private FabricaDispersores() {}
 
     /**
-     * Regresa una instancia de {@link Dispersor} para cadenas.
+     * Regresa una instancia de {@link Dispersor} para cadenas, que dispersa
+     * sus bytes en UTF-8 sin importar la codificación por omisión (ver
+     * {@link #dispersorCadenaUTF8}). Con los algoritmos de 64 bits, el
+     * dispersor combina las dos mitades de la dispersión (ver {@link
+     * DispersorLargo#dispersor}).
      * @param algoritmo el algoritmo de dispersor que se desea.
      * @return una instancia de {@link Dispersor} para cadenas.
      * @throws IllegalArgumentException si recibe un identificador no
@@ -17,14 +28,159 @@ public class FabricaDispersores {
      */
     public static Dispersor<String>
     dispersorCadena(AlgoritmoDispersor algoritmo) {
+        return dispersorCadenaUTF8(algoritmo);
+    }
+
+    /**
+     * Regresa una instancia de {@link DispersorLargo} para cadenas, con
+     * semilla 0. Se dispersan los bytes de la cadena en UTF-8, codificados
+     * en el arreglo por hilo de {@link #dispersorCadenaUTF8}.
+     * @param algoritmo el algoritmo de dispersor que se desea; debe ser de
+     *        64 bits.
+     * @return una instancia de {@link DispersorLargo} para cadenas.
+     * @throws IllegalArgumentException si recibe un identificador no
+     *         reconocido o de 32 bits.
+     */
+    public static DispersorLargo<String>
+    dispersorLargoCadena(AlgoritmoDispersor algoritmo) {
+        switch (algoritmo) {
+        case XXH64_STRING:
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaXXH64(b, 0, codificaUTF8(b, c), 0);
+            };
+        case MURMUR3_STRING:
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaMurmur3(b, 0,
+                                                   codificaUTF8(b, c), 0);
+            };
+        case WYHASH_STRING:
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaWyhash(b, 0,
+                                                  codificaUTF8(b, c), 0);
+            };
+        default: throw new IllegalArgumentException("Algoritmo inválido");
+        }
+    }
+
+    /**
+     * Regresa una instancia nueva de {@link DispersorIncremental}, con
+     * semilla 0 para los algoritmos de 64 bits.
+     * @param algoritmo el algoritmo de dispersor que se desea.
+     * @return una instancia nueva de {@link DispersorIncremental}.
+     * @throws IllegalArgumentException si recibe un identificador no
+     *         reconocido.
+     */
+    public static DispersorIncremental
+    dispersorIncremental(AlgoritmoDispersor algoritmo) {
+        return Dispersores.incremental(algoritmo);
+    }
+
+    /**
+     * Regresa una instancia de {@link Dispersor} para cadenas que dispersa
+     * directamente sus unidades UTF-16, sin codificarlas ni crear arreglos.
+     * La dispersión es la misma que la de los bytes de la cadena en
+     * UTF-16LE (ver {@link Dispersores#dispersaXOR(CharSequence)}).
+     * @param algoritmo el algoritmo de dispersor que se desea; debe ser de
+     *        32 bits.
+     * @return una instancia de {@link Dispersor} para cadenas.
+     * @throws IllegalArgumentException si recibe un identificador no
+     *         reconocido o de 64 bits.
+     */
+    public static Dispersor<String>
+    dispersorCadenaUTF16(AlgoritmoDispersor algoritmo) {
+        switch (algoritmo) {
+        case XOR_STRING:
+            return c -> Dispersores.dispersaXOR(c);
+        case BJ_STRING:
+            return c -> Dispersores.dispersaBJ(c);
+        case DJB_STRING:
+            return c -> Dispersores.dispersaDJB(c);
+        default: throw new IllegalArgumentException("Algoritmo inválido");
+        }
+    }
+
+    /**
+     * Regresa una instancia de {@link Dispersor} para cadenas que dispersa
+     * sus bytes en UTF-8. La dispersión no depende de la codificación por
+     * omisión, y la cadena se codifica en un arreglo reutilizado por cada
+     * hilo en lugar de uno nuevo en cada dispersión. Es el mismo dispersor
+     * que regresa {@link #dispersorCadena}.
+     * @param algoritmo el algoritmo de dispersor que se desea.
+     * @return una instancia de {@link Dispersor} para cadenas.
+     * @throws IllegalArgumentException si recibe un identificador no
+     *         reconocido.
+     */
+    public static Dispersor<String>
+    dispersorCadenaUTF8(AlgoritmoDispersor algoritmo) {
         switch (algoritmo) {
         case XOR_STRING:
-            return c -> Dispersores.dispersaXOR(c.getBytes());
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaXOR(b, 0, codificaUTF8(b, c));
+            };
         case BJ_STRING:
-            return c -> Dispersores.dispersaBJ(c.getBytes());
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaBJ(b, 0, codificaUTF8(b, c));
+            };
         case DJB_STRING:
-            return c -> Dispersores.dispersaDJB(c.getBytes());
+            return c -> {
+                byte[] b = arregloUTF8(c);
+                return Dispersores.dispersaDJB(b, 0, codificaUTF8(b, c));
+            };
+        case XXH64_STRING:
+        case MURMUR3_STRING:
+        case WYHASH_STRING:
+            return dispersorLargoCadena(algoritmo).dispersor();
         default: throw new IllegalArgumentException("Algoritmo inválido");
         }
     }
+
+    /* Regresa un arreglo con espacio para la cadena en UTF-8: el del hilo
+       si cabe, o uno nuevo si la cadena es muy grande. */
+    private static byte[] arregloUTF8(String c) {
+        int n = 3 * c.length();
+        if (n > MAXIMO_UTF8)
+            return new byte[n];
+        byte[] b = utf8.get();
+        if (b.length < n) {
+            b = new byte[Math.max(n, 2 * b.length)];
+            utf8.set(b);
+        }
+        return b;
+    }
+
+    /* Codifica la cadena en UTF-8 en el arreglo y regresa el número de
+       bytes. Como String.getBytes, un sustituto sin pareja se codifica como
+       '?'. */
+    private static int codificaUTF8(byte[] b, String c) {
+        int n = c.length();
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            char u = c.charAt(i);
+            if (u < 0x80) {
+                b[j++] = (byte)u;
+            } else if (u < 0x800) {
+                b[j++] = (byte)(0xC0 | (u >>> 6));
+                b[j++] = (byte)(0x80 | (u & 0x3F));
+            } else if (!Character.isSurrogate(u)) {
+                b[j++] = (byte)(0xE0 | (u >>> 12));
+                b[j++] = (byte)(0x80 | ((u >>> 6) & 0x3F));
+                b[j++] = (byte)(0x80 | (u & 0x3F));
+            } else if (Character.isHighSurrogate(u) && i + 1 < n &&
+                       Character.isLowSurrogate(c.charAt(i + 1))) {
+                int p = Character.toCodePoint(u, c.charAt(++i));
+                b[j++] = (byte)(0xF0 | (p >>> 18));
+                b[j++] = (byte)(0x80 | ((p >>> 12) & 0x3F));
+                b[j++] = (byte)(0x80 | ((p >>> 6) & 0x3F));
+                b[j++] = (byte)(0x80 | (p & 0x3F));
+            } else {
+                b[j++] = '?';
+            }
+        }
+        return j;
+    }
 }
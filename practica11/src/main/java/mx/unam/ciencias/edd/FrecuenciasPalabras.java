@@ -0,0 +1,389 @@
+package mx.unam.ciencias.edd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Cuenta las frecuencias de las palabras de un archivo de texto en
+ * paralelo. Las palabras son las secuencias máximas de bytes que no son
+ * espacios en blanco de ASCII, así que el texto en UTF-8 se separa bien.</p>
+ *
+ * <p>El archivo se parte en pedazos de {@link #TAMANIO_PEDAZO} bytes, cuyos
+ * límites se recorren hasta el siguiente espacio para no partir palabras.
+ * Cada hilo toma pedazos conforme termina los anteriores, los mapea a
+ * memoria y los cuenta en su propia tabla, cuyas llaves son los bytes de
+ * cada palabra copiados una sola vez a un arreglo de la tabla: no se crea
+ * ninguna cadena mientras se cuenta. La dispersión de Daniel J. Bernstein
+ * ({@link Dispersores#dispersaDJB(byte[])}) se calcula mientras se recorre
+ * la palabra. Al final las tablas se mezclan en un {@link Diccionario}, y
+ * sólo entonces se crea una cadena por palabra distinta de cada tabla.</p>
+ */
+public class FrecuenciasPalabras {
+
+    /* Tabla de conteo de un hilo: direccionamiento abierto con sondeo
+       lineal, con las llaves como rebanadas de un arreglo de bytes. */
+    private static class TablaRebanadas {
+
+        /* Los bytes de las llaves, una tras otra. */
+        public byte[] bytes = new byte[1 << 16];
+        /* Bytes usados. */
+        public int usados;
+        /* Por lugar: el inicio y la longitud de la llave en bytes, su
+           dispersión y su cuenta; una longitud de -1 es un lugar vacío. */
+        public int[] inicios = new int[1 << 10];
+        public int[] longitudes = nuevasLongitudes(1 << 10);
+        public int[] dispersiones = new int[1 << 10];
+        public long[] cuentas = new long[1 << 10];
+        /* Número de llaves distintas. */
+        public int elementos;
+        /* Número de palabras contadas. */
+        public long palabras;
+
+        /* Regresa un arreglo de longitudes vacío. */
+        private static int[] nuevasLongitudes(int n) {
+            int[] longitudes = new int[n];
+            Arrays.fill(longitudes, -1);
+            return longitudes;
+        }
+
+        /* Regresa el primer lugar de una dispersión. */
+        private static int lugar(int h, int mascara) {
+            return (h * 0x9E3779B9 >>> 7) & mascara;
+        }
+
+        /* Cuenta la palabra de b entre inicio y fin, cuya dispersión es
+           h. */
+        public void cuenta(ByteBuffer b, int inicio, int fin, int h) {
+            int longitud = fin - inicio;
+            int mascara = this.longitudes.length - 1;
+            int i = lugar(h, mascara);
+            while (this.longitudes[i] != -1) {
+                if (this.dispersiones[i] == h &&
+                    this.longitudes[i] == longitud &&
+                    iguales(b, inicio, this.inicios[i], longitud)) {
+                    this.cuentas[i]++;
+                    this.palabras++;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            if (this.usados + longitud > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(
+                    2 * this.bytes.length, this.usados + longitud));
+            }
+            for (int j = 0; j < longitud; j++) {
+                this.bytes[this.usados + j] = b.get(inicio + j);
+            }
+            this.inicios[i] = this.usados;
+            this.longitudes[i] = longitud;
+            this.dispersiones[i] = h;
+            this.cuentas[i] = 1;
+            this.usados += longitud;
+            this.palabras++;
+            if (++this.elementos * 2 > this.longitudes.length) {
+                crece();
+            }
+        }
+
+        /* Nos dice si los bytes de b desde inicio son los de la llave que
+           empieza en el lugar dado de los bytes de la tabla. */
+        private boolean iguales(ByteBuffer b, int inicio, int lugar,
+                                int longitud) {
+            for (int j = 0; j < longitud; j++) {
+                if (b.get(inicio + j) != this.bytes[lugar + j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /* Duplica los lugares de la tabla. */
+        private void crece() {
+            int[] inicios = this.inicios, longitudes = this.longitudes;
+            int[] dispersiones = this.dispersiones;
+            long[] cuentas = this.cuentas;
+            int n = 2 * longitudes.length, mascara = n - 1;
+            this.inicios = new int[n];
+            this.longitudes = nuevasLongitudes(n);
+            this.dispersiones = new int[n];
+            this.cuentas = new long[n];
+            for (int j = 0; j < longitudes.length; j++) {
+                if (longitudes[j] == -1) {
+                    continue;
+                }
+                int i = lugar(dispersiones[j], mascara);
+                while (this.longitudes[i] != -1) {
+                    i = (i + 1) & mascara;
+                }
+                this.inicios[i] = inicios[j];
+                this.longitudes[i] = longitudes[j];
+                this.dispersiones[i] = dispersiones[j];
+                this.cuentas[i] = cuentas[j];
+            }
+        }
+    }
+
+    /** Tamaño aproximado de los pedazos del archivo: 16 MiB. */
+    public static final int TAMANIO_PEDAZO = 1 << 24;
+
+    /* Constructor privado para evitar instanciación. */
+    private FrecuenciasPalabras() {}
+
+    /* Nos dice si un byte es un espacio en blanco de ASCII. */
+    private static boolean esEspacio(byte c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' ||
+            c == '\f' || c == 0x0B;
+    }
+
+    /* Regresa los límites de los pedazos: cada límite, salvo el primero y
+       el último, está justo después de un espacio. */
+    private static long[] limites(FileChannel canal, long tamanio,
+                                  int tamanioPedazo) throws IOException {
+        int n = (int)((tamanio + tamanioPedazo - 1) / tamanioPedazo);
+        long[] limites = new long[n + 1];
+        ByteBuffer b = ByteBuffer.allocate(1 << 12);
+        for (int i = 1; i < n; i++) {
+            long p = Math.max((long)i * tamanioPedazo, limites[i - 1]);
+            buscaEspacio:
+            while (p < tamanio) {
+                b.clear();
+                int leidos = canal.read(b, p);
+                for (int j = 0; j < leidos; j++) {
+                    if (esEspacio(b.get(j))) {
+                        p += j + 1;
+                        break buscaEspacio;
+                    }
+                }
+                p += Math.max(leidos, 0);
+            }
+            limites[i] = Math.min(p, tamanio);
+        }
+        limites[n] = tamanio;
+        return limites;
+    }
+
+    /* Cuenta las palabras de un pedazo mapeado. */
+    private static void cuentaPedazo(ByteBuffer b, TablaRebanadas tabla) {
+        int n = b.limit();
+        int i = 0;
+        while (i < n) {
+            while (i < n && esEspacio(b.get(i))) {
+                i++;
+            }
+            if (i == n) {
+                break;
+            }
+            int inicio = i;
+            int h = 5381;
+            byte c;
+            while (i < n && !esEspacio(c = b.get(i))) {
+                h = h * 33 + (c & 0xFF);
+                i++;
+            }
+            tabla.cuenta(b, inicio, i, h);
+        }
+    }
+
+    /**
+     * Cuenta las frecuencias de las palabras del archivo.
+     * @param archivo el archivo de texto.
+     * @param hilos el número de hilos.
+     * @return un diccionario con la frecuencia de cada palabra.
+     * @throws IOException si ocurre un error de entrada/salida.
+     * @throws IllegalArgumentException si el número de hilos es menor que
+     *         1.
+     */
+    public static Diccionario<String, Long> cuenta(Path archivo, int hilos)
+        throws IOException {
+        return cuenta(archivo, hilos, TAMANIO_PEDAZO);
+    }
+
+    /**
+     * Cuenta las frecuencias de las palabras del archivo, partiéndolo en
+     * pedazos de aproximadamente el tamaño dado. Si un hilo falla, los
+     * demás dejan de tomar pedazos y se lanza la primera falla, sea cual
+     * sea su tipo: nunca se regresan conteos parciales.
+     * @param archivo el archivo de texto.
+     * @param hilos el número de hilos.
+     * @param tamanioPedazo el tamaño aproximado de los pedazos, en bytes.
+     * @return un diccionario con la frecuencia de cada palabra.
+     * @throws IOException si ocurre un error de entrada/salida.
+     * @throws IllegalArgumentException si el número de hilos o el tamaño
+     *         de los pedazos es menor que 1.
+     */
+    public static Diccionario<String, Long> cuenta(Path archivo, int hilos,
+                                                   int tamanioPedazo)
+        throws IOException {
+        if (hilos < 1 || tamanioPedazo < 1) {
+            throw new IllegalArgumentException();
+        }
+        try (FileChannel canal = FileChannel.open(archivo,
+                                                  StandardOpenOption.READ)) {
+            long[] limites = limites(canal, canal.size(), tamanioPedazo);
+            TablaRebanadas[] tablas = new TablaRebanadas[hilos];
+            AtomicReference<Throwable> falla = new AtomicReference<>();
+            AtomicInteger siguiente = new AtomicInteger();
+            Thread[] ts = new Thread[hilos];
+            for (int h = 0; h < hilos; h++) {
+                final int hilo = h;
+                tablas[h] = new TablaRebanadas();
+                ts[h] = new Thread(() -> {
+                        int p;
+                        try {
+                            while ((p = siguiente.getAndIncrement()) <
+                                   limites.length - 1) {
+                                long longitud = limites[p + 1] - limites[p];
+                                if (longitud == 0) {
+                                    continue;
+                                }
+                                MappedByteBuffer b =
+                                    canal.map(FileChannel.MapMode.READ_ONLY,
+                                              limites[p], longitud);
+                                cuentaPedazo(b, tablas[hilo]);
+                            }
+                        } catch (Throwable t) {
+                            /* Nos quedamos con la primera falla, y los
+                               demás hilos ya no toman pedazos. */
+                            falla.compareAndSet(null, t);
+                            siguiente.set(limites.length);
+                        }
+                    });
+                ts[h].start();
+            }
+            for (Thread t : ts) {
+                try {
+                    t.join();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ie);
+                }
+            }
+            Throwable t = falla.get();
+            if (t instanceof IOException) {
+                throw (IOException)t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException)t;
+            }
+            if (t instanceof Error) {
+                throw (Error)t;
+            }
+            if (t != null) {
+                throw new IOException(t);
+            }
+            return mezcla(tablas);
+        }
+    }
+
+    /* Mezcla las tablas de los hilos en un diccionario. */
+    private static Diccionario<String, Long> mezcla(TablaRebanadas[] tablas) {
+        int n = 0;
+        for (TablaRebanadas t : tablas) {
+            n = Math.max(n, t.elementos);
+        }
+        Diccionario<String, Long> d = new Diccionario<String, Long>(n);
+        for (TablaRebanadas t : tablas) {
+            for (int i = 0; i < t.longitudes.length; i++) {
+                if (t.longitudes[i] != -1) {
+                    Diccionario.incrementa(d, palabra(t, i), t.cuentas[i]);
+                }
+            }
+        }
+        return d;
+    }
+
+    /* Regresa la i-ésima palabra de la tabla. */
+    private static String palabra(TablaRebanadas t, int i) {
+        return new String(t.bytes, t.inicios[i], t.longitudes[i],
+                          StandardCharsets.UTF_8);
+    }
+
+    /* Imprime el uso del programa y lo termina. */
+    private static void uso() {
+        System.err.println("Uso: java -cp practica11.jar " +
+                           "mx.unam.ciencias.edd.FrecuenciasPalabras " +
+                           "ARCHIVO [HILOS] [K]");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            uso();
+        }
+
+        int hilos = Runtime.getRuntime().availableProcessors();
+        int K = 10;
+        try {
+            if (args.length > 1) {
+                hilos = Integer.parseInt(args[1]);
+            }
+            if (args.length > 2) {
+                K = Integer.parseInt(args[2]);
+            }
+        } catch (NumberFormatException nfe) {
+            uso();
+        }
+
+        if (hilos < 1 || K < 0) {
+            uso();
+        }
+
+        NumberFormat nf = NumberFormat.getIntegerInstance();
+        Diccionario<String, Long> frecuencias = null;
+        long tiempoInicial = System.nanoTime();
+        try {
+            frecuencias = cuenta(Paths.get(args[0]), hilos);
+        } catch (IOException ioe) {
+            System.err.printf("No se pudo leer el archivo \"%s\".\n",
+                              args[0]);
+            System.exit(1);
+        }
+        long tiempoTotal = System.nanoTime() - tiempoInicial;
+
+        /* Las K palabras más frecuentes, de mayor a menor. */
+        String[] palabras = new String[K];
+        long[] cuentas = new long[K];
+        long total = 0;
+        Iterator<String> iterador = frecuencias.iteradorLlaves();
+        while (iterador.hasNext()) {
+            String palabra = iterador.next();
+            long c = frecuencias.get(palabra);
+            total += c;
+            int i = K;
+            while (i > 0 && cuentas[i - 1] < c) {
+                if (i < K) {
+                    palabras[i] = palabras[i - 1];
+                    cuentas[i] = cuentas[i - 1];
+                }
+                i--;
+            }
+            if (i < K) {
+                palabras[i] = palabra;
+                cuentas[i] = c;
+            }
+        }
+
+        System.out.printf("%2.9f segundos en contar %s palabras " +
+                          "(%s distintas) con %d hilos: %s palabras " +
+                          "por segundo.\n",
+                          (tiempoTotal/1000000000.0), nf.format(total),
+                          nf.format(frecuencias.getElementos()), hilos,
+                          nf.format((long)(total * 1000000000.0 /
+                                           tiempoTotal)));
+        for (int i = 0; i < K && palabras[i] != null; i++) {
+            System.out.printf("%12s  %s\n", nf.format(cuentas[i]),
+                              palabras[i]);
+        }
+    }
+}
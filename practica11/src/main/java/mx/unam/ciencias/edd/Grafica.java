@@ -2,6 +2,7 @@ package mx.unam.ciencias.edd;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 /**
  * Clase para gráficas. Una gráfica es un conjunto de vértices y aristas, tales
@@ -448,20 +449,19 @@ public class Grafica<T> implements Coleccion<T> {
         Iterator<T> iterador = this.vertices.iteradorLlaves();
         T elemento = iterador.next();
         Vertice v = buscaVertice(elemento);
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.ROJO;
-        }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.ROJO);
         v.color = Color.NEGRO;
         Pila<Vertice> pila = new Pila<Vertice>();
         pila.mete(v);
+        BiConsumer<T, Vecino> visita = (e, vec) -> {
+            if (vec.vecino.color == Color.ROJO) {
+                vec.vecino.color = Color.NEGRO;
+                pila.mete(vec.vecino);
+            }
+        };
         while (!(pila.esVacia())) {
             Vertice u = pila.saca();
-            for (Vecino vec : u.vecinos) {
-                if (vec.vecino.color == Color.ROJO) {
-                    vec.vecino.color = Color.NEGRO;
-                    pila.mete(vec.vecino);
-                }
-            }
+            u.vecinos.paraCada(visita);
         }
         for (Vertice vertice : vertices) {
             if (vertice.color != Color.NEGRO) {
@@ -479,9 +479,7 @@ public class Grafica<T> implements Coleccion<T> {
      * @param accion la acción a realizar.
      */
     public void paraCadaVertice(AccionVerticeGrafica<T> accion) {
-        for (Vertice vertice : vertices) {
-            accion.actua(vertice);
-        }
+        vertices.paraCada((e, vertice) -> accion.actua(vertice));
         // Aquí va su código.
     }
 
@@ -500,25 +498,22 @@ public class Grafica<T> implements Coleccion<T> {
         if (v == null) {
             throw new NoSuchElementException();
         }
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.ROJO;
-        }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.ROJO);
         Cola<Vertice> cola = new Cola<Vertice>();
         v.color = Color.NEGRO;
         cola.mete(v);
+        BiConsumer<T, Vecino> visita = (e, vec) -> {
+            if (vec.vecino.color == Color.ROJO) {
+                vec.vecino.color = Color.NEGRO;
+                cola.mete(vec.vecino);
+            }
+        };
         while (!(cola.esVacia())) {
             Vertice u = cola.saca();
             accion.actua(u);
-            for (Vecino vec : u.vecinos) {
-                if (vec.vecino.color == Color.ROJO) {
-                    vec.vecino.color = Color.NEGRO;
-                    cola.mete(vec.vecino);
-                }
-            }
-        }
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.NINGUNO;
+            u.vecinos.paraCada(visita);
         }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.NINGUNO);
         // Aquí va su código.
     }
 
@@ -537,25 +532,22 @@ public class Grafica<T> implements Coleccion<T> {
         if (v == null) {
             throw new NoSuchElementException();
         }
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.ROJO;
-        }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.ROJO);
         Pila<Vertice> pila = new Pila<Vertice>();
         v.color = Color.NEGRO;
         pila.mete(v);
+        BiConsumer<T, Vecino> visita = (e, vec) -> {
+            if (vec.vecino.color == Color.ROJO) {
+                vec.vecino.color = Color.NEGRO;
+                pila.mete(vec.vecino);
+            }
+        };
         while (!(pila.esVacia())) {
             Vertice u = pila.saca();
             accion.actua(u);
-            for (Vecino vec : u.vecinos) {
-                if (vec.vecino.color == Color.ROJO) {
-                    vec.vecino.color = Color.NEGRO;
-                    pila.mete(vec.vecino);
-                }
-            }
-        }
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.NINGUNO;
+            u.vecinos.paraCada(visita);
         }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.NINGUNO);
         // Aquí va su código.
     }
 
@@ -598,9 +590,7 @@ public class Grafica<T> implements Coleccion<T> {
             }
         }
         grafica += "}";
-        for (Vertice vertice : vertices) {
-            vertice.color = Color.NINGUNO;
-        }
+        vertices.paraCada((e, vertice) -> vertice.color = Color.NINGUNO);
         return grafica;
         // Aquí va su código.
     }
@@ -690,20 +680,22 @@ public class Grafica<T> implements Coleccion<T> {
             trayectoria.agregaFinal(verticeOrigen);
             return trayectoria;
         }
-        for (Vertice vertice : this.vertices) {
-            vertice.distancia = -1;
-        }
+        vertices.paraCada((e, vertice) -> vertice.distancia = -1);
         verticeOrigen.distancia = 0;
         Cola<Vertice> cola = new Cola<Vertice>();
         cola.mete(verticeOrigen);
+        /* La distancia del vértice actual; así la visita se crea una vez. */
+        double[] actual = new double[1];
+        BiConsumer<T, Vecino> visita = (e, v) -> {
+            if (v.vecino.distancia == -1) {
+                v.vecino.distancia = actual[0] + 1;
+                cola.mete(v.vecino);
+            }
+        };
         while (!(cola.esVacia())) {
             Vertice u = cola.saca();
-            for (Vecino v : u.vecinos) {
-                if (v.vecino.distancia == -1) {
-                    v.vecino.distancia = u.distancia + 1;
-                    cola.mete(v.vecino);
-                }
-            }
+            actual[0] = u.distancia;
+            u.vecinos.paraCada(visita);
         }
         if (verticeDestino.distancia == -1) {
             return trayectoria;
@@ -739,19 +731,22 @@ public class Grafica<T> implements Coleccion<T> {
         if (s == null || t == null) {
             throw new NoSuchElementException();
         }
-        for (Vertice vertice : vertices) {
-            vertice.distancia = -1;
-        }
+        vertices.paraCada((e, vertice) -> vertice.distancia = -1);
         s.distancia = 0;
         MonticuloMinimo<Vertice> monticulo = new MonticuloMinimo<Vertice>(vertices, vertices.getElementos());
+        /* La distancia del vértice actual; así la visita se crea una vez. */
+        double[] actual = new double[1];
+        BiConsumer<T, Vecino> visita = (e, v) -> {
+            double d = sumaDistanciaYPeso(actual[0], v.peso);
+            if (compara(v.vecino.distancia, d) > 0) {
+                v.vecino.distancia = d;
+                monticulo.reordena(v.vecino);
+            }
+        };
         while(!(monticulo.esVacia())) {
             Vertice u = monticulo.elimina();
-            for (Vecino v : u.vecinos) {
-                if (compara(v.vecino.distancia, sumaDistanciaYPeso(u.distancia, v.peso)) > 0) {
-                    v.vecino.distancia = sumaDistanciaYPeso(u.distancia, v.peso);
-                    monticulo.reordena(v.vecino);
-                }
-            }
+            actual[0] = u.distancia;
+            u.vecinos.paraCada(visita);
         }
         Lista<VerticeGrafica<T>> trayectoria = new Lista<VerticeGrafica<T>>();
         if (t.distancia == -1) {
@@ -17,8 +17,9 @@ import java.util.NoSuchElementException;
  */
 public class Lista<T> implements Coleccion<T> {
 
-    /* Clase interna privada para nodos. */
-    private class Nodo {
+    /* Clase interna para nodos; es visible en el paquete para que otras
+       estructuras recorran la lista sin crear iteradores. */
+    class Nodo {
         /* El elemento del nodo. */
         public T elemento;
         /* El nodo anterior. */
@@ -103,6 +104,11 @@ public class Lista<T> implements Coleccion<T> {
     /* Número de elementos en la lista. */
     private int longitud;
 
+    /* Regresa el primer nodo de la lista, o null si es vacía. */
+    Nodo primerNodo() {
+        return this.cabeza;
+    }
+
     /**
      * Regresa la longitud de la lista. El método es idéntico a {@link
      * #getElementos}.
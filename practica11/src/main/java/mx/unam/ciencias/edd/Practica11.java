@@ -77,6 +77,23 @@ public class Practica11 {
                           "con %s elementos.\n",
                           (tiempoTotal/1000000000.0), nf.format(N));
 
+        tiempoInicial = System.nanoTime();
+        Diccionario.desde(arreglo, arreglo);
+        tiempoTotal = System.nanoTime() - tiempoInicial;
+        System.out.printf("%2.9f segundos en construir en paralelo un " +
+                          "diccionario con %s elementos.\n",
+                          (tiempoTotal/1000000000.0), nf.format(N));
+
+        DiccionarioAbierto<Integer, Integer> abierto =
+            new DiccionarioAbierto<Integer, Integer>(N);
+        tiempoInicial = System.nanoTime();
+        for (int i = 0; i < N; i++)
+            abierto.agrega(arreglo[i], arreglo[i]);
+        tiempoTotal = System.nanoTime() - tiempoInicial;
+        System.out.printf("%2.9f segundos en llenar un diccionario " +
+                          "abierto con %s elementos.\n",
+                          (tiempoTotal/1000000000.0), nf.format(N));
+
         Conjunto<Integer> conjunto = new Conjunto<Integer>(N);
         tiempoInicial = System.nanoTime();
         for (int i = 0; i < N; i++)
@@ -113,6 +130,13 @@ public class Practica11 {
                           "diccionario con %s elementos.\n",
                           (tiempoTotal/1000000000.0), nf.format(N));
 
+        tiempoInicial = System.nanoTime();
+        abierto.contiene(b);
+        tiempoTotal = System.nanoTime() - tiempoInicial;
+        System.out.printf("%2.9f segundos en buscar en un " +
+                          "diccionario abierto con %s elementos.\n",
+                          (tiempoTotal/1000000000.0), nf.format(N));
+
         tiempoInicial = System.nanoTime();
         conjunto.contiene(b);
         tiempoTotal = System.nanoTime() - tiempoInicial;
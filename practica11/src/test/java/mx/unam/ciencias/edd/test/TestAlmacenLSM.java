@@ -0,0 +1,253 @@
+package mx.unam.ciencias.edd.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.AlmacenLSM;
+import mx.unam.ciencias.edd.Codificador;
+import mx.unam.ciencias.edd.Diccionario;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link AlmacenLSM}.
+ */
+public class TestAlmacenLSM {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Directorio temporal para los almacenes. */
+    @Rule public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El almacén. */
+    private AlmacenLSM<Integer, String> almacen;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestAlmacenLSM() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+    }
+
+    /**
+     * Cierra el almacén después de cada prueba.
+     * @throws IOException si ocurre un error al cerrar el almacén.
+     */
+    @After public void cierra() throws IOException {
+        if (almacen != null)
+            almacen.cierra();
+    }
+
+    /* Codificador de enteros. */
+    private static Codificador<Integer> enteros() {
+        return new Codificador<Integer>() {
+            @Override public byte[] codifica(Integer n) {
+                return ByteBuffer.allocate(4).putInt(n).array();
+            }
+            @Override public Integer decodifica(byte[] bytes, int inicio,
+                                                int longitud) {
+                return ByteBuffer.wrap(bytes, inicio, longitud).getInt();
+            }
+        };
+    }
+
+    /* Abre el almacén del directorio. */
+    private AlmacenLSM<Integer, String> abre(Path directorio)
+        throws IOException {
+        return new AlmacenLSM<Integer, String>(directorio, enteros(),
+                                               Codificador.cadenas(), total);
+    }
+
+    /* Verifica que el almacén tenga lo mismo que el diccionario, entre las
+       llaves de 0 a n. */
+    private void verifica(Diccionario<Integer, String> d, int n)
+        throws IOException {
+        for (int i = 0; i < n; i++) {
+            Assert.assertTrue(almacen.contiene(i) == d.contiene(i));
+            if (d.contiene(i))
+                Assert.assertTrue(almacen.get(i).equals(d.get(i)));
+        }
+    }
+
+    /* Regresa el único archivo del directorio con el prefijo. */
+    private static Path archivo(Path directorio, String prefijo)
+        throws IOException {
+        try (DirectoryStream<Path> archivos =
+             Files.newDirectoryStream(directorio, prefijo + "*")) {
+            Iterator<Path> iterador = archivos.iterator();
+            Path archivo = iterador.next();
+            Assert.assertFalse(iterador.hasNext());
+            return archivo;
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link AlmacenLSM#agrega}, {@link
+     * AlmacenLSM#elimina} y {@link AlmacenLSM#get} contra {@link
+     * Diccionario}, con varias compactaciones.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testAgrega() throws IOException {
+        almacen = abre(carpeta.newFolder().toPath());
+        Diccionario<Integer, String> d = new Diccionario<Integer, String>();
+        int n = total * 8;
+        for (int i = 0; i < total * 64; i++) {
+            int l = random.nextInt(n);
+            if (d.contiene(l) && random.nextInt(3) == 0) {
+                d.elimina(l);
+                almacen.elimina(l);
+            } else {
+                String v = String.valueOf(random.nextInt());
+                d.agrega(l, v);
+                almacen.agrega(l, v);
+            }
+        }
+        verifica(d, n);
+        almacen.esperaCompactacion();
+        Assert.assertTrue(almacen.getCompactaciones() > 0);
+        Assert.assertTrue(almacen.getCorridas() <
+                          4 * AlmacenLSM.CORRIDAS_POR_NIVEL);
+        verifica(d, n);
+        try {
+            almacen.get(-1);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            almacen.agrega(null, "a");
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Assert.assertFalse(almacen.contiene(null));
+    }
+
+    /**
+     * Prueba unitaria para cerrar y abrir de nuevo un almacén, con un
+     * registro de escritura anticipada incompleto y una corrida que ya se
+     * había mezclado.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testAbre() throws IOException {
+        Path directorio = carpeta.newFolder().toPath();
+        almacen = abre(directorio);
+        Diccionario<Integer, String> d = new Diccionario<Integer, String>();
+        int n = total * 4;
+        for (int i = 0; i < n * 4; i++) {
+            int l = random.nextInt(n);
+            String v = String.valueOf(i);
+            d.agrega(l, v);
+            almacen.agrega(l, v);
+        }
+        almacen.esperaCompactacion();
+        almacen.vuelca();
+        almacen.agrega(n, "a");
+        almacen.elimina(0);
+        almacen.elimina(n);
+        d.agrega(n, "a");
+        d.elimina(n);
+        if (d.contiene(0))
+            d.elimina(0);
+        almacen.cierra();
+        /* Un registro a medias al final de la bitácora. */
+        Files.write(archivo(directorio, "bitacora-"), new byte[] { 0, 0, 0 },
+                    StandardOpenOption.APPEND);
+        almacen = abre(directorio);
+        verifica(d, n + 1);
+        almacen.esperaCompactacion();
+        almacen.cierra();
+
+        /* Una copia de las primeras corridas ya mezcladas. */
+        int corridas = 0;
+        try (DirectoryStream<Path> archivos =
+             Files.newDirectoryStream(directorio, "corrida-*")) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                corridas++;
+                if (nombre.substring(8, 24).equals(nombre.substring(25, 41)))
+                    continue;
+                Files.copy(archivo, archivo.resolveSibling(
+                               nombre.substring(0, 25) +
+                               nombre.substring(8, 24) + ".lsm"));
+            }
+        }
+        almacen = abre(directorio);
+        verifica(d, n + 1);
+        Assert.assertTrue(almacen.getCorridas() <= corridas);
+    }
+
+    /**
+     * Prueba unitaria para {@link AlmacenLSM#esperaCompactacion} cuando el
+     * codificador lanza una excepción no verificada al compactar (sólo en
+     * el hilo de la compactación, no al volcar la memoria).
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testFallaCompactacion() throws IOException {
+        Thread principal = Thread.currentThread();
+        Codificador<Integer> enteros = enteros();
+        Codificador<Integer> fragil = new Codificador<Integer>() {
+            @Override public byte[] codifica(Integer n) {
+                return enteros.codifica(n);
+            }
+            @Override public Integer decodifica(byte[] bytes, int inicio,
+                                                int longitud) {
+                if (Thread.currentThread() != principal)
+                    throw new IllegalStateException("roto");
+                return enteros.decodifica(bytes, inicio, longitud);
+            }
+        };
+        almacen = new AlmacenLSM<Integer, String>(carpeta.newFolder().toPath(),
+                                                  fragil,
+                                                  Codificador.cadenas(),
+                                                  total);
+        try {
+            for (int i = 0; i < total * (AlmacenLSM.CORRIDAS_POR_NIVEL + 1);
+                 i++)
+                almacen.agrega(i, "v");
+            almacen.esperaCompactacion();
+            Assert.fail();
+        } catch (IOException ioe) {
+            Assert.assertTrue(ioe.getCause() instanceof IllegalStateException);
+        }
+        try {
+            almacen.agrega(0, "v");
+            Assert.fail();
+        } catch (IOException ioe) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link AlmacenLSM#amplificacionLectura}.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testAmplificacion() throws IOException {
+        almacen = abre(carpeta.newFolder().toPath());
+        int n = total * 32;
+        for (int i = 0; i < n; i++)
+            almacen.agrega(2 * i, "v");
+        almacen.vuelca();
+        almacen.esperaCompactacion();
+        Assert.assertTrue(almacen.amplificacionLectura() == 0.0);
+        for (int i = 0; i < n; i++)
+            Assert.assertFalse(almacen.contiene(2 * i + 1));
+        /* Con 10 bits por llave, los falsos positivos son alrededor del 1%
+           por corrida. */
+        Assert.assertTrue(almacen.amplificacionLectura() < 0.2);
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(almacen.contiene(2 * i));
+        Assert.assertTrue(almacen.amplificacionLectura() < 0.7);
+    }
+}
@@ -64,6 +64,26 @@ public class TestConjunto {
         Assert.assertFalse(conjunto.contiene(ini+total));
     }
 
+    /**
+     * Prueba unitaria para {@link Conjunto#desde}.
+     */
+    @Test public void testDesde() {
+        Integer[] a = new Integer[total * 2];
+        for (int i = 0; i < a.length; i++)
+            a[i] = i % total;
+        conjunto = Conjunto.desde(a);
+        Assert.assertTrue(conjunto.getElementos() == total);
+        for (int i = 0; i < total * 2; i++)
+            Assert.assertTrue(conjunto.contiene(i) == (i < total));
+        conjunto.elimina(0);
+        Assert.assertFalse(conjunto.contiene(0));
+        a[random.nextInt(a.length)] = null;
+        try {
+            Conjunto.desde(a);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
     /**
      * Prueba unitaria para {@link Conjunto#contiene}.
      */
@@ -1,10 +1,13 @@
 package mx.unam.ciencias.edd.test;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import mx.unam.ciencias.edd.AlgoritmoDispersor;
 import mx.unam.ciencias.edd.Arreglos;
+import mx.unam.ciencias.edd.CursorDiccionario;
 import mx.unam.ciencias.edd.Diccionario;
 import mx.unam.ciencias.edd.Dispersor;
 import mx.unam.ciencias.edd.FabricaDispersores;
@@ -106,6 +109,236 @@ public class TestDiccionario {
         } catch (IllegalArgumentException iae) {}
     }
 
+    /**
+     * Prueba unitaria para {@link Diccionario#setIncremental}; verifica que
+     * las llaves se encuentren mientras el diccionario migra cubetas.
+     */
+    @Test public void testIncremental() {
+        Assert.assertFalse(diccionario.esIncremental());
+        diccionario.setIncremental(true);
+        Assert.assertTrue(diccionario.esIncremental());
+        int ini = random.nextInt(10000);
+        String[] arreglo = new String[total * 8];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = String.format("%x", ini + i * 1000);
+            diccionario.agrega(arreglo[i], arreglo[i]);
+            Assert.assertTrue(diccionario.getElementos() == i+1);
+            Assert.assertTrue(diccionario.carga() < Diccionario.MAXIMA_CARGA);
+            for (int j = Math.max(0, i - 8); j <= i; j++)
+                Assert.assertTrue(diccionario.get(arreglo[j]).equals(arreglo[j]));
+            if (i % 3 == 0) {
+                diccionario.elimina(arreglo[i]);
+                Assert.assertFalse(diccionario.contiene(arreglo[i]));
+                diccionario.agrega(arreglo[i], arreglo[i]);
+            }
+        }
+        for (String s : arreglo)
+            Assert.assertTrue(diccionario.contiene(s));
+        int c = 0;
+        for (String s : diccionario)
+            c++;
+        Assert.assertTrue(c == arreglo.length);
+        diccionario.setIncremental(false);
+        for (String s : arreglo)
+            diccionario.elimina(s);
+        Assert.assertTrue(diccionario.esVacia());
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#setUmbralArbol}, con llaves
+     * comparables que caen todas en la misma cubeta.
+     */
+    @Test public void testArbol() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(total, l -> 7);
+        Assert.assertTrue(d.getUmbralArbol() == 8);
+        int n = total * 4;
+        for (int i = 0; i < n; i++) {
+            d.agrega(i, i);
+            Assert.assertTrue(d.colisionMaxima() == i);
+        }
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.get(i) == i);
+        Assert.assertFalse(d.contiene(n));
+        int c = 0;
+        for (Integer v : d)
+            c++;
+        Assert.assertTrue(c == n);
+        for (int i = 0; i < n; i += 2)
+            d.elimina(i);
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.contiene(i) == (i % 2 == 1));
+        /* Al bajar del umbral la cubeta vuelve a ser lista. */
+        for (int i = 1; i < n; i += 2)
+            d.elimina(i);
+        Assert.assertTrue(d.esVacia());
+        try {
+            d.elimina(0);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        d.agrega(1, 1);
+        Assert.assertTrue(d.get(1) == 1);
+        try {
+            d.setUmbralArbol(0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para cubetas árbol con llaves que no son comparables,
+     * con la misma dispersión, y creciendo de manera incremental.
+     */
+    @Test public void testArbolNoComparable() {
+        Diccionario<List<Integer>, Integer> d =
+            new Diccionario<List<Integer>, Integer>(l -> l.get(0) >>> 5);
+        d.setIncremental(true);
+        d.setUmbralArbol(4);
+        int n = total * 16;
+        for (int i = 0; i < n; i++) {
+            d.agrega(Arrays.asList(i), i);
+            Assert.assertTrue(d.get(Arrays.asList(i)) == i);
+        }
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.get(Arrays.asList(i)) == i);
+        Assert.assertTrue(d.colisionMaxima() == 31);
+        for (int i = 0; i < n; i += 3)
+            d.elimina(Arrays.asList(i));
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.contiene(Arrays.asList(i)) == (i % 3 != 0));
+        d.agrega(Arrays.asList(1), -1);
+        Assert.assertTrue(d.get(Arrays.asList(1)) == -1);
+    }
+
+    /**
+     * Prueba unitaria para cubetas árbol con llaves comparables de clases
+     * distintas y con la misma dispersión.
+     */
+    @Test public void testArbolClasesMezcladas() {
+        Random random = new Random();
+        for (int t = 0; t < 200; t++) {
+            Diccionario<Object, Integer> d =
+                new Diccionario<Object, Integer>(l -> 7);
+            d.setUmbralArbol(4);
+            Object[] llaves = new Object[60];
+            for (int i = 0; i < llaves.length; i++) {
+                do {
+                    int k = random.nextInt(1000);
+                    llaves[i] = random.nextBoolean() ? (Object)k :
+                        (Object)String.valueOf(k);
+                } while (d.contiene(llaves[i]));
+                d.agrega(llaves[i], i);
+            }
+            for (Object llave : llaves)
+                Assert.assertTrue(d.contiene(llave));
+            for (int i = 0; i < llaves.length; i += 2)
+                d.elimina(llaves[i]);
+            for (int i = 0; i < llaves.length; i++)
+                Assert.assertTrue(d.contiene(llaves[i]) == (i % 2 == 1));
+        }
+        /* Con el dispersor predeterminado, 97 y "a" chocan. */
+        Diccionario<Object, Integer> d = new Diccionario<Object, Integer>();
+        d.setUmbralArbol(1);
+        d.agrega(97, 1);
+        d.agrega("a", 2);
+        d.agrega(97 + 64 * 1024, 3);
+        Assert.assertTrue(d.get(97) == 1);
+        Assert.assertTrue(d.get("a") == 2);
+    }
+
+    /**
+     * Prueba unitaria para verificar que al crecer, de golpe o de manera
+     * incremental, el diccionario no vuelve a llamar al dispersor, y que las
+     * cubetas árbol se dividen bien.
+     */
+    @Test public void testDispersionGuardada() {
+        for (boolean incremental : new boolean[] { false, true }) {
+            int[] llamadas = new int[1];
+            Diccionario<Integer, Integer> d =
+                new Diccionario<Integer, Integer>(l -> {
+                        llamadas[0]++;
+                        return l * 64;
+                    });
+            d.setIncremental(incremental);
+            int n = total * 16;
+            for (int i = 0; i < n; i++)
+                d.agrega(i, i);
+            Assert.assertTrue(llamadas[0] == n);
+            Assert.assertTrue(d.estadisticas().getCrecimientos() > 0);
+            int c = 0;
+            for (Integer v : d)
+                c++;
+            Assert.assertTrue(c == n);
+            Assert.assertTrue(llamadas[0] == n);
+            for (int i = 0; i < n; i++)
+                Assert.assertTrue(d.get(i) == i);
+            int[] h = d.estadisticas().getHistograma();
+            int elementos = 0;
+            for (int l = 0; l < h.length; l++)
+                elementos += l * h[l];
+            Assert.assertTrue(elementos == n);
+            Assert.assertTrue(d.colisionMaxima() == h.length - 2);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#desde}: debe dar el mismo
+     * diccionario que agregar las llaves en orden, con llaves repetidas y
+     * suficientes llaves para repartirlas en varios pedazos.
+     */
+    @Test public void testDesde() {
+        int n = 50000 + random.nextInt(total);
+        Integer[] llaves = new Integer[n];
+        Integer[] valores = new Integer[n];
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(n);
+        for (int i = 0; i < n; i++) {
+            llaves[i] = random.nextInt(n);
+            valores[i] = i;
+            d.agrega(llaves[i], valores[i]);
+        }
+        Diccionario<Integer, Integer> p = Diccionario.desde(llaves, valores);
+        Assert.assertTrue(p.equals(d));
+        Assert.assertTrue(p.getElementos() == d.getElementos());
+        Assert.assertTrue(p.carga() == d.carga());
+        Iterator<Integer> i1 = p.iteradorLlaves();
+        Iterator<Integer> i2 = d.iteradorLlaves();
+        while (i2.hasNext())
+            Assert.assertTrue(i1.next().equals(i2.next()));
+        Assert.assertFalse(i1.hasNext());
+        Assert.assertTrue(p.colisiones() == d.colisiones());
+        Assert.assertTrue(p.colisionMaxima() == d.colisionMaxima());
+        Assert.assertArrayEquals(d.estadisticas().getHistograma(),
+                                 p.estadisticas().getHistograma());
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(p.get(llaves[i]).equals(d.get(llaves[i])));
+        p.agrega(-1, -1);
+        Assert.assertTrue(p.get(-1) == -1);
+
+        /* Con todas las llaves en la misma cubeta, la cubeta es árbol. */
+        Integer[] mismas = new Integer[total];
+        for (int i = 0; i < total; i++)
+            mismas[i] = i;
+        p = Diccionario.desde(mismas, mismas, l -> 7);
+        Assert.assertTrue(p.colisionMaxima() == total - 1);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(p.get(i) == i);
+        for (int i = 0; i < total; i++)
+            p.elimina(i);
+        Assert.assertTrue(p.esVacia());
+
+        Assert.assertTrue(Diccionario.desde(new Integer[0],
+                                            new Integer[0]).esVacia());
+        try {
+            Diccionario.desde(new Integer[2], new Integer[1]);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        valores[random.nextInt(n)] = null;
+        try {
+            Diccionario.desde(llaves, valores);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
     /**
      * Prueba unitaria para {@link Diccionario#get}.
      */
@@ -141,6 +374,134 @@ public class TestDiccionario {
         Assert.assertFalse(diccionario.contiene("00000"));
     }
 
+    /**
+     * Prueba unitaria para {@link Diccionario#getTodos} y {@link
+     * Diccionario#contieneTodos}, con cubetas que son listas, árboles, y
+     * durante una migración.
+     */
+    @Test public void testGetTodos() {
+        Diccionario<Integer, Integer> d = new Diccionario<Integer, Integer>();
+        Diccionario<Integer, Integer> m =
+            new Diccionario<Integer, Integer>(l -> l % 3);
+        d.setIncremental(true);
+        int n = total * 64;
+        Integer[] llaves = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            llaves[i] = random.nextInt(2 * n);
+            if (random.nextBoolean()) {
+                d.agrega(llaves[i], -llaves[i]);
+                m.agrega(llaves[i], -llaves[i]);
+            }
+        }
+        for (Diccionario<Integer, Integer> p : Arrays.asList(d, m)) {
+            Integer[] valores = new Integer[n + 1];
+            boolean[] presentes = new boolean[n];
+            p.getTodos(llaves, valores);
+            p.contieneTodos(llaves, presentes);
+            for (int i = 0; i < n; i++) {
+                Assert.assertTrue(presentes[i] == p.contiene(llaves[i]));
+                if (presentes[i])
+                    Assert.assertTrue(valores[i] == -llaves[i]);
+                else
+                    Assert.assertTrue(valores[i] == null);
+            }
+        }
+        Integer[] conNula = { 1, null, 2 };
+        boolean[] presentes = new boolean[3];
+        d.contieneTodos(conNula, presentes);
+        Assert.assertFalse(presentes[1]);
+        try {
+            d.getTodos(conNula, new Integer[3]);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            d.contieneTodos(llaves, new boolean[n - 1]);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#calculaSiAusente} y {@link
+     * Diccionario#calculaSiPresente}.
+     */
+    @Test public void testCalcula() {
+        int[] llamadas = { 0 };
+        for (int i = 0; i < total; i++) {
+            String s = String.valueOf(i);
+            String v = diccionario.calculaSiAusente(s, l -> {
+                    llamadas[0]++;
+                    return l + l;
+                });
+            Assert.assertTrue(v.equals(s + s));
+            v = diccionario.calculaSiAusente(s, l -> "x");
+            Assert.assertTrue(v.equals(s + s));
+        }
+        Assert.assertTrue(llamadas[0] == total);
+        Assert.assertTrue(diccionario.getElementos() == total);
+        Assert.assertTrue(diccionario.calculaSiAusente("a", l -> null) == null);
+        Assert.assertFalse(diccionario.contiene("a"));
+        Assert.assertTrue(diccionario.calculaSiPresente("a", (l, v) -> v) ==
+                          null);
+        Assert.assertFalse(diccionario.contiene("a"));
+        for (int i = 0; i < total; i++) {
+            String s = String.valueOf(i);
+            boolean par = i % 2 == 0;
+            String v = diccionario.calculaSiPresente(s, (l, w) ->
+                                                     par ? null : l);
+            Assert.assertTrue(i % 2 == 0 ? v == null : v.equals(s));
+            Assert.assertTrue(diccionario.contiene(s) == (i % 2 == 1));
+        }
+        Assert.assertTrue(diccionario.getElementos() == total / 2);
+        try {
+            diccionario.calculaSiAusente(null, l -> l);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            diccionario.calculaSiPresente(null, (l, v) -> v);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#fusiona} y {@link
+     * Diccionario#incrementa}, contra contar con {@link Diccionario#get} y
+     * {@link Diccionario#agrega}; con cubetas que son listas, árboles, y
+     * durante una migración.
+     */
+    @Test public void testFusiona() {
+        Diccionario<Integer, Long> c = new Diccionario<Integer, Long>();
+        Diccionario<Integer, Long> f = new Diccionario<Integer, Long>();
+        Diccionario<Integer, Long> a =
+            new Diccionario<Integer, Long>(l -> l % 5);
+        f.setIncremental(true);
+        for (int i = 0; i < total * 64; i++) {
+            int l = random.nextInt(total * 8);
+            long n = c.contiene(l) ? c.get(l) + 1 : 1;
+            c.agrega(l, n);
+            Assert.assertTrue(f.fusiona(l, 1L, Long::sum) == n);
+            Assert.assertTrue(Diccionario.incrementa(a, l, 1) == n);
+        }
+        Assert.assertTrue(c.equals(f));
+        Assert.assertTrue(c.equals(a));
+        Iterator<Integer> iterador = c.iteradorLlaves();
+        while (iterador.hasNext()) {
+            Integer l = iterador.next();
+            Assert.assertTrue(f.fusiona(l, 0L, (x, y) -> null) == null);
+            Assert.assertTrue(Diccionario.incrementa(a, l, -c.get(l)) == 0);
+        }
+        Assert.assertTrue(f.esVacia());
+        Assert.assertTrue(a.getElementos() == c.getElementos());
+        try {
+            f.fusiona(1, null, Long::sum);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Iterator<Long> valores = a.iterator();
+        while (valores.hasNext()) {
+            Object v = valores.next();
+            Assert.assertTrue(v.getClass() == Long.class);
+        }
+    }
+
     /**
      * Prueba unitaria para {@link Diccionario#elimina}.
      */
@@ -421,4 +782,164 @@ public class TestDiccionario {
             c++;
         Assert.assertTrue(c == 0);
     }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#cursor}, con cubetas que son
+     * listas y cubetas que son árboles.
+     */
+    @Test public void testCursor() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l % 5);
+        d.setUmbralArbol(4);
+        for (int i = 0; i < total; i++)
+            d.agrega(i, i);
+        CursorDiccionario<Integer, Integer> cursor = d.cursor();
+        try {
+            cursor.llave();
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        boolean[] vistos = new boolean[total];
+        int c = 0;
+        while (cursor.avanza()) {
+            int l = cursor.llave();
+            Assert.assertTrue(cursor.valor() == l);
+            Assert.assertFalse(vistos[l]);
+            vistos[l] = true;
+            cursor.setValor(-l);
+            c++;
+        }
+        Assert.assertTrue(c == total);
+        Assert.assertFalse(cursor.avanza());
+        try {
+            cursor.valor();
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        /* Elimina los pares mientras recorre; los árboles se reducen hasta
+           volverse listas. */
+        cursor.reinicia();
+        c = 0;
+        while (cursor.avanza()) {
+            int l = cursor.llave();
+            Assert.assertTrue(cursor.valor() == -l);
+            try {
+                cursor.setValor(null);
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {}
+            if (l % 2 == 0) {
+                cursor.elimina();
+                try {
+                    cursor.elimina();
+                    Assert.fail();
+                } catch (NoSuchElementException nsee) {}
+            }
+            c++;
+        }
+        Assert.assertTrue(c == total);
+        Assert.assertTrue(d.getElementos() == total / 2);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(d.contiene(i) == (i % 2 == 1));
+        cursor.reinicia();
+        while (cursor.avanza())
+            cursor.elimina();
+        Assert.assertTrue(d.esVacia());
+        cursor.reinicia();
+        Assert.assertFalse(cursor.avanza());
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#paraCada}.
+     */
+    @Test public void testParaCada() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l % 7);
+        d.setUmbralArbol(4);
+        for (int i = 0; i < total; i++) {
+            diccionario.agrega(String.valueOf(i), String.valueOf(-i));
+            d.agrega(i, 2 * i);
+        }
+        long[] suma = new long[1];
+        d.paraCada((l, v) -> {
+                Assert.assertTrue(v == 2 * l);
+                suma[0] += l;
+            });
+        Assert.assertTrue(suma[0] == (long)total * (total - 1) / 2);
+        Lista<String> lista = new Lista<String>();
+        diccionario.paraCada((l, v) -> {
+                Assert.assertTrue(v.equals("-" + l) || l.equals("0"));
+                lista.agrega(l);
+            });
+        Assert.assertTrue(lista.getLongitud() == total);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(lista.contiene(String.valueOf(i)));
+        new Diccionario<String, String>().paraCada((l, v) -> Assert.fail());
+    }
+
+    /* Regresa un diccionario incremental que acaba de crecer, con la
+       migración recién empezada y cubetas lista y árbol. */
+    private Diccionario<Integer, Integer> migrando() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l >>> 2);
+        d.setIncremental(true);
+        d.setUmbralArbol(2);
+        for (int i = 0; d.estadisticas().getCrecimientos() < 3; i++)
+            d.agrega(i, i);
+        return d;
+    }
+
+    /* Recorre las llaves con el iterador, buscando una llave al azar
+       después de cada una si se pide, y verifica que cada llave aparezca
+       exactamente una vez. */
+    private void recorre(Diccionario<Integer, Integer> d, boolean busca) {
+        int n = d.getElementos();
+        boolean[] vistas = new boolean[n];
+        Iterator<Integer> iterador = d.iteradorLlaves();
+        int c = 0;
+        while (iterador.hasNext()) {
+            int l = iterador.next();
+            Assert.assertFalse(vistas[l]);
+            vistas[l] = true;
+            c++;
+            if (busca)
+                Assert.assertTrue(d.get(random.nextInt(n)) != null);
+        }
+        Assert.assertTrue(c == n);
+    }
+
+    /**
+     * Prueba unitaria para los recorridos durante una migración
+     * incremental: no la terminan, y ven cada entrada una vez aunque se
+     * busque a la mitad del recorrido.
+     */
+    @Test public void testRecorridosDuranteMigracion() {
+        Diccionario<Integer, Integer> d = migrando();
+        int n = d.getElementos();
+        long tiempo = d.estadisticas().getTiempoCrecimiento();
+        recorre(d, false);
+        int[] cuenta = new int[1];
+        d.paraCada((l, v) -> cuenta[0]++);
+        Assert.assertTrue(cuenta[0] == n);
+        String s = d.toString();
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(s.contains("'" + i + "': '" + i + "'"));
+        Assert.assertTrue(d.estadisticas().getTiempoCrecimiento() == tiempo);
+        recorre(d, true);
+        Diccionario<Integer, Integer> e = migrando();
+        int[] vistas = new int[n];
+        e.paraCada((l, v) -> {
+                vistas[l]++;
+                e.contiene(random.nextInt(n));
+            });
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(vistas[i] == 1);
+        d = migrando();
+        CursorDiccionario<Integer, Integer> cursor = d.cursor();
+        while (cursor.avanza()) {
+            if (cursor.llave() % 2 == 0)
+                cursor.elimina();
+            d.contiene(random.nextInt(n));
+        }
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.contiene(i) == (i % 2 == 1));
+        Assert.assertTrue(d.getElementos() == n / 2);
+    }
 }
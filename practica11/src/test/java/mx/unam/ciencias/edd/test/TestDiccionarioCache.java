@@ -0,0 +1,211 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mx.unam.ciencias.edd.DiccionarioCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioCache}.
+ */
+public class TestDiccionarioCache {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* El peso máximo. */
+    private int total;
+    /* El tiempo del reloj de las pruebas. */
+    private long tiempo;
+
+    /**
+     * Crea un generador de números aleatorios para cada prueba.
+     */
+    public TestDiccionarioCache() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+    }
+
+    /* Crea un caché con el reloj de las pruebas. */
+    private DiccionarioCache<Integer, String>
+    cache(DiccionarioCache.Politica politica) {
+        return new DiccionarioCache<Integer, String>(total, politica,
+                                                     (l, v) -> 1,
+                                                     () -> tiempo);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCache#DiccionarioCache}.
+     */
+    @Test public void testConstructor() {
+        DiccionarioCache<Integer, String> cache =
+            new DiccionarioCache<Integer, String>(total);
+        Assert.assertTrue(cache.esVacia());
+        Assert.assertTrue(cache.getPeso() == 0);
+        Assert.assertTrue(cache.getPesoMaximo() == total);
+        Assert.assertTrue(cache.getPolitica() == DiccionarioCache.Politica.LRU);
+        Assert.assertTrue(cache.tasaAciertos() == 0.0);
+        try {
+            new DiccionarioCache<Integer, String>(0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCache#agrega} y {@link
+     * DiccionarioCache#get} con ambas políticas.
+     */
+    @Test public void testAgrega() {
+        for (DiccionarioCache.Politica p :
+                 DiccionarioCache.Politica.values()) {
+            DiccionarioCache<Integer, String> cache = cache(p);
+            for (int i = 0; i < total * 4; i++) {
+                cache.agrega(i, String.valueOf(i));
+                Assert.assertTrue(cache.getPeso() <= total);
+                Assert.assertTrue(cache.getElementos() == cache.getPeso());
+            }
+            Assert.assertTrue(cache.getElementos() == total);
+            Assert.assertTrue(cache.getDesalojos() == total * 3);
+            for (int i = 0; i < total * 4; i++) {
+                String s = cache.get(i);
+                Assert.assertTrue(s == null || s.equals(String.valueOf(i)));
+            }
+            Assert.assertTrue(cache.getAciertos() + cache.getFallos() ==
+                              total * 4);
+            try {
+                cache.agrega(null, "a");
+                Assert.fail();
+            } catch (IllegalArgumentException iae) {}
+        }
+    }
+
+    /**
+     * Prueba unitaria para el orden de desalojo de la política LRU.
+     */
+    @Test public void testLRU() {
+        DiccionarioCache<Integer, String> cache =
+            cache(DiccionarioCache.Politica.LRU);
+        for (int i = 0; i < total; i++)
+            cache.agrega(i, String.valueOf(i));
+        /* Usamos la primera mitad; se debe desalojar la segunda. */
+        for (int i = 0; i < total / 2; i++)
+            Assert.assertTrue(cache.get(i).equals(String.valueOf(i)));
+        for (int i = total; i < total + total / 2; i++)
+            cache.agrega(i, String.valueOf(i));
+        for (int i = 0; i < total / 2; i++)
+            Assert.assertTrue(cache.contiene(i));
+        for (int i = total / 2; i < total; i++)
+            Assert.assertTrue(cache.contiene(i) == (i >= total / 2 * 2));
+        Assert.assertTrue(cache.getAciertos() == total / 2);
+    }
+
+    /**
+     * Prueba unitaria para la política W-TinyLFU: un recorrido de llaves que
+     * nunca se repiten, intercalado con las llaves frecuentes, no debe
+     * desalojar a las llaves frecuentes.
+     */
+    @Test public void testTinyLFU() {
+        DiccionarioCache<Integer, String> cache =
+            cache(DiccionarioCache.Politica.W_TINY_LFU);
+        int frecuentes = total / 2;
+        for (int r = 0; r < 4; r++)
+            for (int i = 0; i < frecuentes; i++)
+                cache.get(i, l -> String.valueOf(l));
+        for (int i = total; i < total * 20; i++) {
+            cache.get(i, l -> String.valueOf(l));
+            cache.get(i % frecuentes, l -> String.valueOf(l));
+        }
+        for (int i = 0; i < frecuentes; i++)
+            Assert.assertTrue(cache.contiene(i));
+        Assert.assertTrue(cache.getPeso() <= total);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCache#get(Object,
+     * java.util.function.Function)}.
+     */
+    @Test public void testGetCalculadora() {
+        DiccionarioCache<Integer, String> cache =
+            cache(DiccionarioCache.Politica.W_TINY_LFU);
+        int[] llamadas = new int[1];
+        for (int r = 0; r < 3; r++)
+            Assert.assertTrue(cache.get(7, l -> {
+                        llamadas[0]++;
+                        return "siete";
+                    }).equals("siete"));
+        Assert.assertTrue(llamadas[0] == 1);
+        Assert.assertTrue(cache.getFallos() == 1);
+        Assert.assertTrue(cache.getAciertos() == 2);
+        Assert.assertTrue(Math.abs(cache.tasaAciertos() - 2.0 / 3) < 1e-9);
+    }
+
+    /**
+     * Prueba unitaria para los tiempos de vida.
+     */
+    @Test public void testVida() {
+        DiccionarioCache<Integer, String> cache =
+            cache(DiccionarioCache.Politica.LRU);
+        tiempo = random.nextLong();
+        cache.agrega(1, "uno", 10, TimeUnit.SECONDS);
+        cache.agrega(2, "dos");
+        tiempo += TimeUnit.SECONDS.toNanos(9);
+        Assert.assertTrue(cache.get(1).equals("uno"));
+        tiempo += TimeUnit.SECONDS.toNanos(1);
+        Assert.assertFalse(cache.contiene(1));
+        Assert.assertTrue(cache.get(1) == null);
+        Assert.assertTrue(cache.getExpiraciones() == 1);
+        Assert.assertTrue(cache.getElementos() == 1);
+        tiempo += TimeUnit.DAYS.toNanos(1000);
+        Assert.assertTrue(cache.get(2).equals("dos"));
+    }
+
+    /**
+     * Prueba unitaria para pesos distintos de 1.
+     */
+    @Test public void testPesos() {
+        DiccionarioCache<Integer, String> cache =
+            new DiccionarioCache<Integer, String>(
+                100, DiccionarioCache.Politica.LRU, (l, v) -> v.length());
+        cache.agrega(1, "0123456789");
+        cache.agrega(2, new String(new char[80]));
+        Assert.assertTrue(cache.getPeso() == 90);
+        cache.agrega(3, "01234567890123456789");
+        Assert.assertTrue(cache.getPeso() == 100);
+        Assert.assertFalse(cache.contiene(1));
+        cache.agrega(4, new String(new char[101]));
+        Assert.assertFalse(cache.contiene(4));
+        Assert.assertTrue(cache.getDesalojos() == 2);
+        cache.agrega(3, "0");
+        Assert.assertTrue(cache.getPeso() == 81);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCache#elimina} y {@link
+     * DiccionarioCache#limpia}.
+     */
+    @Test public void testElimina() {
+        DiccionarioCache<Integer, String> cache =
+            cache(DiccionarioCache.Politica.W_TINY_LFU);
+        for (int i = 0; i < total; i++)
+            cache.agrega(i, String.valueOf(i));
+        cache.elimina(0);
+        Assert.assertFalse(cache.contiene(0));
+        Assert.assertTrue(cache.getPeso() == total - 1);
+        try {
+            cache.elimina(0);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        cache.limpia();
+        Assert.assertTrue(cache.esVacia());
+        Assert.assertTrue(cache.getPeso() == 0);
+        cache.agrega(0, "0");
+        Assert.assertTrue(cache.get(0).equals("0"));
+    }
+}
@@ -0,0 +1,188 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.DiccionarioCompacto;
+import mx.unam.ciencias.edd.Lista;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioCompacto}.
+ */
+public class TestDiccionarioCompacto {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private DiccionarioCompacto<Integer, Integer> diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba.
+     */
+    public TestDiccionarioCompacto() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        diccionario = new DiccionarioCompacto<Integer, Integer>();
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCompacto#agrega} y {@link
+     * DiccionarioCompacto#elimina} contra {@link Diccionario}, pasando por
+     * los tres tamaños de índices.
+     */
+    @Test public void testAgrega() {
+        Diccionario<Integer, Integer> d = new Diccionario<Integer, Integer>();
+        for (int r = 0; r < 3; r++) {
+            /* Primero muchas inserciones, luego muchas eliminaciones. */
+            for (int i = 0; i < total * 1024; i++) {
+                int l = random.nextInt(total * 1024);
+                if (d.contiene(l) && (r == 1 || random.nextInt(4) == 0)) {
+                    d.elimina(l);
+                    diccionario.elimina(l);
+                } else if (r != 1) {
+                    d.agrega(l, i);
+                    diccionario.agrega(l, i);
+                }
+                Assert.assertTrue(diccionario.getElementos() ==
+                                  d.getElementos());
+            }
+            int c = 0;
+            Iterator<Integer> iterador = diccionario.iteradorLlaves();
+            while (iterador.hasNext()) {
+                Integer l = iterador.next();
+                Assert.assertTrue(diccionario.get(l).equals(d.get(l)));
+                c++;
+            }
+            Assert.assertTrue(c == d.getElementos());
+        }
+        try {
+            diccionario.agrega(null, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para el orden de inserción.
+     */
+    @Test public void testOrden() {
+        Lista<Integer> orden = new Lista<Integer>();
+        for (int i = 0; i < total; i++) {
+            int l = random.nextInt(total * 4);
+            if (!diccionario.contiene(l))
+                orden.agregaFinal(l);
+            diccionario.agrega(l, l);
+        }
+        for (int i = 0; i < total / 2; i++) {
+            Integer l = orden.get(random.nextInt(orden.getLongitud()));
+            orden.elimina(l);
+            diccionario.elimina(l);
+        }
+        /* Reemplazar un valor no cambia su posición. */
+        diccionario.agrega(orden.getPrimero(), -1);
+        Iterator<Integer> iterador = diccionario.iteradorLlaves();
+        for (Integer l : orden)
+            Assert.assertTrue(iterador.next().equals(l));
+        Assert.assertFalse(iterador.hasNext());
+        Assert.assertTrue(diccionario.iterator().next() == -1);
+    }
+
+    /**
+     * Prueba unitaria para encoger al eliminar, y para {@link
+     * DiccionarioCompacto#limpia}.
+     */
+    @Test public void testEncoge() {
+        int n = total * 256;
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(i, i);
+        int cubetas = diccionario.getCubetas();
+        Assert.assertTrue(cubetas >= n);
+        for (int i = 0; i < n - total; i++) {
+            diccionario.elimina(i);
+            Assert.assertTrue(diccionario.carga() >=
+                              DiccionarioCompacto.MINIMA_CARGA);
+        }
+        Assert.assertTrue(diccionario.getCubetas() <= 10 * total);
+        for (int i = n - total; i < n; i++)
+            Assert.assertTrue(diccionario.get(i) == i);
+        Iterator<Integer> iterador = diccionario.iterator();
+        for (int i = n - total; i < n; i++)
+            Assert.assertTrue(iterador.next() == i);
+        diccionario.limpia();
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getCubetas() < cubetas);
+        /* No encoge por debajo de la capacidad inicial. */
+        DiccionarioCompacto<Integer, Integer> d =
+            new DiccionarioCompacto<Integer, Integer>(n);
+        cubetas = d.getCubetas();
+        for (int i = 0; i < n; i++)
+            d.agrega(i, i);
+        Assert.assertTrue(d.getCubetas() == cubetas);
+        for (int i = 0; i < n; i++)
+            d.elimina(i);
+        Assert.assertTrue(d.getCubetas() == cubetas);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCompacto#get} y {@link
+     * DiccionarioCompacto#contiene}, con todas las llaves en el mismo lugar.
+     */
+    @Test public void testGet() {
+        DiccionarioCompacto<Integer, Integer> d =
+            new DiccionarioCompacto<Integer, Integer>(l -> 7);
+        for (int i = 0; i < total; i++)
+            d.agrega(i, -i);
+        for (int i = 0; i < total; i++) {
+            Assert.assertTrue(d.get(i) == -i);
+            Assert.assertTrue(d.contiene(i));
+        }
+        Assert.assertFalse(d.contiene(total));
+        Assert.assertFalse(d.contiene(null));
+        try {
+            d.get(total);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            d.elimina(total);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        for (int i = 0; i < total; i += 2)
+            d.elimina(i);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(d.contiene(i) == (i % 2 == 1));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCompacto#equals} y {@link
+     * DiccionarioCompacto#toString}.
+     */
+    @Test public void testEquals() {
+        DiccionarioCompacto<Integer, Integer> otro =
+            new DiccionarioCompacto<Integer, Integer>();
+        Assert.assertTrue(diccionario.equals(otro));
+        Assert.assertTrue(diccionario.toString().equals("{}"));
+        for (int i = 0; i < total; i++) {
+            diccionario.agrega(i, i);
+            otro.agrega(total - i - 1, total - i - 1);
+        }
+        Assert.assertTrue(diccionario.equals(otro));
+        otro.agrega(0, 1);
+        Assert.assertFalse(diccionario.equals(otro));
+        Assert.assertFalse(diccionario.equals(null));
+        diccionario.limpia();
+        diccionario.agrega(2, 3);
+        diccionario.agrega(1, 2);
+        Assert.assertTrue(diccionario.toString()
+                          .equals("{ '2': '3', '1': '2', }"));
+    }
+}
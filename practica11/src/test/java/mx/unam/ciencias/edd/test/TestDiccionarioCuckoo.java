@@ -0,0 +1,203 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.DiccionarioCuckoo;
+import mx.unam.ciencias.edd.Dispersor;
+import mx.unam.ciencias.edd.FabricaDispersores;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioCuckoo}.
+ */
+public class TestDiccionarioCuckoo {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private DiccionarioCuckoo<String, String> diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba.
+     */
+    public TestDiccionarioCuckoo() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        diccionario = nuevo(total);
+    }
+
+    /* Crea un diccionario de cadenas con los dispersores de Bob Jenkins y
+       de Daniel J. Bernstein. */
+    private static DiccionarioCuckoo<String, String> nuevo(int capacidad) {
+        Dispersor<String> bj =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.BJ_STRING);
+        Dispersor<String> djb =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.DJB_STRING);
+        return new DiccionarioCuckoo<String, String>(capacidad, bj, djb);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCuckoo#DiccionarioCuckoo}.
+     */
+    @Test public void testConstructor() {
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.carga() == 0.0);
+        Assert.assertTrue(diccionario.getCubetas() *
+                          DiccionarioCuckoo.ANCHO_CUBETA >= 2 * total);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCuckoo#agrega} y {@link
+     * DiccionarioCuckoo#elimina} contra {@link Diccionario}.
+     */
+    @Test public void testAgrega() {
+        Diccionario<String, String> d = new Diccionario<String, String>();
+        for (int i = 0; i < total * 64; i++) {
+            String s = String.valueOf(random.nextInt(total * 16));
+            if (d.contiene(s) && random.nextBoolean()) {
+                d.elimina(s);
+                diccionario.elimina(s);
+            } else {
+                String v = String.valueOf(random.nextInt());
+                d.agrega(s, v);
+                diccionario.agrega(s, v);
+            }
+            Assert.assertTrue(diccionario.getElementos() == d.getElementos());
+            Assert.assertTrue(diccionario.carga() <=
+                              DiccionarioCuckoo.MAXIMA_CARGA);
+        }
+        Iterator<String> iterador = d.iteradorLlaves();
+        while (iterador.hasNext()) {
+            String s = iterador.next();
+            Assert.assertTrue(diccionario.get(s).equals(d.get(s)));
+        }
+        int c = 0;
+        iterador = diccionario.iteradorLlaves();
+        while (iterador.hasNext()) {
+            Assert.assertTrue(d.contiene(iterador.next()));
+            c++;
+        }
+        Assert.assertTrue(c == d.getElementos());
+        try {
+            diccionario.agrega(null, "a");
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para llenar el diccionario hasta la carga máxima sin
+     * que crezca. Con tablas tan chicas, muy pocas veces la reserva se
+     * llena antes de la carga máxima, así que las llaves no son aleatorias.
+     */
+    @Test public void testCargaMaxima() {
+        Random semilla = new Random(total);
+        int cubetas = diccionario.getCubetas();
+        int n = (int)(DiccionarioCuckoo.MAXIMA_CARGA * cubetas *
+                      DiccionarioCuckoo.ANCHO_CUBETA);
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(String.valueOf(semilla.nextLong()), "v");
+        Assert.assertTrue(diccionario.getCubetas() == cubetas);
+        Assert.assertTrue(diccionario.carga() >= 0.94);
+        Assert.assertTrue(diccionario.getDesplazamientos() > 0);
+        diccionario.agrega("otra", "v");
+        Assert.assertTrue(diccionario.getCubetas() == 2 * cubetas);
+        Assert.assertTrue(diccionario.get("otra").equals("v"));
+    }
+
+    /**
+     * Prueba unitaria para la reserva, con dispersores que mandan a muchas
+     * llaves a las mismas dos cubetas.
+     */
+    @Test public void testReserva() {
+        DiccionarioCuckoo<Integer, Integer> d =
+            new DiccionarioCuckoo<Integer, Integer>(l -> 0, l -> 1);
+        int n = 2 * DiccionarioCuckoo.ANCHO_CUBETA +
+            DiccionarioCuckoo.TAMANIO_RESERVA;
+        for (int i = 0; i < n; i++)
+            d.agrega(i, i);
+        Assert.assertTrue(d.getReservados() ==
+                          DiccionarioCuckoo.TAMANIO_RESERVA);
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.get(i) == i);
+        int cubetas = d.getCubetas();
+        try {
+            d.agrega(n, n);
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        /* Al fallar, el diccionario se queda como estaba. */
+        Assert.assertTrue(d.getCubetas() == cubetas);
+        Assert.assertTrue(d.getReservados() ==
+                          DiccionarioCuckoo.TAMANIO_RESERVA);
+        Assert.assertTrue(d.getElementos() == n);
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(d.get(i) == i);
+        /* Al eliminar de una cubeta, una entrada de la reserva ocupa el
+           lugar. */
+        d.elimina(0);
+        Assert.assertTrue(d.getReservados() ==
+                          DiccionarioCuckoo.TAMANIO_RESERVA - 1);
+        d.agrega(n, n);
+        Assert.assertTrue(d.get(n) == n);
+        Assert.assertFalse(d.contiene(0));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCuckoo#get} y {@link
+     * DiccionarioCuckoo#contiene}.
+     */
+    @Test public void testGet() {
+        try {
+            diccionario.get("a");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            diccionario.get(null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Assert.assertFalse(diccionario.contiene(null));
+        diccionario.agrega("a", "b");
+        Assert.assertTrue(diccionario.get("a").equals("b"));
+        diccionario.agrega("a", "c");
+        Assert.assertTrue(diccionario.get("a").equals("c"));
+        Assert.assertTrue(diccionario.getElementos() == 1);
+        try {
+            diccionario.elimina("b");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioCuckoo#limpia}, {@link
+     * DiccionarioCuckoo#equals} y {@link DiccionarioCuckoo#toString}.
+     */
+    @Test public void testEquals() {
+        DiccionarioCuckoo<String, String> otro = nuevo(total * 8);
+        Assert.assertTrue(diccionario.equals(otro));
+        Assert.assertTrue(diccionario.toString().equals("{}"));
+        for (int i = 0; i < total; i++) {
+            diccionario.agrega(String.valueOf(i), String.valueOf(i));
+            otro.agrega(String.valueOf(total - i - 1),
+                        String.valueOf(total - i - 1));
+        }
+        Assert.assertTrue(diccionario.equals(otro));
+        otro.agrega("0", "1");
+        Assert.assertFalse(diccionario.equals(otro));
+        Assert.assertFalse(diccionario.equals(null));
+        diccionario.limpia();
+        Assert.assertTrue(diccionario.esVacia());
+        diccionario.agrega("1", "2");
+        Assert.assertTrue(diccionario.toString().equals("{ '1': '2', }"));
+    }
+}
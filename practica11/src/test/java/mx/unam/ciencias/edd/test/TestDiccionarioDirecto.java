@@ -0,0 +1,269 @@
+package mx.unam.ciencias.edd.test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.DiccionarioDirecto;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioDirecto}.
+ */
+public class TestDiccionarioDirecto {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private DiccionarioDirecto diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba. Los bloques son pequeños para
+     * que las pruebas usen varios.
+     */
+    public TestDiccionarioDirecto() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        diccionario =
+            new DiccionarioDirecto(AlgoritmoDispersor.BJ_STRING, 256);
+    }
+
+    /**
+     * Libera la memoria del diccionario después de cada prueba.
+     */
+    @After public void cierra() {
+        diccionario.cierra();
+    }
+
+    /* Regresa la i-ésima llave de las pruebas. */
+    private String llave(int i) {
+        return "llave-" + i;
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#DiccionarioDirecto}.
+     */
+    @Test public void testConstructor() {
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getElementos() == 0);
+        Assert.assertTrue(diccionario.getBytesVivos() == 0);
+        Assert.assertFalse(diccionario.contiene("a"));
+        try {
+            new DiccionarioDirecto(AlgoritmoDispersor.XOR_STRING, 256);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            new DiccionarioDirecto(AlgoritmoDispersor.DJB_STRING, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#agrega(byte[],byte[])}.
+     */
+    @Test public void testAgregaBytes() {
+        for (int i = 0; i < total * 4; i++) {
+            byte[] l = llave(i).getBytes(StandardCharsets.UTF_8);
+            byte[] v = new byte[random.nextInt(16)];
+            random.nextBytes(v);
+            Assert.assertFalse(diccionario.contiene(l));
+            diccionario.agrega(l, v);
+            Assert.assertTrue(diccionario.contiene(l));
+            Assert.assertArrayEquals(v, diccionario.get(l));
+            Assert.assertTrue(diccionario.getElementos() == i + 1);
+        }
+        byte[] vacia = new byte[0];
+        diccionario.agrega(vacia, vacia);
+        Assert.assertTrue(diccionario.get(vacia).length == 0);
+        try {
+            diccionario.agrega(vacia, null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#agrega(String,String)}.
+     */
+    @Test public void testAgregaCadenas() {
+        for (int i = 0; i < total * 4; i++) {
+            diccionario.agrega(llave(i), "valor-" + i);
+            Assert.assertTrue(diccionario.getElementos() == i + 1);
+        }
+        for (int i = 0; i < total * 4; i++)
+            Assert.assertTrue(diccionario.get(llave(i)).equals("valor-" + i));
+        diccionario.agrega("ñandú", "árbol");
+        Assert.assertTrue(diccionario.get("ñandú").equals("árbol"));
+        try {
+            diccionario.get("no está");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para reemplazar valores con {@link
+     * DiccionarioDirecto#agrega(String,String)}.
+     */
+    @Test public void testReemplaza() {
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), "x");
+        long vivos = diccionario.getBytesVivos();
+        Assert.assertTrue(diccionario.getBytesMuertos() == 0);
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), "y");
+        Assert.assertTrue(diccionario.getElementos() == total);
+        Assert.assertTrue(diccionario.getBytesVivos() == vivos);
+        Assert.assertTrue(diccionario.getBytesMuertos() == vivos);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(diccionario.get(llave(i)).equals("y"));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#getVista}.
+     */
+    @Test public void testGetVista() {
+        byte[] l = { 1, 2, 3 };
+        byte[] v = new byte[100];
+        random.nextBytes(v);
+        diccionario.agrega(l, v);
+        ByteBuffer vista = diccionario.getVista(l);
+        Assert.assertTrue(vista.isReadOnly());
+        Assert.assertTrue(vista.isDirect());
+        Assert.assertTrue(vista.remaining() == v.length);
+        for (int i = 0; i < v.length; i++)
+            Assert.assertTrue(vista.get(i) == v[i]);
+        try {
+            diccionario.getVista(new byte[] { 4 });
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#elimina(String)}.
+     */
+    @Test public void testElimina() {
+        int n = total * 4;
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        boolean[] eliminadas = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (random.nextBoolean())
+                continue;
+            diccionario.elimina(llave(i));
+            eliminadas[i] = true;
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+        }
+        int elementos = 0;
+        for (int i = 0; i < n; i++) {
+            if (eliminadas[i]) {
+                Assert.assertFalse(diccionario.contiene(llave(i)));
+                continue;
+            }
+            elementos++;
+            Assert.assertTrue(diccionario.get(llave(i))
+                              .equals(String.valueOf(i)));
+        }
+        Assert.assertTrue(diccionario.getElementos() == elementos);
+        try {
+            diccionario.elimina("no está");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#compacta}.
+     */
+    @Test public void testCompacta() {
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        for (int i = 0; i < total; i += 2)
+            diccionario.elimina(llave(i));
+        for (int i = 1; i < total; i += 4)
+            diccionario.agrega(llave(i), "reemplazo");
+        long vivos = diccionario.getBytesVivos();
+        Assert.assertTrue(diccionario.getBytesMuertos() > 0);
+        ByteBuffer vista =
+            diccionario.getVista(llave(1).getBytes(StandardCharsets.UTF_8));
+        diccionario.compacta();
+        /* La vista anterior sigue apuntando a memoria válida. */
+        byte[] b = new byte[vista.remaining()];
+        vista.get(b);
+        Assert.assertTrue(new String(b, StandardCharsets.UTF_8)
+                          .equals("reemplazo"));
+        Assert.assertTrue(diccionario.getBytesMuertos() == 0);
+        Assert.assertTrue(diccionario.getBytesVivos() == vivos);
+        for (int i = 0; i < total; i++) {
+            if (i % 2 == 0)
+                Assert.assertFalse(diccionario.contiene(llave(i)));
+            else if (i % 4 == 1)
+                Assert.assertTrue(diccionario.get(llave(i))
+                                  .equals("reemplazo"));
+            else
+                Assert.assertTrue(diccionario.get(llave(i))
+                                  .equals(String.valueOf(i)));
+        }
+        diccionario.agrega("nueva", "entrada");
+        Assert.assertTrue(diccionario.get("nueva").equals("entrada"));
+    }
+
+    /**
+     * Prueba unitaria para registros más grandes que un bloque.
+     */
+    @Test public void testRegistroGrande() {
+        byte[] v = new byte[1000];
+        random.nextBytes(v);
+        diccionario.agrega("a", "b");
+        diccionario.agrega("grande".getBytes(StandardCharsets.UTF_8), v);
+        diccionario.agrega("c", "d");
+        Assert.assertArrayEquals(v, diccionario.get(
+                                     "grande".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(diccionario.get("a").equals("b"));
+        Assert.assertTrue(diccionario.get("c").equals("d"));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto#cierra}.
+     */
+    @Test public void testCierra() {
+        diccionario.agrega("a", "b");
+        Assert.assertFalse(diccionario.estaCerrado());
+        diccionario.cierra();
+        Assert.assertTrue(diccionario.estaCerrado());
+        Assert.assertTrue(diccionario.esVacia());
+        try {
+            diccionario.get("a");
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        try {
+            diccionario.agrega("a", "b");
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        diccionario.cierra();
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioDirecto} con el algoritmo de
+     * Daniel J. Bernstein.
+     */
+    @Test public void testDJB() {
+        diccionario.cierra();
+        diccionario =
+            new DiccionarioDirecto(AlgoritmoDispersor.DJB_STRING, 256);
+        for (int i = 0; i < total * 4; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        for (int i = 0; i < total * 4; i += 3)
+            diccionario.elimina(llave(i));
+        for (int i = 0; i < total * 4; i++)
+            Assert.assertTrue(diccionario.contiene(llave(i)) == (i % 3 != 0));
+    }
+}
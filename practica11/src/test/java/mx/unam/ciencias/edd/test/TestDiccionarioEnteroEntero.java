@@ -0,0 +1,191 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.DiccionarioEnteroEntero;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioEnteroEntero}.
+ */
+public class TestDiccionarioEnteroEntero {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private DiccionarioEnteroEntero diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba.
+     */
+    public TestDiccionarioEnteroEntero() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        diccionario = new DiccionarioEnteroEntero();
+    }
+
+    /* Regresa la i-ésima llave de las pruebas, con 0 como primera llave. */
+    private int llave(int i) {
+        return i * 0x10001;
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * DiccionarioEnteroEntero#DiccionarioEnteroEntero}.
+     */
+    @Test public void testConstructor() {
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getElementos() == 0);
+        Assert.assertTrue(diccionario.carga() == 0.0);
+        Assert.assertTrue(diccionario.getAusente() == 0);
+        diccionario = new DiccionarioEnteroEntero(total, e -> e, -1);
+        Assert.assertTrue(diccionario.getAusente() == -1);
+        Assert.assertTrue(diccionario.get(random.nextInt()) == -1);
+        try {
+            new DiccionarioEnteroEntero(total, null, -1);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#agrega}.
+     */
+    @Test public void testAgrega() {
+        for (int i = 0; i < total * 4; i++) {
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+            diccionario.agrega(llave(i), i);
+            Assert.assertTrue(diccionario.contiene(llave(i)));
+            Assert.assertTrue(diccionario.get(llave(i)) == i);
+            Assert.assertTrue(diccionario.getElementos() == i + 1);
+            Assert.assertTrue(diccionario.carga() <
+                              DiccionarioEnteroEntero.MAXIMA_CARGA);
+        }
+        for (int i = 0; i < total * 4; i++)
+            Assert.assertTrue(diccionario.get(llave(i)) == i);
+        diccionario.agrega(llave(0), -7);
+        diccionario.agrega(llave(1), -8);
+        Assert.assertTrue(diccionario.getElementos() == total * 4);
+        Assert.assertTrue(diccionario.get(llave(0)) == -7);
+        Assert.assertTrue(diccionario.get(llave(1)) == -8);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#get}.
+     */
+    @Test public void testGet() {
+        diccionario = new DiccionarioEnteroEntero(total, e -> e, -1);
+        Assert.assertTrue(diccionario.get(0) == -1);
+        for (int i = 0; i < total; i++) {
+            int n = random.nextInt();
+            diccionario.agrega(n, i);
+            Assert.assertTrue(diccionario.get(n) == i);
+        }
+        diccionario.limpia();
+        Assert.assertTrue(diccionario.get(llave(total)) == -1);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#elimina}.
+     */
+    @Test public void testElimina() {
+        /* Con un dispersor constante todas las llaves chocan. */
+        diccionario = new DiccionarioEnteroEntero(total, e -> 3, -1);
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), i);
+        for (int i = 0; i < total; i += 2) {
+            diccionario.elimina(llave(i));
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+            Assert.assertTrue(diccionario.get(llave(i)) == -1);
+        }
+        for (int i = 1; i < total; i += 2)
+            Assert.assertTrue(diccionario.get(llave(i)) == i);
+        Assert.assertTrue(diccionario.getElementos() == total / 2);
+        try {
+            diccionario.elimina(llave(0));
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        diccionario = new DiccionarioEnteroEntero();
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(random.nextInt(total), i);
+        for (int i = 0; i < total; i++)
+            if (diccionario.contiene(i))
+                diccionario.elimina(i);
+        Assert.assertTrue(diccionario.esVacia());
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#limpia}.
+     */
+    @Test public void testLimpia() {
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), i);
+        Assert.assertFalse(diccionario.esVacia());
+        diccionario.limpia();
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getElementos() == 0);
+        Assert.assertTrue(diccionario.carga() == 0.0);
+        for (int i = 0; i < total; i++)
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#cursor}.
+     */
+    @Test public void testCursor() {
+        DiccionarioEnteroEntero.Cursor cursor = diccionario.cursor();
+        Assert.assertFalse(cursor.avanza());
+        try {
+            cursor.llave();
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        boolean[] vistas = new boolean[total];
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), i);
+        for (int r = 0; r < 2; r++) {
+            cursor.reinicia();
+            int c = 0;
+            while (cursor.avanza()) {
+                int i = cursor.valor();
+                Assert.assertTrue(cursor.llave() == llave(i));
+                Assert.assertTrue(vistas[i] == (r == 1));
+                vistas[i] = true;
+                c++;
+            }
+            Assert.assertTrue(c == total);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#equals}.
+     */
+    @Test public void testEquals() {
+        DiccionarioEnteroEntero d2 = new DiccionarioEnteroEntero(total);
+        Assert.assertTrue(diccionario.equals(d2));
+        for (int i = 0; i < total; i++) {
+            diccionario.agrega(llave(i), i);
+            d2.agrega(llave(total - i - 1), total - i - 1);
+        }
+        Assert.assertTrue(diccionario.equals(d2));
+        d2.agrega(llave(0), -1);
+        Assert.assertFalse(diccionario.equals(d2));
+        Assert.assertFalse(diccionario.equals(null));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEnteroEntero#toString}.
+     */
+    @Test public void testToString() {
+        Assert.assertTrue(diccionario.toString().equals("{}"));
+        diccionario.agrega(0, 1);
+        Assert.assertTrue(diccionario.toString().equals("{ '0': '1', }"));
+    }
+}
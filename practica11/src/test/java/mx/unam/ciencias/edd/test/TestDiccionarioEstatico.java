@@ -0,0 +1,183 @@
+package mx.unam.ciencias.edd.test;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.Codificador;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.DiccionarioEstatico;
+import mx.unam.ciencias.edd.Dispersor;
+import mx.unam.ciencias.edd.FabricaDispersores;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioEstatico}.
+ */
+public class TestDiccionarioEstatico {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private Diccionario<String, String> diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba.
+     */
+    public TestDiccionarioEstatico() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        Dispersor<String> bj =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.BJ_STRING);
+        diccionario = new Diccionario<String, String>(bj);
+    }
+
+    /* Codificador de enteros. */
+    private static Codificador<Integer> enteros() {
+        return new Codificador<Integer>() {
+            @Override public byte[] codifica(Integer n) {
+                return ByteBuffer.allocate(4).putInt(n).array();
+            }
+            @Override public Integer decodifica(byte[] bytes, int inicio,
+                                                int longitud) {
+                return ByteBuffer.wrap(bytes, inicio, longitud).getInt();
+            }
+        };
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#congela}, {@link
+     * DiccionarioEstatico#get} y {@link DiccionarioEstatico#contiene}.
+     */
+    @Test public void testCongela() {
+        int n = total * 1024;
+        for (int i = 0; i < n; i++) {
+            String s = String.valueOf(random.nextInt(4 * n));
+            diccionario.agrega(s, s + "v");
+        }
+        DiccionarioEstatico<String, String> e = diccionario.congela();
+        Assert.assertTrue(e.getElementos() == diccionario.getElementos());
+        Iterator<String> iterador = diccionario.iteradorLlaves();
+        while (iterador.hasNext()) {
+            String s = iterador.next();
+            Assert.assertTrue(e.get(s).equals(s + "v"));
+        }
+        for (int i = 0; i < total; i++) {
+            String s = String.valueOf(4 * n + i);
+            Assert.assertFalse(e.contiene(s));
+        }
+        Assert.assertFalse(e.contiene(null));
+        try {
+            e.get("-1");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            e.get(null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        /* Modificar el diccionario no afecta al estático. */
+        diccionario.agrega("-1", "x");
+        Assert.assertFalse(e.contiene("-1"));
+        int c = 0;
+        iterador = e.iteradorLlaves();
+        while (iterador.hasNext()) {
+            Assert.assertTrue(diccionario.contiene(iterador.next()));
+            c++;
+        }
+        Assert.assertTrue(c == e.getElementos());
+        Assert.assertTrue(new Diccionario<String, String>().congela()
+                          .esVacia());
+    }
+
+    /**
+     * Prueba unitaria para las llaves con la misma dispersión.
+     */
+    @Test public void testDesbordadas() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l % 7);
+        for (int i = 0; i < total; i++)
+            d.agrega(i, -i);
+        DiccionarioEstatico<Integer, Integer> e = d.congela();
+        Assert.assertTrue(e.getDesbordadas() == total - 7);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(e.get(i) == -i);
+        Assert.assertFalse(e.contiene(total));
+        Assert.assertFalse(e.contiene(-7));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEstatico#imagen} y {@link
+     * DiccionarioEstatico#carga}.
+     */
+    @Test public void testImagen() {
+        Dispersor<String> bj =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.BJ_STRING);
+        Codificador<String> cadenas = Codificador.cadenas();
+        for (int i = 0; i < total * 16; i++)
+            diccionario.agrega("llave " + i, "valor ñ " + i);
+        DiccionarioEstatico<String, String> e = diccionario.congela();
+        byte[] imagen = e.imagen(cadenas, cadenas);
+        DiccionarioEstatico<String, String> c =
+            DiccionarioEstatico.carga(imagen, bj, cadenas, cadenas);
+        Assert.assertTrue(c.equals(e));
+        Assert.assertTrue(c.toString().equals(e.toString()));
+        for (int i = 0; i < total * 16; i++)
+            Assert.assertTrue(c.get("llave " + i).equals("valor ñ " + i));
+        Assert.assertFalse(c.contiene("llave"));
+        imagen[random.nextInt(imagen.length)] ^= 1;
+        try {
+            DiccionarioEstatico.carga(imagen, bj, cadenas, cadenas);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        imagen = e.imagen(cadenas, cadenas);
+        Dispersor<String> djb =
+            FabricaDispersores.dispersorCadena(AlgoritmoDispersor.DJB_STRING);
+        try {
+            DiccionarioEstatico.carga(imagen, djb, cadenas, cadenas);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            DiccionarioEstatico.carga(new byte[3], bj, cadenas, cadenas);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l / 2);
+        for (int i = 0; i < total; i++)
+            d.agrega(i, i * i);
+        DiccionarioEstatico<Integer, Integer> f = d.congela();
+        DiccionarioEstatico<Integer, Integer> g =
+            DiccionarioEstatico.carga(f.imagen(enteros(), enteros()),
+                                      l -> l / 2, enteros(), enteros());
+        Assert.assertTrue(g.getDesbordadas() == f.getDesbordadas());
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(g.get(i) == i * i);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioEstatico#equals} y {@link
+     * DiccionarioEstatico#toString}.
+     */
+    @Test public void testEquals() {
+        DiccionarioEstatico<String, String> e = diccionario.congela();
+        Assert.assertTrue(e.toString().equals("{}"));
+        Assert.assertTrue(e.equals(diccionario.congela()));
+        Assert.assertFalse(e.equals(null));
+        diccionario.agrega("a", "b");
+        Assert.assertFalse(e.equals(diccionario.congela()));
+        e = diccionario.congela();
+        Assert.assertTrue(e.toString().equals("{ 'a': 'b', }"));
+        diccionario.agrega("a", "c");
+        Assert.assertFalse(e.equals(diccionario.congela()));
+    }
+}
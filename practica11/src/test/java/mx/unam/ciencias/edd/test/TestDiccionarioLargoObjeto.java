@@ -0,0 +1,133 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import mx.unam.ciencias.edd.DiccionarioLargoObjeto;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioLargoObjeto}.
+ */
+public class TestDiccionarioLargoObjeto {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El diccionario. */
+    private DiccionarioLargoObjeto<String> diccionario;
+
+    /**
+     * Crea un diccionario para cada prueba.
+     */
+    public TestDiccionarioLargoObjeto() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        diccionario = new DiccionarioLargoObjeto<String>();
+    }
+
+    /* Regresa la i-ésima llave de las pruebas, con 0 como primera llave. */
+    private long llave(int i) {
+        return i * 0x100000001L;
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * DiccionarioLargoObjeto#DiccionarioLargoObjeto}.
+     */
+    @Test public void testConstructor() {
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getElementos() == 0);
+        Assert.assertTrue(diccionario.getAusente() == null);
+        Assert.assertTrue(diccionario.get(random.nextLong()) == null);
+        diccionario =
+            new DiccionarioLargoObjeto<String>(total, e -> (int)e, "X");
+        Assert.assertTrue(diccionario.get(random.nextLong()).equals("X"));
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioLargoObjeto#agrega}.
+     */
+    @Test public void testAgrega() {
+        for (int i = 0; i < total * 4; i++) {
+            String s = String.valueOf(i);
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+            diccionario.agrega(llave(i), s);
+            Assert.assertTrue(diccionario.get(llave(i)).equals(s));
+            Assert.assertTrue(diccionario.getElementos() == i + 1);
+            Assert.assertTrue(diccionario.carga() <
+                              DiccionarioLargoObjeto.MAXIMA_CARGA);
+        }
+        diccionario.agrega(llave(0), "Y");
+        Assert.assertTrue(diccionario.get(llave(0)).equals("Y"));
+        Assert.assertTrue(diccionario.getElementos() == total * 4);
+        try {
+            diccionario.agrega(llave(0), null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioLargoObjeto#elimina}.
+     */
+    @Test public void testElimina() {
+        diccionario = new DiccionarioLargoObjeto<String>(total, e -> 5, null);
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        for (int i = 0; i < total; i += 2) {
+            diccionario.elimina(llave(i));
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+            Assert.assertTrue(diccionario.get(llave(i)) == null);
+        }
+        for (int i = 1; i < total; i += 2)
+            Assert.assertTrue(diccionario.get(llave(i)).equals(String.valueOf(i)));
+        try {
+            diccionario.elimina(llave(0));
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        diccionario.limpia();
+        Assert.assertTrue(diccionario.esVacia());
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioLargoObjeto#cursor}.
+     */
+    @Test public void testCursor() {
+        boolean[] vistas = new boolean[total];
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        DiccionarioLargoObjeto<String>.Cursor cursor = diccionario.cursor();
+        int c = 0;
+        while (cursor.avanza()) {
+            int i = Integer.parseInt(cursor.valor());
+            Assert.assertTrue(cursor.llave() == llave(i));
+            Assert.assertFalse(vistas[i]);
+            vistas[i] = true;
+            c++;
+        }
+        Assert.assertTrue(c == total);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioLargoObjeto#equals}.
+     */
+    @Test public void testEquals() {
+        DiccionarioLargoObjeto<String> d2 =
+            new DiccionarioLargoObjeto<String>(total);
+        Assert.assertTrue(diccionario.equals(d2));
+        for (int i = 0; i < total; i++) {
+            diccionario.agrega(llave(i), String.valueOf(i));
+            d2.agrega(llave(total - i - 1), String.valueOf(total - i - 1));
+        }
+        Assert.assertTrue(diccionario.equals(d2));
+        d2.agrega(llave(0), "Z");
+        Assert.assertFalse(diccionario.equals(d2));
+    }
+}
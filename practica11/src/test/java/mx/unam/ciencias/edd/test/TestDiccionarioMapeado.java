@@ -0,0 +1,400 @@
+package mx.unam.ciencias.edd.test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.zip.CRC32;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.DiccionarioMapeado;
+import mx.unam.ciencias.edd.FabricaDispersores;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioMapeado}.
+ */
+public class TestDiccionarioMapeado {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Directorio temporal para los archivos de las pruebas. */
+    @Rule public TemporaryFolder directorio = new TemporaryFolder();
+
+    /* Tamaño de los segmentos de las pruebas; pequeño para usar varios. */
+    private static final int SEGMENTO = 4096;
+
+    /* Llaves fuera de ASCII para la prueba de codificación. */
+    private static final String NANDU = "\u00f1and\u00fa";
+    private static final String PINGUINO = "ping\u00fcino \uD83D\uDC27";
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+    /* El archivo del diccionario. */
+    private Path archivo;
+    /* El diccionario. */
+    private DiccionarioMapeado diccionario;
+
+    /**
+     * Crea un diccionario en un archivo nuevo para cada prueba.
+     * @throws IOException si no se puede crear el archivo.
+     */
+    @Before public void crea() throws IOException {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+        archivo = directorio.getRoot().toPath().resolve("diccionario.edd");
+        diccionario = new DiccionarioMapeado(archivo,
+                                             AlgoritmoDispersor.BJ_STRING,
+                                             SEGMENTO);
+    }
+
+    /**
+     * Cierra el diccionario después de cada prueba.
+     * @throws IOException si no se puede cerrar el archivo.
+     */
+    @After public void cierra() throws IOException {
+        diccionario.cierra();
+    }
+
+    /* Regresa la i-ésima llave de las pruebas. */
+    private String llave(int i) {
+        return "llave-" + i;
+    }
+
+    /* Cierra el diccionario y lo abre de nuevo. */
+    private void reabre() throws IOException {
+        diccionario.cierra();
+        diccionario = new DiccionarioMapeado(archivo, null, SEGMENTO);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioMapeado#DiccionarioMapeado}.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testConstructor() throws IOException {
+        Assert.assertTrue(diccionario.esVacia());
+        Assert.assertTrue(diccionario.getAlgoritmo() ==
+                          AlgoritmoDispersor.BJ_STRING);
+        Assert.assertFalse(diccionario.contiene("a"));
+        try {
+            new DiccionarioMapeado(directorio.newFile().toPath(), null, 1000);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Path basura = directorio.newFile().toPath();
+        byte[] bytes = new byte[SEGMENTO];
+        random.nextBytes(bytes);
+        Files.write(basura, bytes);
+        try {
+            new DiccionarioMapeado(basura, null, SEGMENTO);
+            Assert.fail();
+        } catch (IOException ioe) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioMapeado#agrega}.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testAgrega() throws IOException {
+        for (int i = 0; i < total * 8; i++) {
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+            diccionario.agrega(llave(i), "valor-" + i);
+            Assert.assertTrue(diccionario.get(llave(i)).equals("valor-" + i));
+            Assert.assertTrue(diccionario.getElementos() == i + 1);
+            Assert.assertTrue(diccionario.carga() <
+                              DiccionarioMapeado.MAXIMA_CARGA);
+        }
+        for (int i = 0; i < total * 8; i++)
+            Assert.assertTrue(diccionario.get(llave(i)).equals("valor-" + i));
+        diccionario.agrega(llave(0), "ñandú");
+        Assert.assertTrue(diccionario.get(llave(0)).equals("ñandú"));
+        Assert.assertTrue(diccionario.getElementos() == total * 8);
+        try {
+            diccionario.agrega(null, "a");
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        try {
+            diccionario.agrega("grande", new String(new char[SEGMENTO]));
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioMapeado#elimina}.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testElimina() throws IOException {
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        for (int i = 0; i < total; i += 2) {
+            diccionario.elimina(llave(i));
+            Assert.assertFalse(diccionario.contiene(llave(i)));
+        }
+        Assert.assertTrue(diccionario.getElementos() == total / 2);
+        for (int i = 1; i < total; i += 2)
+            Assert.assertTrue(diccionario.get(llave(i))
+                              .equals(String.valueOf(i)));
+        try {
+            diccionario.elimina(llave(0));
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioMapeado#compacta}.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testCompacta() throws IOException {
+        for (int i = 0; i < total * 8; i++)
+            diccionario.agrega(llave(i), "valor-" + i);
+        for (int i = 0; i < total * 8; i++)
+            if (i % 4 != 0)
+                diccionario.elimina(llave(i));
+        for (int i = 0; i < total * 8; i += 8)
+            diccionario.agrega(llave(i), "reemplazo");
+        long antes = Files.size(archivo);
+        diccionario.compacta();
+        Assert.assertTrue(Files.size(archivo) < antes);
+        Assert.assertTrue(diccionario.getElementos() == total * 2);
+        Assert.assertFalse(Files.exists(archivo.resolveSibling(
+                                            archivo.getFileName() +
+                                            ".compacta")));
+        for (int k = 0; k < 2; k++) {
+            for (int i = 0; i < total * 8; i++) {
+                if (i % 8 == 0)
+                    Assert.assertTrue(diccionario.get(llave(i))
+                                      .equals("reemplazo"));
+                else if (i % 4 == 0)
+                    Assert.assertTrue(diccionario.get(llave(i))
+                                      .equals("valor-" + i));
+                else
+                    Assert.assertFalse(diccionario.contiene(llave(i)));
+            }
+            reabre();
+        }
+        diccionario.agrega("nueva", "entrada");
+        Assert.assertTrue(diccionario.get("nueva").equals("entrada"));
+        diccionario.cierra();
+        try {
+            diccionario.compacta();
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+    }
+
+    /**
+     * Prueba unitaria para abrir de nuevo un diccionario.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testReabre() throws IOException {
+        for (int i = 0; i < total * 4; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        diccionario.elimina(llave(1));
+        diccionario.agrega(llave(2), "dos");
+        diccionario.sincroniza();
+        reabre();
+        Assert.assertTrue(diccionario.getElementos() == total * 4 - 1);
+        Assert.assertTrue(diccionario.getAlgoritmo() ==
+                          AlgoritmoDispersor.BJ_STRING);
+        Assert.assertFalse(diccionario.contiene(llave(1)));
+        Assert.assertTrue(diccionario.get(llave(2)).equals("dos"));
+        for (int i = 3; i < total * 4; i++)
+            Assert.assertTrue(diccionario.get(llave(i))
+                              .equals(String.valueOf(i)));
+        diccionario.agrega("nueva", "entrada");
+        reabre();
+        Assert.assertTrue(diccionario.get("nueva").equals("entrada"));
+    }
+
+    /**
+     * Prueba unitaria para abrir un diccionario con otro algoritmo.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testAlgoritmoDistinto() throws IOException {
+        diccionario.agrega("a", "b");
+        diccionario.cierra();
+        try {
+            diccionario = new DiccionarioMapeado(archivo,
+                                                 AlgoritmoDispersor.DJB_STRING,
+                                                 SEGMENTO);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        diccionario = new DiccionarioMapeado(archivo,
+                                             AlgoritmoDispersor.BJ_STRING,
+                                             SEGMENTO);
+        Assert.assertTrue(diccionario.get("a").equals("b"));
+    }
+
+    /**
+     * Prueba unitaria para abrir un diccionario con un encabezado dañado, como
+     * si el proceso hubiera muerto a la mitad de una escritura.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testEncabezadoDaniado() throws IOException {
+        int n = total * 2;
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        diccionario.cierra();
+        /* Dañamos cada uno de los dos encabezados en una copia. */
+        for (int e = 0; e < 2; e++) {
+            Path copia = directorio.getRoot().toPath().resolve("copia" + e);
+            Files.copy(archivo, copia, StandardCopyOption.REPLACE_EXISTING);
+            try (RandomAccessFile raf =
+                 new RandomAccessFile(copia.toFile(), "rw")) {
+                raf.seek(e * 64 + 20);
+                raf.writeInt(random.nextInt() | 1);
+            }
+            diccionario = new DiccionarioMapeado(copia, null, SEGMENTO);
+            Assert.assertTrue(diccionario.getElementos() == n);
+            for (int i = 0; i < n; i++)
+                Assert.assertTrue(diccionario.get(llave(i))
+                                  .equals(String.valueOf(i)));
+            diccionario.cierra();
+        }
+        diccionario = new DiccionarioMapeado(archivo, null, SEGMENTO);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioMapeado#cierra}.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testCierra() throws IOException {
+        diccionario.agrega("a", "b");
+        diccionario.cierra();
+        Assert.assertTrue(diccionario.estaCerrado());
+        try {
+            diccionario.get("a");
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        diccionario.cierra();
+    }
+
+    /**
+     * Prueba unitaria para abrir un diccionario con un tamaño de segmento
+     * distinto al de su creación: se usa el guardado en el archivo.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testSegmentoDistinto() throws IOException {
+        diccionario.cierra();
+        Files.delete(archivo);
+        diccionario = new DiccionarioMapeado(archivo,
+                                             AlgoritmoDispersor.BJ_STRING,
+                                             SEGMENTO * 16);
+        int n = total * 8;
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        for (int tamanio : new int[] { SEGMENTO, SEGMENTO * 64 }) {
+            diccionario.cierra();
+            diccionario = new DiccionarioMapeado(archivo, null, tamanio);
+            Assert.assertTrue(diccionario.getElementos() == n);
+            for (int i = 0; i < n; i++)
+                Assert.assertTrue(diccionario.get(llave(i))
+                                  .equals(String.valueOf(i)));
+        }
+        for (int i = n; i < 2 * n; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        reabre();
+        for (int i = 0; i < 2 * n; i++)
+            Assert.assertTrue(diccionario.get(llave(i))
+                              .equals(String.valueOf(i)));
+    }
+
+    /**
+     * Prueba unitaria para abrir un diccionario en otro proceso con otra
+     * codificación predeterminada: las dispersiones son de los bytes en
+     * UTF-8, así que las llaves fuera de ASCII se siguen encontrando.
+     * @throws IOException si ocurre un error con el archivo.
+     * @throws InterruptedException si se interrumpe la espera del proceso.
+     */
+    @Test public void testOtraCodificacion()
+        throws IOException, InterruptedException {
+        diccionario.agrega(NANDU, "ave");
+        for (int i = 0; i < total; i++)
+            diccionario.agrega(llave(i) + "ñ€", String.valueOf(i));
+        diccionario.cierra();
+        for (String codificacion : new String[] { "ISO-8859-1", "UTF-16" }) {
+            String java = System.getProperty("java.home") + "/bin/java";
+            Process proceso = new ProcessBuilder(
+                java, "-Dfile.encoding=" + codificacion,
+                "-cp", System.getProperty("java.class.path"),
+                TestDiccionarioMapeado.class.getName(),
+                archivo.toString(), String.valueOf(total)).inheritIO().start();
+            Assert.assertTrue(proceso.waitFor() == 0);
+        }
+        diccionario = new DiccionarioMapeado(archivo, null, SEGMENTO);
+        Assert.assertTrue(diccionario.get(PINGUINO).equals("ave"));
+        Assert.assertTrue(diccionario.getElementos() == total + 2);
+    }
+
+    /**
+     * Programa para {@link #testOtraCodificacion}: abre el diccionario del
+     * archivo, verifica sus llaves y le agrega una, con la codificación
+     * predeterminada con la que se haya ejecutado.
+     * @param args el archivo y el número de llaves.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    public static void main(String[] args) throws IOException {
+        DiccionarioMapeado d =
+            new DiccionarioMapeado(Paths.get(args[0]), null, SEGMENTO);
+        boolean bien = d.contiene(NANDU) && d.get(NANDU).equals("ave");
+        for (int i = 0; i < Integer.parseInt(args[1]); i++)
+            bien &= String.valueOf(i).equals(d.get("llave-" + i + "ñ€"));
+        if (!d.contiene(PINGUINO))
+            d.agrega(PINGUINO, "ave");
+        d.cierra();
+        System.exit(bien ? 0 : 1);
+    }
+
+    /**
+     * Prueba unitaria para abrir un archivo con encabezados de la versión 1
+     * del formato, que no guardaban el tamaño de los segmentos.
+     * @throws IOException si ocurre un error con el archivo.
+     */
+    @Test public void testVersion1() throws IOException {
+        int n = total * 2;
+        for (int i = 0; i < n; i++)
+            diccionario.agrega(llave(i), String.valueOf(i));
+        diccionario.cierra();
+        int huella = FabricaDispersores
+            .dispersorCadenaUTF8(AlgoritmoDispersor.BJ_STRING)
+            .dispersa("mx.unam.ciencias.edd.DiccionarioMapeado");
+        try (RandomAccessFile raf =
+             new RandomAccessFile(archivo.toFile(), "rw")) {
+            for (int e = 0; e < 2; e++) {
+                byte[] encabezado = new byte[64];
+                raf.seek(e * 64);
+                raf.readFully(encabezado);
+                ByteBuffer b = ByteBuffer.wrap(encabezado);
+                b.putInt(8, 1);
+                b.putInt(24, huella);
+                CRC32 crc = new CRC32();
+                crc.update(encabezado, 0, 56);
+                b.putInt(56, (int)crc.getValue());
+                b.putInt(60, 0);
+                raf.seek(e * 64);
+                raf.write(encabezado);
+            }
+        }
+        diccionario = new DiccionarioMapeado(archivo, null, SEGMENTO);
+        Assert.assertTrue(diccionario.getElementos() == n);
+        for (int i = 0; i < n; i++)
+            Assert.assertTrue(diccionario.get(llave(i))
+                              .equals(String.valueOf(i)));
+        diccionario.agrega("nueva", "entrada");
+        reabre();
+        Assert.assertTrue(diccionario.get("nueva").equals("entrada"));
+        Assert.assertTrue(diccionario.getElementos() == n + 1);
+    }
+}
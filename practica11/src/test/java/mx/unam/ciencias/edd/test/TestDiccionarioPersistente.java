@@ -0,0 +1,258 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.DiccionarioPersistente;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link DiccionarioPersistente}.
+ */
+public class TestDiccionarioPersistente {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+
+    /**
+     * Crea un generador de números aleatorios para cada prueba.
+     */
+    public TestDiccionarioPersistente() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+    }
+
+    /* Verifica que el diccionario persistente tenga exactamente las llaves y
+       valores del diccionario. */
+    private void verifica(DiccionarioPersistente<Integer, Integer> p,
+                          Diccionario<Integer, Integer> d) {
+        Assert.assertTrue(p.getElementos() == d.getElementos());
+        Assert.assertTrue(p.esVacia() == d.esVacia());
+        int c = 0;
+        Iterator<Integer> iterador = p.iteradorLlaves();
+        while (iterador.hasNext()) {
+            Integer llave = iterador.next();
+            Assert.assertTrue(p.get(llave).equals(d.get(llave)));
+            c++;
+        }
+        Assert.assertTrue(c == d.getElementos());
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioPersistente#agrega} y {@link
+     * DiccionarioPersistente#elimina}: cada versión se queda como estaba.
+     */
+    @Test public void testVersiones() {
+        for (int modulo : new int[] { Integer.MAX_VALUE, 64, 3 }) {
+            DiccionarioPersistente<Integer, Integer> p =
+                new DiccionarioPersistente<Integer, Integer>(l -> l % modulo);
+            Diccionario<Integer, Integer> d =
+                new Diccionario<Integer, Integer>();
+            @SuppressWarnings("unchecked")
+            DiccionarioPersistente<Integer, Integer>[] versiones =
+                new DiccionarioPersistente[total * 8];
+            @SuppressWarnings("unchecked")
+            Diccionario<Integer, Integer>[] copias =
+                new Diccionario[total * 8];
+            for (int i = 0; i < versiones.length; i++) {
+                int l = random.nextInt(total * 4);
+                if (d.contiene(l) && random.nextBoolean()) {
+                    d.elimina(l);
+                    p = p.elimina(l);
+                } else {
+                    int v = random.nextInt(4);
+                    d.agrega(l, v);
+                    p = p.agrega(l, v);
+                }
+                versiones[i] = p;
+                copias[i] = new Diccionario<Integer, Integer>();
+                Iterator<Integer> iterador = d.iteradorLlaves();
+                while (iterador.hasNext()) {
+                    Integer llave = iterador.next();
+                    copias[i].agrega(llave, d.get(llave));
+                }
+            }
+            for (int i = 0; i < versiones.length; i++)
+                verifica(versiones[i], copias[i]);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioPersistente#get} y {@link
+     * DiccionarioPersistente#contiene}.
+     */
+    @Test public void testGet() {
+        DiccionarioPersistente<String, String> p =
+            new DiccionarioPersistente<String, String>();
+        try {
+            p.get("a");
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            p.get(null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        Assert.assertFalse(p.contiene(null));
+        for (int i = 0; i < total; i++)
+            p = p.agrega(String.valueOf(i), String.valueOf(-i));
+        for (int i = 0; i < total; i++) {
+            Assert.assertTrue(p.contiene(String.valueOf(i)));
+            Assert.assertTrue(p.get(String.valueOf(i))
+                              .equals(String.valueOf(-i)));
+        }
+        Assert.assertFalse(p.contiene(String.valueOf(total)));
+        String v = p.get("0");
+        Assert.assertTrue(p.agrega("0", v) == p);
+        try {
+            p.agrega("a", null);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioPersistente#elimina}.
+     */
+    @Test public void testElimina() {
+        DiccionarioPersistente<Integer, Integer> p =
+            new DiccionarioPersistente<Integer, Integer>(l -> l & 0x7f);
+        for (int i = 0; i < total * 4; i++)
+            p = p.agrega(i, i);
+        DiccionarioPersistente<Integer, Integer> q = p;
+        for (int i = 0; i < total * 4; i++) {
+            q = q.elimina(i);
+            Assert.assertFalse(q.contiene(i));
+            Assert.assertTrue(q.getElementos() == total * 4 - i - 1);
+        }
+        Assert.assertTrue(q.esVacia());
+        Assert.assertTrue(q.toString().equals("{}"));
+        Assert.assertTrue(p.getElementos() == total * 4);
+        try {
+            q.elimina(0);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+        try {
+            p.elimina(-1);
+            Assert.fail();
+        } catch (NoSuchElementException nsee) {}
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioPersistente.Transitorio}.
+     */
+    @Test public void testTransitorio() {
+        DiccionarioPersistente<Integer, Integer> base =
+            new DiccionarioPersistente<Integer, Integer>(l -> l % 1000);
+        for (int i = 0; i < total; i++)
+            base = base.agrega(i, i);
+        DiccionarioPersistente.Transitorio<Integer, Integer> t =
+            base.transitorio();
+        Diccionario<Integer, Integer> d = new Diccionario<Integer, Integer>();
+        for (int i = 0; i < total; i++)
+            d.agrega(i, i);
+        for (int i = 0; i < total * 64; i++) {
+            int l = random.nextInt(total * 32);
+            if (d.contiene(l) && random.nextBoolean()) {
+                d.elimina(l);
+                t.elimina(l);
+            } else {
+                d.agrega(l, -l);
+                t.agrega(l, -l);
+            }
+            Assert.assertTrue(t.contiene(l) == d.contiene(l));
+            Assert.assertTrue(t.getElementos() == d.getElementos());
+        }
+        DiccionarioPersistente<Integer, Integer> p = t.persistente();
+        verifica(p, d);
+        Assert.assertTrue(base.getElementos() == total);
+        for (int i = 0; i < total; i++)
+            Assert.assertTrue(base.get(i) == i);
+        try {
+            t.agrega(1, 1);
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        try {
+            t.persistente();
+            Assert.fail();
+        } catch (IllegalStateException ise) {}
+        /* Un segundo transitorio no modifica la versión anterior. */
+        DiccionarioPersistente.Transitorio<Integer, Integer> t2 =
+            p.transitorio();
+        Iterator<Integer> iterador = p.iteradorLlaves();
+        while (iterador.hasNext())
+            t2.agrega(iterador.next(), 0);
+        verifica(p, d);
+        DiccionarioPersistente<Integer, Integer> q = t2.persistente();
+        for (Integer v : q)
+            Assert.assertTrue(v == 0);
+    }
+
+    /**
+     * Prueba unitaria para publicar versiones en una referencia atómica
+     * mientras otro hilo lee sin candados.
+     */
+    @Test public void testPublicacion() throws InterruptedException {
+        AtomicReference<DiccionarioPersistente<Integer, Integer>> referencia =
+            new AtomicReference<DiccionarioPersistente<Integer, Integer>>(
+                new DiccionarioPersistente<Integer, Integer>());
+        boolean[] error = new boolean[1];
+        int n = total * 64;
+        Thread lector = new Thread(() -> {
+                while (true) {
+                    DiccionarioPersistente<Integer, Integer> p =
+                        referencia.get();
+                    int c = 0;
+                    for (Integer v : p) {
+                        if (v < 0 || v >= n)
+                            error[0] = true;
+                        c++;
+                    }
+                    /* Las llaves se agregan en orden, así que una versión
+                       con c elementos tiene las llaves 0..c-1. */
+                    if (c != p.getElementos() || (c > 0 && !p.contiene(c - 1)))
+                        error[0] = true;
+                    if (c == n)
+                        return;
+                }
+        });
+        lector.start();
+        for (int i = 0; i < n; i++) {
+            DiccionarioPersistente<Integer, Integer> p = referencia.get();
+            referencia.set(p.agrega(i, i));
+        }
+        lector.join();
+        Assert.assertFalse(error[0]);
+    }
+
+    /**
+     * Prueba unitaria para {@link DiccionarioPersistente#equals} y {@link
+     * DiccionarioPersistente#toString}.
+     */
+    @Test public void testEquals() {
+        DiccionarioPersistente<Integer, Integer> p =
+            new DiccionarioPersistente<Integer, Integer>();
+        DiccionarioPersistente<Integer, Integer> q =
+            new DiccionarioPersistente<Integer, Integer>();
+        Assert.assertTrue(p.equals(q));
+        Assert.assertFalse(p.equals(null));
+        for (int i = 0; i < total; i++) {
+            p = p.agrega(i, i);
+            q = q.agrega(total - i - 1, total - i - 1);
+        }
+        Assert.assertTrue(p.equals(q));
+        Assert.assertFalse(p.equals(q.agrega(0, 1)));
+        Assert.assertFalse(p.equals(q.elimina(0)));
+        p = new DiccionarioPersistente<Integer, Integer>().agrega(1, 2);
+        Assert.assertTrue(p.toString().equals("{ '1': '2', }"));
+    }
+}
@@ -0,0 +1,182 @@
+package mx.unam.ciencias.edd.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.DispersorIncremental;
+import mx.unam.ciencias.edd.Dispersores;
+import mx.unam.ciencias.edd.FabricaDispersores;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la interfaz {@link DispersorIncremental}.
+ */
+public class TestDispersorIncremental {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Directorio temporal para los archivos. */
+    @Rule public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /* Generador de números aleatorios. */
+    private Random random;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestDispersorIncremental() {
+        random = new Random();
+    }
+
+    /* Regresa la dispersión de una sola vez del arreglo. */
+    private static long dispersa(AlgoritmoDispersor algoritmo, byte[] datos) {
+        switch (algoritmo) {
+        case XOR_STRING:
+            return Dispersores.dispersaXOR(datos);
+        case BJ_STRING:
+            return Dispersores.dispersaBJ(datos);
+        case DJB_STRING:
+            return Dispersores.dispersaDJB(datos);
+        case XXH64_STRING:
+            return Dispersores.dispersaXXH64(datos);
+        case MURMUR3_STRING:
+            return Dispersores.dispersaMurmur3(datos);
+        default:
+            return Dispersores.dispersaWyhash(datos);
+        }
+    }
+
+    /* Regresa un arreglo de bytes al azar. */
+    private byte[] datos(int n) {
+        byte[] datos = new byte[n];
+        random.nextBytes(datos);
+        return datos;
+    }
+
+    /**
+     * Prueba unitaria para {@link DispersorIncremental#actualiza(byte[],
+     * int, int)} y {@link DispersorIncremental#finaliza}, partiendo la
+     * llave en pedazos al azar.
+     */
+    @Test public void testActualizaArreglo() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            DispersorIncremental dispersor =
+                FabricaDispersores.dispersorIncremental(algoritmo);
+            for (int n = 0; n < 300; n++) {
+                byte[] datos = datos(n);
+                int i = 0;
+                while (i < n) {
+                    int k = random.nextInt(Math.min(n - i, 100) + 1);
+                    dispersor.actualiza(datos, i, k);
+                    i += k;
+                }
+                Assert.assertTrue(dispersor.finaliza() ==
+                                  dispersa(algoritmo, datos));
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DispersorIncremental#actualiza(byte[])}
+     * byte por byte y de una sola vez.
+     */
+    @Test public void testActualizaBytes() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            DispersorIncremental dispersor =
+                FabricaDispersores.dispersorIncremental(algoritmo);
+            byte[] datos = datos(200 + random.nextInt(200));
+            for (byte b : datos)
+                dispersor.actualiza(new byte[] { b });
+            long h = dispersa(algoritmo, datos);
+            Assert.assertTrue(dispersor.finaliza() == h);
+            dispersor.actualiza(datos);
+            Assert.assertTrue(dispersor.finaliza() == h);
+            try {
+                dispersor.actualiza(datos, 1, datos.length);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException ioobe) {}
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * DispersorIncremental#actualiza(ByteBuffer)}.
+     */
+    @Test public void testActualizaBuffer() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            DispersorIncremental dispersor =
+                FabricaDispersores.dispersorIncremental(algoritmo);
+            byte[] datos = datos(70000 + random.nextInt(1000));
+            long h = dispersa(algoritmo, datos);
+            ByteBuffer directo = ByteBuffer.allocateDirect(datos.length + 3);
+            directo.position(3);
+            directo.put(datos);
+            directo.position(3);
+            dispersor.actualiza(directo);
+            Assert.assertFalse(directo.hasRemaining());
+            Assert.assertTrue(dispersor.finaliza() == h);
+            ByteBuffer monticulo = ByteBuffer.wrap(datos);
+            monticulo.limit(100);
+            dispersor.actualiza(monticulo);
+            Assert.assertTrue(monticulo.position() == 100);
+            monticulo.limit(datos.length);
+            dispersor.actualiza(monticulo.slice());
+            Assert.assertTrue(dispersor.finaliza() == h);
+            dispersor.actualiza(ByteBuffer.wrap(datos).asReadOnlyBuffer());
+            Assert.assertTrue(dispersor.finaliza() == h);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link DispersorIncremental#reinicia}.
+     */
+    @Test public void testReinicia() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            DispersorIncremental dispersor =
+                FabricaDispersores.dispersorIncremental(algoritmo);
+            dispersor.actualiza(datos(77));
+            dispersor.reinicia();
+            Assert.assertTrue(dispersor.finaliza() ==
+                              dispersa(algoritmo, new byte[0]));
+            byte[] datos = datos(100);
+            dispersor.actualiza(datos, 0, 50);
+            dispersor.reinicia();
+            dispersor.actualiza(datos);
+            Assert.assertTrue(dispersor.finaliza() ==
+                              dispersa(algoritmo, datos));
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Dispersores#dispersaArchivo}.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    @Test public void testDispersaArchivo() throws IOException {
+        byte[] datos = datos(100000 + random.nextInt(1000));
+        Path archivo = carpeta.newFile().toPath();
+        Files.write(archivo, datos);
+        Path vacio = carpeta.newFile().toPath();
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            long h = dispersa(algoritmo, datos);
+            Assert.assertTrue(Dispersores.dispersaArchivo(archivo, algoritmo)
+                              == h);
+            Assert.assertTrue(Dispersores.dispersaArchivo(archivo, algoritmo,
+                                                          4093) == h);
+            Assert.assertTrue(Dispersores.dispersaArchivo(vacio, algoritmo)
+                              == dispersa(algoritmo, new byte[0]));
+        }
+        try {
+            Dispersores.dispersaArchivo(archivo,
+                                        AlgoritmoDispersor.BJ_STRING, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+    }
+}
@@ -1,5 +1,8 @@
 package mx.unam.ciencias.edd.test;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.Random;
 import mx.unam.ciencias.edd.Dispersores;
 import org.junit.Assert;
@@ -156,4 +159,256 @@ public class TestDispersores {
             Assert.assertTrue(RESULTADOS_DJB[i-1] == r);
         }
     }
+
+    /* Regresa un buffer con el arreglo a partir de la posición 3; directo o
+       en el montón. */
+    private ByteBuffer buffer(boolean directo) {
+        ByteBuffer b = directo ? ByteBuffer.allocateDirect(ARREGLO.length + 3)
+            : ByteBuffer.allocate(ARREGLO.length + 3);
+        for (int i = 0; i < ARREGLO.length; i++)
+            b.put(i + 3, ARREGLO[i]);
+        return b;
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * Dispersores#dispersaBJ(ByteBuffer,int,int)}.
+     */
+    @Test public void testDispersaBJBuffer() {
+        for (boolean directo : new boolean[] { false, true }) {
+            ByteBuffer b = buffer(directo);
+            for (int i = 1; i < ARREGLO.length; i++) {
+                int r = Dispersores.dispersaBJ(b, 3, i);
+                Assert.assertTrue(RESULTADOS_BJ[i-1] == r);
+            }
+            Assert.assertTrue(b.position() == 0);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * Dispersores#dispersaDJB(ByteBuffer,int,int)}.
+     */
+    @Test public void testDispersaDJBBuffer() {
+        for (boolean directo : new boolean[] { false, true }) {
+            ByteBuffer b = buffer(directo);
+            for (int i = 1; i < ARREGLO.length; i++) {
+                int r = Dispersores.dispersaDJB(b, 3, i);
+                Assert.assertTrue(RESULTADOS_DJB[i-1] == r);
+            }
+            Assert.assertTrue(b.position() == 0);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link
+     * Dispersores#dispersaXOR(ByteBuffer,int,int)}.
+     */
+    @Test public void testDispersaXORBuffer() {
+        for (boolean directo : new boolean[] { false, true }) {
+            ByteBuffer b = buffer(directo);
+            for (int i = 1; i < ARREGLO.length; i++) {
+                int r = Dispersores.dispersaXOR(b, 3, i);
+                Assert.assertTrue(RESULTADOS_XOR[i-1] == r);
+            }
+            Assert.assertTrue(b.position() == 0);
+        }
+    }
+
+    /**
+     * Prueba unitaria para las dispersiones de <em>buffers</em> en orden
+     * <em>little-endian</em>, que no deben cambiar el resultado ni el orden
+     * del <em>buffer</em>.
+     */
+    @Test public void testOrdenBuffer() {
+        for (boolean directo : new boolean[] { false, true }) {
+            ByteBuffer b = buffer(directo).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 1; i < ARREGLO.length; i++) {
+                Assert.assertTrue(RESULTADOS_XOR[i-1] ==
+                                  Dispersores.dispersaXOR(b, 3, i));
+                Assert.assertTrue(RESULTADOS_BJ[i-1] ==
+                                  Dispersores.dispersaBJ(b, 3, i));
+                Assert.assertTrue(RESULTADOS_DJB[i-1] ==
+                                  Dispersores.dispersaDJB(b, 3, i));
+            }
+            Assert.assertTrue(b.order() == ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Prueba unitaria para las dispersiones de rangos de arreglos.
+     */
+    @Test public void testDispersaRango() {
+        Random random = new Random();
+        for (int i = 1; i < ARREGLO.length; i++) {
+            int inicio = random.nextInt(8);
+            byte[] a = new byte[inicio + i + random.nextInt(8)];
+            random.nextBytes(a);
+            System.arraycopy(ARREGLO, 0, a, inicio, i);
+            Assert.assertTrue(RESULTADOS_XOR[i-1] ==
+                              Dispersores.dispersaXOR(a, inicio, i));
+            Assert.assertTrue(RESULTADOS_BJ[i-1] ==
+                              Dispersores.dispersaBJ(a, inicio, i));
+            Assert.assertTrue(RESULTADOS_DJB[i-1] ==
+                              Dispersores.dispersaDJB(a, inicio, i));
+        }
+        Assert.assertTrue(Dispersores.dispersaBJ(ARREGLO, 5, 0) ==
+                          Dispersores.dispersaBJ(new byte[0]));
+        try {
+            Dispersores.dispersaBJ(ARREGLO, ARREGLO.length - 4, 5);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ioobe) {}
+    }
+
+    /* Mensajes publicados con las pruebas de wyhash; el i-ésimo se
+       dispersa con semilla i. Los dos últimos pasan de 48 bytes, y
+       recorren el ciclo de tres acumuladores. */
+    private static final String[] MENSAJES_WYHASH = {
+        "", "a", "abc", "message digest", "abcdefghijklmnopqrstuvwxyz",
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789",
+        "1234567890123456789012345678901234567890" +
+        "1234567890123456789012345678901234567890"
+    };
+
+    /* Los resultados publicados de wyhash. */
+    private static final long[] RESULTADOS_WYHASH = {
+        0x42bc986dc5eec4d3L, 0x84508dc903c31551L, 0x0bc54887cfc9ecb1L,
+        0x6e2ff3298208a67cL, 0x9a64e42e897195b9L, 0x9199383239c32554L,
+        0x7c1ccf6bba30f5a5L
+    };
+
+    /* Regresa los bytes en ASCII de una cadena. */
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Prueba unitaria para {@link Dispersores#dispersaXXH64} con los
+     * valores publicados.
+     */
+    @Test public void testDispersaXXH64() {
+        Assert.assertTrue(Dispersores.dispersaXXH64(ascii("")) ==
+                          0xEF46DB3751D8E999L);
+        Assert.assertTrue(Dispersores.dispersaXXH64(ascii("a")) ==
+                          0xD24EC4F1A98C6E5BL);
+        Assert.assertTrue(Dispersores.dispersaXXH64(ascii("abc")) ==
+                          0x44BC2CF5AD770999L);
+        /* Con 39 bytes se usan los cuatro acumuladores. */
+        Assert.assertTrue(Dispersores.dispersaXXH64(ascii(
+                              "Nobody inspects the spammish repetition"))
+                          == 0xfbcea83c8a378bf1L);
+    }
+
+    /**
+     * Prueba unitaria para {@link Dispersores#dispersaMurmur3} con los
+     * valores publicados.
+     */
+    @Test public void testDispersaMurmur3() {
+        Assert.assertTrue(Dispersores.dispersaMurmur3(ascii("")) == 0L);
+        Assert.assertTrue(Dispersores.dispersaMurmur3(ascii("hello")) ==
+                          0xcbd8a7b341bd9b02L);
+        Assert.assertTrue(Dispersores.dispersaMurmur3(ascii(
+                              "The quick brown fox jumps over the lazy dog"))
+                          == 0xe34bbc7bbc071b6cL);
+        /* Con 44 bytes hay dos bloques de 16 y una cola de 12. */
+        Assert.assertTrue(Dispersores.dispersaMurmur3(ascii(
+                              "The quick brown fox jumps over the lazy dog."))
+                          == 0xcd99481f9ee902c9L);
+    }
+
+    /**
+     * Prueba unitaria para {@link Dispersores#dispersaWyhash} con los
+     * valores publicados.
+     */
+    @Test public void testDispersaWyhash() {
+        for (int i = 0; i < MENSAJES_WYHASH.length; i++) {
+            byte[] m = ascii(MENSAJES_WYHASH[i]);
+            Assert.assertTrue(Dispersores.dispersaWyhash(m, 0, m.length, i)
+                              == RESULTADOS_WYHASH[i]);
+        }
+    }
+
+    /**
+     * Prueba unitaria para las dispersiones de 64 bits de rangos de
+     * arreglos, con semillas.
+     */
+    @Test public void testDispersaLargoRango() {
+        Random random = new Random();
+        for (int i = 0; i < ARREGLO.length; i++) {
+            byte[] sub = subArreglo(i);
+            int inicio = random.nextInt(8);
+            byte[] a = new byte[inicio + i + random.nextInt(8)];
+            random.nextBytes(a);
+            System.arraycopy(ARREGLO, 0, a, inicio, i);
+            long semilla = random.nextLong();
+            Assert.assertTrue(Dispersores.dispersaXXH64(sub) ==
+                              Dispersores.dispersaXXH64(a, inicio, i, 0));
+            Assert.assertTrue(Dispersores.dispersaMurmur3(sub) ==
+                              Dispersores.dispersaMurmur3(a, inicio, i, 0));
+            Assert.assertTrue(Dispersores.dispersaWyhash(sub) ==
+                              Dispersores.dispersaWyhash(a, inicio, i, 0));
+            Assert.assertTrue(Dispersores.dispersaXXH64(sub, 0, i, semilla) ==
+                              Dispersores.dispersaXXH64(a, inicio, i,
+                                                        semilla));
+            Assert.assertTrue(Dispersores.dispersaWyhash(sub, 0, i, semilla)
+                              == Dispersores.dispersaWyhash(a, inicio, i,
+                                                            semilla));
+            Assert.assertTrue(Dispersores.dispersaMurmur3(sub, 0, i, semilla)
+                              == Dispersores.dispersaMurmur3(a, inicio, i,
+                                                             semilla));
+        }
+        byte[] m = ascii("hello");
+        Assert.assertTrue(Dispersores.dispersaXXH64(m, 0, 5, 1) !=
+                          Dispersores.dispersaXXH64(m));
+        Assert.assertTrue(Dispersores.dispersaWyhash(m, 0, 5, 1) !=
+                          Dispersores.dispersaWyhash(m));
+    }
+
+    /* Cadenas con acentos, ideogramas, pares sustitutos y sustitutos sin
+       pareja, de todas las longitudes módulo 6. */
+    private static final String[] CADENAS = {
+        "", "a", "ñ", "ab", "año", "yucatán", "東京都", "河童\uD83D\uDE00",
+        "\uD83D", "x\uDE00y", "característicamente", "\uD800\uDC00\uFFFF"
+    };
+
+    /**
+     * Prueba unitaria para {@link Dispersores#dispersaXOR(CharSequence)},
+     * {@link Dispersores#dispersaBJ(CharSequence)} y {@link
+     * Dispersores#dispersaDJB(CharSequence)}.
+     */
+    @Test public void testDispersaCadena() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            char[] c = new char[i];
+            for (int j = 0; j < i; j++)
+                c[j] = (char)random.nextInt(0x10000);
+            verificaCadena(new String(c));
+        }
+        for (String cadena : CADENAS)
+            verificaCadena(cadena);
+        StringBuilder sb = new StringBuilder("yucatán");
+        Assert.assertTrue(Dispersores.dispersaBJ(sb) ==
+                          Dispersores.dispersaBJ("yucatán"));
+    }
+
+    /* Verifica que la dispersión de la cadena sea la de sus unidades en
+       little-endian, y que estas sean sus bytes en UTF-16LE cuando la
+       cadena está bien formada. */
+    private void verificaCadena(String cadena) {
+        byte[] b = new byte[2 * cadena.length()];
+        for (int i = 0; i < cadena.length(); i++) {
+            b[2 * i] = (byte)cadena.charAt(i);
+            b[2 * i + 1] = (byte)(cadena.charAt(i) >>> 8);
+        }
+        byte[] utf16 = cadena.getBytes(StandardCharsets.UTF_16LE);
+        if (cadena.codePoints().noneMatch(p -> p >= Character.MIN_SURROGATE &&
+                                          p <= Character.MAX_SURROGATE))
+            Assert.assertArrayEquals(b, utf16);
+        Assert.assertTrue(Dispersores.dispersaXOR(cadena) ==
+                          Dispersores.dispersaXOR(b));
+        Assert.assertTrue(Dispersores.dispersaBJ(cadena) ==
+                          Dispersores.dispersaBJ(b));
+        Assert.assertTrue(Dispersores.dispersaDJB(cadena) ==
+                          Dispersores.dispersaDJB(b));
+    }
 }
@@ -0,0 +1,187 @@
+package mx.unam.ciencias.edd.test;
+
+import java.util.Random;
+import mx.unam.ciencias.edd.AlgoritmoDispersor;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.EstadisticasDiccionario;
+import mx.unam.ciencias.edd.FabricaDispersores;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link EstadisticasDiccionario}.
+ */
+public class TestEstadisticasDiccionario {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+
+    /**
+     * Crea un generador de números aleatorios para cada prueba.
+     */
+    public TestEstadisticasDiccionario() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+    }
+
+    /* Verifica que las estadísticas sean consistentes con su histograma y
+       con el diccionario. */
+    private void verifica(Diccionario<Integer, Integer> d) {
+        EstadisticasDiccionario e = d.estadisticas();
+        int[] h = e.getHistograma();
+        int cubetas = 0, elementos = 0;
+        long cuadrados = 0;
+        for (int l = 0; l < h.length; l++) {
+            cubetas += h[l];
+            elementos += l * h[l];
+            cuadrados += (long)l * l * h[l];
+        }
+        Assert.assertTrue(cubetas == e.getCubetas());
+        Assert.assertTrue(elementos == d.getElementos());
+        Assert.assertTrue(elementos == e.getElementos());
+        Assert.assertTrue(h[h.length - 1] > 0 || h.length == 1);
+        Assert.assertTrue(e.getColisiones() == d.colisiones());
+        Assert.assertTrue(e.getColisionMaxima() == d.colisionMaxima());
+        Assert.assertTrue(e.getCarga() == d.carga());
+        if (elementos > 0)
+            Assert.assertEquals((cuadrados + elementos) / (2.0 * elementos),
+                                e.getCostoExitoso(), 1e-9);
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#estadisticas} con cada llave
+     * en su propia cubeta.
+     */
+    @Test public void testSinColisiones() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(total, l -> l);
+        for (int i = 0; i < total; i++)
+            d.agrega(i, i);
+        EstadisticasDiccionario e = d.estadisticas();
+        int m = e.getCubetas();
+        Assert.assertTrue(e.getColisiones() == 0);
+        Assert.assertTrue(e.getColisionMaxima() == 0);
+        Assert.assertTrue(e.getCubetasOcupadas() == total);
+        Assert.assertArrayEquals(new int[] { m - total, total },
+                                 e.getHistograma());
+        Assert.assertEquals(1.0, e.getCostoExitoso(), 1e-9);
+        Assert.assertEquals((double)total / m, e.getCostoFallido(), 1e-9);
+        Assert.assertEquals(m - total, e.getJiCuadrada(), 1e-6);
+        Assert.assertTrue(e.getGradosLibertad() == m - 1);
+        verifica(d);
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#estadisticas} con todas las
+     * llaves en la misma cubeta.
+     */
+    @Test public void testUnaCubeta() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(total, l -> 0);
+        int n = total / 2;
+        for (int i = 0; i < n; i++)
+            d.agrega(i, i);
+        EstadisticasDiccionario e = d.estadisticas();
+        int m = e.getCubetas();
+        Assert.assertTrue(e.getColisiones() == n - 1);
+        Assert.assertTrue(e.getColisionMaxima() == n - 1);
+        Assert.assertTrue(e.getHistograma()[0] == m - 1);
+        Assert.assertTrue(e.getHistograma()[n] == 1);
+        Assert.assertEquals((double)n * (m - 1), e.getJiCuadrada(), 1e-6);
+        Assert.assertEquals(n, e.getCalidad(), 1e-9);
+        Assert.assertEquals((n + 1) / 2.0, e.getCostoExitoso(), 1e-9);
+        for (int i = 0; i < n; i++) {
+            d.elimina(i);
+            Assert.assertTrue(d.colisionMaxima() == n - i - 2);
+        }
+        e = d.estadisticas();
+        Assert.assertTrue(e.getHistograma().length == 1);
+        Assert.assertTrue(e.getJiCuadrada() == 0.0);
+    }
+
+    /**
+     * Prueba unitaria para mantener las estadísticas al agregar, eliminar y
+     * crecer, de golpe y de manera incremental.
+     */
+    @Test public void testIncrementales() {
+        for (boolean incremental : new boolean[] { false, true }) {
+            Diccionario<Integer, Integer> d =
+                new Diccionario<Integer, Integer>(l -> l % 1000);
+            d.setIncremental(incremental);
+            for (int i = 0; i < total * 16; i++) {
+                int l = random.nextInt(total * 32);
+                if (d.contiene(l) && random.nextBoolean())
+                    d.elimina(l);
+                else
+                    d.agrega(l, l);
+                if (i % 37 == 0)
+                    verifica(d);
+            }
+            verifica(d);
+            EstadisticasDiccionario e = d.estadisticas();
+            Assert.assertTrue(e.getCrecimientos() > 0);
+            Assert.assertTrue(e.getTiempoCrecimiento() > 0);
+            d.limpia();
+            verifica(d);
+            Assert.assertTrue(d.colisionMaxima() == -1);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link Diccionario#estadisticas} durante una
+     * migración incremental: deben ser las mismas que las de un diccionario
+     * que crece de golpe con las mismas operaciones.
+     */
+    @Test public void testDuranteMigracion() {
+        Diccionario<Integer, Integer> d =
+            new Diccionario<Integer, Integer>(l -> l % 1000);
+        Diccionario<Integer, Integer> g =
+            new Diccionario<Integer, Integer>(l -> l % 1000);
+        d.setIncremental(true);
+        for (int i = 0; i < total * 16; i++) {
+            int l = random.nextInt(total * 32);
+            if (d.contiene(l) && random.nextBoolean()) {
+                d.elimina(l);
+                g.elimina(l);
+            } else {
+                d.agrega(l, l);
+                g.agrega(l, l);
+            }
+            EstadisticasDiccionario e = d.estadisticas();
+            EstadisticasDiccionario f = g.estadisticas();
+            Assert.assertArrayEquals(f.getHistograma(), e.getHistograma());
+            Assert.assertTrue(e.getCubetas() == f.getCubetas());
+            Assert.assertTrue(d.colisiones() == g.colisiones());
+            Assert.assertTrue(d.colisionMaxima() == g.colisionMaxima());
+            Assert.assertEquals(f.getCostoExitoso(), e.getCostoExitoso(),
+                                1e-9);
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link EstadisticasDiccionario#getCalidad} con un
+     * buen dispersor.
+     */
+    @Test public void testCalidad() {
+        Diccionario<String, String> d = new Diccionario<String, String>(
+            1000, FabricaDispersores.dispersorCadena(
+                AlgoritmoDispersor.BJ_STRING));
+        EstadisticasDiccionario e = d.estadisticas();
+        int n = e.getCubetas() / 2;
+        for (int i = 0; i < n; i++) {
+            String s = Long.toHexString(random.nextLong());
+            d.agrega(s, s);
+        }
+        e = d.estadisticas();
+        Assert.assertTrue(e.getCalidad() > 0.7 && e.getCalidad() < 1.3);
+        Assert.assertTrue(e.toString().contains("calidad="));
+    }
+}
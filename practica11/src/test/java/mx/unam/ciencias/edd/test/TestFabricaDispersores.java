@@ -1,9 +1,13 @@
 package mx.unam.ciencias.edd.test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 import mx.unam.ciencias.edd.AlgoritmoDispersor;
 import mx.unam.ciencias.edd.FabricaDispersores;
 import mx.unam.ciencias.edd.Dispersor;
+import mx.unam.ciencias.edd.DispersorLargo;
+import mx.unam.ciencias.edd.Dispersores;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -115,4 +119,127 @@ public class TestFabricaDispersores {
         for (String mensaje : MENSAJES)
             Assert.assertTrue(djb.dispersa(mensaje) == DISPERSORES_DJB[i++]);
     }
+
+    /**
+     * Prueba unitaria para {@link FabricaDispersores#dispersorLargoCadena}
+     * y para {@link FabricaDispersores#dispersorCadena} con los algoritmos
+     * de 64 bits.
+     */
+    @Test public void testDispersorLargoCadena() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            if (!algoritmo.esLargo()) {
+                try {
+                    FabricaDispersores.dispersorLargoCadena(algoritmo);
+                    Assert.fail();
+                } catch (IllegalArgumentException iae) {}
+                continue;
+            }
+            DispersorLargo<String> largo =
+                FabricaDispersores.dispersorLargoCadena(algoritmo);
+            Dispersor<String> corto =
+                FabricaDispersores.dispersorCadena(algoritmo);
+            for (String mensaje : MENSAJES) {
+                byte[] b = mensaje.getBytes(StandardCharsets.UTF_8);
+                long h = 0;
+                switch (algoritmo) {
+                case XXH64_STRING:
+                    h = Dispersores.dispersaXXH64(b);
+                    break;
+                case MURMUR3_STRING:
+                    h = Dispersores.dispersaMurmur3(b);
+                    break;
+                default:
+                    h = Dispersores.dispersaWyhash(b);
+                }
+                Assert.assertTrue(largo.dispersa(mensaje) == h);
+                Assert.assertTrue(corto.dispersa(mensaje) ==
+                                  (int)(h ^ (h >>> 32)));
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link FabricaDispersores#dispersorCadenaUTF16}.
+     */
+    @Test public void testDispersorCadenaUTF16() {
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            if (algoritmo.esLargo()) {
+                try {
+                    FabricaDispersores.dispersorCadenaUTF16(algoritmo);
+                    Assert.fail();
+                } catch (IllegalArgumentException iae) {}
+                continue;
+            }
+            dispersor = FabricaDispersores.dispersorCadenaUTF16(algoritmo);
+            for (String mensaje : MENSAJES) {
+                byte[] b = mensaje.getBytes(StandardCharsets.UTF_16LE);
+                int h = 0;
+                switch (algoritmo) {
+                case XOR_STRING:
+                    h = Dispersores.dispersaXOR(b);
+                    break;
+                case BJ_STRING:
+                    h = Dispersores.dispersaBJ(b);
+                    break;
+                default:
+                    h = Dispersores.dispersaDJB(b);
+                }
+                Assert.assertTrue(dispersor.dispersa(mensaje) == h);
+            }
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link FabricaDispersores#dispersorCadenaUTF8}.
+     */
+    @Test public void testDispersorCadenaUTF8() {
+        Random random = new Random(23);
+        String[] cadenas = new String[MENSAJES.length + 104];
+        System.arraycopy(MENSAJES, 0, cadenas, 0, MENSAJES.length);
+        int k = MENSAJES.length;
+        cadenas[k++] = "東京都 \uD83D\uDE00 \uD83D x\uDE00 \uDBFF";
+        cadenas[k++] = "";
+        /* Más grandes que el arreglo por hilo. */
+        char[] grande = new char[40000];
+        Arrays.fill(grande, 'ñ');
+        cadenas[k++] = new String(grande);
+        Arrays.fill(grande, '都');
+        cadenas[k++] = new String(grande);
+        while (k < cadenas.length) {
+            char[] c = new char[random.nextInt(100)];
+            for (int j = 0; j < c.length; j++)
+                c[j] = (char)(random.nextBoolean() ? random.nextInt(0x80) :
+                              random.nextInt(0x10000));
+            cadenas[k++] = new String(c);
+        }
+        for (AlgoritmoDispersor algoritmo : AlgoritmoDispersor.values()) {
+            dispersor = FabricaDispersores.dispersorCadenaUTF8(algoritmo);
+            for (String cadena : cadenas) {
+                byte[] b = cadena.getBytes(StandardCharsets.UTF_8);
+                long h = 0;
+                switch (algoritmo) {
+                case XOR_STRING:
+                    h = Dispersores.dispersaXOR(b);
+                    break;
+                case BJ_STRING:
+                    h = Dispersores.dispersaBJ(b);
+                    break;
+                case DJB_STRING:
+                    h = Dispersores.dispersaDJB(b);
+                    break;
+                case XXH64_STRING:
+                    h = Dispersores.dispersaXXH64(b);
+                    break;
+                case MURMUR3_STRING:
+                    h = Dispersores.dispersaMurmur3(b);
+                    break;
+                default:
+                    h = Dispersores.dispersaWyhash(b);
+                }
+                int esperada = algoritmo.esLargo() ?
+                    (int)(h ^ (h >>> 32)) : (int)h;
+                Assert.assertTrue(dispersor.dispersa(cadena) == esperada);
+            }
+        }
+    }
 }
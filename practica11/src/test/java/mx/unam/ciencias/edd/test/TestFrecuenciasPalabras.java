@@ -0,0 +1,135 @@
+package mx.unam.ciencias.edd.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import mx.unam.ciencias.edd.Diccionario;
+import mx.unam.ciencias.edd.FrecuenciasPalabras;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+/**
+ * Clase para pruebas unitarias de la clase {@link FrecuenciasPalabras}.
+ */
+public class TestFrecuenciasPalabras {
+
+    /** Expiración para que ninguna prueba tarde más de 5 segundos. */
+    @Rule public Timeout expiracion = Timeout.seconds(5);
+
+    /** Directorio temporal para los archivos. */
+    @Rule public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /* Palabras para los textos. */
+    private static final String[] PALABRAS = {
+        "a", "el", "ñandú", "árbol", "日本語", "casa", "x-y", "¿qué?"
+    };
+    /* Separadores para los textos. */
+    private static final String[] ESPACIOS = {
+        " ", "  ", "\n", "\t", "\r\n", " \f", "\u000B"
+    };
+
+    /* Generador de números aleatorios. */
+    private Random random;
+    /* Número total de elementos. */
+    private int total;
+
+    /**
+     * Crea el generador para cada prueba.
+     */
+    public TestFrecuenciasPalabras() {
+        int N = 64;
+        random = new Random();
+        total = N + random.nextInt(N);
+    }
+
+    /* Escribe un texto al azar y regresa su archivo. */
+    private Path texto(int palabras) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean())
+            sb.append(ESPACIOS[random.nextInt(ESPACIOS.length)]);
+        for (int i = 0; i < palabras; i++) {
+            if (random.nextInt(4) == 0)
+                sb.append(PALABRAS[random.nextInt(PALABRAS.length)]);
+            else
+                sb.append("p").append(random.nextInt(total));
+            sb.append(ESPACIOS[random.nextInt(ESPACIOS.length)]);
+        }
+        if (random.nextBoolean())
+            sb.append("fin");
+        Path archivo = carpeta.newFile().toPath();
+        Files.write(archivo, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return archivo;
+    }
+
+    /* Cuenta las palabras del archivo separándolas con una expresión
+       regular. */
+    private static Diccionario<String, Long> referencia(Path archivo)
+        throws IOException {
+        String s = new String(Files.readAllBytes(archivo),
+                              StandardCharsets.UTF_8);
+        Diccionario<String, Long> d = new Diccionario<String, Long>();
+        for (String p : s.split("[ \\t\\n\\r\\f\\u000B]+"))
+            if (!p.isEmpty())
+                Diccionario.incrementa(d, p, 1);
+        return d;
+    }
+
+    /* Verifica que los dos conteos sean iguales. */
+    private static void verifica(Diccionario<String, Long> esperado,
+                                 Diccionario<String, Long> obtenido) {
+        Assert.assertTrue(obtenido.getElementos() ==
+                          esperado.getElementos());
+        Iterator<String> iterador = esperado.iteradorLlaves();
+        while (iterador.hasNext()) {
+            String p = iterador.next();
+            Assert.assertTrue(obtenido.get(p).equals(esperado.get(p)));
+        }
+    }
+
+    /**
+     * Prueba unitaria para {@link FrecuenciasPalabras#cuenta} con uno y
+     * varios hilos.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testCuenta() throws IOException {
+        Path archivo = texto(total * 64);
+        Diccionario<String, Long> esperado = referencia(archivo);
+        for (int hilos = 1; hilos <= 4; hilos++)
+            verifica(esperado, FrecuenciasPalabras.cuenta(archivo, hilos));
+        try {
+            FrecuenciasPalabras.cuenta(archivo, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException iae) {}
+        archivo = carpeta.newFile().toPath();
+        Assert.assertTrue(FrecuenciasPalabras.cuenta(archivo, 2).esVacia());
+        Files.write(archivo, " \n\t ".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(FrecuenciasPalabras.cuenta(archivo, 2).esVacia());
+    }
+
+    /**
+     * Prueba unitaria para las palabras en los límites de los pedazos del
+     * archivo, con pedazos más pequeños que las palabras.
+     * @throws IOException si ocurre un error de entrada/salida.
+     */
+    @Test public void testPedazos() throws IOException {
+        Path archivo = texto(total * 64);
+        Diccionario<String, Long> esperado = referencia(archivo);
+        for (int tamanio = 1; tamanio <= 64; tamanio *= 2)
+            verifica(esperado,
+                     FrecuenciasPalabras.cuenta(archivo, 3, tamanio));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < total * 8; i++)
+            sb.append("ñ");
+        Files.write(archivo, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Diccionario<String, Long> d =
+            FrecuenciasPalabras.cuenta(archivo, 2, 7);
+        Assert.assertTrue(d.getElementos() == 1);
+        Assert.assertTrue(d.get(sb.toString()) == 1L);
+    }
+}